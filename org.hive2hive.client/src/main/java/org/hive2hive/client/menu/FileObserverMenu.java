@@ -6,6 +6,7 @@ import org.hive2hive.client.util.MenuContainer;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.api.H2HFileObserver;
 import org.hive2hive.core.api.H2HFileObserverListener;
+import org.hive2hive.core.api.H2HNativeFileObserver;
 import org.hive2hive.core.api.interfaces.IFileObserver;
 import org.hive2hive.core.api.interfaces.IFileObserverListener;
 
@@ -13,6 +14,7 @@ public class FileObserverMenu extends H2HConsoleMenu {
 
 	private IFileObserver fileObserver;
 	private long interval = H2HConstants.DEFAULT_FILE_OBSERVER_INTERVAL;
+	private boolean useNativeObserver = false;
 
 	public FileObserverMenu(MenuContainer menus) {
 		super(menus);
@@ -29,6 +31,13 @@ public class FileObserverMenu extends H2HConsoleMenu {
 					interval = awaitIntParameter();
 				}
 			});
+
+			add(new H2HConsoleMenuItem("Use Native Observer") {
+				protected void execute() {
+					System.out.println("Use the file system events instead of polling (true/false):");
+					useNativeObserver = awaitBooleanParameter();
+				}
+			});
 		}
 
 		add(new H2HConsoleMenuItem("Start File Observer") {
@@ -42,7 +51,11 @@ public class FileObserverMenu extends H2HConsoleMenu {
 
 			protected void execute() throws Exception {
 
-				fileObserver = new H2HFileObserver(menus.getFileMenu().getRootDirectory(), interval);
+				if (useNativeObserver) {
+					fileObserver = new H2HNativeFileObserver(menus.getFileMenu().getRootDirectory());
+				} else {
+					fileObserver = new H2HFileObserver(menus.getFileMenu().getRootDirectory(), interval);
+				}
 
 				IFileObserverListener listener = new H2HFileObserverListener(menus.getNodeMenu().getNode().getFileManager());
 
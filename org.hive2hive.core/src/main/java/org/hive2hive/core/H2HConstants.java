@@ -22,6 +22,7 @@ public interface H2HConstants {
 	public static final BigInteger DEFAULT_MAX_SIZE_OF_ALL_VERSIONS = DEFAULT_MAX_FILE_SIZE
 			.multiply(BigInteger.valueOf(DEFAULT_MAX_NUM_OF_VERSIONS));// max_size * max_num
 	public static final int DEFAULT_CHUNK_SIZE = MEGABYTES.intValue(); // 1 MB
+	public static final BigInteger DEFAULT_MAX_CHUNK_CACHE_SIZE = BigInteger.valueOf(100).multiply(MEGABYTES); // 100 MB
 
 	public static final boolean DEFAULT_AUTOSTART_PROCESSES = true;
 	public static final boolean DEFAULT_IS_INITIAL_PEER = false;
@@ -38,20 +39,65 @@ public interface H2HConstants {
 	// the configuration file name (lying in the root directory of the node)
 	public static final String META_FILE_NAME = "h2h.conf";
 
+	// files modified less than this before the meta data has been written are hashed again at the next visit
+	// because a later modification may not change the modification time (coarse file system timestamps)
+	public static final long MODIFICATION_TIME_GRANULARITY_MS = 2000;
+
+	// the size of the blocks in which the MD5 hash of a file is calculated, each block is digested twice (see
+	// EncryptionUtil#generateMD5Hash(File)), the hashes in existing user profiles depend on it
+	public static final int MD5_BLOCK_SIZE = 1024;
+
+	// the default directory where the state of a client is stored which must not be synchronized (outside of
+	// the root directory, only accessible by the owner), see IFileConfiguration#getStateDirectory()
+	public static final File DEFAULT_STATE_DIRECTORY = new File(System.getProperty("user.home"), ".hive2hive");
+
+	// the upload journal file name (lying in the state directory of the user)
+	public static final String UPLOAD_JOURNAL_FILE_NAME = "h2h.journal";
+
+	// enable/disable recording the uploaded chunks such that interrupted uploads can be continued
+	public static final boolean UPLOAD_JOURNAL_ENABLED = false;
+
+	// the put log file name (lying in the state directory of the user)
+	public static final String PUT_LOG_FILE_NAME = "h2h.putlog";
+
 	// the trash directory, where deleted files are moved
 	public static final File TRASH_DIRECTORY = new File(FileUtils.getTempDirectory(), "H2HTrash");
 
+	// prefix of the directories (lying in the state directory) where the chunks of a user are cached
+	public static final String CHUNK_CACHE_DIRECTORY_PREFIX = "chunks-";
+
 	// configurations for network messages
 	public static final int MAX_MESSAGE_SENDING = 5;
 	public static final int MAX_MESSAGE_SENDING_DIRECT = 3;
 
+	// maximum number of resends of a message rejected by a saturated receiver (not counted as failures)
+	public static final int MAX_MESSAGE_SENDING_BUSY = 5;
+
+	// the delay before resending a message rejected by a saturated receiver, doubled with every rejection
+	public static final long MESSAGE_BUSY_BACKOFF_MS = 100;
+
 	// enable/disable the put verification on the remote peer
 	public static final boolean REMOTE_VERIFICATION_ENABLED = true;
 
+	// default capacity in bytes of the storage of a node (kept in memory). Set to 0 for an unlimited storage
+	public static final long DEFAULT_MAX_STORAGE_SIZE = 512L * 1024 * 1024; // 512 MB
+
+	// default capacity in bytes of the storage of a node per protection key (i.e. per user or shared folder).
+	// Set to 0 for no limit
+	public static final long DEFAULT_MAX_STORAGE_SIZE_PER_KEY = 0;
+
+	// maximal number of contents checked for removed entries when the storage of a node is full, the next
+	// check continues with the following contents
+	public static final int STORAGE_RECONCILE_BATCH_SIZE = 100;
+
 	// maximal numbers of versions kept in the DHT (see versionKey)
 	public static final int MAX_VERSIONS_HISTORY = 5;
 	public static final long MIN_VERSION_AGE_BEFORE_REMOVAL_MS = 5 * 60 * 1000; // 5 mins
 
+	// maximum number of decrypted meta files that are cached per node. They are only reused as long as their
+	// version in the DHT did not change. Set to 0 to disable the cache
+	public static final int META_FILE_CACHE_SIZE = 100;
+
 	// DHT content keys - these are used to distinguish the different data types
 	// stored for a given key
 	public static final String USER_PROFILE = "USER_PROFILE";
@@ -59,14 +105,47 @@ public interface H2HConstants {
 	public static final String USER_PUBLIC_KEY = "USER_PUBLIC_KEY";
 	public static final String FILE_CHUNK = "FILE_CHUNK";
 	public static final String META_FILE = "META_FILE";
+	public static final String META_FILE_PAGE = "META_FILE_PAGE";
+	public static final String USER_PROFILE_SHARD = "USER_PROFILE_SHARD";
 
 	public static final int PUT_RETRIES = 3; // number of allowed tries to retry a put
 	public static final int REMOVE_RETRIES = 3; // number of allowed tries to retry a remove
 	public static final int GET_RETRIES = 3; // number of allowed tries to retry a get
 
+	// default number of nodes a content is put to and read from (the default of TomP2P). Can be configured
+	// per content type, see NetworkConfiguration
+	public static final int DEFAULT_REPLICATION_FACTOR = 3;
+	// default number of nodes that need to accept a put (majority of the default replication factor)
+	public static final int DEFAULT_WRITE_QUORUM = 2;
+	// default number of nodes that need to deliver the content of a get
+	public static final int DEFAULT_READ_QUORUM = 1;
+	// number of nodes that may fail before a put or get is given up (the default of TomP2P)
+	public static final int REPLICATION_MAX_FAILURES = 5;
+	// number of additional nodes that are contacted in parallel at a put or get (the default of TomP2P)
+	public static final int REPLICATION_PARALLEL_DIFF = 3;
+
 	// maximum delay to wait until peers have time to answer until they get removed from the locations
 	public static final int CONTACT_PEERS_AWAIT_MS = 10000;
 
+	// maximum number of other clients that are contacted concurrently during the login
+	public static final int MAX_CONCURRENT_CONTACT_PEERS = 10;
+
+	// time how long the result of a liveness check of another client is reused
+	public static final long PEER_LIVENESS_CACHE_MS = 30000;
+
+	// maximum number of notification messages that are sent concurrently (by all notification processes)
+	public static final int MAX_CONCURRENT_NOTIFICATIONS = 10;
+
+	// maximum delay to wait until all notification messages are delivered
+	public static final long NOTIFICATION_SEND_TIMEOUT_MS = 10000;
+
+	// time window in which notifications of file processes are collected and sent as one batch. Set to 0 to
+	// notify after each process separately
+	public static final long NOTIFICATION_COALESCE_WINDOW_MS = 500;
+
+	// maximum number of notifications in a batch. A full batch is sent before the time window expires
+	public static final int MAX_COALESCED_NOTIFICATIONS = 100;
+
 	// maximum delay to wait until a peer candidate replies whether a direct download is possible or not
 	public static final int DIRECT_DOWNLOAD_AWAIT_MS = 10000;
 
@@ -79,6 +158,18 @@ public interface H2HConstants {
 	// times, too many threads can exceed the available memory
 	public static final int NUM_OF_NETWORK_THREADS = 32;
 
+	/**
+	 * Inbound Message Handling
+	 */
+	// maximum number of received messages being decrypted and verified at the same time
+	public static final int MAX_CONCURRENT_MESSAGE_VERIFICATIONS = 4;
+
+	// number of threads handling accepted messages of the same type
+	public static final int NUM_OF_MESSAGE_HANDLER_THREADS = 4;
+
+	// maximum number of accepted messages of the same type waiting to be handled
+	public static final int MESSAGE_HANDLER_QUEUE_SIZE = 256;
+
 	/**
 	 * Encryption Key Management
 	 */
@@ -97,24 +188,123 @@ public interface H2HConstants {
 	// key length for symmetric part of hybrid encryption
 	public static final AES_KEYLENGTH KEYLENGTH_HYBRID_AES = AES_KEYLENGTH.BIT_256;
 
+	// key length for symmetric session keys between two peers
+	public static final AES_KEYLENGTH KEYLENGTH_SESSION_AES = AES_KEYLENGTH.BIT_256;
+
+	/**
+	 * Message Session Keys
+	 */
+	// enable/disable symmetric session keys for direct messages (falls back to hybrid encryption)
+	public static final boolean SESSION_KEYS_ENABLED = true;
+
+	// lifetime of a session key between two peers in milliseconds
+	public static final long SESSION_KEY_LIFETIME_MS = 10 * 60 * 1000; // 10 mins
+
+	// maximum number of cached session keys (per direction)
+	public static final int MAX_SESSION_KEYS = 1024;
+
 	/**
 	 * TTL Refreshment Management
 	 */
-	// delay in milliseconds before first ttl refreshment task is to be executed
-	public static final int TTL_REFRESHMENT_DELAY = 500;
+	// enable/disable the periodical refreshment of the ttl of the user profile, meta files and chunks
+	public static final boolean TTL_REFRESHMENT_ENABLED = true;
+
+	// delay in milliseconds before first ttl refreshment task is to be executed (not to compete with the
+	// synchronization after the login)
+	public static final int TTL_REFRESHMENT_DELAY = 60 * 1000; // 1 min
 
 	// period in milliseconds between successive ttl refreshment task executions
 	public static final int TTL_REFRESHMENT_PERIOD = 1000;
 
+	// maximum number of files of the user profile that are checked per ttl refreshment task execution
+	public static final int TTL_REFRESHMENT_FILES_PER_TASK = 5;
+
+	// maximum number of ttl extensions (put meta) that are sent per ttl refreshment task execution
+	public static final int TTL_REFRESHMENT_MAX_PUTS_PER_TASK = 20;
+
+	// minimum time in milliseconds between two walks through the user profile
+	public static final long TTL_REFRESHMENT_PASS_INTERVAL_MS = 60 * 60 * 1000; // 1 hour
+
+	// fraction of the ttl after which stored data is refreshed
+	public static final double TTL_REFRESHMENT_RATE = 0.5;
+
+	// maximum fraction of the ttl by which a refreshment is randomly brought forward, such that the
+	// refreshments of data stored at the same time are spread
+	public static final double TTL_REFRESHMENT_JITTER = 0.1;
+
+	/**
+	 * Orphan Collection
+	 */
+	// enable/disable recording the put chunks and meta files and removing them when they are not referenced
+	// by the user profile anymore
+	public static final boolean ORPHAN_COLLECTION_ENABLED = true;
+
+	// delay in milliseconds before the first orphan collection task is to be executed
+	public static final int ORPHAN_COLLECTION_DELAY = 5 * 60 * 1000; // 5 min
+
+	// period in milliseconds between successive orphan collection task executions
+	public static final int ORPHAN_COLLECTION_PERIOD = 1000;
+
+	// maximum number of meta files that are loaded per orphan collection task execution
+	public static final int ORPHAN_COLLECTION_FILES_PER_TASK = 5;
+
+	// maximum number of orphans that are removed per orphan collection task execution
+	public static final int ORPHAN_COLLECTION_MAX_REMOVALS_PER_TASK = 10;
+
+	// minimum time in milliseconds between two walks through the user profile
+	public static final long ORPHAN_COLLECTION_PASS_INTERVAL_MS = 6 * 60 * 60 * 1000; // 6 hours
+
+	// minimum age in milliseconds of a put chunk or meta file before it is considered to be orphaned, such
+	// that the data of running processes is not removed
+	public static final long ORPHAN_COLLECTION_GRACE_PERIOD_MS = 24 * 60 * 60 * 1000; // 1 day
+
 	/**
 	 * File Observer
 	 */
 	// default interval in milliseconds between file observation checks
 	public static final long DEFAULT_FILE_OBSERVER_INTERVAL = 1000;
 
+	// number of threads processing the buffered file events, shared by all file buffers
+	public static final int FILE_BUFFER_THREADS = 3;
+
+	// time in milliseconds a modified file must not have been changed before it is uploaded
+	public static final long FILE_QUIESCENCE_TIME_MS = 2000;
+
+	/**
+	 * Meta Files
+	 */
+	// number of the newest versions that always stay in the meta file itself
+	public static final int META_FILE_HEAD_VERSIONS = 5;
+
+	// number of older versions that are moved together into a page, stored separately from the meta file
+	public static final int META_FILE_PAGE_SIZE = 10;
+
+	/**
+	 * User Profile
+	 */
+	// enable/disable storing large top-level folders of the user profile as separate shards. Clients of older
+	// versions cannot read a sharded user profile, thus it is disabled by default
+	public static final boolean USER_PROFILE_SHARDING_ENABLED = false;
+
+	// minimum number of files and folders in a top-level folder to store it as a separate shard
+	public static final int USER_PROFILE_SHARD_MIN_ENTRIES = 100;
+
 	/**
 	 * Download Manager
 	 */
 	// the number of concurrent downloads
 	public static final int CONCURRENT_DOWNLOADS = 25;
+
+	/**
+	 * Process Framework
+	 */
+	// default number of components of a dependency-graph process that are executed concurrently
+	public static final int DAG_PROCESS_PARALLELISM = 5;
+
+	// enable/disable recording the execution times and rollbacks of process components. Can be changed at
+	// runtime over JMX (org.hive2hive.core:type=ProcessMetrics)
+	public static final boolean PROCESS_METRICS_ENABLED = false;
+
+	// interval in milliseconds in which the recorded process metrics are logged. Set to 0 to disable
+	public static final long PROCESS_METRICS_REPORT_INTERVAL_MS = 60000;
 }
@@ -5,7 +5,12 @@ import java.nio.file.Path;
 import java.security.KeyPair;
 
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
+import org.hive2hive.core.file.ChunkCache;
+import org.hive2hive.core.file.PutLog;
+import org.hive2hive.core.file.UploadJournal;
+import org.hive2hive.core.network.data.OrphanCollector;
 import org.hive2hive.core.network.data.PublicKeyManager;
+import org.hive2hive.core.network.data.TTLRefreshManager;
 import org.hive2hive.core.network.data.UserProfileManager;
 import org.hive2hive.core.network.data.download.DownloadManager;
 import org.hive2hive.core.processes.implementations.login.SessionParameters;
@@ -18,10 +23,16 @@ public class H2HSession {
 	private final DownloadManager downloadManager;
 	private final IFileConfiguration fileConfiguration;
 	private final Path root;
+	private UploadJournal uploadJournal;
+	private TTLRefreshManager refreshManager;
+	private OrphanCollector orphanCollector;
 
 	public H2HSession(SessionParameters params) {
 		this(params.getProfileManager(), params.getKeyManager(), params.getDownloadManager(), params
 				.getFileConfig(), params.getRoot());
+		this.uploadJournal = params.getUploadJournal();
+		this.refreshManager = params.getRefreshManager();
+		this.orphanCollector = params.getOrphanCollector();
 	}
 
 	// TODO remove constructor
@@ -86,4 +97,49 @@ public class H2HSession {
 	public DownloadManager getDownloadManager() {
 		return downloadManager;
 	}
+
+	/**
+	 * Returns the journal of the running uploads
+	 * 
+	 * @return the upload journal or <code>null</code> if disabled
+	 */
+	public UploadJournal getUploadJournal() {
+		return uploadJournal;
+	}
+
+	/**
+	 * Returns the cache for the chunks in the DHT
+	 * 
+	 * @return the chunk cache or <code>null</code> if disabled
+	 */
+	public ChunkCache getChunkCache() {
+		return downloadManager == null ? null : downloadManager.getChunkCache();
+	}
+
+	/**
+	 * Returns the manager refreshing the time-to-live of the stored data
+	 * 
+	 * @return the TTL refresh manager or <code>null</code> if disabled
+	 */
+	public TTLRefreshManager getRefreshManager() {
+		return refreshManager;
+	}
+
+	/**
+	 * Returns the collector removing orphaned chunks and meta files from the network
+	 * 
+	 * @return the orphan collector or <code>null</code> if disabled
+	 */
+	public OrphanCollector getOrphanCollector() {
+		return orphanCollector;
+	}
+
+	/**
+	 * Returns the log of the chunks and meta files put by this client
+	 * 
+	 * @return the put log or <code>null</code> if the orphan collection is disabled
+	 */
+	public PutLog getPutLog() {
+		return orphanCollector == null ? null : orphanCollector.getPutLog();
+	}
 }
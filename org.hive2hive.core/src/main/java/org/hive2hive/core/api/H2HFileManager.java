@@ -3,22 +3,31 @@ package org.hive2hive.core.api;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import org.hive2hive.core.H2HSession;
 import org.hive2hive.core.api.interfaces.IFileManager;
+import org.hive2hive.core.exceptions.GetFailedException;
 import org.hive2hive.core.exceptions.IllegalFileLocation;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.PermissionType;
 import org.hive2hive.core.model.UserPermission;
+import org.hive2hive.core.model.UserProfile;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.processes.ProcessFactory;
+import org.hive2hive.core.processes.framework.ProcessState;
 import org.hive2hive.core.processes.framework.decorators.AsyncComponent;
 import org.hive2hive.core.processes.framework.decorators.AsyncResultComponent;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
 import org.hive2hive.core.processes.framework.interfaces.IResultProcessComponent;
+import org.hive2hive.core.processes.implementations.files.bulk.BulkFileProcess;
 import org.hive2hive.core.processes.implementations.files.list.FileTaste;
 import org.hive2hive.core.processes.implementations.files.recover.IVersionSelector;
 import org.hive2hive.core.processes.implementations.files.util.FileRecursionUtil;
@@ -90,15 +99,16 @@ public class H2HFileManager extends H2HManager implements IFileManager {
 	@Override
 	public IProcessComponent move(File source, File destination) throws NoSessionException,
 			NoPeerConnectionException {
-		// TODO support the file listener that already moved the file
-		if (!source.exists()) {
+		if (!source.exists() && !destination.exists()) {
 			throw new IllegalArgumentException("Source file not found");
-		} else if (destination.exists()) {
+		} else if (source.exists() && destination.exists()) {
 			throw new IllegalArgumentException("Destination already exists");
 		} else if (!FileUtil.isInH2HDirectory(source, networkManager.getSession())) {
 			throw new IllegalArgumentException("Source file not in the Hive2Hive directory");
 		} else if (!FileUtil.isInH2HDirectory(destination, networkManager.getSession())) {
 			throw new IllegalArgumentException("Destination file not in the Hive2Hive directory");
+		} else if (!source.exists() && !isMovedOnDisk(source, destination)) {
+			throw new IllegalArgumentException("Source file not found and the destination does not match it");
 		}
 
 		IProcessComponent moveProcess = ProcessFactory.instance().createMoveFileProcess(source, destination,
@@ -110,6 +120,21 @@ public class H2HFileManager extends H2HManager implements IFileManager {
 		return asyncProcess;
 	}
 
+	/**
+	 * Checks whether the source has already been moved on disk, i.e. the destination has the content of the
+	 * source in the user profile
+	 */
+	private boolean isMovedOnDisk(File source, File destination) throws NoSessionException {
+		H2HSession session = networkManager.getSession();
+		try {
+			UserProfile userProfile = session.getProfileManager().getUserProfile(UUID.randomUUID().toString(),
+					false);
+			return FileUtil.matchesIndex(destination, userProfile.getFileByPath(source, session.getRoot()));
+		} catch (GetFailedException e) {
+			return false;
+		}
+	}
+
 	@Override
 	public IProcessComponent delete(File file) throws NoSessionException, NoPeerConnectionException {
 		if (!FileUtil.isInH2HDirectory(file, networkManager.getSession())) {
@@ -132,6 +157,88 @@ public class H2HFileManager extends H2HManager implements IFileManager {
 		return asyncProcess;
 	}
 
+	@Override
+	public IResultProcessComponent<Map<File, ProcessState>> addAll(List<File> files) throws NoSessionException,
+			NoPeerConnectionException, IllegalFileLocation {
+		// verify the arguments
+		H2HSession session = networkManager.getSession();
+		for (File file : files) {
+			if (file == null) {
+				throw new IllegalArgumentException("File cannot be null.");
+			} else if (!file.exists()) {
+				throw new IllegalArgumentException(String.format("File '%s' does not exist.", file.getName()));
+			} else if (session.getRoot().toFile().equals(file)) {
+				throw new IllegalArgumentException("Root cannot be added.");
+			} else if (!FileUtil.isInH2HDirectory(file, session)) {
+				throw new IllegalFileLocation();
+			}
+		}
+
+		BulkFileProcess addProcess = ProcessFactory.instance().createBulkAddProcess(expandFolders(files),
+				networkManager);
+		AsyncResultComponent<Map<File, ProcessState>> asyncProcess = new AsyncResultComponent<Map<File, ProcessState>>(
+				addProcess);
+
+		submitProcess(asyncProcess);
+		return asyncProcess;
+	}
+
+	@Override
+	public IResultProcessComponent<Map<File, ProcessState>> updateAll(List<File> files) throws NoSessionException,
+			IllegalArgumentException, NoPeerConnectionException {
+		for (File file : files) {
+			if (file.isDirectory()) {
+				throw new IllegalArgumentException("A folder can have one version only");
+			} else if (!file.exists()) {
+				throw new IllegalArgumentException(String.format("File '%s' does not exist", file.getName()));
+			} else if (!FileUtil.isInH2HDirectory(file, networkManager.getSession())) {
+				throw new IllegalArgumentException("File is not in the Hive2Hive directory");
+			}
+		}
+
+		BulkFileProcess updateProcess = ProcessFactory.instance().createBulkUpdateProcess(files, networkManager);
+		AsyncResultComponent<Map<File, ProcessState>> asyncProcess = new AsyncResultComponent<Map<File, ProcessState>>(
+				updateProcess);
+
+		submitProcess(asyncProcess);
+		return asyncProcess;
+	}
+
+	@Override
+	public IResultProcessComponent<Map<File, ProcessState>> deleteAll(List<File> files) throws NoSessionException,
+			NoPeerConnectionException {
+		for (File file : files) {
+			if (!FileUtil.isInH2HDirectory(file, networkManager.getSession())) {
+				throw new IllegalArgumentException("File is not in the Hive2Hive directory");
+			}
+		}
+
+		BulkFileProcess deleteProcess = ProcessFactory.instance().createBulkDeleteProcess(expandFolders(files),
+				networkManager);
+		AsyncResultComponent<Map<File, ProcessState>> asyncProcess = new AsyncResultComponent<Map<File, ProcessState>>(
+				deleteProcess);
+
+		submitProcess(asyncProcess);
+		return asyncProcess;
+	}
+
+	/**
+	 * Returns the given files together with all files in the given folders (without duplicates)
+	 */
+	private static List<File> expandFolders(List<File> files) {
+		Set<File> expanded = new LinkedHashSet<File>();
+		for (File file : files) {
+			if (file.isDirectory()) {
+				for (Path path : FileRecursionUtil.getPreorderList(file.toPath())) {
+					expanded.add(path.toFile());
+				}
+			} else {
+				expanded.add(file);
+			}
+		}
+		return new ArrayList<File>(expanded);
+	}
+
 	@Override
 	public IProcessComponent recover(File file, IVersionSelector versionSelector)
 			throws FileNotFoundException, IllegalArgumentException, NoSessionException,
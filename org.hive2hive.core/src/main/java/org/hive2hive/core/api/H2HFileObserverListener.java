@@ -5,10 +5,13 @@ import java.io.File;
 import org.apache.commons.io.monitor.FileAlterationObserver;
 import org.hive2hive.core.api.interfaces.IFileManager;
 import org.hive2hive.core.api.interfaces.IFileObserverListener;
+import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.file.buffer.AddFileBuffer;
 import org.hive2hive.core.file.buffer.DeleteFileBuffer;
+import org.hive2hive.core.file.buffer.FileMoveDetector;
 import org.hive2hive.core.file.buffer.IFileBuffer;
 import org.hive2hive.core.file.buffer.ModifyFileBuffer;
+import org.hive2hive.core.file.buffer.SyncFileSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,9 +31,13 @@ public class H2HFileObserverListener implements IFileObserverListener {
 	private final ModifyFileBuffer modifyFileBuffer;
 
 	public H2HFileObserverListener(IFileManager fileManager) {
-		this.addFileBuffer = new AddFileBuffer(fileManager);
-		this.deleteFileBuffer = new DeleteFileBuffer(fileManager);
-		this.modifyFileBuffer = new ModifyFileBuffer(fileManager);
+		// the buffers share the file list of the user profile
+		SyncFileSnapshot syncFileSnapshot = new SyncFileSnapshot(fileManager);
+		// deleted and created files are correlated to detect moved files
+		FileMoveDetector moveDetector = new FileMoveDetector();
+		this.addFileBuffer = new AddFileBuffer(fileManager, syncFileSnapshot, moveDetector);
+		this.deleteFileBuffer = new DeleteFileBuffer(fileManager, syncFileSnapshot, moveDetector);
+		this.modifyFileBuffer = new ModifyFileBuffer(fileManager, syncFileSnapshot);
 	}
 
 	@Override
@@ -40,6 +47,9 @@ public class H2HFileObserverListener implements IFileObserverListener {
 
 	@Override
 	public void onDirectoryCreate(File directory) {
+		if (FileUtil.isInternalFile(directory)) {
+			return;
+		}
 		printFileDetails("created", directory);
 		addFileBuffer.addFileToBuffer(directory);
 	}
@@ -51,19 +61,25 @@ public class H2HFileObserverListener implements IFileObserverListener {
 
 	@Override
 	public void onDirectoryDelete(File directory) {
+		if (FileUtil.isInternalFile(directory)) {
+			return;
+		}
 		printFileDetails("deleted", directory);
 		deleteFileBuffer.addFileToBuffer(directory);
 	}
 
 	@Override
 	public void onFileCreate(File file) {
+		if (FileUtil.isInternalFile(file)) {
+			return;
+		}
 		printFileDetails("created", file);
 		addFileBuffer.addFileToBuffer(file);
 	}
 
 	@Override
 	public void onFileChange(File file) {
-		if (file.isFile()) {
+		if (file.isFile() && !FileUtil.isInternalFile(file)) {
 			printFileDetails("changed", file);
 			modifyFileBuffer.addFileToBuffer(file);
 		}
@@ -71,6 +87,9 @@ public class H2HFileObserverListener implements IFileObserverListener {
 
 	@Override
 	public void onFileDelete(File file) {
+		if (FileUtil.isInternalFile(file)) {
+			return;
+		}
 		printFileDetails("deleted", file);
 		deleteFileBuffer.addFileToBuffer(file);
 	}
@@ -0,0 +1,377 @@
+package org.hive2hive.core.api;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hive2hive.core.api.interfaces.IFileObserver;
+import org.hive2hive.core.api.interfaces.IFileObserverListener;
+import org.hive2hive.core.file.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link IFileObserver} that uses the {@link WatchService} of the file system instead of
+ * periodically scanning the whole tree like {@link H2HFileObserver}. Every directory below the root is
+ * registered at the watch service. If the watch service loses events (overflow), only the affected directory
+ * is scanned again.<br>
+ * The listeners receive the same callbacks as with the {@link H2HFileObserver}. Like a check of the polling
+ * observer, every batch of events is enclosed by
+ * {@link IFileObserverListener#onStart(org.apache.commons.io.monitor.FileAlterationObserver)} and
+ * {@link IFileObserverListener#onStop(org.apache.commons.io.monitor.FileAlterationObserver)}, but the observer
+ * argument is <code>null</code>.
+ *
+ * @author Nico
+ *
+ */
+public class H2HNativeFileObserver implements IFileObserver {
+
+	private static final Logger logger = LoggerFactory.getLogger(H2HNativeFileObserver.class);
+
+	private final Path root;
+	private final List<IFileObserverListener> listeners;
+
+	// the known state of the tree, only accessed by the watcher thread once started
+	private final Map<Path, FileState> snapshot;
+	private final Map<Path, WatchKey> watchKeys;
+
+	private WatchService watchService;
+	private Thread watcher;
+	private volatile boolean isRunning;
+
+	public H2HNativeFileObserver(File rootDirectory) {
+		this.root = rootDirectory.toPath().toAbsolutePath();
+		this.listeners = new CopyOnWriteArrayList<IFileObserverListener>();
+		this.snapshot = new HashMap<Path, FileState>();
+		this.watchKeys = new HashMap<Path, WatchKey>();
+	}
+
+	@Override
+	public synchronized void start() throws Exception {
+		if (isRunning) {
+			return;
+		}
+
+		watchService = root.getFileSystem().newWatchService();
+		snapshot.clear();
+		watchKeys.clear();
+		register(root, false);
+		isRunning = true;
+
+		watcher = new Thread(new WatchWorker());
+		watcher.setName("File observer");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+
+	@Override
+	public synchronized void stop() throws Exception {
+		if (!isRunning) {
+			return;
+		}
+
+		isRunning = false;
+		watchService.close();
+		watcher.join();
+	}
+
+	@Override
+	public void addFileObserverListener(IFileObserverListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeFileObserverListener(IFileObserverListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public List<IFileObserverListener> getFileObserverListeners() {
+		return new ArrayList<IFileObserverListener>(listeners);
+	}
+
+	@Override
+	public boolean isRunning() {
+		return isRunning;
+	}
+
+	/**
+	 * Registers a directory and all its sub-directories at the watch service and adds its content to the
+	 * snapshot.
+	 *
+	 * @param directory the directory to register
+	 * @param notify whether the listeners should be notified about new files
+	 */
+	private void register(Path directory, final boolean notify) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if (FileUtil.isInternalFile(dir.toFile())) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+
+				// register first, such that no file created during the walk is missed
+				watchKeys.put(dir, dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+				update(dir, attrs, notify && !dir.equals(root));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (!FileUtil.isInternalFile(file.toFile())) {
+					update(file, attrs, notify);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				logger.warn("Cannot observe '{}': {}", file, e.getMessage());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void processEvents(WatchKey key) {
+		Path directory = (Path) key.watchable();
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				logger.warn("File events in '{}' got lost. Scanning the directory again.", directory);
+				rescan(watchKeys.containsKey(directory) ? directory : root);
+				continue;
+			}
+
+			Path path = directory.resolve((Path) event.context());
+			if (FileUtil.isInternalFile(path.toFile())) {
+				// changes of the configuration and state files are not reported
+				continue;
+			} else if (event.kind() == ENTRY_DELETE) {
+				delete(path);
+			} else {
+				createOrModify(path);
+			}
+		}
+
+		if (!key.reset()) {
+			// the directory is not accessible anymore
+			watchKeys.remove(directory);
+		}
+	}
+
+	private void createOrModify(Path path) {
+		BasicFileAttributes attrs;
+		try {
+			attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (IOException e) {
+			// has been deleted in the meantime
+			delete(path);
+			return;
+		}
+
+		if (attrs.isDirectory() && !snapshot.containsKey(path)) {
+			try {
+				register(path, true);
+			} catch (IOException e) {
+				logger.warn("Cannot observe new directory '{}': {}", path, e.getMessage());
+			}
+		} else {
+			update(path, attrs, true);
+		}
+	}
+
+	/**
+	 * Compares a file with the snapshot and notifies about the creation or change
+	 */
+	private void update(Path path, BasicFileAttributes attrs, boolean notify) {
+		FileState state = snapshot.get(path);
+		long lastModified = attrs.lastModifiedTime().toMillis();
+
+		if (state == null) {
+			if (notify) {
+				parentChanged(path);
+			}
+			snapshot.put(path, new FileState(attrs.isDirectory(), lastModified, attrs.size()));
+			FileState parent = snapshot.get(path.getParent());
+			if (parent != null) {
+				parent.children.add(path);
+			}
+
+			if (notify && attrs.isDirectory()) {
+				for (IFileObserverListener listener : listeners) {
+					listener.onDirectoryCreate(path.toFile());
+				}
+			} else if (notify) {
+				for (IFileObserverListener listener : listeners) {
+					listener.onFileCreate(path.toFile());
+				}
+			}
+		} else if (state.lastModified != lastModified || state.length != attrs.size()) {
+			state.lastModified = lastModified;
+			state.length = attrs.size();
+
+			if (notify && state.directory) {
+				for (IFileObserverListener listener : listeners) {
+					listener.onDirectoryChange(path.toFile());
+				}
+			} else if (notify) {
+				for (IFileObserverListener listener : listeners) {
+					listener.onFileChange(path.toFile());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes a file from the snapshot and notifies about the deletion. The content of a directory is
+	 * removed before the directory itself.
+	 */
+	private void delete(Path path) {
+		FileState state = snapshot.get(path);
+		if (state == null) {
+			return;
+		}
+
+		// report the change of the parent first (like the polling observer)
+		parentChanged(path);
+
+		if (state.directory) {
+			for (Path child : new ArrayList<Path>(state.children)) {
+				delete(child);
+			}
+
+			WatchKey key = watchKeys.remove(path);
+			if (key != null) {
+				key.cancel();
+			}
+		}
+
+		snapshot.remove(path);
+		FileState parent = snapshot.get(path.getParent());
+		if (parent != null) {
+			parent.children.remove(path);
+		}
+
+		for (IFileObserverListener listener : listeners) {
+			if (state.directory) {
+				listener.onDirectoryDelete(path.toFile());
+			} else {
+				listener.onFileDelete(path.toFile());
+			}
+		}
+	}
+
+	private void parentChanged(Path path) {
+		Path parent = path.getParent();
+		if (parent == null || parent.equals(root) || !snapshot.containsKey(parent)) {
+			return;
+		}
+
+		try {
+			update(parent, Files.readAttributes(parent, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS),
+					true);
+		} catch (IOException e) {
+			// parent is deleted as well, will be reported by its own event
+		}
+	}
+
+	/**
+	 * Compares the content of a directory (recursively) with the snapshot. This is used in case the watch
+	 * service lost events.
+	 */
+	private void rescan(Path directory) {
+		Set<Path> existing = new HashSet<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path path : stream) {
+				existing.add(path);
+			}
+		} catch (IOException e) {
+			delete(directory);
+			return;
+		}
+
+		FileState state = snapshot.get(directory);
+		if (state != null) {
+			for (Path child : new ArrayList<Path>(state.children)) {
+				if (!existing.contains(child)) {
+					delete(child);
+				}
+			}
+		}
+
+		for (Path path : existing) {
+			FileState childState = snapshot.get(path);
+			createOrModify(path);
+			if (childState != null && childState.directory) {
+				rescan(path);
+			}
+		}
+	}
+
+	private class WatchWorker implements Runnable {
+
+		@Override
+		public void run() {
+			while (isRunning) {
+				try {
+					WatchKey key = watchService.take();
+
+					for (IFileObserverListener listener : listeners) {
+						listener.onStart(null);
+					}
+
+					// process all events that are already there
+					while (key != null) {
+						processEvents(key);
+						key = watchService.poll();
+					}
+
+					for (IFileObserverListener listener : listeners) {
+						listener.onStop(null);
+					}
+				} catch (InterruptedException | ClosedWatchServiceException e) {
+					break;
+				}
+			}
+
+			logger.debug("File observer of '{}' stopped.", root);
+		}
+	}
+
+	private static class FileState {
+
+		private final boolean directory;
+		private final Set<Path> children;
+		private long lastModified;
+		private long length;
+
+		public FileState(boolean directory, long lastModified, long length) {
+			this.directory = directory;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.children = directory ? new HashSet<Path>() : null;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package org.hive2hive.core.api.configs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.tomp2p.peers.Number160;
+
+import org.hive2hive.core.H2HConstants;
+
+/**
+ * The types of content that are stored in the DHT. Each type can have its own {@link ReplicationPolicy}.
+ * 
+ * @author Nico
+ */
+public enum ContentType {
+	USER_PROFILE,
+	USER_PROFILE_TASK,
+	USER_LOCATIONS,
+	USER_PUBLIC_KEY,
+	META_FILE,
+	FILE_CHUNK,
+	OTHER;
+
+	// hashes of the keys as they arrive at a storing node
+	private static final Number160 TASK_DOMAIN_HASH = Number160.createHash(H2HConstants.USER_PROFILE_TASK_DOMAIN);
+	private static final Map<Number160, ContentType> CONTENT_KEY_HASHES = new HashMap<Number160, ContentType>();
+	static {
+		CONTENT_KEY_HASHES.put(Number160.createHash(H2HConstants.USER_PROFILE), USER_PROFILE);
+		CONTENT_KEY_HASHES.put(Number160.createHash(H2HConstants.USER_LOCATIONS), USER_LOCATIONS);
+		CONTENT_KEY_HASHES.put(Number160.createHash(H2HConstants.USER_PUBLIC_KEY), USER_PUBLIC_KEY);
+		CONTENT_KEY_HASHES.put(Number160.createHash(H2HConstants.META_FILE), META_FILE);
+		CONTENT_KEY_HASHES.put(Number160.createHash(H2HConstants.FILE_CHUNK), FILE_CHUNK);
+	}
+
+	/**
+	 * Determines the content type by the keys under which the content is stored. Pages of meta files and
+	 * shards of the user profile have the type of the document they belong to.
+	 * 
+	 * @param domainKey the domain key of the content (can be <code>null</code>)
+	 * @param contentKey the content key of the content (can be <code>null</code>)
+	 * @return the content type, {@link ContentType#OTHER} if it cannot be determined
+	 */
+	public static ContentType fromKeys(String domainKey, String contentKey) {
+		if (H2HConstants.USER_PROFILE_TASK_DOMAIN.equals(domainKey)) {
+			return USER_PROFILE_TASK;
+		} else if (contentKey == null) {
+			return OTHER;
+		} else if (contentKey.startsWith(H2HConstants.USER_PROFILE)) {
+			return USER_PROFILE;
+		} else if (contentKey.equals(H2HConstants.USER_LOCATIONS)) {
+			return USER_LOCATIONS;
+		} else if (contentKey.equals(H2HConstants.USER_PUBLIC_KEY)) {
+			return USER_PUBLIC_KEY;
+		} else if (contentKey.startsWith(H2HConstants.META_FILE)) {
+			return META_FILE;
+		} else if (contentKey.equals(H2HConstants.FILE_CHUNK)) {
+			return FILE_CHUNK;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Determines the content type by the hashed keys under which the content is stored, as seen by a storing
+	 * node. In contrast to {@link ContentType#fromKeys(String, String)}, pages of meta files and shards of the
+	 * user profile cannot be recognized and have the type {@link ContentType#OTHER}.
+	 * 
+	 * @param domainKey the hash of the domain key
+	 * @param contentKey the hash of the content key
+	 * @return the content type, {@link ContentType#OTHER} if it cannot be determined
+	 */
+	public static ContentType fromHashes(Number160 domainKey, Number160 contentKey) {
+		if (TASK_DOMAIN_HASH.equals(domainKey)) {
+			return USER_PROFILE_TASK;
+		}
+
+		ContentType contentType = CONTENT_KEY_HASHES.get(contentKey);
+		return contentType == null ? OTHER : contentType;
+	}
+}
@@ -1,5 +1,6 @@
 package org.hive2hive.core.api.configs;
 
+import java.io.File;
 import java.math.BigInteger;
 
 import org.hive2hive.core.H2HConstants;
@@ -18,18 +19,24 @@ public class FileConfiguration implements IFileConfiguration {
 	private final int maxNumOfVersions;
 	private final BigInteger maxSizeOfAllVersions;
 	private final int chunkSize;
+	private final BigInteger maxChunkCacheSize;
+	private final File stateDirectory;
 
 	private FileConfiguration(BigInteger maxFileSize, int maxNumOfVersions, BigInteger maxSizeAllVersions,
-			int chunkSize) {
+			int chunkSize, BigInteger maxChunkCacheSize, File stateDirectory) {
 		assert maxFileSize.signum() == 1;
 		assert maxNumOfVersions > 0;
 		assert maxSizeAllVersions.signum() == 1;
 		assert chunkSize > 0;
+		assert maxChunkCacheSize.signum() >= 0;
+		assert stateDirectory != null;
 
 		this.maxFileSize = maxFileSize;
 		this.maxNumOfVersions = maxNumOfVersions;
 		this.maxSizeOfAllVersions = maxSizeAllVersions;
 		this.chunkSize = chunkSize;
+		this.maxChunkCacheSize = maxChunkCacheSize;
+		this.stateDirectory = stateDirectory;
 	}
 
 	/**
@@ -40,7 +47,8 @@ public class FileConfiguration implements IFileConfiguration {
 	public static IFileConfiguration createDefault() {
 		return new FileConfiguration(H2HConstants.DEFAULT_MAX_FILE_SIZE,
 				H2HConstants.DEFAULT_MAX_NUM_OF_VERSIONS, H2HConstants.DEFAULT_MAX_SIZE_OF_ALL_VERSIONS,
-				H2HConstants.DEFAULT_CHUNK_SIZE);
+				H2HConstants.DEFAULT_CHUNK_SIZE, H2HConstants.DEFAULT_MAX_CHUNK_CACHE_SIZE,
+				H2HConstants.DEFAULT_STATE_DIRECTORY);
 	}
 
 	/**
@@ -53,7 +61,39 @@ public class FileConfiguration implements IFileConfiguration {
 	 */
 	public static IFileConfiguration createCustom(BigInteger maxFileSize, int maxNumOfVersions,
 			BigInteger maxSizeAllVersions, int chunkSize) {
-		return new FileConfiguration(maxFileSize, maxNumOfVersions, maxSizeAllVersions, chunkSize);
+		return createCustom(maxFileSize, maxNumOfVersions, maxSizeAllVersions, chunkSize,
+				H2HConstants.DEFAULT_MAX_CHUNK_CACHE_SIZE);
+	}
+
+	/**
+	 * Create a file configuration with the given parameters
+	 * 
+	 * @param maxFileSize the maximum file size (in bytes)
+	 * @param maxNumOfVersions the allowed number of versions
+	 * @param maxSizeAllVersions the maximum file size when summing up all versions (in bytes)
+	 * @param chunkSize the size of a chunk (in bytes)
+	 * @param maxChunkCacheSize the maximum size of the local chunk cache (in bytes), 0 to disable it
+	 */
+	public static IFileConfiguration createCustom(BigInteger maxFileSize, int maxNumOfVersions,
+			BigInteger maxSizeAllVersions, int chunkSize, BigInteger maxChunkCacheSize) {
+		return createCustom(maxFileSize, maxNumOfVersions, maxSizeAllVersions, chunkSize, maxChunkCacheSize,
+				H2HConstants.DEFAULT_STATE_DIRECTORY);
+	}
+
+	/**
+	 * Create a file configuration with the given parameters
+	 * 
+	 * @param maxFileSize the maximum file size (in bytes)
+	 * @param maxNumOfVersions the allowed number of versions
+	 * @param maxSizeAllVersions the maximum file size when summing up all versions (in bytes)
+	 * @param chunkSize the size of a chunk (in bytes)
+	 * @param maxChunkCacheSize the maximum size of the local chunk cache (in bytes), 0 to disable it
+	 * @param stateDirectory the directory for the local state, outside of the root directory
+	 */
+	public static IFileConfiguration createCustom(BigInteger maxFileSize, int maxNumOfVersions,
+			BigInteger maxSizeAllVersions, int chunkSize, BigInteger maxChunkCacheSize, File stateDirectory) {
+		return new FileConfiguration(maxFileSize, maxNumOfVersions, maxSizeAllVersions, chunkSize,
+				maxChunkCacheSize, stateDirectory);
 	}
 
 	@Override
@@ -75,4 +115,14 @@ public class FileConfiguration implements IFileConfiguration {
 	public int getChunkSize() {
 		return chunkSize;
 	}
+
+	@Override
+	public BigInteger getMaxChunkCacheSize() {
+		return maxChunkCacheSize;
+	}
+
+	@Override
+	public File getStateDirectory() {
+		return stateDirectory;
+	}
 }
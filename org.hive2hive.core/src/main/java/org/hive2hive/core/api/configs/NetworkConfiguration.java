@@ -1,6 +1,8 @@
 package org.hive2hive.core.api.configs;
 
 import java.net.InetAddress;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.UUID;
 
 import org.hive2hive.core.H2HConstants;
@@ -18,6 +20,9 @@ public class NetworkConfiguration implements INetworkConfiguration {
 	private boolean isInitialPeer;
 	private InetAddress bootstrapAddress;
 	private int bootstrapPort;
+	private final Map<ContentType, ReplicationPolicy> replicationPolicies;
+	private long maxStorageSize = H2HConstants.DEFAULT_MAX_STORAGE_SIZE;
+	private long maxStorageSizePerKey = H2HConstants.DEFAULT_MAX_STORAGE_SIZE_PER_KEY;
 
 	/**
 	 * Create network configuration
@@ -33,6 +38,11 @@ public class NetworkConfiguration implements INetworkConfiguration {
 		this.isInitialPeer = isInitialPeer;
 		this.bootstrapAddress = bootstrapAddress;
 		this.bootstrapPort = bootstrapPort;
+
+		this.replicationPolicies = new EnumMap<ContentType, ReplicationPolicy>(ContentType.class);
+		for (ContentType contentType : ContentType.values()) {
+			replicationPolicies.put(contentType, ReplicationPolicy.createDefault());
+		}
 	}
 
 	/**
@@ -100,4 +110,35 @@ public class NetworkConfiguration implements INetworkConfiguration {
 		return bootstrapPort;
 	}
 
+	@Override
+	public ReplicationPolicy getReplicationPolicy(ContentType contentType) {
+		return replicationPolicies.get(contentType);
+	}
+
+	@Override
+	public INetworkConfiguration setReplicationPolicy(ContentType contentType, ReplicationPolicy replicationPolicy) {
+		replicationPolicies.put(contentType, replicationPolicy);
+		return this;
+	}
+
+	@Override
+	public long getMaxStorageSize() {
+		return maxStorageSize;
+	}
+
+	@Override
+	public long getMaxStorageSizePerKey() {
+		return maxStorageSizePerKey;
+	}
+
+	@Override
+	public INetworkConfiguration setStorageLimits(long maxSize, long maxSizePerKey) {
+		if (maxSize < 0 || maxSizePerKey < 0) {
+			throw new IllegalArgumentException("Storage limits must not be negative.");
+		}
+		this.maxStorageSize = maxSize;
+		this.maxStorageSizePerKey = maxSizePerKey;
+		return this;
+	}
+
 }
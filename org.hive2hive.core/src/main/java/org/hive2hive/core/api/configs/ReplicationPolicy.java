@@ -0,0 +1,92 @@
+package org.hive2hive.core.api.configs;
+
+import org.hive2hive.core.H2HConstants;
+
+/**
+ * Defines to how many nodes a content is replicated and how many of them need to respond successfully to
+ * reads and writes. Nodes that do not respond count as failed. Only if the network has fewer nodes than the
+ * replication factor, the quorum is limited to the number of nodes in the network.
+ * 
+ * @author Nico
+ */
+public class ReplicationPolicy {
+
+	private final int replicationFactor;
+	private final int writeQuorum;
+	private final int readQuorum;
+
+	/**
+	 * Create a replication policy
+	 * 
+	 * @param replicationFactor the number of nodes a content is put to and read from
+	 * @param writeQuorum the number of nodes that need to accept a put
+	 * @param readQuorum the number of nodes that need to deliver the content at a get
+	 */
+	public ReplicationPolicy(int replicationFactor, int writeQuorum, int readQuorum) {
+		if (replicationFactor < 1) {
+			throw new IllegalArgumentException("Replication factor must be at least 1.");
+		} else if (writeQuorum < 1 || writeQuorum > replicationFactor) {
+			throw new IllegalArgumentException("Write quorum must be between 1 and the replication factor.");
+		} else if (readQuorum < 1 || readQuorum > replicationFactor) {
+			throw new IllegalArgumentException("Read quorum must be between 1 and the replication factor.");
+		}
+
+		this.replicationFactor = replicationFactor;
+		this.writeQuorum = writeQuorum;
+		this.readQuorum = readQuorum;
+	}
+
+	/**
+	 * Creates the default policy, see {@link H2HConstants#DEFAULT_REPLICATION_FACTOR}.
+	 */
+	public static ReplicationPolicy createDefault() {
+		return new ReplicationPolicy(H2HConstants.DEFAULT_REPLICATION_FACTOR, H2HConstants.DEFAULT_WRITE_QUORUM,
+				H2HConstants.DEFAULT_READ_QUORUM);
+	}
+
+	public int getReplicationFactor() {
+		return replicationFactor;
+	}
+
+	public int getWriteQuorum() {
+		return writeQuorum;
+	}
+
+	public int getReadQuorum() {
+		return readQuorum;
+	}
+
+	/**
+	 * Checks whether enough nodes succeeded for a put
+	 * 
+	 * @param succeeded the number of nodes that accepted the put
+	 * @param availableNodes the number of nodes in the network which can store a replica
+	 */
+	public boolean isWriteQuorumReached(int succeeded, int availableNodes) {
+		return succeeded > 0 && succeeded >= getRequiredNodes(writeQuorum, availableNodes);
+	}
+
+	/**
+	 * Checks whether enough nodes delivered the content of a get
+	 * 
+	 * @param delivered the number of nodes that delivered the content
+	 * @param availableNodes the number of nodes in the network which can store a replica
+	 */
+	public boolean isReadQuorumReached(int delivered, int availableNodes) {
+		return delivered > 0 && delivered >= getRequiredNodes(readQuorum, availableNodes);
+	}
+
+	private int getRequiredNodes(int quorum, int availableNodes) {
+		if (availableNodes < replicationFactor) {
+			// the content cannot be replicated as often as configured in a small network
+			return Math.min(quorum, availableNodes);
+		}
+		return quorum;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ReplicationPolicy[factor=%s, writeQuorum=%s, readQuorum=%s]", replicationFactor,
+				writeQuorum, readQuorum);
+	}
+}
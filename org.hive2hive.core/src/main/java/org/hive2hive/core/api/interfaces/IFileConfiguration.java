@@ -1,5 +1,6 @@
 package org.hive2hive.core.api.interfaces;
 
+import java.io.File;
 import java.math.BigInteger;
 
 /**
@@ -53,4 +54,22 @@ public interface IFileConfiguration {
 	 */
 	int getChunkSize();
 
+	/**
+	 * Chunks are cached locally after uploading and downloading them, such that downloading the same chunk
+	 * again does not need the network. The cache is limited to the given size, the least recently used chunks
+	 * are evicted first.
+	 * 
+	 * @return the maximum number of bytes in the chunk cache, 0 to disable the cache
+	 */
+	BigInteger getMaxChunkCacheSize();
+
+	/**
+	 * The local state of a client which must not be synchronized (e.g. the upload journal, the log of the
+	 * uploaded objects and the chunk cache) is stored in this directory. It must lie outside of the root
+	 * directory and is only created when a feature that needs it is enabled.
+	 * 
+	 * @return the directory for the local state
+	 */
+	File getStateDirectory();
+
 }
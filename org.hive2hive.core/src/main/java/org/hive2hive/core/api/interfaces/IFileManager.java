@@ -3,11 +3,13 @@ package org.hive2hive.core.api.interfaces;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.List;
+import java.util.Map;
 
 import org.hive2hive.core.exceptions.IllegalFileLocation;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.model.PermissionType;
+import org.hive2hive.core.processes.framework.ProcessState;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
 import org.hive2hive.core.processes.framework.interfaces.IResultProcessComponent;
 import org.hive2hive.core.processes.implementations.files.list.FileTaste;
@@ -51,7 +53,9 @@ public interface IFileManager extends IManager {
 
 	/**
 	 * Move a file / folder from a given source to a given destination. This operation can also be used to
-	 * rename a file, or moving and renaming it together.
+	 * rename a file, or moving and renaming it together. If the file has already been moved on disk (e.g.
+	 * detected by a file observer) and the destination has the content of the source in the user profile,
+	 * only the user profile is updated.
 	 * 
 	 * @param source the full path of the file to move
 	 * @param destination the full path of the file destination
@@ -74,6 +78,48 @@ public interface IFileManager extends IManager {
 	 */
 	IProcessComponent delete(File file) throws NoSessionException, NoPeerConnectionException;
 
+	/**
+	 * Add multiple files and folders at once. Folders are added with all containing files. In contrast to
+	 * separate {@link #add(File)} calls, the user profile is modified once and every user receives a single
+	 * notification. A failing file does not stop the others.
+	 * 
+	 * @param files the files / folders to add
+	 * @return an observable process component providing the result (succeeded or failed) of every file
+	 * @throws NoSessionException no user has logged in
+	 * @throws NoPeerConnectionException the peer has no connection to the network
+	 * @throws IllegalFileLocation a file is at a wrong location
+	 */
+	IResultProcessComponent<Map<File, ProcessState>> addAll(List<File> files) throws NoSessionException,
+			NoPeerConnectionException, IllegalFileLocation;
+
+	/**
+	 * Update multiple files at once and create a new version of each. In contrast to separate
+	 * {@link #update(File)} calls, the user profile is modified once and every user receives a single
+	 * notification. A failing file does not stop the others.
+	 * 
+	 * @param files the files to update
+	 * @return an observable process component providing the result (succeeded or failed) of every file
+	 * @throws NoSessionException no user has logged in
+	 * @throws IllegalArgumentException a file is at a wrong location or a folder
+	 * @throws NoPeerConnectionException the peer has no connection to the network
+	 */
+	IResultProcessComponent<Map<File, ProcessState>> updateAll(List<File> files) throws NoSessionException,
+			IllegalArgumentException, NoPeerConnectionException;
+
+	/**
+	 * Delete multiple files / folders at once. Folders are deleted with all containing files. In contrast to
+	 * separate {@link #delete(File)} calls, the user profile is modified once and every user receives a single
+	 * notification. A failing file does not stop the others. <strong>Note that this operation is
+	 * irreversible.</strong>
+	 * 
+	 * @param files the files / folders to delete
+	 * @return an observable process component providing the result (succeeded or failed) of every file
+	 * @throws NoSessionException no user has logged in
+	 * @throws NoPeerConnectionException the peer has no connection to the network
+	 */
+	IResultProcessComponent<Map<File, ProcessState>> deleteAll(List<File> files) throws NoSessionException,
+			NoPeerConnectionException;
+
 	/**
 	 * Recover a file version from the network and restore it under a new file (name is indicated with special
 	 * suffix).
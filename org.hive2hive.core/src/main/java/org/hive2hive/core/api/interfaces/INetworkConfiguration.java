@@ -3,6 +3,8 @@ package org.hive2hive.core.api.interfaces;
 import java.net.InetAddress;
 
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.api.configs.ContentType;
+import org.hive2hive.core.api.configs.ReplicationPolicy;
 
 /**
  * Configuration of the network settings for a Hive2Hive node.
@@ -43,4 +45,47 @@ public interface INetworkConfiguration {
 	 * @return the port of the peer this node bootstraps to.
 	 */
 	int getBootstrapPort();
+
+	/**
+	 * The replication factor and the quorums for puts and gets of the given content type. This allows for
+	 * example to put chunks with a lower quorum than the user profile.
+	 * 
+	 * @param contentType the type of the content
+	 * @return the replication policy of the content type
+	 */
+	ReplicationPolicy getReplicationPolicy(ContentType contentType);
+
+	/**
+	 * Configures the replication factor and the quorums for puts and gets of the given content type.
+	 * 
+	 * @param contentType the type of the content
+	 * @param replicationPolicy the policy to use for this content type
+	 * @return this configuration
+	 */
+	INetworkConfiguration setReplicationPolicy(ContentType contentType, ReplicationPolicy replicationPolicy);
+
+	/**
+	 * The capacity of the storage of this node, which holds the data of other peers. Puts exceeding the
+	 * capacity are rejected after expired entries and old versions have been evicted.
+	 * 
+	 * @return the capacity in bytes, 0 if unlimited
+	 */
+	long getMaxStorageSize();
+
+	/**
+	 * The capacity of the storage of this node per protection key, such that a single user cannot fill the
+	 * storage.
+	 * 
+	 * @return the capacity per protection key in bytes, 0 if unlimited
+	 */
+	long getMaxStorageSizePerKey();
+
+	/**
+	 * Configures the capacity of the storage of this node. This must be done before connecting.
+	 * 
+	 * @param maxSize the capacity in bytes, 0 for unlimited
+	 * @param maxSizePerKey the capacity per protection key in bytes, 0 for unlimited
+	 * @return this configuration
+	 */
+	INetworkConfiguration setStorageLimits(long maxSize, long maxSizePerKey);
 }
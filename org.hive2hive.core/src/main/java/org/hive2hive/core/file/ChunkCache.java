@@ -0,0 +1,239 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache for the chunks stored in the DHT. Chunks are immutable, thus a chunk that has been uploaded
+ * or downloaded once can be taken from the cache instead of the network (e.g. when the same version is
+ * downloaded again). The chunks are stored in their encrypted form, addressed by their chunk id only. The
+ * content of a cached chunk is verified after the decryption. The least recently used chunks are evicted when
+ * the size limit is reached.
+ * 
+ * Every user has an own cache directory (see {@link FileUtil#getChunkCacheDirectory(File, String)}) which is
+ * only accessible by the owner of the process. The nodes of the user in the same process share one cache
+ * instance per directory (see {@link #getInstance(File, long)}), such that the size limit holds for all of
+ * them.
+ * Chunks added by other processes are counted as soon as they are accessed.
+ * 
+ * @author Nico
+ * 
+ */
+public class ChunkCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ChunkCache.class);
+
+	// cache directory --> the cache instance
+	private static final Map<File, ChunkCache> instances = new HashMap<File, ChunkCache>();
+
+	private final File directory;
+	private final long maxSize;
+	// the cached entries and their sizes, the least recently used first
+	private final LinkedHashMap<String, Long> entries;
+	private long size = 0;
+
+	/**
+	 * Returns the cache of the given directory. The size limit of the instance which has been created first
+	 * applies to all users of the directory.
+	 * 
+	 * @param directory the directory where the chunks are stored
+	 * @param maxSize the maximum number of bytes in the cache
+	 * @return the cache instance of the directory
+	 */
+	public static ChunkCache getInstance(File directory, long maxSize) {
+		File key = directory.getAbsoluteFile();
+		synchronized (instances) {
+			ChunkCache cache = instances.get(key);
+			if (cache == null) {
+				cache = new ChunkCache(key, maxSize);
+				instances.put(key, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * @param directory the directory where the chunks are stored
+	 * @param maxSize the maximum number of bytes in the cache
+	 */
+	ChunkCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+		if (!directory.exists()) {
+			directory.mkdirs();
+		}
+		readEntries();
+	}
+
+	/**
+	 * Returns the cached chunk
+	 * 
+	 * @param chunkId the id of the chunk
+	 * @return the encrypted chunk or <code>null</code> if it is not cached
+	 */
+	public byte[] get(String chunkId) {
+		String key = getKey(chunkId);
+		if (key == null) {
+			return null;
+		}
+		File file = new File(directory, key);
+		synchronized (this) {
+			if (entries.get(key) == null) {
+				if (!file.isFile()) {
+					return null;
+				}
+				// added by an other process sharing the cache directory
+				addEntry(key, file.length());
+				evict();
+				if (!entries.containsKey(key)) {
+					return null;
+				}
+			}
+		}
+
+		try {
+			byte[] data = FileUtils.readFileToByteArray(file);
+			// remember the access for the eviction order after a restart
+			file.setLastModified(System.currentTimeMillis());
+			return data;
+		} catch (IOException e) {
+			// evicted by an other process sharing the cache directory
+			logger.debug("Cached chunk '{}' cannot be read.", key);
+			remove(chunkId);
+			return null;
+		}
+	}
+
+	/**
+	 * Adds a chunk to the cache and evicts the least recently used chunks if the cache is full
+	 * 
+	 * @param chunkId the id of the chunk
+	 * @param data the encrypted chunk
+	 */
+	public void put(String chunkId, byte[] data) {
+		if (data.length > maxSize) {
+			return;
+		}
+
+		String key = getKey(chunkId);
+		if (key == null) {
+			return;
+		}
+		synchronized (this) {
+			if (entries.containsKey(key)) {
+				return;
+			}
+		}
+
+		File file = new File(directory, key);
+		File tempFile = null;
+		try {
+			// write to a temporary file first such that readers never get a partial chunk
+			tempFile = File.createTempFile(key, ".tmp", directory);
+			FileUtils.writeByteArrayToFile(tempFile, data);
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.warn("Chunk '{}' cannot be cached. reason = '{}'", key, e.getMessage());
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+			return;
+		}
+
+		synchronized (this) {
+			if (!entries.containsKey(key)) {
+				addEntry(key, data.length);
+			}
+			evict();
+		}
+	}
+
+	/**
+	 * Removes a chunk from the cache (e.g. if it is corrupt)
+	 */
+	public synchronized void remove(String chunkId) {
+		String key = getKey(chunkId);
+		if (key == null) {
+			return;
+		}
+		Long removed = entries.remove(key);
+		if (removed != null) {
+			size -= removed;
+		}
+		new File(directory, key).delete();
+	}
+
+	/**
+	 * Returns the number of bytes in the cache
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	private void addEntry(String key, long length) {
+		entries.put(key, length);
+		size += length;
+	}
+
+	private void evict() {
+		Iterator<Entry<String, Long>> iterator = entries.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			Entry<String, Long> eldest = iterator.next();
+			iterator.remove();
+			size -= eldest.getValue();
+			new File(directory, eldest.getKey()).delete();
+			logger.trace("Evicted chunk '{}' from the cache.", eldest.getKey());
+		}
+	}
+
+	/**
+	 * Reads the chunks that are already in the cache directory, ordered by their last access
+	 */
+	private synchronized void readEntries() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				return Long.compare(f1.lastModified(), f2.lastModified());
+			}
+		});
+
+		for (File file : files) {
+			// ignore chunks that are currently written
+			if (file.isFile() && !file.getName().endsWith(".tmp")) {
+				addEntry(file.getName(), file.length());
+			}
+		}
+		evict();
+	}
+
+	/**
+	 * Returns the file name of a chunk or <code>null</code> if the chunk id cannot be used as a file name
+	 * (chunk ids are read from meta files that can be written by other users)
+	 */
+	private static String getKey(String chunkId) {
+		if (chunkId == null || !chunkId.matches("[A-Za-z0-9\\-]{1,64}")) {
+			return null;
+		}
+		return chunkId;
+	}
+}
@@ -0,0 +1,214 @@
+package org.hive2hive.core.file;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A file of records that are appended one after the other and encrypted with the keys of the user. The file
+ * starts with a symmetric key that is encrypted with the public key of the user, every record is encrypted
+ * with this key and its own initialization vector. Thus, a record can be appended without reading or
+ * rewriting the file. A record that has not been written completely (e.g. because the client crashed) is
+ * ignored when the file is read.
+ *
+ * @author Nico
+ *
+ */
+class EncryptedRecordFile {
+
+	private static final Logger logger = LoggerFactory.getLogger(EncryptedRecordFile.class);
+
+	// a larger block cannot be valid, it is the tail of a corrupt file
+	private static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+
+	private final File file;
+	private final KeyPair keyPair;
+	// the key of the records in the file, null if the file has not been read or written yet
+	private SecretKey key;
+
+	/**
+	 * @param file the file the records are stored in
+	 * @param keyPair the keys of the user to encrypt the records with
+	 */
+	EncryptedRecordFile(File file, KeyPair keyPair) {
+		this.file = file;
+		this.keyPair = keyPair;
+	}
+
+	/**
+	 * Reads all completely written records of the file
+	 *
+	 * @return the records in the order they have been appended
+	 * @throws IOException if the file cannot be read or has not been encrypted with the keys of the user
+	 */
+	List<Serializable> read() throws IOException {
+		List<Serializable> records = new ArrayList<Serializable>();
+		if (!file.exists()) {
+			return records;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			byte[] encryptedKey = readBlock(in);
+			byte[] encodedKey = EncryptionUtil.decryptRSA(encryptedKey, keyPair.getPrivate());
+			if (encodedKey == null || encodedKey.length * 8 != H2HConstants.KEYLENGTH_HYBRID_AES.value()) {
+				// encrypted with other keys
+				throw new IOException("Cannot decrypt the key of the records.");
+			}
+			key = new SecretKeySpec(encodedKey, 0, encodedKey.length, "AES");
+
+			while (true) {
+				byte[] initVector;
+				byte[] data;
+				try {
+					initVector = readBlock(in);
+					data = readBlock(in);
+				} catch (EOFException e) {
+					// end of the file or incomplete record
+					break;
+				}
+
+				try {
+					byte[] decrypted = EncryptionUtil.decryptAES(data, key, initVector);
+					records.add((Serializable) EncryptionUtil.deserializeObject(decrypted));
+				} catch (InvalidCipherTextException | DataLengthException | ClassNotFoundException
+						| ClassCastException e) {
+					logger.warn("Ignoring the corrupt tail of '{}'.", file.getName());
+					break;
+				}
+			}
+		} catch (GeneralSecurityException e) {
+			throw new IOException("Cannot decrypt the key of the records.", e);
+		}
+
+		return records;
+	}
+
+	/**
+	 * Appends a record to the file. This call does not return before the record is written to the disk.
+	 *
+	 * @param record the record to append
+	 * @throws IOException if the record cannot be encrypted or written
+	 */
+	void append(Serializable record) throws IOException {
+		boolean newFile = key == null || !file.exists();
+		if (newFile) {
+			key = EncryptionUtil.generateAESKey(H2HConstants.KEYLENGTH_HYBRID_AES);
+		}
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		if (newFile) {
+			writeHeader(out, key);
+		}
+		writeRecord(out, key, record);
+		out.flush();
+
+		try (FileOutputStream stream = new FileOutputStream(file, !newFile)) {
+			// a single write, such that at most the last record is incomplete after a crash
+			stream.write(buffer.toByteArray());
+			stream.getFD().sync();
+		}
+	}
+
+	/**
+	 * Replaces the content of the file with the given records, encrypted with a new key. The file is deleted
+	 * if there are no records.
+	 *
+	 * @param records the records the file should contain
+	 * @throws IOException if the records cannot be encrypted or written
+	 */
+	void rewrite(List<? extends Serializable> records) throws IOException {
+		if (records.isEmpty()) {
+			delete();
+			return;
+		}
+
+		SecretKey newKey = EncryptionUtil.generateAESKey(H2HConstants.KEYLENGTH_HYBRID_AES);
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile))) {
+			writeHeader(out, newKey);
+			for (Serializable record : records) {
+				writeRecord(out, newKey, record);
+			}
+		}
+
+		// replace the file at once, such that a crash does not leave a corrupt file
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		key = newKey;
+	}
+
+	/**
+	 * Deletes the file, the next record starts a new file
+	 *
+	 * @throws IOException if the file cannot be deleted
+	 */
+	void delete() throws IOException {
+		Files.deleteIfExists(file.toPath());
+		key = null;
+	}
+
+	private void writeHeader(DataOutputStream out, SecretKey secretKey) throws IOException {
+		try {
+			byte[] encryptedKey = EncryptionUtil.encryptRSA(secretKey.getEncoded(), keyPair.getPublic());
+			if (encryptedKey == null) {
+				throw new IOException("Cannot encrypt the key of the records.");
+			}
+			writeBlock(out, encryptedKey);
+		} catch (GeneralSecurityException e) {
+			throw new IOException("Cannot encrypt the key of the records.", e);
+		}
+	}
+
+	private static void writeRecord(DataOutputStream out, SecretKey secretKey, Serializable record)
+			throws IOException {
+		byte[] initVector = EncryptionUtil.generateIV();
+		try {
+			byte[] encrypted = EncryptionUtil.encryptAES(EncryptionUtil.serializeObject(record), secretKey,
+					initVector);
+			writeBlock(out, initVector);
+			writeBlock(out, encrypted);
+		} catch (InvalidCipherTextException | DataLengthException e) {
+			throw new IOException("Cannot encrypt the record.", e);
+		}
+	}
+
+	private static void writeBlock(DataOutputStream out, byte[] block) throws IOException {
+		out.writeInt(block.length);
+		out.write(block);
+	}
+
+	private static byte[] readBlock(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_BLOCK_SIZE) {
+			throw new EOFException("Invalid block length " + length);
+		}
+
+		byte[] block = new byte[length];
+		in.readFully(block);
+		return block;
+	}
+}
@@ -8,8 +8,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.hive2hive.core.model.FileIndex;
 import org.hive2hive.core.model.FolderIndex;
@@ -21,7 +24,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Helps to synchronize when a client comes online. It compares the meta data from last logout with the
- * current situation on disc and in the user profile.
+ * current situation on disc and in the user profile.<br>
+ * Folders that have the same digest in the meta data, on disc and in the user profile are identical in all
+ * three trees. They and their content are removed from the file trees once, such that the comparisons only
+ * visit the changed parts of the trees. The files on disc are only hashed if their size or modification time
+ * changed since the meta data has been written (see {@link PersistenceFileVisitor}).
  * 
  * @author Nico
  * 
@@ -34,25 +41,115 @@ public class FileSynchronizer {
 	private final UserProfile userProfile;
 
 	private final FolderIndex profileRootNode;
+	// the files and folders outside of the unchanged folders
 	private final Map<String, byte[]> before;
-	private Map<String, byte[]> now;
+	private final Map<String, byte[]> now;
+
+	// the relative paths of the folders that did not change at all
+	private final Set<String> unchanged;
 
 	public FileSynchronizer(Path rootDirectory, UserProfile userProfile) throws ClassNotFoundException, IOException {
 		this.root = rootDirectory;
 		this.userProfile = userProfile;
 		this.profileRootNode = userProfile.getRoot();
 
-		// load the two file trees
-		before = FileUtil.readPersistentMetaData(root).getFileTree();
-
-		PersistenceFileVisitor visitor = new PersistenceFileVisitor(root);
+		// load the two file trees, the files that did not change since the logout are not hashed again
+		PersistentMetaData metaData = FileUtil.readPersistentMetaData(root);
+		Map<String, byte[]> nowTree;
+		Map<String, byte[]> nowDigests;
+		PersistenceFileVisitor visitor = new PersistenceFileVisitor(root, metaData);
 		try {
 			Files.walkFileTree(root, visitor);
-			now = visitor.getFileTree();
+			nowTree = visitor.getFileTree();
+			nowDigests = visitor.getFolderDigests();
 		} catch (IOException e) {
 			logger.error("Cannot walk the current tree.", e);
-			now = new HashMap<String, byte[]>(0);
+			nowTree = new HashMap<String, byte[]>(0);
+			nowDigests = new HashMap<String, byte[]>(0);
+		}
+
+		unchanged = new HashSet<String>();
+		findUnchanged(profileRootNode, metaData.getFolderDigests(), nowDigests);
+		logger.debug("{} folder(s) did not change during absence.", unchanged.size());
+
+		before = getChangedEntries(metaData.getFileTree());
+		now = getChangedEntries(nowTree);
+	}
+
+	/**
+	 * Finds the top-most folders that are identical before, now and in the user profile
+	 */
+	private void findUnchanged(FolderIndex folder, Map<String, byte[]> beforeDigests, Map<String, byte[]> nowDigests) {
+		String path = folder.getFullPath().toString();
+		byte[] digest = folder.getDigest();
+		if (H2HEncryptionUtil.compareMD5(digest, beforeDigests.get(path))
+				&& H2HEncryptionUtil.compareMD5(digest, nowDigests.get(path))) {
+			// the whole subtree is the same
+			unchanged.add(path);
+			return;
+		}
+
+		for (Index child : folder.getChildren()) {
+			if (child.isFolder()) {
+				findUnchanged((FolderIndex) child, beforeDigests, nowDigests);
+			}
+		}
+	}
+
+	/**
+	 * Returns the entries of the file tree which are not in an unchanged folder
+	 */
+	private Map<String, byte[]> getChangedEntries(Map<String, byte[]> fileTree) {
+		if (unchanged.isEmpty()) {
+			return fileTree;
+		}
+
+		Map<String, byte[]> changed = new HashMap<String, byte[]>();
+		for (Entry<String, byte[]> entry : fileTree.entrySet()) {
+			if (!isUnchanged(entry.getKey())) {
+				changed.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns whether the file is in a folder that did not change (or is such a folder itself)
+	 */
+	private boolean isUnchanged(String path) {
+		if (unchanged.isEmpty()) {
+			return false;
 		}
+
+		Path current = Paths.get(path);
+		while (current != null) {
+			if (unchanged.contains(current.toString())) {
+				return true;
+			}
+			current = current.getParent();
+		}
+
+		// the root has an empty path
+		return unchanged.contains("");
+	}
+
+	/**
+	 * Returns the index list of the user profile without the unchanged folders (preorder)
+	 */
+	private List<Index> getChangedIndexList(Index node) {
+		List<Index> indexList = new ArrayList<Index>();
+		if (node.isFolder() && unchanged.contains(node.getFullPath().toString())) {
+			return indexList;
+		}
+
+		indexList.add(node);
+		if (node.isFolder()) {
+			for (Index child : ((FolderIndex) node).getChildren()) {
+				indexList.addAll(getChangedIndexList(child));
+			}
+		}
+
+		return indexList;
 	}
 
 	/**
@@ -151,8 +248,8 @@ public class FileSynchronizer {
 	public List<Index> getAddedRemotely() {
 		List<Index> addedRemotely = new ArrayList<Index>();
 
-		// visit all files in the tree and compare to disk
-		List<Index> indexList = Index.getIndexList(profileRootNode);
+		// visit all changed files in the tree and compare to disk
+		List<Index> indexList = getChangedIndexList(profileRootNode);
 		indexList.remove(profileRootNode);
 
 		for (Index index : indexList) {
@@ -180,7 +277,7 @@ public class FileSynchronizer {
 
 		for (String path : now.keySet()) {
 			if (!before.containsKey(path)) {
-				// was not here before --> skip
+				// was not here before or did not change --> skip
 				continue;
 			}
 
@@ -220,8 +317,8 @@ public class FileSynchronizer {
 	public List<FileIndex> getUpdatedRemotely() {
 		List<FileIndex> updatedRemotely = new ArrayList<FileIndex>();
 
-		// visit all files in the tree and compare to disk
-		List<Index> indexList = Index.getIndexList(profileRootNode);
+		// visit all changed files in the tree and compare to disk
+		List<Index> indexList = getChangedIndexList(profileRootNode);
 		for (Index index : indexList) {
 			if (index.isFolder()) {
 				// folder cannot be modified
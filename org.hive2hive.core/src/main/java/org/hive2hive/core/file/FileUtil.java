@@ -9,18 +9,25 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.apache.commons.io.FileUtils;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.H2HSession;
+import org.hive2hive.core.api.interfaces.IFileConfiguration;
+import org.hive2hive.core.model.FileIndex;
 import org.hive2hive.core.model.FolderIndex;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.network.data.PublicKeyManager;
+import org.hive2hive.core.network.data.TTLRefreshManager;
 import org.hive2hive.core.network.data.download.DownloadManager;
 import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +35,9 @@ public class FileUtil {
 
 	private final static Logger logger = LoggerFactory.getLogger(FileUtil.class);
 
+	// the state directories in use, their content is never synchronized
+	private static final Set<Path> stateDirectories = new CopyOnWriteArraySet<Path>();
+
 	private FileUtil() {
 		// only static methods
 	}
@@ -35,10 +45,11 @@ public class FileUtil {
 	/**
 	 * Writes the meta data (used to synchronize) to the disk
 	 * 
+	 * @param refreshManager its schedule is persisted (can be <code>null</code>)
 	 * @throws IOException
 	 */
 	public static void writePersistentMetaData(Path root, PublicKeyManager keyManager,
-			DownloadManager downloadManager) throws IOException {
+			DownloadManager downloadManager, TTLRefreshManager refreshManager) throws IOException {
 		assert root != null;
 
 		// generate the new persistent meta data
@@ -46,9 +57,13 @@ public class FileUtil {
 
 		// add the files
 		if (root != null) {
-			PersistenceFileVisitor visitor = new PersistenceFileVisitor(root);
+			// only hash the files which have been modified since the meta data has been written last
+			PersistenceFileVisitor visitor = new PersistenceFileVisitor(root, readPersistentMetaData(root));
 			Files.walkFileTree(root, visitor);
 			metaData.setFileTree(visitor.getFileTree());
+			metaData.setFolderDigests(visitor.getFolderDigests());
+			metaData.setFileStamps(visitor.getFileStamps());
+			metaData.setFileStampTime(visitor.getVisitTime());
 		}
 
 		// add the public keys
@@ -60,6 +75,10 @@ public class FileUtil {
 			metaData.setDownloads(downloadManager.getOpenTasks());
 		}
 
+		if (refreshManager != null) {
+			metaData.setTTLRefreshTimes(refreshManager.getSchedule().getRefreshTimes());
+		}
+
 		byte[] encoded = EncryptionUtil.serializeObject(metaData);
 		FileUtils.writeByteArrayToFile(Paths.get(root.toString(), H2HConstants.META_FILE_NAME).toFile(),
 				encoded);
@@ -181,6 +200,109 @@ public class FileUtil {
 		return file.getAbsolutePath().toString().startsWith(session.getRootFile().getAbsolutePath());
 	}
 
+	/**
+	 * Checks whether the given file is used internally by Hive2Hive (the configuration file or a file in the
+	 * state directory) and must not be synchronized
+	 * 
+	 * @param file the file to test
+	 * @return true when the file is internal, otherwise false
+	 */
+	public static boolean isInternalFile(File file) {
+		if (H2HConstants.META_FILE_NAME.equals(file.getName())) {
+			return true;
+		}
+
+		Path path = file.toPath().toAbsolutePath();
+		for (Path stateDirectory : stateDirectories) {
+			if (path.startsWith(stateDirectory)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the given file on disk has the content of the given index, e.g. to verify that a file has
+	 * been moved on disk already.
+	 * 
+	 * @param file the file on disk
+	 * @param index the index in the user profile
+	 * @return true when both are folders or both are files with the same MD5 hash, otherwise false
+	 */
+	public static boolean matchesIndex(File file, Index index) {
+		if (index == null) {
+			return false;
+		} else if (index.isFolder()) {
+			return file.isDirectory();
+		} else if (!file.isFile()) {
+			return false;
+		}
+
+		try {
+			return H2HEncryptionUtil.compareMD5(file, ((FileIndex) index).getMD5());
+		} catch (IOException e) {
+			logger.warn("Could not compare the file '{}' with its index. reason = '{}'", file.getName(),
+					e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the directory where the state of the given user and root directory is stored which must not be
+	 * synchronized (e.g. the upload journal). It lies outside of the root directory and is created with
+	 * permissions for the owner only.
+	 * 
+	 * @param stateDirectory the configured state directory (see {@link IFileConfiguration#getStateDirectory()})
+	 * @param root the root directory of the user
+	 * @param userId the user id
+	 * @return the state directory of the user and root directory
+	 * @throws IOException if the directory cannot be created
+	 */
+	public static File getStateDirectory(File stateDirectory, Path root, String userId) throws IOException {
+		byte[] id = (userId + File.pathSeparator + root.toAbsolutePath()).getBytes("UTF-8");
+		File directory = new File(stateDirectory, EncryptionUtil.toHex(EncryptionUtil.generateMD5Hash(id)));
+		createStateDirectory(stateDirectory);
+		createPrivateDirectory(directory);
+		return directory;
+	}
+
+	/**
+	 * Returns the directory where the chunks of the given user are cached (see {@link ChunkCache}). It is
+	 * shared by all nodes of the user on this machine and created with permissions for the owner only.
+	 * 
+	 * @param stateDirectory the configured state directory (see {@link IFileConfiguration#getStateDirectory()})
+	 * @param userId the user id
+	 * @return the cache directory
+	 * @throws IOException if the directory cannot be created
+	 */
+	public static File getChunkCacheDirectory(File stateDirectory, String userId) throws IOException {
+		String id = EncryptionUtil.toHex(EncryptionUtil.generateMD5Hash(userId.getBytes("UTF-8")));
+		File directory = new File(stateDirectory, H2HConstants.CHUNK_CACHE_DIRECTORY_PREFIX + id);
+		createStateDirectory(stateDirectory);
+		createPrivateDirectory(directory);
+		return directory;
+	}
+
+	private static void createStateDirectory(File stateDirectory) throws IOException {
+		createPrivateDirectory(stateDirectory);
+		stateDirectories.add(stateDirectory.toPath().toAbsolutePath());
+	}
+
+	private static void createPrivateDirectory(File directory) throws IOException {
+		Files.createDirectories(directory.toPath());
+		try {
+			Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwx------"));
+		} catch (UnsupportedOperationException e) {
+			// not a POSIX file system
+			directory.setReadable(false, false);
+			directory.setWritable(false, false);
+			directory.setExecutable(false, false);
+			directory.setReadable(true, true);
+			directory.setWritable(true, true);
+			directory.setExecutable(true, true);
+		}
+	}
+
 	/**
 	 * Sorts the given list in pre-order style
 	 * 
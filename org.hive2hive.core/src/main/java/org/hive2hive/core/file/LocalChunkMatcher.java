@@ -0,0 +1,58 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.hive2hive.core.model.Chunk;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+
+/**
+ * Compares the chunks of a local file with the chunks of a version to download. A chunk whose data is already
+ * present at the same position in the local file does not need to be downloaded again.
+ *
+ * @author Nico
+ *
+ */
+public class LocalChunkMatcher {
+
+	private final File localFile;
+	private final int chunkSize;
+
+	/**
+	 * @param localFile the local copy of the file (usually the destination of the download)
+	 * @param chunkSize the size of the chunks of the version
+	 */
+	public LocalChunkMatcher(File localFile, int chunkSize) {
+		this.localFile = localFile;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Reads the chunk at the position of the given meta chunk from the local file and compares its hash.
+	 *
+	 * @param metaChunk the chunk to download
+	 * @return the chunk read from the local file if it has the same content, else <code>null</code>
+	 * @throws IOException if the local file cannot be read
+	 */
+	public Chunk getMatchingChunk(MetaChunk metaChunk) throws IOException {
+		if (metaChunk.getContentHash() == null || !localFile.isFile()) {
+			// cannot be compared
+			return null;
+		}
+
+		Chunk chunk = FileChunkUtil.getChunk(localFile, chunkSize, metaChunk.getIndex(), metaChunk.getChunkId());
+		if (chunk == null) {
+			// local file is shorter
+			return null;
+		}
+
+		byte[] md5 = EncryptionUtil.generateMD5Hash(chunk.getData());
+		if (H2HEncryptionUtil.compareMD5(md5, metaChunk.getContentHash())) {
+			return chunk;
+		} else {
+			return null;
+		}
+	}
+}
@@ -3,16 +3,28 @@ package org.hive2hive.core.file;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 
 /**
  * Visits all files of a given path and collects the file tree which then can be stored as meta data to disc.
+ * Additionally, the digest of every folder is calculated the same way as the
+ * {@link org.hive2hive.core.model.FolderIndex#getDigest()} in the user profile.<br>
+ * Files whose size and modification time did not change since the previous meta data was written are not
+ * hashed again, their previous hash is taken instead. Thus, the digests of unchanged folders are calculated
+ * without reading their files. Files that have been modified shortly before the previous visit are always
+ * hashed (see {@link H2HConstants#MODIFICATION_TIME_GRANULARITY_MS}).
  * 
  * @author Nico
  * 
@@ -20,47 +32,119 @@ import org.hive2hive.core.security.EncryptionUtil;
 public class PersistenceFileVisitor extends SimpleFileVisitor<Path> {
 
 	private final HashMap<String, byte[]> fileTree;
+	private final HashMap<String, byte[]> folderDigests;
+	private final HashMap<String, long[]> fileStamps;
+	// the hashes and stamps of the previous visit
+	private final Map<String, byte[]> previousFileTree;
+	private final Map<String, long[]> previousFileStamps;
+	private final long previousVisitTime;
+	private final long visitTime;
+	// the hashes of the children of the folders currently visited
+	private final Deque<SortedMap<String, byte[]>> openFolders;
 	private final Path root;
-	private final Path configFilePath;
 
 	public PersistenceFileVisitor(Path root) {
+		this(root, null);
+	}
+
+	/**
+	 * @param root the root directory
+	 * @param previous the meta data written by a previous visit (can be <code>null</code>), its hashes are
+	 *            taken for the files that have not been modified since
+	 */
+	public PersistenceFileVisitor(Path root, PersistentMetaData previous) {
 		this.root = root;
 		fileTree = new HashMap<String, byte[]>();
-
-		configFilePath = Paths.get(root.toString(), H2HConstants.META_FILE_NAME);
+		folderDigests = new HashMap<String, byte[]>();
+		fileStamps = new HashMap<String, long[]>();
+		openFolders = new ArrayDeque<SortedMap<String, byte[]>>();
+		visitTime = System.currentTimeMillis();
+		if (previous == null) {
+			previousFileTree = new HashMap<String, byte[]>(0);
+			previousFileStamps = new HashMap<String, long[]>(0);
+			previousVisitTime = 0;
+		} else {
+			previousFileTree = previous.getFileTree();
+			previousFileStamps = previous.getFileStamps();
+			previousVisitTime = previous.getFileStampTime();
+		}
 	}
 
 	@Override
 	public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
 		// ignore configFile
-		if (path.equals(configFilePath)) {
+		if (FileUtil.isInternalFile(path.toFile())) {
 			return FileVisitResult.CONTINUE;
 		}
 
-		addToMap(path);
+		String relativePath = root.relativize(path).toString();
+		long[] stamp = new long[] { attrs.size(), attrs.lastModifiedTime().toMillis() };
+		byte[] md5 = previousFileTree.get(relativePath);
+		if (md5 == null || !Arrays.equals(stamp, previousFileStamps.get(relativePath))
+				|| stamp[1] > previousVisitTime - H2HConstants.MODIFICATION_TIME_GRANULARITY_MS) {
+			// new or (possibly) modified since the previous visit
+			md5 = EncryptionUtil.generateMD5Hash(path.toFile());
+		}
+
+		fileTree.put(relativePath, md5);
+		fileStamps.put(relativePath, stamp);
+		openFolders.peek().put(path.getFileName().toString(), md5);
 		return super.visitFile(path, attrs);
 	}
 
 	@Override
 	public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+		// ignore the state directory (if the root contains it)
+		if (FileUtil.isInternalFile(dir.toFile())) {
+			return FileVisitResult.SKIP_SUBTREE;
+		}
+
+		openFolders.push(new TreeMap<String, byte[]>());
+
 		// ignore root directory
 		if (dir.equals(root)) {
 			return FileVisitResult.CONTINUE;
 		}
 
-		addToMap(dir);
+		// folders have no hash
+		fileTree.put(root.relativize(dir).toString(), null);
 		return super.preVisitDirectory(dir, attrs);
 	}
 
-	private void addToMap(Path path) throws IOException {
-		// add to fileTree
-		Path relativePath = root.relativize(path);
-		
-		byte[] md5 = EncryptionUtil.generateMD5Hash(path.toFile());
-		fileTree.put(relativePath.toString(), md5);
+	@Override
+	public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+		byte[] digest = H2HEncryptionUtil.generateFolderDigest(openFolders.pop());
+		folderDigests.put(root.relativize(dir).toString(), digest);
+		if (!openFolders.isEmpty()) {
+			openFolders.peek().put(dir.getFileName().toString(), digest);
+		}
+
+		return super.postVisitDirectory(dir, e);
 	}
 
 	public HashMap<String, byte[]> getFileTree() {
 		return fileTree;
 	}
+
+	/**
+	 * Returns the digests of all visited folders, indexed by their relative path (the root has an empty
+	 * path)
+	 */
+	public HashMap<String, byte[]> getFolderDigests() {
+		return folderDigests;
+	}
+
+	/**
+	 * Returns the time when the visit started (before any file stamp has been taken)
+	 */
+	public long getVisitTime() {
+		return visitTime;
+	}
+
+	/**
+	 * Returns the size and the last modification time of all visited files, indexed by their relative path
+	 */
+	public HashMap<String, long[]> getFileStamps() {
+		return fileStamps;
+	}
 }
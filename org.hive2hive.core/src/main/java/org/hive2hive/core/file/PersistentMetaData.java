@@ -22,8 +22,12 @@ public class PersistentMetaData implements Serializable {
 	private static final long serialVersionUID = -1069468683019402537L;
 
 	private Map<String, byte[]> fileTree;
+	private Map<String, byte[]> folderDigests;
+	private Map<String, long[]> fileStamps;
+	private long fileStampTime;
 	private Map<String, PublicKey> publicKeyCache;
 	private Set<BaseDownloadTask> downloads;
+	private Map<String, Map<String, Long>> ttlRefreshTimes;
 
 	public PersistentMetaData() {
 		fileTree = new HashMap<String, byte[]>(0);
@@ -39,6 +43,49 @@ public class PersistentMetaData implements Serializable {
 		this.fileTree = fileTree;
 	}
 
+	/**
+	 * The digests of all folders (including the root with an empty path), see
+	 * {@link org.hive2hive.core.model.FolderIndex#getDigest()}
+	 */
+	public Map<String, byte[]> getFolderDigests() {
+		if (folderDigests == null) {
+			// meta data written by an older version
+			folderDigests = new HashMap<String, byte[]>(0);
+		}
+		return folderDigests;
+	}
+
+	public void setFolderDigests(Map<String, byte[]> folderDigests) {
+		this.folderDigests = folderDigests;
+	}
+
+	/**
+	 * The size and the last modification time of all files when their MD5 hash in the file tree has been
+	 * calculated
+	 */
+	public Map<String, long[]> getFileStamps() {
+		if (fileStamps == null) {
+			// meta data written by an older version
+			fileStamps = new HashMap<String, long[]>(0);
+		}
+		return fileStamps;
+	}
+
+	public void setFileStamps(Map<String, long[]> fileStamps) {
+		this.fileStamps = fileStamps;
+	}
+
+	/**
+	 * The time when the file stamps have been taken
+	 */
+	public long getFileStampTime() {
+		return fileStampTime;
+	}
+
+	public void setFileStampTime(long fileStampTime) {
+		this.fileStampTime = fileStampTime;
+	}
+
 	public Map<String, PublicKey> getPublicKeyCache() {
 		return publicKeyCache;
 	}
@@ -54,4 +101,20 @@ public class PersistentMetaData implements Serializable {
 	public void setDownloads(Set<BaseDownloadTask> downloads) {
 		this.downloads = downloads;
 	}
+
+	/**
+	 * The times of the next TTL refreshes, see
+	 * {@link org.hive2hive.core.network.data.TTLRefreshSchedule#getRefreshTimes()}
+	 */
+	public Map<String, Map<String, Long>> getTTLRefreshTimes() {
+		if (ttlRefreshTimes == null) {
+			// meta data written by an older version
+			ttlRefreshTimes = new HashMap<String, Map<String, Long>>(0);
+		}
+		return ttlRefreshTimes;
+	}
+
+	public void setTTLRefreshTimes(Map<String, Map<String, Long>> ttlRefreshTimes) {
+		this.ttlRefreshTimes = ttlRefreshTimes;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of the chunks and meta files this client has put into the network. It is the basis to find orphaned
+ * data (e.g. the chunks of an aborted upload whose removal failed), which is not referenced by any meta file
+ * of the user anymore and would otherwise stay in the network until its time-to-live expires.
+ *
+ * The log is stored in a file outside of the root directory (see
+ * {@link FileUtil#getStateDirectory(File, java.nio.file.Path, String)}). It does not contain any keys, only
+ * the id of the protection keys, which are looked up in the user profile to remove the data. A put is
+ * appended to the file before the process continues, thus the log does not need to be rewritten. The file is
+ * compacted when the removed entries outnumber the remaining ones.
+ *
+ * @author Nico
+ *
+ */
+public class PutLog {
+
+	private static final Logger logger = LoggerFactory.getLogger(PutLog.class);
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	// line types, the fields are separated by a space
+	private static final String PUT = "put"; // put <content key> <location key> <key id> <put time>
+	private static final String REMOVED = "removed"; // removed <content key> <location key>
+	private static final String NO_KEY = "-";
+
+	private final File logFile;
+	// content key and location key --> entry
+	private final Map<String, PutLogEntry> entries;
+	// the number of lines in the log file which are not needed anymore
+	private int obsoleteLines = 0;
+
+	/**
+	 * @param directory the directory where the log is stored (outside of the root directory)
+	 */
+	public PutLog(File directory) {
+		this.logFile = new File(directory, H2HConstants.PUT_LOG_FILE_NAME);
+		this.entries = new LinkedHashMap<String, PutLogEntry>();
+		read();
+		if (obsoleteLines > 0) {
+			compact();
+		}
+	}
+
+	/**
+	 * Records that a chunk or a meta file has been put. Only the first put of the same content is recorded.
+	 * This call does not return before the record is written to the disk.
+	 *
+	 * @param locationKey the chunk id or the location key of the meta file
+	 * @param contentKey the content key
+	 * @param protectionKeys the keys the content is protected with (can be <code>null</code>)
+	 */
+	public synchronized void put(String locationKey, String contentKey, KeyPair protectionKeys) {
+		String id = getId(contentKey, locationKey);
+		if (entries.containsKey(id)) {
+			return;
+		}
+
+		PutLogEntry entry = new PutLogEntry(locationKey, contentKey, getKeyId(protectionKeys),
+				System.currentTimeMillis());
+		entries.put(id, entry);
+		List<String> lines = new ArrayList<String>(1);
+		lines.add(getPutLine(entry));
+		append(lines);
+	}
+
+	/**
+	 * Removes an entry because the content has been removed from the network (or has expired)
+	 *
+	 * @param entry an entry of this log
+	 */
+	public synchronized void remove(PutLogEntry entry) {
+		if (entries.remove(getId(entry.getContentKey(), entry.getLocationKey())) == null) {
+			return;
+		}
+
+		// the put and the removed line
+		obsoleteLines += 2;
+		if (obsoleteLines > entries.size()) {
+			compact();
+		} else {
+			List<String> lines = new ArrayList<String>(1);
+			lines.add(REMOVED + " " + entry.getContentKey() + " " + entry.getLocationKey());
+			append(lines);
+		}
+	}
+
+	/**
+	 * @return all recorded chunks and meta files, ordered by their put time
+	 */
+	public synchronized List<PutLogEntry> getEntries() {
+		return new ArrayList<PutLogEntry>(entries.values());
+	}
+
+	private static String getId(String contentKey, String locationKey) {
+		return contentKey + "/" + locationKey;
+	}
+
+	/**
+	 * Returns the id under which protection keys are recorded in the log
+	 *
+	 * @param protectionKeys the protection keys (can be <code>null</code>)
+	 * @return the hash of the public key or <code>null</code> if there are no protection keys
+	 */
+	public static String getKeyId(KeyPair protectionKeys) {
+		if (protectionKeys == null) {
+			return null;
+		}
+		return EncryptionUtil.toHex(EncryptionUtil.generateMD5Hash(protectionKeys.getPublic().getEncoded()));
+	}
+
+	private static String getPutLine(PutLogEntry entry) {
+		String keyId = entry.getProtectionKeyId() == null ? NO_KEY : entry.getProtectionKeyId();
+		return PUT + " " + entry.getContentKey() + " " + entry.getLocationKey() + " " + keyId + " "
+				+ entry.getPutTime();
+	}
+
+	private void read() {
+		if (!logFile.exists()) {
+			return;
+		}
+
+		List<String> lines;
+		try {
+			lines = FileUtils.readLines(logFile, CHARSET);
+		} catch (IOException e) {
+			logger.warn("Cannot read the put log. Orphaned data is not removed until it expires.", e);
+			return;
+		}
+
+		for (String line : lines) {
+			if (!parse(line.split(" "))) {
+				logger.warn("Skipping a corrupt line of the put log.");
+				obsoleteLines++;
+			}
+		}
+	}
+
+	private boolean parse(String[] fields) {
+		try {
+			switch (fields[0]) {
+				case PUT:
+					String keyId = NO_KEY.equals(fields[3]) ? null : fields[3];
+					entries.put(getId(fields[1], fields[2]), new PutLogEntry(fields[2], fields[1], keyId, Long
+							.parseLong(fields[4])));
+					return true;
+				case REMOVED:
+					if (entries.remove(getId(fields[1], fields[2])) != null) {
+						obsoleteLines += 2;
+					}
+					return true;
+				default:
+					return false;
+			}
+		} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private void append(List<String> lines) {
+		try {
+			Files.write(logFile.toPath(), lines, CHARSET, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			logger.error("Cannot write the put log.", e);
+		}
+	}
+
+	/**
+	 * Rewrites the log file with the remaining entries only
+	 */
+	private void compact() {
+		List<String> lines = new ArrayList<String>();
+		for (PutLogEntry entry : entries.values()) {
+			lines.add(getPutLine(entry));
+		}
+
+		try {
+			if (entries.isEmpty()) {
+				Files.deleteIfExists(logFile.toPath());
+			} else {
+				// write to a temporary file first, such that a crash does not leave a corrupt log
+				File tempFile = new File(logFile.getParentFile(), logFile.getName() + ".tmp");
+				FileUtils.writeLines(tempFile, CHARSET.name(), lines);
+				Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			obsoleteLines = 0;
+		} catch (IOException e) {
+			logger.error("Cannot compact the put log.", e);
+		}
+	}
+}
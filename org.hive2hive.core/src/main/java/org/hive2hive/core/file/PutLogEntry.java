@@ -0,0 +1,52 @@
+package org.hive2hive.core.file;
+
+/**
+ * A chunk or meta file that has been put by this client, recorded in the {@link PutLog}.
+ *
+ * @author Nico
+ *
+ */
+public class PutLogEntry {
+
+	private final String locationKey;
+	private final String contentKey;
+	private final String protectionKeyId;
+	private final long putTime;
+
+	public PutLogEntry(String locationKey, String contentKey, String protectionKeyId, long putTime) {
+		this.locationKey = locationKey;
+		this.contentKey = contentKey;
+		this.protectionKeyId = protectionKeyId;
+		this.putTime = putTime;
+	}
+
+	/**
+	 * @return the chunk id or the location key of the meta file
+	 */
+	public String getLocationKey() {
+		return locationKey;
+	}
+
+	/**
+	 * @return {@link org.hive2hive.core.H2HConstants#FILE_CHUNK} or
+	 *         {@link org.hive2hive.core.H2HConstants#META_FILE}
+	 */
+	public String getContentKey() {
+		return contentKey;
+	}
+
+	/**
+	 * @return the id of the keys the content has been protected with when it was put (see
+	 *         {@link PutLog#getKeyId(java.security.KeyPair)}) or <code>null</code> if it is not protected
+	 */
+	public String getProtectionKeyId() {
+		return protectionKeyId;
+	}
+
+	/**
+	 * @return the time in milliseconds of the first put
+	 */
+	public long getPutTime() {
+		return putTime;
+	}
+}
@@ -0,0 +1,241 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-ahead journal of the running uploads. Every uploaded chunk is recorded before the process continues,
+ * such that an upload that has been interrupted (e.g. the client crashed) can be continued with the next
+ * chunk at the next login instead of uploading the whole file again. The journal is only used if
+ * {@link H2HConstants#UPLOAD_JOURNAL_ENABLED} is set.
+ *
+ * The journal contains the chunk and protection keys, therefore it is stored outside of the root directory
+ * (see {@link FileUtil#getStateDirectory(File, Path, String)}) and encrypted with the keys of the user. Every
+ * change is appended to the journal file, the file is compacted when it is loaded and when most of its records
+ * are obsolete. Large files are not recorded, their chunks are not uploaded to the network.
+ *
+ * @author Nico
+ *
+ */
+public class UploadJournal {
+
+	private static final Logger logger = LoggerFactory.getLogger(UploadJournal.class);
+
+	// the journal is not compacted while it has less records
+	private static final int MIN_COMPACTION_RECORDS = 32;
+
+	private final Path root;
+	private final EncryptedRecordFile journalFile;
+	private final HashMap<String, UploadJournalEntry> entries;
+	// the number of records in the journal file
+	private int records = 0;
+
+	/**
+	 * @param root the root directory of the user
+	 * @param directory the directory where the journal is stored (outside of the root directory)
+	 * @param keyPair the keys of the user to encrypt the journal with
+	 */
+	public UploadJournal(Path root, File directory, KeyPair keyPair) {
+		this.root = root;
+		this.journalFile = new EncryptedRecordFile(new File(directory, H2HConstants.UPLOAD_JOURNAL_FILE_NAME),
+				keyPair);
+		this.entries = new HashMap<String, UploadJournalEntry>();
+		read();
+		compact();
+	}
+
+	/**
+	 * Returns the unfinished upload of a file
+	 *
+	 * @param file the file to upload
+	 * @return the journal entry or <code>null</code> if there is no unfinished upload of this file
+	 */
+	public synchronized UploadJournalEntry get(File file) {
+		return entries.get(getKey(file));
+	}
+
+	/**
+	 * Starts recording a new upload. A previous entry of the same file is replaced.
+	 *
+	 * @param file the file to upload
+	 * @param chunkSize the size of the chunks
+	 * @param chunkKeys the keys the chunks are encrypted with
+	 * @param protectionKeys the keys the chunks are protected with
+	 * @return the new journal entry
+	 * @throws IOException if the file cannot be read or the journal cannot be written
+	 */
+	public synchronized UploadJournalEntry begin(File file, int chunkSize, KeyPair chunkKeys,
+			KeyPair protectionKeys) throws IOException {
+		String key = getKey(file);
+		UploadJournalEntry entry = new UploadJournalEntry(key, EncryptionUtil.generateMD5Hash(file), chunkSize,
+				chunkKeys, protectionKeys);
+		entries.put(key, entry);
+		append(entry);
+		return entry;
+	}
+
+	/**
+	 * Records that a chunk is in the network. This call does not return before the journal is written to the
+	 * disk.
+	 *
+	 * @param file the uploaded file
+	 * @param metaChunk the uploaded chunk
+	 */
+	public synchronized void chunkCompleted(File file, MetaChunk metaChunk) {
+		UploadJournalEntry entry = entries.get(getKey(file));
+		if (entry == null) {
+			logger.warn("No upload of file '{}' is recorded.", file.getName());
+			return;
+		}
+
+		entry.addCompletedChunk(metaChunk);
+		append(new CompletedChunk(entry.getPath(), metaChunk));
+	}
+
+	/**
+	 * Removes the entry of a file because the upload completed or has been aborted (and cleaned up).
+	 *
+	 * @param file the uploaded file
+	 */
+	public synchronized void remove(File file) {
+		remove(getKey(file));
+	}
+
+	/**
+	 * Removes an entry
+	 *
+	 * @param path the path of the file, relative to the root
+	 */
+	public synchronized void remove(String path) {
+		if (entries.remove(path) == null) {
+			return;
+		}
+
+		if (entries.isEmpty() || records > MIN_COMPACTION_RECORDS && records > 2 * getLiveRecords()) {
+			compact();
+		} else {
+			append(new RemovedUpload(path));
+		}
+	}
+
+	/**
+	 * @return all unfinished uploads
+	 */
+	public synchronized List<UploadJournalEntry> getEntries() {
+		return new ArrayList<UploadJournalEntry>(entries.values());
+	}
+
+	/**
+	 * @param entry an entry of this journal
+	 * @return the file the entry belongs to
+	 */
+	public File getFile(UploadJournalEntry entry) {
+		return root.resolve(entry.getPath()).toFile();
+	}
+
+	private String getKey(File file) {
+		return root.relativize(file.toPath()).toString();
+	}
+
+	/**
+	 * Replays the records of the journal file
+	 */
+	private void read() {
+		List<Serializable> content;
+		try {
+			content = journalFile.read();
+		} catch (IOException e) {
+			logger.warn("Cannot read the upload journal. Unfinished uploads start from scratch.", e);
+			return;
+		}
+
+		for (Serializable record : content) {
+			if (record instanceof UploadJournalEntry) {
+				UploadJournalEntry entry = (UploadJournalEntry) record;
+				entries.put(entry.getPath(), entry);
+			} else if (record instanceof CompletedChunk) {
+				CompletedChunk completed = (CompletedChunk) record;
+				UploadJournalEntry entry = entries.get(completed.path);
+				if (entry != null) {
+					entry.addCompletedChunk(completed.metaChunk);
+				}
+			} else if (record instanceof RemovedUpload) {
+				entries.remove(((RemovedUpload) record).path);
+			}
+		}
+	}
+
+	private void append(Serializable record) {
+		try {
+			journalFile.append(record);
+			records++;
+		} catch (IOException e) {
+			logger.error("Cannot write the upload journal.", e);
+		}
+	}
+
+	/**
+	 * Rewrites the journal file with one record per entry (containing its completed chunks)
+	 */
+	private void compact() {
+		try {
+			journalFile.rewrite(new ArrayList<UploadJournalEntry>(entries.values()));
+			records = entries.size();
+		} catch (IOException e) {
+			logger.error("Cannot compact the upload journal.", e);
+		}
+	}
+
+	/**
+	 * @return the number of records needed if the entries were recorded one chunk after the other
+	 */
+	private int getLiveRecords() {
+		int live = 0;
+		for (UploadJournalEntry entry : entries.values()) {
+			live += 1 + entry.getCompletedChunks().size();
+		}
+		return live;
+	}
+
+	/**
+	 * Record of an uploaded chunk
+	 */
+	private static class CompletedChunk implements Serializable {
+
+		private static final long serialVersionUID = -6319728826153095361L;
+
+		private final String path;
+		private final MetaChunk metaChunk;
+
+		public CompletedChunk(String path, MetaChunk metaChunk) {
+			this.path = path;
+			this.metaChunk = metaChunk;
+		}
+	}
+
+	/**
+	 * Record of a completed or aborted upload
+	 */
+	private static class RemovedUpload implements Serializable {
+
+		private static final long serialVersionUID = 4415932507236380754L;
+
+		private final String path;
+
+		public RemovedUpload(String path) {
+			this.path = path;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+
+/**
+ * The state of an unfinished upload in the {@link UploadJournal}: which file version is uploaded with which
+ * keys and which chunks are already in the network.
+ *
+ * @author Nico
+ *
+ */
+public class UploadJournalEntry implements Serializable {
+
+	private static final long serialVersionUID = 2934180931707474912L;
+
+	private final String path;
+	private final byte[] md5;
+	private final int chunkSize;
+	private final KeyPair chunkKeys;
+	private final KeyPair protectionKeys;
+	private final List<MetaChunk> completedChunks;
+
+	public UploadJournalEntry(String path, byte[] md5, int chunkSize, KeyPair chunkKeys, KeyPair protectionKeys) {
+		this.path = path;
+		this.md5 = md5;
+		this.chunkSize = chunkSize;
+		this.chunkKeys = chunkKeys;
+		this.protectionKeys = protectionKeys;
+		this.completedChunks = new ArrayList<MetaChunk>();
+	}
+
+	/**
+	 * @return the path of the file, relative to the root
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	public KeyPair getChunkKeys() {
+		return chunkKeys;
+	}
+
+	/**
+	 * @return the keys the chunks are protected with (required to remove them)
+	 */
+	public KeyPair getProtectionKeys() {
+		return protectionKeys;
+	}
+
+	/**
+	 * @return the chunks that are already uploaded, ordered by their index
+	 */
+	public List<MetaChunk> getCompletedChunks() {
+		List<MetaChunk> sorted = new ArrayList<MetaChunk>(completedChunks);
+		Collections.sort(sorted, new Comparator<MetaChunk>() {
+			@Override
+			public int compare(MetaChunk chunk1, MetaChunk chunk2) {
+				return Integer.compare(chunk1.getIndex(), chunk2.getIndex());
+			}
+		});
+		return sorted;
+	}
+
+	void addCompletedChunk(MetaChunk metaChunk) {
+		completedChunks.add(metaChunk);
+	}
+
+	/**
+	 * Checks whether the upload can be continued, which is only the case if the file is still the same and
+	 * is chunked and encrypted the same way.
+	 *
+	 * @param file the file to upload
+	 * @param chunkSize the current chunk size
+	 * @param chunkKeys the chunk keys that must be used (or <code>null</code> if any can be used)
+	 * @param protectionKeys the keys the chunks must be protected with
+	 * @return <code>true</code> if the completed chunks can be reused
+	 */
+	public boolean isResumable(File file, int chunkSize, KeyPair chunkKeys, KeyPair protectionKeys) {
+		if (this.chunkSize != chunkSize || !file.isFile()) {
+			return false;
+		} else if (chunkKeys != null && !chunkKeys.getPublic().equals(this.chunkKeys.getPublic())) {
+			return false;
+		} else if (protectionKeys != null && this.protectionKeys != null
+				&& !protectionKeys.getPublic().equals(this.protectionKeys.getPublic())) {
+			return false;
+		}
+
+		try {
+			return H2HEncryptionUtil.compareMD5(file, md5);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
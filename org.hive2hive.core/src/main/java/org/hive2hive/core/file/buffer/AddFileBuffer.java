@@ -1,8 +1,12 @@
 package org.hive2hive.core.file.buffer;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.hive2hive.core.api.interfaces.IFileManager;
@@ -12,6 +16,7 @@ import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
 import org.hive2hive.core.processes.implementations.files.list.FileTaste;
+import org.hive2hive.core.security.EncryptionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,44 +24,133 @@ public class AddFileBuffer extends BaseFileBuffer {
 
 	private static final Logger logger = LoggerFactory.getLogger(AddFileBuffer.class);
 
+	private final FileMoveDetector moveDetector;
+
 	public AddFileBuffer(IFileManager fileManager) {
 		super(fileManager);
+		this.moveDetector = null;
+	}
+
+	public AddFileBuffer(IFileManager fileManager, SyncFileSnapshot syncFileSnapshot) {
+		this(fileManager, syncFileSnapshot, null);
+	}
+
+	/**
+	 * @param moveDetector provides the files deleted at the same time to detect moved files, which are then
+	 *            moved instead of added
+	 */
+	public AddFileBuffer(IFileManager fileManager, SyncFileSnapshot syncFileSnapshot,
+			FileMoveDetector moveDetector) {
+		super(fileManager, syncFileSnapshot);
+		this.moveDetector = moveDetector;
 	}
 
 	@Override
 	protected void processBuffer(IFileBufferHolder buffer) {
 		Set<File> fileBuffer = filterBuffer(buffer.getFileBuffer(), buffer.getSyncFiles());
 
-		for (File toAdd : fileBuffer) {
+		List<File> toAdd = new ArrayList<File>(fileBuffer.size());
+		for (File file : fileBuffer) {
+			if (file.exists()) {
+				toAdd.add(file);
+			} else {
+				logger.debug("File {} has been removed again before it could be added.", file.getAbsolutePath());
+			}
+		}
+
+		if (moveDetector != null) {
+			toAdd.removeAll(moveFiles(toAdd));
+		}
+
+		if (toAdd.isEmpty()) {
+			return;
+		}
+
+		// add all files together with a single user profile modification
+		try {
+			IProcessComponent process = fileManager.addAll(toAdd);
+			if (!fileManager.isAutostart())
+				process.start();
+		} catch (NoSessionException | NoPeerConnectionException | IllegalFileLocation
+				| InvalidProcessStateException e) {
+			logger.error(e.getMessage());
+		}
+	}
+
+	/**
+	 * Moves the created files that have the same content as a file deleted at the same time
+	 * 
+	 * @return the moved files
+	 */
+	private List<File> moveFiles(List<File> created) {
+		List<File> moved = new ArrayList<File>();
+		try {
+			// the deletions of the same move may be buffered a bit later
+			moveDetector.awaitDeletions(BUFFER_WAIT_TIME_MS);
+		} catch (InterruptedException e) {
+			logger.warn("Could not wait for the deleted files.");
+		}
+
+		for (File file : created) {
+			if (!moveDetector.hasDeletedFiles()) {
+				break;
+			} else if (!file.isFile()) {
+				continue;
+			}
+
+			File source;
 			try {
-				IProcessComponent process = fileManager.add(toAdd);
-				if (!fileManager.isAutostart())
-					process.start();
-			} catch (NoSessionException | NoPeerConnectionException | IllegalFileLocation
-					| InvalidProcessStateException e) {
-				logger.error(e.getMessage());
+				source = moveDetector.claimDeletedFile(file, EncryptionUtil.generateMD5Hash(file));
+			} catch (IOException e) {
+				logger.warn("Could not generate the MD5 hash of the file to detect whether it has been moved.");
+				continue;
+			}
+
+			if (source != null) {
+				logger.debug("File {} has been moved to {}.", source.getAbsolutePath(), file.getAbsolutePath());
+				try {
+					IProcessComponent process = fileManager.move(source, file);
+					if (!fileManager.isAutostart())
+						process.start();
+					moved.add(file);
+				} catch (IllegalArgumentException | NoSessionException | NoPeerConnectionException
+						| InvalidProcessStateException e) {
+					// upload it again instead
+					logger.error(e.getMessage());
+				}
 			}
 		}
+
+		return moved;
 	}
 
-	private Set<File> filterBuffer(List<File> fileBuffer, Set<FileTaste> syncFiles) {
+	private Set<File> filterBuffer(Set<File> fileBuffer, Map<File, FileTaste> syncFiles) {
 		// remove the files from the buffer which are already in the DHT
 		// the event has been triggered by Hive2Hive when downloading it.
-		for (FileTaste syncFile : syncFiles) {
-			fileBuffer.remove(syncFile.getFile());
+		Set<File> buffered = new HashSet<File>(fileBuffer.size());
+		for (File file : fileBuffer) {
+			if (!syncFiles.containsKey(file)) {
+				buffered.add(file);
+			}
 		}
 
-		Set<File> filtered = new HashSet<File>(fileBuffer);
-
 		// only keep top-parent(s) to the buffer, filter out the rest
+		Set<File> filtered = new LinkedHashSet<File>();
 		for (File bufferedFile : fileBuffer) {
-			// iterate through every file in buffer and check if there is a parent in the buffer
-			for (File possibleParent : fileBuffer) {
-				if (!bufferedFile.equals(possibleParent)
-						&& bufferedFile.getAbsolutePath().startsWith(possibleParent.getAbsolutePath())) {
-					logger.debug("Parent ({}) already in buffer, no need to add child ({}), too.", possibleParent.getAbsolutePath(), bufferedFile.getAbsolutePath());
-					filtered.remove(bufferedFile);
-				}
+			if (!buffered.contains(bufferedFile)) {
+				continue;
+			}
+
+			// look up the ancestors of the file in the buffer
+			File possibleParent = bufferedFile.getParentFile();
+			while (possibleParent != null && !buffered.contains(possibleParent)) {
+				possibleParent = possibleParent.getParentFile();
+			}
+
+			if (possibleParent == null) {
+				filtered.add(bufferedFile);
+			} else {
+				logger.debug("Parent ({}) already in buffer, no need to add child ({}), too.", possibleParent.getAbsolutePath(), bufferedFile.getAbsolutePath());
 			}
 		}
 
@@ -1,17 +1,15 @@
 package org.hive2hive.core.file.buffer;
 
 import java.io.File;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.api.interfaces.IFileManager;
-import org.hive2hive.core.exceptions.NoSessionException;
-import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
-import org.hive2hive.core.processes.framework.interfaces.IProcessResultListener;
-import org.hive2hive.core.processes.framework.interfaces.IResultProcessComponent;
-import org.hive2hive.core.processes.implementations.files.list.FileTaste;
+import org.hive2hive.core.file.FileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,17 +17,37 @@ public abstract class BaseFileBuffer implements IFileBuffer {
 
 	private static final Logger logger = LoggerFactory.getLogger(BaseFileBuffer.class);
 
+	// all buffers share the same threads to wait for the end of their buffering time
+	private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+			H2HConstants.FILE_BUFFER_THREADS, new BufferThreadFactory());
+
 	protected final IFileManager fileManager;
+	private final SyncFileSnapshot syncFileSnapshot;
 	protected FileBufferHolder currentBuffer;
 
 	protected BaseFileBuffer(IFileManager fileManager) {
+		this(fileManager, new SyncFileSnapshot(fileManager));
+	}
+
+	/**
+	 * @param fileManager the file manager to process the buffered files
+	 * @param syncFileSnapshot the files in sync, can be shared with other buffers of the same file manager
+	 */
+	protected BaseFileBuffer(IFileManager fileManager, SyncFileSnapshot syncFileSnapshot) {
 		this.fileManager = fileManager;
+		this.syncFileSnapshot = syncFileSnapshot;
 	}
 
 	@Override
 	public final synchronized void addFileToBuffer(File file) {
+		if (FileUtil.isInternalFile(file)) {
+			// changes of the configuration and state files must not be synchronized
+			return;
+		}
+
 		if (currentBuffer == null) {
 			currentBuffer = new FileBufferHolder();
+			onStartBuffering();
 			startBuffering(currentBuffer);
 		}
 
@@ -38,19 +56,38 @@ public abstract class BaseFileBuffer implements IFileBuffer {
 
 	private void startBuffering(final FileBufferHolder fileBuffer) {
 		logger.debug("Start buffering for {} ms.", IFileBuffer.BUFFER_WAIT_TIME_MS);
-		new Timer().schedule(new TimerTask() {
+		scheduler.schedule(new Runnable() {
 			@Override
 			public void run() {
-				currentBuffer = null;
+				synchronized (BaseFileBuffer.this) {
+					currentBuffer = null;
+				}
 				logger.debug("Finished buffering. {} file(s) in buffer.", fileBuffer.getFileBuffer().size());
 
-				fileBuffer.awaitReady();
-				processBuffer(fileBuffer);
+				// the file list must not be older than the first event in the buffer
+				fileBuffer.setSyncFiles(syncFileSnapshot.getSyncFiles(fileBuffer.getStartTime()));
+				try {
+					processBuffer(fileBuffer);
+				} catch (RuntimeException e) {
+					// do not let the shared thread die
+					logger.error("Could not process the file buffer.", e);
+				}
 			}
-		}, BUFFER_WAIT_TIME_MS);
+		}, BUFFER_WAIT_TIME_MS, TimeUnit.MILLISECONDS);
+	}
 
-		// start getting the file list
-		new Thread(new FileListRunnable(fileBuffer)).start();
+	/**
+	 * Runs a task on the threads of the file buffers after the given delay.
+	 */
+	protected static void schedule(Runnable task, long delayMs) {
+		scheduler.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Called when the buffer starts collecting files, before the first file is added.
+	 */
+	protected void onStartBuffering() {
+		// do nothing by default
 	}
 
 	/**
@@ -60,44 +97,15 @@ public abstract class BaseFileBuffer implements IFileBuffer {
 	 */
 	protected abstract void processBuffer(IFileBufferHolder buffer);
 
-	private class FileListRunnable implements Runnable {
+	private static class BufferThreadFactory implements ThreadFactory {
 
-		private final FileBufferHolder fileBuffer;
-
-		public FileListRunnable(FileBufferHolder fileBuffer) {
-			this.fileBuffer = fileBuffer;
-		}
+		private final AtomicInteger counter = new AtomicInteger();
 
 		@Override
-		public void run() {
-			IResultProcessComponent<List<FileTaste>> fileList = null;
-			try {
-				fileList = fileManager.getFileList();
-			} catch (NoSessionException e) {
-				logger.error("Could not get the file list.", e);
-				fileBuffer.setSyncFiles(new HashSet<FileTaste>(0));
-				fileBuffer.setReady();
-				return;
-			}
-
-			fileList.attachListener(new IProcessResultListener<List<FileTaste>>() {
-				@Override
-				public void onResultReady(List<FileTaste> result) {
-					// the result is ready, add it to the buffer
-					fileBuffer.setSyncFiles(new HashSet<FileTaste>(result));
-					fileBuffer.setReady();
-				}
-			});
-
-			// start when necessary
-			if (!fileManager.isAutostart()) {
-				try {
-					fileList.start();
-				} catch (InvalidProcessStateException e) {
-					logger.error("Could not launch the process to get the file list.");
-				}
-			}
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "File buffer-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
 		}
 	}
-
 }
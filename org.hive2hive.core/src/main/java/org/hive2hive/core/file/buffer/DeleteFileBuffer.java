@@ -1,15 +1,17 @@
 package org.hive2hive.core.file.buffer;
 
 import java.io.File;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.hive2hive.core.api.interfaces.IFileManager;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
-import org.hive2hive.core.file.FileUtil;
+import org.hive2hive.core.processes.framework.ProcessState;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
 import org.hive2hive.core.processes.implementations.files.list.FileTaste;
@@ -19,10 +21,34 @@ import org.slf4j.LoggerFactory;
 public class DeleteFileBuffer extends BaseFileBuffer {
 
 	private static final Logger logger = LoggerFactory.getLogger(DeleteFileBuffer.class);
-	private static final long MAX_DELETION_PROCESS_DURATION_MS = 30000; // timeout to omit blocks
+	private static final long MAX_DELETION_PROCESS_DURATION_MS = 30000; // timeout per file to omit blocks
+
+	private final FileMoveDetector moveDetector;
 
 	public DeleteFileBuffer(IFileManager fileManager) {
 		super(fileManager);
+		this.moveDetector = null;
+	}
+
+	public DeleteFileBuffer(IFileManager fileManager, SyncFileSnapshot syncFileSnapshot) {
+		this(fileManager, syncFileSnapshot, null);
+	}
+
+	/**
+	 * @param moveDetector offers the deleted files to the add buffer to detect moved files. Deleted files are
+	 *            then only deleted after another buffering time, if they have not been moved.
+	 */
+	public DeleteFileBuffer(IFileManager fileManager, SyncFileSnapshot syncFileSnapshot,
+			FileMoveDetector moveDetector) {
+		super(fileManager, syncFileSnapshot);
+		this.moveDetector = moveDetector;
+	}
+
+	@Override
+	protected void onStartBuffering() {
+		if (moveDetector != null) {
+			moveDetector.startDeletions();
+		}
 	}
 
 	/**
@@ -31,45 +57,89 @@ public class DeleteFileBuffer extends BaseFileBuffer {
 	 * @param bufferedFiles
 	 */
 	protected void processBuffer(IFileBufferHolder buffer) {
-		List<File> bufferedFiles = buffer.getFileBuffer();
-		Set<FileTaste> syncFiles = buffer.getSyncFiles();
-
-		Set<File> toRemove = new HashSet<File>();
-		for (File file : bufferedFiles) {
-			boolean found = false;
-			for (FileTaste fileTaste : syncFiles) {
-				if (fileTaste.getFile().equals(file)) {
-					found = true;
-					break;
+		List<File> bufferedFiles = new ArrayList<File>(buffer.getFileBuffer().size());
+		Map<File, byte[]> candidates = new LinkedHashMap<File, byte[]>();
+		try {
+			Map<File, FileTaste> syncFiles = buffer.getSyncFiles();
+			for (File file : buffer.getFileBuffer()) {
+				// skip the files that have already been removed, they are not in UP anymore
+				if (syncFiles.containsKey(file)) {
+					bufferedFiles.add(file);
 				}
 			}
 
-			if (!found) {
-				// has already been removed, is not in UP anymore
-				toRemove.add(file);
+			if (moveDetector != null) {
+				candidates = getMoveCandidates(bufferedFiles, syncFiles);
+				bufferedFiles.removeAll(candidates.keySet());
+			}
+		} finally {
+			if (moveDetector != null) {
+				// also if processing failed, else the add buffer keeps waiting for these deletions
+				moveDetector.addDeletedFiles(candidates);
 			}
 		}
-		bufferedFiles.removeAll(toRemove);
-
-		// sort first
-		FileUtil.sortPreorder(bufferedFiles);
-		// reverse the sorting
-		Collections.reverse(bufferedFiles);
-
-		// delete individual files
-		for (File toDelete : bufferedFiles) {
-			try {
-				logger.debug("Starting to delete buffered file {}.", toDelete);
-				IProcessComponent delete = fileManager.delete(toDelete);
-				if (!fileManager.isAutostart())
-					delete.start();
-				delete.await(MAX_DELETION_PROCESS_DURATION_MS);
-			} catch (NoSessionException | NoPeerConnectionException | InvalidProcessStateException
-					| InterruptedException e) {
-				logger.error(e.getMessage());
+
+		if (moveDetector != null) {
+			final Map<File, byte[]> moveCandidates = candidates;
+			if (!moveCandidates.isEmpty()) {
+				// give the add buffer the chance to claim them as moved
+				schedule(new Runnable() {
+					@Override
+					public void run() {
+						deleteFiles(moveDetector.removeDeletedFiles(moveCandidates.keySet()));
+					}
+				}, BUFFER_WAIT_TIME_MS);
 			}
 		}
 
+		deleteFiles(bufferedFiles);
 		logger.debug("Buffer with {} files processed.", bufferedFiles.size());
 	}
+
+	/**
+	 * Only single files can be detected as moved. Files in a deleted folder are deleted together with the
+	 * folder.
+	 */
+	private Map<File, byte[]> getMoveCandidates(List<File> bufferedFiles, Map<File, FileTaste> syncFiles) {
+		Set<File> deleted = new HashSet<File>(bufferedFiles);
+		Map<File, byte[]> candidates = new LinkedHashMap<File, byte[]>();
+		for (File file : bufferedFiles) {
+			byte[] md5 = syncFiles.get(file).getMd5();
+			if (md5 == null) {
+				// is a folder
+				continue;
+			}
+
+			File parent = file.getParentFile();
+			while (parent != null && !deleted.contains(parent)) {
+				parent = parent.getParentFile();
+			}
+
+			if (parent == null) {
+				candidates.put(file, md5);
+			}
+		}
+		return candidates;
+	}
+
+	private void deleteFiles(List<File> files) {
+		// delete all files together with a single user profile modification
+		if (files.isEmpty()) {
+			return;
+		}
+
+		try {
+			logger.debug("Starting to delete {} buffered files.", files.size());
+			IProcessComponent delete = fileManager.deleteAll(files);
+			if (!fileManager.isAutostart())
+				delete.start();
+			delete.await(MAX_DELETION_PROCESS_DURATION_MS * files.size());
+			if (delete.getState() == ProcessState.RUNNING) {
+				logger.warn("Deletion of {} buffered files is still running.", files.size());
+			}
+		} catch (NoSessionException | NoPeerConnectionException | InvalidProcessStateException
+				| InterruptedException e) {
+			logger.error(e.getMessage());
+		}
+	}
 }
@@ -1,15 +1,11 @@
 package org.hive2hive.core.file.buffer;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
 import org.hive2hive.core.processes.implementations.files.list.FileTaste;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Holds two file lists:<br>
@@ -17,67 +13,51 @@ import org.slf4j.LoggerFactory;
  * <li>The buffered files which have triggered the file observer</li>
  * <li>The files which are in sync / already in the DHT</li>
  * </ul>
+ * The holder is not thread-safe. Files are only added while the {@link BaseFileBuffer} holds its lock and
+ * the buffer is only read after the {@link BaseFileBuffer} has released it under the same lock.
  * 
  * @author Nico
  * 
  */
 public class FileBufferHolder implements IFileBufferHolder {
 
-	private static final Logger logger = LoggerFactory.getLogger(FileBufferHolder.class);
-
-	// The maximum amount of time to wait until the sync files should be ready.
-	private static final long MAX_SYNC_FILES_AWAIT_MS = 20000;
-
-	private final List<File> fileBuffer;
-	private final CountDownLatch syncFilesLatch;
-	private Set<FileTaste> syncFiles;
+	private final Set<File> fileBuffer;
+	private final long startTime;
+	private Map<File, FileTaste> syncFiles;
 
 	public FileBufferHolder() {
-		this.fileBuffer = new ArrayList<File>();
-		this.syncFilesLatch = new CountDownLatch(1);
+		this.fileBuffer = new LinkedHashSet<File>();
+		this.startTime = System.currentTimeMillis();
 	}
 
 	/**
 	 * Add a file to the buffer
 	 */
-	public synchronized void addFile(File file) {
+	public void addFile(File file) {
 		fileBuffer.add(file);
 	}
 
 	/**
-	 * Set the files which are in sync with the DHT
-	 */
-	public void setSyncFiles(Set<FileTaste> syncFiles) {
-		this.syncFiles = syncFiles;
-	}
-
-	/**
-	 * Trigger the buffer to be allowed to be processed
+	 * The time when the buffering started
 	 */
-	public void setReady() {
-		syncFilesLatch.countDown();
+	public long getStartTime() {
+		return startTime;
 	}
 
 	/**
-	 * Wait for the buffer to be ready in a blocking manner
+	 * Set the files which are in sync with the DHT
 	 */
-	public void awaitReady() {
-		if (syncFiles == null) {
-			try {
-				syncFilesLatch.await(MAX_SYNC_FILES_AWAIT_MS, TimeUnit.MILLISECONDS);
-			} catch (InterruptedException e) {
-				logger.error("Could not wait until the file digest was ready.");
-			}
-		}
+	public void setSyncFiles(Map<File, FileTaste> syncFiles) {
+		this.syncFiles = syncFiles;
 	}
 
 	@Override
-	public Set<FileTaste> getSyncFiles() {
+	public Map<File, FileTaste> getSyncFiles() {
 		return syncFiles;
 	}
 
 	@Override
-	public List<File> getFileBuffer() {
+	public Set<File> getFileBuffer() {
 		return fileBuffer;
 	}
 }
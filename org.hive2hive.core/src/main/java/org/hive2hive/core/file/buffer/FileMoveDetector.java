@@ -0,0 +1,105 @@
+package org.hive2hive.core.file.buffer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hive2hive.core.security.H2HEncryptionUtil;
+
+/**
+ * Correlates the deleted and the created files of the file buffers. A file that is deleted and created
+ * somewhere else with the same content at the same time has been moved (or renamed). Such a file only needs
+ * to be relinked in the user profile instead of deleting it and uploading it again.
+ *
+ * @author Nico
+ *
+ */
+public class FileMoveDetector {
+
+	// the deleted files and their MD5 hash which have not been claimed by a created file yet
+	private final Map<File, byte[]> deletedFiles;
+	// the number of delete buffers that are still collecting deletions
+	private int pendingDeletions;
+
+	public FileMoveDetector() {
+		this.deletedFiles = new LinkedHashMap<File, byte[]>();
+	}
+
+	/**
+	 * A delete buffer started to collect deletions. Must be followed by
+	 * {@link FileMoveDetector#addDeletedFiles(Map)}.
+	 */
+	public synchronized void startDeletions() {
+		pendingDeletions++;
+	}
+
+	/**
+	 * A delete buffer finished collecting deletions. The files can be claimed by created files from now on.
+	 *
+	 * @param files the deleted files and the MD5 hash of their content
+	 */
+	public synchronized void addDeletedFiles(Map<File, byte[]> files) {
+		deletedFiles.putAll(files);
+		pendingDeletions = Math.max(0, pendingDeletions - 1);
+		notifyAll();
+	}
+
+	/**
+	 * Blocks until all delete buffers have finished collecting their deletions or the timeout exceeded.
+	 */
+	public synchronized void awaitDeletions(long timeoutMs) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		long remaining = timeoutMs;
+		while (pendingDeletions > 0 && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+	}
+
+	public synchronized boolean hasDeletedFiles() {
+		return !deletedFiles.isEmpty();
+	}
+
+	/**
+	 * Finds a deleted file with the same content as the created file. A deleted file with the same name
+	 * (moved) is preferred over one with another name (renamed).
+	 *
+	 * @param created the created file
+	 * @param md5 the MD5 hash of the created file
+	 * @return the deleted file which has been moved to the created file or <code>null</code> if there is none
+	 */
+	public synchronized File claimDeletedFile(File created, byte[] md5) {
+		File source = null;
+		for (File deleted : deletedFiles.keySet()) {
+			if (H2HEncryptionUtil.compareMD5(md5, deletedFiles.get(deleted))) {
+				source = deleted;
+				if (deleted.getName().equals(created.getName())) {
+					break;
+				}
+			}
+		}
+
+		if (source != null) {
+			deletedFiles.remove(source);
+		}
+		return source;
+	}
+
+	/**
+	 * Removes the given deleted files which have not been claimed by a created file.
+	 *
+	 * @return the files that have not been claimed and need to be deleted
+	 */
+	public synchronized List<File> removeDeletedFiles(Collection<File> files) {
+		List<File> unclaimed = new ArrayList<File>(files.size());
+		for (File file : files) {
+			if (deletedFiles.remove(file) != null) {
+				unclaimed.add(file);
+			}
+		}
+		return unclaimed;
+	}
+}
@@ -1,7 +1,7 @@
 package org.hive2hive.core.file.buffer;
 
 import java.io.File;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.hive2hive.core.processes.implementations.files.list.FileTaste;
@@ -9,12 +9,13 @@ import org.hive2hive.core.processes.implementations.files.list.FileTaste;
 public interface IFileBufferHolder {
 
 	/**
-	 * Get the list of files which are in sync with the DHT (use it to filter your files in the buffer)
+	 * Get the files which are in sync with the DHT, indexed by their file (use it to filter your files in
+	 * the buffer)
 	 */
-	public Set<FileTaste> getSyncFiles();
+	public Map<File, FileTaste> getSyncFiles();
 
 	/**
-	 * Get the list of files in the buffer
+	 * Get the files in the buffer (without duplicates, in the order of their first event)
 	 */
-	public List<File> getFileBuffer();
+	public Set<File> getFileBuffer();
 }
@@ -2,10 +2,12 @@ package org.hive2hive.core.file.buffer;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.api.interfaces.IFileManager;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
@@ -21,47 +23,74 @@ public class ModifyFileBuffer extends BaseFileBuffer {
 
 	private static final Logger logger = LoggerFactory.getLogger(ModifyFileBuffer.class);
 
+	// the files that have been hashed, used to skip hashing them again if they did not change
+	private final Map<File, FileStamp> stamps;
+	// the sizes of the files that are still being written
+	private final Map<File, Long> pendingLengths;
+
 	public ModifyFileBuffer(IFileManager fileManager) {
-		super(fileManager);
+		this(fileManager, new SyncFileSnapshot(fileManager));
+	}
+
+	public ModifyFileBuffer(IFileManager fileManager, SyncFileSnapshot syncFileSnapshot) {
+		super(fileManager, syncFileSnapshot);
+		this.stamps = new ConcurrentHashMap<File, FileStamp>();
+		this.pendingLengths = new ConcurrentHashMap<File, Long>();
 	}
 
 	@Override
 	protected void processBuffer(IFileBufferHolder buffer) {
-		List<File> fileBuffer = buffer.getFileBuffer();
-		Set<FileTaste> syncFiles = buffer.getSyncFiles();
+		Map<File, FileTaste> syncFiles = buffer.getSyncFiles();
 
 		/**
 		 * Start the verification: remove files that are not in the DHT yet and remove files that equal to the
-		 * ones in the DHT.
+		 * ones in the DHT. Files that are still being written are buffered again.
 		 */
-		Set<File> toDelete = new HashSet<File>();
-		for (File file : fileBuffer) {
-			FileTaste fileTaste = null;
-			for (FileTaste syncFile : syncFiles) {
-				if (syncFile.getFile().equals(file)) {
-					fileTaste = syncFile;
-					break;
-				}
+		List<File> fileBuffer = new ArrayList<File>(buffer.getFileBuffer().size());
+		for (File file : buffer.getFileBuffer()) {
+			FileTaste fileTaste = syncFiles.get(file);
+			if (fileTaste == null || !file.isFile()) {
+				// don't modify a file that is not in the DHT
+				stamps.remove(file);
+				pendingLengths.remove(file);
+				continue;
 			}
 
-			if (fileTaste == null) {
-				// don't modify a file that is not in the DHT
-				toDelete.add(file);
+			long length = file.length();
+			long lastModified = file.lastModified();
+			if (!isQuiescent(file, length, lastModified)) {
+				logger.debug("File {} is still being modified, waiting until it is complete.", file.getAbsolutePath());
+				addFileToBuffer(file);
+				continue;
+			}
+
+			FileStamp stamp = stamps.get(file);
+			if (stamp != null && stamp.length != length) {
+				// changed for sure, the hash is calculated while uploading the chunks
+				stamps.remove(file);
+				fileBuffer.add(file);
+				continue;
+			}
+
+			byte[] fileHash;
+			if (stamp != null && stamp.lastModified == lastModified) {
+				// not touched since the last time the hash has been calculated
+				fileHash = stamp.md5;
 			} else {
 				try {
-					// check for MD5 hashes, if equal, skip the file
-					byte[] fileHash = EncryptionUtil.generateMD5Hash(file);
-					if (H2HEncryptionUtil.compareMD5(fileHash, fileTaste.getMd5())) {
-						// hashes are equal, no need to upload it to the DHT
-						toDelete.add(file);
-					}
+					fileHash = EncryptionUtil.generateMD5Hash(file);
+					stamps.put(file, new FileStamp(length, lastModified, fileHash));
 				} catch (IOException e) {
 					logger.warn("Could not generate the MD5 hash of the file to be able to compare against the file taste.");
+					fileHash = null;
 				}
 			}
-		}
 
-		fileBuffer.removeAll(toDelete);
+			// check for MD5 hashes, if equal, skip the file
+			if (!H2HEncryptionUtil.compareMD5(fileHash, fileTaste.getMd5())) {
+				fileBuffer.add(file);
+			}
+		}
 
 		for (File file : fileBuffer) {
 			try {
@@ -75,4 +104,34 @@ public class ModifyFileBuffer extends BaseFileBuffer {
 			}
 		}
 	}
+
+	/**
+	 * A file is complete if it has not been modified during the quiescence time and its size did not change
+	 * since the last time it has been buffered again.
+	 */
+	private boolean isQuiescent(File file, long length, long lastModified) {
+		Long previousLength = pendingLengths.remove(file);
+		if (System.currentTimeMillis() - lastModified < H2HConstants.FILE_QUIESCENCE_TIME_MS
+				|| (previousLength != null && previousLength.longValue() != length)) {
+			pendingLengths.put(file, length);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Size, modification time and MD5 hash of a file when it has been hashed the last time.
+	 */
+	private static class FileStamp {
+
+		private final long length;
+		private final long lastModified;
+		private final byte[] md5;
+
+		public FileStamp(long length, long lastModified, byte[] md5) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.md5 = md5;
+		}
+	}
 }
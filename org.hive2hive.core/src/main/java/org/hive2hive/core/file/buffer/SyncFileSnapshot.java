@@ -0,0 +1,115 @@
+package org.hive2hive.core.file.buffer;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hive2hive.core.api.interfaces.IFileManager;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.interfaces.IProcessResultListener;
+import org.hive2hive.core.processes.framework.interfaces.IResultProcessComponent;
+import org.hive2hive.core.processes.implementations.files.list.FileTaste;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the files which are in sync with the DHT, indexed by their file. The file list is only fetched
+ * again if the cached one is older than the buffer asking for it, such that the buffers of the same file
+ * observer share a single file list per burst of events.
+ *
+ * @author Nico
+ *
+ */
+public class SyncFileSnapshot {
+
+	private static final Logger logger = LoggerFactory.getLogger(SyncFileSnapshot.class);
+
+	// The maximum amount of time to wait until the sync files should be ready.
+	private static final long MAX_SYNC_FILES_AWAIT_MS = 20000;
+
+	private final IFileManager fileManager;
+
+	private Map<File, FileTaste> syncFiles;
+	private long fetchTime;
+
+	public SyncFileSnapshot(IFileManager fileManager) {
+		this.fileManager = fileManager;
+		this.fetchTime = Long.MIN_VALUE;
+	}
+
+	/**
+	 * Returns the files which are in sync with the DHT. If the cached file list has been fetched before the
+	 * given time, it is fetched again (blocking).
+	 *
+	 * @param notBefore the earliest time (in ms) the file list may have been fetched
+	 * @return the files in sync, indexed by their file. Empty if the file list could not be fetched.
+	 */
+	public synchronized Map<File, FileTaste> getSyncFiles(long notBefore) {
+		if (syncFiles == null || fetchTime < notBefore) {
+			long startTime = System.currentTimeMillis();
+			List<FileTaste> fileList = fetchFileList();
+			if (fileList == null) {
+				// do not cache the failure
+				return Collections.emptyMap();
+			}
+
+			syncFiles = new HashMap<File, FileTaste>(fileList.size());
+			for (FileTaste fileTaste : fileList) {
+				syncFiles.put(fileTaste.getFile(), fileTaste);
+			}
+			fetchTime = startTime;
+			logger.debug("Fetched {} file(s) in sync in {} ms.", syncFiles.size(), System.currentTimeMillis()
+					- startTime);
+		}
+
+		return syncFiles;
+	}
+
+	private List<FileTaste> fetchFileList() {
+		IResultProcessComponent<List<FileTaste>> fileList = null;
+		try {
+			fileList = fileManager.getFileList();
+		} catch (NoSessionException e) {
+			logger.error("Could not get the file list.", e);
+			return null;
+		}
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<List<FileTaste>> result = new AtomicReference<List<FileTaste>>();
+		fileList.attachListener(new IProcessResultListener<List<FileTaste>>() {
+			@Override
+			public void onResultReady(List<FileTaste> fileTastes) {
+				result.set(fileTastes);
+				latch.countDown();
+			}
+		});
+
+		// start when necessary
+		if (!fileManager.isAutostart()) {
+			try {
+				fileList.start();
+			} catch (InvalidProcessStateException e) {
+				logger.error("Could not launch the process to get the file list.");
+				return null;
+			}
+		}
+
+		try {
+			if (!latch.await(MAX_SYNC_FILES_AWAIT_MS, TimeUnit.MILLISECONDS)) {
+				logger.error("Could not get the file list in time.");
+				return null;
+			}
+		} catch (InterruptedException e) {
+			logger.error("Could not wait until the file list was ready.");
+			return null;
+		}
+
+		return result.get();
+	}
+}
@@ -44,6 +44,9 @@ public class FileIndex extends Index {
 
 	public void setMD5(byte[] md5LatestVersion) {
 		this.md5LatestVersion = md5LatestVersion;
+		if (parent != null) {
+			parent.invalidateDigest();
+		}
 	}
 
 	@Override
@@ -1,12 +1,20 @@
 package org.hive2hive.core.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.security.KeyPair;
 import java.security.PublicKey;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.hive2hive.core.file.FileUtil;
+import org.hive2hive.core.security.EncodedKeyPair;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 
 /**
  * An index stored in the user profile that represents a folder in the directory. It has some additional
@@ -19,12 +27,22 @@ public class FolderIndex extends Index {
 
 	private static final long serialVersionUID = 3798065400562165454L;
 
-	private final Set<Index> children = new HashSet<Index>();
-	private final Set<UserPermission> userPermissions = new HashSet<UserPermission>();
+	private Set<Index> children = new HashSet<Index>();
+	private Set<UserPermission> userPermissions = new HashSet<UserPermission>();
 
-	private KeyPair protectionKeys = null;
+	private EncodedKeyPair protectionKeys = null;
 	private boolean isShared = false;
 
+	// compatible with folders stored with decoded protection keys (see Index)
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("children", Set.class), new ObjectStreamField("userPermissions", Set.class),
+			new ObjectStreamField("protectionKeys", KeyPair.class),
+			new ObjectStreamField("encodedProtectionKeys", EncodedKeyPair.class),
+			new ObjectStreamField("isShared", Boolean.TYPE) };
+
+	// digest over the content of this folder, calculated when needed
+	private transient byte[] digest;
+
 	/**
 	 * Constructor for child nodes of type 'folder'
 	 * 
@@ -38,6 +56,28 @@ public class FolderIndex extends Index {
 		super(keyPair, name, parent);
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("children", children);
+		fields.put("userPermissions", userPermissions);
+		fields.put("encodedProtectionKeys", protectionKeys);
+		fields.put("isShared", isShared);
+		out.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		children = (Set<Index>) fields.get("children", null);
+		userPermissions = (Set<UserPermission>) fields.get("userPermissions", null);
+		protectionKeys = (EncodedKeyPair) fields.get("encodedProtectionKeys", null);
+		if (protectionKeys == null) {
+			// stored by a version that kept the decoded keys
+			protectionKeys = EncodedKeyPair.encode((KeyPair) fields.get("protectionKeys", null));
+		}
+		isShared = fields.get("isShared", false);
+	}
+
 	/**
 	 * Returns whether this index is the root
 	 * 
@@ -63,8 +103,10 @@ public class FolderIndex extends Index {
 	 */
 	public void addChild(Index child) {
 		// only add once
-		if (getChildByName(child.getName()) == null)
+		if (getChildByName(child.getName()) == null) {
 			children.add(child);
+			invalidateDigest();
+		}
 	}
 
 	/**
@@ -77,6 +119,40 @@ public class FolderIndex extends Index {
 			// remove by name
 			children.remove(getChildByName(child.getName()));
 		}
+		invalidateDigest();
+	}
+
+	/**
+	 * Returns the digest over the names and MD5 hashes of all children (recursively), see
+	 * {@link H2HEncryptionUtil#generateFolderDigest(SortedMap)}. Folders with the same digest have the same
+	 * content, which allows to skip them when comparing trees.
+	 * 
+	 * @return the digest of this folder
+	 */
+	public byte[] getDigest() {
+		if (digest == null) {
+			SortedMap<String, byte[]> childHashes = new TreeMap<String, byte[]>();
+			for (Index child : children) {
+				if (child.isFolder()) {
+					childHashes.put(child.getName(), ((FolderIndex) child).getDigest());
+				} else {
+					childHashes.put(child.getName(), ((FileIndex) child).getMD5());
+				}
+			}
+			digest = H2HEncryptionUtil.generateFolderDigest(childHashes);
+		}
+		return digest;
+	}
+
+	/**
+	 * The content of this folder changed, the digest of this folder and all parents needs to be calculated
+	 * again.
+	 */
+	void invalidateDigest() {
+		digest = null;
+		if (parent != null) {
+			parent.invalidateDigest();
+		}
 	}
 
 	/**
@@ -112,7 +188,7 @@ public class FolderIndex extends Index {
 		}
 
 		this.isShared = true;
-		this.protectionKeys = protectionKeys;
+		this.protectionKeys = EncodedKeyPair.encode(protectionKeys);
 	}
 
 	/**
@@ -225,14 +301,14 @@ public class FolderIndex extends Index {
 	 *            don't have own protection keys).
 	 */
 	public void setProtectionKeys(KeyPair protectionKeys) {
-		this.protectionKeys = protectionKeys;
+		this.protectionKeys = EncodedKeyPair.encode(protectionKeys);
 	}
 
 	@Override
 	public KeyPair getProtectionKeys() {
 		if (isShared) {
 			// the shared flag is on, return the protection keys (can be null)
-			return protectionKeys;
+			return EncodedKeyPair.decode(protectionKeys);
 		}
 
 		if (protectionKeys == null) {
@@ -241,7 +317,7 @@ public class FolderIndex extends Index {
 		}
 
 		// is root
-		return protectionKeys;
+		return EncodedKeyPair.decode(protectionKeys);
 	}
 
 	@Override
@@ -1,5 +1,9 @@
 package org.hive2hive.core.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -10,15 +14,24 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import org.hive2hive.core.security.EncodedKeyPair;
+
 public abstract class Index implements Comparable<Index>, Serializable {
 
 	private static final long serialVersionUID = -2643129713985680901L;
-	protected final KeyPair fileKeys;
+	protected EncodedKeyPair fileKeys; // decoded on first use
 	protected String name;
 	protected FolderIndex parent;
 
+	// the serialized form still contains the field of the decoded keys, such that indices stored before the
+	// keys have been encoded (with the same serialVersionUID) can be read (see readObject)
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("fileKeys", KeyPair.class),
+			new ObjectStreamField("encodedFileKeys", EncodedKeyPair.class),
+			new ObjectStreamField("name", String.class), new ObjectStreamField("parent", FolderIndex.class) };
+
 	public Index(KeyPair fileKeys, String name, FolderIndex parent) {
-		this.fileKeys = fileKeys;
+		this.fileKeys = EncodedKeyPair.encode(fileKeys);
 		this.name = name;
 		this.parent = parent;
 		if (parent != null) {
@@ -26,13 +39,32 @@ public abstract class Index implements Comparable<Index>, Serializable {
 		}
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("encodedFileKeys", fileKeys);
+		fields.put("name", name);
+		fields.put("parent", parent);
+		out.writeFields();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		fileKeys = (EncodedKeyPair) fields.get("encodedFileKeys", null);
+		if (fileKeys == null) {
+			// stored by a version that kept the decoded keys
+			fileKeys = EncodedKeyPair.encode((KeyPair) fields.get("fileKeys", null));
+		}
+		name = (String) fields.get("name", null);
+		parent = (FolderIndex) fields.get("parent", null);
+	}
+
 	/**
 	 * The {@link MetaDocument} is encrypted with this keypair.
 	 * 
 	 * @return
 	 */
 	public KeyPair getFileKeys() {
-		return fileKeys;
+		return EncodedKeyPair.decode(fileKeys);
 	}
 
 	/**
@@ -60,6 +92,9 @@ public abstract class Index implements Comparable<Index>, Serializable {
 	 */
 	public void setName(String name) {
 		this.name = name;
+		if (parent != null) {
+			parent.invalidateDigest();
+		}
 	}
 
 	/**
@@ -205,10 +240,10 @@ public abstract class Index implements Comparable<Index>, Serializable {
 			return getFullPath().equals(otherPath);
 		} else if (obj instanceof KeyPair) {
 			KeyPair otherKey = (KeyPair) obj;
-			return fileKeys.equals(otherKey);
+			return fileKeys.matches(otherKey);
 		} else if (obj instanceof Index) {
 			Index otherIndex = (Index) obj;
-			return fileKeys.equals(otherIndex.getFileKeys());
+			return fileKeys.equals(otherIndex.fileKeys);
 		}
 		return false;
 	}
@@ -17,11 +17,17 @@ public class MetaChunk implements Serializable {
 	private final String chunkId;
 	private final byte[] chunkHash;
 	private final int index;
+	private final byte[] contentHash;
 
 	public MetaChunk(String chunkId, byte[] chunkHash, int index) {
+		this(chunkId, chunkHash, index, null);
+	}
+
+	public MetaChunk(String chunkId, byte[] chunkHash, int index, byte[] contentHash) {
 		this.chunkId = chunkId;
 		this.chunkHash = chunkHash;
 		this.index = index;
+		this.contentHash = contentHash;
 	}
 
 	/**
@@ -53,6 +59,17 @@ public class MetaChunk implements Serializable {
 		return index;
 	}
 
+	/**
+	 * The MD5 hash of the plain chunk data. It is used to find chunks that do not need to be downloaded
+	 * because the local copy of the file already contains them. Chunks uploaded by older clients do not have
+	 * it.
+	 * 
+	 * @return the hash of the chunk data or <code>null</code> if unknown
+	 */
+	public byte[] getContentHash() {
+		return contentHash;
+	}
+
 	@Override
 	public int hashCode() {
 		return Arrays.hashCode(chunkHash);
@@ -0,0 +1,46 @@
+package org.hive2hive.core.model;
+
+import java.util.List;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.TimeToLiveStore;
+
+/**
+ * Holds a page of older {@link FileVersion}s of a {@link MetaFileSmall}. A page is stored separately from the
+ * meta file (same location key, but an own content key), such that the meta file stays small and the history
+ * is only loaded when it is needed. A page is never modified after it has been stored.
+ *
+ * @author Nico
+ */
+public class MetaFilePage extends NetworkContent {
+
+	private static final long serialVersionUID = 5061483221935286716L;
+
+	private final int number;
+	private final List<FileVersion> versions;
+
+	public MetaFilePage(int number, List<FileVersion> versions) {
+		this.number = number;
+		this.versions = versions;
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	public List<FileVersion> getVersions() {
+		return versions;
+	}
+
+	/**
+	 * The content key under which the page with the given number is stored
+	 */
+	public static String getContentKey(int number) {
+		return H2HConstants.META_FILE_PAGE + number;
+	}
+
+	@Override
+	public int getTimeToLive() {
+		return TimeToLiveStore.getInstance().getMetaFile();
+	}
+}
@@ -0,0 +1,72 @@
+package org.hive2hive.core.model;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Summary of a {@link MetaFilePage} which is kept in the {@link MetaFileSmall}. It allows to respect the
+ * version limits without loading the page.
+ *
+ * @author Nico
+ */
+public class MetaFilePageInfo implements Serializable {
+
+	private static final long serialVersionUID = -1405209375867213594L;
+
+	private final int number;
+	private final int firstIndex; // index of the oldest version in the page
+	private final int lastIndex; // index of the newest version in the page
+	private final int numberOfVersions;
+	private final BigInteger size; // size of all versions in the page
+	private byte[] hash; // generated by TomP2P when putting the page
+
+	public MetaFilePageInfo(MetaFilePage page) {
+		this.number = page.getNumber();
+		this.numberOfVersions = page.getVersions().size();
+
+		int first = Integer.MAX_VALUE;
+		int last = Integer.MIN_VALUE;
+		BigInteger sum = BigInteger.ZERO;
+		for (FileVersion version : page.getVersions()) {
+			first = Math.min(first, version.getIndex());
+			last = Math.max(last, version.getIndex());
+			sum = sum.add(version.getSize());
+		}
+		this.firstIndex = first;
+		this.lastIndex = last;
+		this.size = sum;
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	public int getFirstIndex() {
+		return firstIndex;
+	}
+
+	public int getLastIndex() {
+		return lastIndex;
+	}
+
+	public int getNumberOfVersions() {
+		return numberOfVersions;
+	}
+
+	public BigInteger getSize() {
+		return size;
+	}
+
+	/**
+	 * The hash of the stored page. It is required to re-key the page at sharing.
+	 *
+	 * @return the hash
+	 */
+	public byte[] getHash() {
+		return hash;
+	}
+
+	public void setHash(byte[] hash) {
+		this.hash = hash;
+	}
+}
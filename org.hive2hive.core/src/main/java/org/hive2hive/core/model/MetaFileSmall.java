@@ -3,13 +3,19 @@ package org.hive2hive.core.model;
 import java.math.BigInteger;
 import java.security.KeyPair;
 import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Holds meta data of a small file in the DHT
- * 
+ * Holds meta data of a small file in the DHT. The newest versions are kept in the meta file itself, older
+ * versions are moved into {@link MetaFilePage}s that are stored separately. The meta file only keeps a
+ * summary of each page ({@link MetaFilePageInfo}). The pages are only loaded when the whole history is
+ * required.
+ *
  * @author Nico, Seppi
  */
 public class MetaFileSmall extends MetaFile {
@@ -17,13 +23,20 @@ public class MetaFileSmall extends MetaFile {
 	private static final long serialVersionUID = -3385321499412137545L;
 	private final List<FileVersion> versions;
 	private final KeyPair chunkKey;
+	private List<MetaFilePageInfo> pages; // oldest page first, null for meta files of older clients
+	private transient Map<Integer, MetaFilePage> loadedPages;
 
 	public MetaFileSmall(PublicKey id, List<FileVersion> versions, KeyPair chunkKey) {
 		super(id, true);
 		this.versions = versions;
 		this.chunkKey = chunkKey;
+		this.pages = new ArrayList<MetaFilePageInfo>();
 	}
 
+	/**
+	 * Returns the versions that are kept in the meta file itself. Use {@link MetaFileSmall#getAllVersions()}
+	 * to include the older versions in the pages.
+	 */
 	public List<FileVersion> getVersions() {
 		return versions;
 	}
@@ -32,16 +45,36 @@ public class MetaFileSmall extends MetaFile {
 		return chunkKey;
 	}
 
+	/**
+	 * Returns the summaries of the pages holding the older versions, the oldest page first.
+	 */
+	public List<MetaFilePageInfo> getPages() {
+		if (pages == null) {
+			pages = new ArrayList<MetaFilePageInfo>();
+		}
+		return pages;
+	}
+
+	public int getNumberOfVersions() {
+		int number = versions == null ? 0 : versions.size();
+		for (MetaFilePageInfo page : getPages()) {
+			number += page.getNumberOfVersions();
+		}
+		return number;
+	}
+
 	public BigInteger getTotalSize() {
-		if (versions == null) {
-			return BigInteger.ZERO;
-		} else {
-			BigInteger sum = BigInteger.ZERO;
+		BigInteger sum = BigInteger.ZERO;
+		if (versions != null) {
 			for (FileVersion version : versions) {
 				sum = sum.add(version.getSize());
 			}
-			return sum;
 		}
+
+		for (MetaFilePageInfo page : getPages()) {
+			sum = sum.add(page.getSize());
+		}
+		return sum;
 	}
 
 	public FileVersion getNewestVersion() {
@@ -49,26 +82,120 @@ public class MetaFileSmall extends MetaFile {
 			return null;
 		}
 
-		Collections.sort(versions, new Comparator<FileVersion>() {
-			@Override
-			public int compare(FileVersion o1, FileVersion o2) {
-				return new Integer(o1.getIndex()).compareTo(o2.getIndex());
+		// the pages only contain older versions
+		FileVersion newest = versions.get(0);
+		for (FileVersion version : versions) {
+			if (version.getIndex() > newest.getIndex()) {
+				newest = version;
 			}
-		});
+		}
 
-		return versions.get(versions.size() - 1);
+		return newest;
 	}
 
+	/**
+	 * Searches the version in the meta file and in the loaded pages.
+	 *
+	 * @return the version or <code>null</code> if it does not exist or its page has not been loaded
+	 */
 	public FileVersion getVersionByIndex(int index) {
-		if (versions == null || versions.isEmpty()) {
-			return null;
+		if (versions != null) {
+			for (FileVersion version : versions) {
+				if (version.getIndex() == index)
+					return version;
+			}
 		}
 
-		for (FileVersion version : versions) {
-			if (version.getIndex() == index)
-				return version;
+		if (loadedPages != null) {
+			for (MetaFilePage page : loadedPages.values()) {
+				for (FileVersion version : page.getVersions()) {
+					if (version.getIndex() == index)
+						return version;
+				}
+			}
 		}
 
 		return null;
 	}
+
+	/**
+	 * Adds a page that has been loaded from the DHT, such that its versions are accessible.
+	 */
+	public void setLoadedPage(MetaFilePage page) {
+		if (loadedPages == null) {
+			loadedPages = new HashMap<Integer, MetaFilePage>();
+		}
+		loadedPages.put(page.getNumber(), page);
+	}
+
+	public MetaFilePage getLoadedPage(int number) {
+		return loadedPages == null ? null : loadedPages.get(number);
+	}
+
+	/**
+	 * @return whether all pages have been loaded
+	 */
+	public boolean isHistoryLoaded() {
+		for (MetaFilePageInfo page : getPages()) {
+			if (getLoadedPage(page.getNumber()) == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the versions of the meta file and of all loaded pages, sorted by their index.
+	 */
+	public List<FileVersion> getAllVersions() {
+		List<FileVersion> allVersions = new ArrayList<FileVersion>();
+		for (MetaFilePageInfo page : getPages()) {
+			MetaFilePage loaded = getLoadedPage(page.getNumber());
+			if (loaded != null) {
+				allVersions.addAll(loaded.getVersions());
+			}
+		}
+
+		if (versions != null) {
+			allVersions.addAll(versions);
+		}
+
+		sortByIndex(allVersions);
+		return allVersions;
+	}
+
+	/**
+	 * Moves the oldest versions into a new page if the meta file holds at least
+	 * <code>headVersions + pageSize</code> versions itself.
+	 *
+	 * @param headVersions the number of versions which stay in the meta file at least
+	 * @param pageSize the number of versions per page
+	 * @return the new page which needs to be stored or <code>null</code> if no page has been created
+	 */
+	public MetaFilePage pageOut(int headVersions, int pageSize) {
+		if (versions.size() < headVersions + pageSize) {
+			return null;
+		}
+
+		sortByIndex(versions);
+		List<FileVersion> oldest = versions.subList(0, pageSize);
+		List<FileVersion> paged = new ArrayList<FileVersion>(oldest);
+		oldest.clear();
+
+		List<MetaFilePageInfo> pageInfos = getPages();
+		int number = pageInfos.isEmpty() ? 0 : pageInfos.get(pageInfos.size() - 1).getNumber() + 1;
+		MetaFilePage page = new MetaFilePage(number, paged);
+		pageInfos.add(new MetaFilePageInfo(page));
+		setLoadedPage(page);
+		return page;
+	}
+
+	private static void sortByIndex(List<FileVersion> versions) {
+		Collections.sort(versions, new Comparator<FileVersion>() {
+			@Override
+			public int compare(FileVersion o1, FileVersion o2) {
+				return Integer.compare(o1.getIndex(), o2.getIndex());
+			}
+		});
+	}
 }
@@ -4,6 +4,8 @@ import java.io.File;
 import java.nio.file.Path;
 import java.security.KeyPair;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.TimeToLiveStore;
@@ -23,6 +25,7 @@ public class UserProfile extends NetworkContent {
 	private final String userId;
 	private final KeyPair encryptionKeys;
 	private final FolderIndex root;
+	private transient List<UserProfileShardReference> shardReferences; // the shards it has been stored in
 
 	public UserProfile(String userId) {
 		if (userId == null)
@@ -57,6 +60,22 @@ public class UserProfile extends NetworkContent {
 		return TimeToLiveStore.getInstance().getUserProfile();
 	}
 
+	/**
+	 * Returns the shards this user profile has been loaded from or stored in (see {@link UserProfileShard}).
+	 * 
+	 * @return the references, empty if the user profile is not sharded
+	 */
+	public List<UserProfileShardReference> getShardReferences() {
+		if (shardReferences == null) {
+			shardReferences = new ArrayList<UserProfileShardReference>();
+		}
+		return shardReferences;
+	}
+
+	public void setShardReferences(List<UserProfileShardReference> shardReferences) {
+		this.shardReferences = shardReferences;
+	}
+
 	public Index getFileById(PublicKey fileId) {
 		return findById(root, fileId);
 	}
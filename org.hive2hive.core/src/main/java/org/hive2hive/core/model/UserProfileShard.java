@@ -0,0 +1,42 @@
+package org.hive2hive.core.model;
+
+import java.security.PublicKey;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.TimeToLiveStore;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+
+/**
+ * Holds a large top-level folder of the {@link UserProfile} which is stored separately from the user
+ * profile (same location key, but an own content key). The user profile only keeps a
+ * {@link UserProfileShardReference} instead of the folder, such that modifications outside of the folder do
+ * not require to put the folder again.
+ * 
+ * @author Nico
+ */
+public class UserProfileShard extends NetworkContent {
+
+	private static final long serialVersionUID = 2207925546917231764L;
+
+	private final FolderIndex folder;
+
+	public UserProfileShard(FolderIndex folder) {
+		this.folder = folder;
+	}
+
+	public FolderIndex getFolder() {
+		return folder;
+	}
+
+	/**
+	 * The content key under which the shard of the folder with the given key is stored
+	 */
+	public static String getContentKey(PublicKey folderKey) {
+		return H2HConstants.USER_PROFILE_SHARD + H2HEncryptionUtil.key2String(folderKey);
+	}
+
+	@Override
+	public int getTimeToLive() {
+		return TimeToLiveStore.getInstance().getUserProfile();
+	}
+}
@@ -0,0 +1,37 @@
+package org.hive2hive.core.model;
+
+import java.io.Serializable;
+import java.security.PublicKey;
+
+import net.tomp2p.peers.Number160;
+
+/**
+ * Placeholder of a folder in the {@link UserProfile} which is stored in a separate {@link UserProfileShard}.
+ * It is replaced by the folder when the user profile is loaded.
+ * 
+ * @author Nico
+ */
+public class UserProfileShardReference implements Serializable {
+
+	private static final long serialVersionUID = -6418113327150367207L;
+
+	private final PublicKey folderKey;
+	private final Number160 versionKey; // version of the shard the user profile is based on
+
+	public UserProfileShardReference(PublicKey folderKey, Number160 versionKey) {
+		this.folderKey = folderKey;
+		this.versionKey = versionKey;
+	}
+
+	public PublicKey getFolderKey() {
+		return folderKey;
+	}
+
+	public Number160 getVersionKey() {
+		return versionKey;
+	}
+
+	public String getContentKey() {
+		return UserProfileShard.getContentKey(folderKey);
+	}
+}
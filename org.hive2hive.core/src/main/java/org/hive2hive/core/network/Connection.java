@@ -15,6 +15,7 @@ import net.tomp2p.p2p.PeerMaker;
 import net.tomp2p.peers.Number160;
 
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.api.interfaces.INetworkConfiguration;
 import org.hive2hive.core.network.messages.MessageReplyHandler;
 import org.hive2hive.core.security.H2HSignatureFactory;
 import org.slf4j.Logger;
@@ -31,6 +32,8 @@ public class Connection {
 	private boolean isConnected;
 	private Peer peer;
 	private DefaultEventExecutorGroup eventExecutorGroup;
+	private MessageReplyHandler messageReplyHandler;
+	private H2HStorageMemory storage;
 
 	public Connection(String nodeID, NetworkManager networkManager) {
 		this.nodeID = nodeID;
@@ -131,6 +134,11 @@ public class Connection {
 			eventExecutorGroup = null;
 		}
 
+		if (messageReplyHandler != null) {
+			messageReplyHandler.shutdown();
+			messageReplyHandler = null;
+		}
+
 		return isDisconnected;
 	}
 
@@ -142,6 +150,20 @@ public class Connection {
 		return peer;
 	}
 
+	/**
+	 * @return the handler of the received messages or <code>null</code> if not connected
+	 */
+	public MessageReplyHandler getMessageReplyHandler() {
+		return messageReplyHandler;
+	}
+
+	/**
+	 * @return the storage holding the data of other peers or <code>null</code> if not connected
+	 */
+	public H2HStorageMemory getStorage() {
+		return storage;
+	}
+
 	private boolean createPeer() {
 		int port = H2HConstants.H2H_PORT;
 		logger.debug("Start searching for a free port");
@@ -175,9 +197,13 @@ public class Connection {
 		}
 
 		// override the put method for validation tasks
-		peer.getPeerBean().storage(new H2HStorageMemory());
+		INetworkConfiguration networkConfiguration = networkManager.getNetworkConfiguration();
+		storage = new H2HStorageMemory(networkConfiguration.getMaxStorageSize(),
+				networkConfiguration.getMaxStorageSizePerKey());
+		peer.getPeerBean().storage(storage);
 		// attach a reply handler for messages
-		peer.setObjectDataReply(new MessageReplyHandler(networkManager));
+		messageReplyHandler = new MessageReplyHandler(networkManager);
+		peer.setObjectDataReply(messageReplyHandler);
 
 		return true;
 	}
@@ -1,6 +1,7 @@
 package org.hive2hive.core.network;
 
 import java.security.PublicKey;
+import java.util.List;
 import java.util.NavigableMap;
 
 import net.tomp2p.peers.Number160;
@@ -10,6 +11,8 @@ import net.tomp2p.storage.StorageLayer;
 import net.tomp2p.storage.StorageMemory;
 
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.api.configs.ContentType;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +22,12 @@ import org.slf4j.LoggerFactory;
  * gets stored on a node the put method gets called where the node can verify
  * the store request.
  * 
+ * The size of the stored entries is counted per content type and per protection key (see
+ * {@link StorageAccounting}). Puts exceeding the capacity limits are rejected with
+ * {@link PutStatusH2H#FAILED_STORAGE_FULL} if no expired entries or old versions can be evicted. A put is
+ * validated, checked against the capacity and stored under one lock, the selected entries are only evicted
+ * once the put has succeeded.
+ * 
  * @author Seppi, Nico
  */
 public class H2HStorageMemory extends StorageLayer {
@@ -34,10 +43,33 @@ public class H2HStorageMemory extends StorageLayer {
 		VERSION_CONFLICT_NO_VERSION_KEY,
 		VERSION_CONFLICT_NO_BASED_ON,
 		VERSION_CONFLICT_OLD_TIMESTAMP,
+		// the status is transferred by its ordinal, new values must be appended
+		FAILED_STORAGE_FULL
 	};
 
+	private final StorageMemory memory;
+	private final StorageAccounting accounting;
+	// puts and the reconciliation of the counters must not interleave
+	private final Object putLock = new Object();
+	// the content after which the next reconciliation continues (null to start from the beginning)
+	private Number640 reconcileCursor;
+
 	public H2HStorageMemory() {
-		super(new StorageMemory());
+		this(H2HConstants.DEFAULT_MAX_STORAGE_SIZE, H2HConstants.DEFAULT_MAX_STORAGE_SIZE_PER_KEY);
+	}
+
+	/**
+	 * @param maxSize the capacity in bytes, 0 for unlimited
+	 * @param maxSizePerKey the capacity per protection key in bytes, 0 for unlimited
+	 */
+	public H2HStorageMemory(long maxSize, long maxSizePerKey) {
+		this(new StorageMemory(), maxSize, maxSizePerKey);
+	}
+
+	private H2HStorageMemory(StorageMemory memory, long maxSize, long maxSizePerKey) {
+		super(memory);
+		this.memory = memory;
+		this.accounting = new StorageAccounting(maxSize, maxSizePerKey);
 	}
 
 	@Override
@@ -49,16 +81,22 @@ public class H2HStorageMemory extends StorageLayer {
 
 			if (isProtectionKeyChange(newData)) {
 				logger.trace("Only chaning the protection key, no need to verify the versions.");
-				return super.put(key, newData, publicKey, putIfAbsent, domainProtection);
+				Enum<?> status = super.put(key, newData, publicKey, putIfAbsent, domainProtection);
+				// a put meta can also refresh the time-to-live
+				accounting.updateExpiration(key, newData.expirationMillis());
+				return status;
 			}
 
-			Enum<?> status = validateVersion(key, newData);
-			if (status == PutStatusH2H.OK) {
-				status = super.put(key, newData, publicKey, putIfAbsent, domainProtection);
+			Enum<?> status;
+			synchronized (putLock) {
+				status = validateVersion(key, newData);
+				if (status == PutStatusH2H.OK) {
+					status = putAccounted(key, newData, publicKey, putIfAbsent, domainProtection);
 
-				// after adding the content to the memory, old versions should be cleaned up. How many old
-				// versions we keep can be parameterized in the constants.
-				cleanupVersions(key, publicKey);
+					// after adding the content to the memory, old versions should be cleaned up. How many old
+					// versions we keep can be parameterized in the constants.
+					cleanupVersions(key, publicKey);
+				}
 			}
 
 			logger.trace(String.format(
@@ -67,8 +105,87 @@ public class H2HStorageMemory extends StorageLayer {
 			return status;
 		} else {
 			logger.trace("Disabled the put verification strategy on the remote peer.");
-			return super.put(key, newData, publicKey, putIfAbsent, domainProtection);
+			synchronized (putLock) {
+				return putAccounted(key, newData, publicKey, putIfAbsent, domainProtection);
+			}
+		}
+	}
+
+	/**
+	 * Returns the current storage counters. Entries which have been removed or have expired in the meantime
+	 * are not counted anymore.
+	 * 
+	 * @return a snapshot of the counters
+	 */
+	public StorageMetrics getMetrics() {
+		synchronized (putLock) {
+			reconcileCursor = null;
+			reconcile(Integer.MAX_VALUE);
+		}
+		return accounting.getMetrics();
+	}
+
+	/**
+	 * Puts the data if it fits into the capacity limits and counts it. Must be called holding the put lock.
+	 */
+	private Enum<?> putAccounted(Number640 key, Data newData, PublicKey publicKey, boolean putIfAbsent,
+			boolean domainProtection) {
+		String protectionKey = publicKey == null ? null : H2HEncryptionUtil.key2String(publicKey);
+		long size = newData.length();
+		long now = System.currentTimeMillis();
+		List<Number640> evictions = accounting.selectEvictions(key, size, protectionKey, now);
+		if (evictions == null) {
+			// the counters may contain entries which have been removed in the meantime, only a batch of them is
+			// checked to keep the put fast, the next rejected put continues
+			reconcile(H2HConstants.STORAGE_RECONCILE_BATCH_SIZE);
+			evictions = accounting.selectEvictions(key, size, protectionKey, now);
+		}
+
+		if (evictions == null) {
+			accounting.countRejected();
+			logger.warn("Storage is full, rejecting a put of {} bytes. Location key = '{}', Content key = '{}'.",
+					size, key.getLocationKey(), key.getContentKey());
+			return PutStatusH2H.FAILED_STORAGE_FULL;
+		}
+
+		Enum<?> status = super.put(key, newData, publicKey, putIfAbsent, domainProtection);
+		// the status of TomP2P and of Hive2Hive are compared by their ordinal, as at the receiver
+		if (status.ordinal() == PutStatusH2H.OK.ordinal()) {
+			// only evict when the put succeeded, a rejected put must not remove any versions
+			evict(evictions, now);
+			accounting.add(key, size, ContentType.fromHashes(key.getDomainKey(), key.getContentKey()),
+					protectionKey, newData.expirationMillis());
+		}
+		return status;
+	}
+
+	/**
+	 * Removes the expired entries and old versions selected to make space for a put.
+	 */
+	private void evict(List<Number640> victims, long now) {
+		accounting.evict(victims, now);
+		for (Number640 victim : victims) {
+			logger.trace("Evicting an entry to make space. Location key = '{}', Version key = '{}'.",
+					victim.getLocationKey(), victim.getVersionKey());
+			// remove it from the backend directly, the entry may be protected by another key
+			memory.remove(victim, false);
+			memory.removeTimeout(victim);
+		}
+	}
+
+	/**
+	 * Stops counting the entries which are not in the storage anymore. Continues with the contents after the
+	 * previous call. Must be called holding the put lock.
+	 * 
+	 * @param maxContents the maximal number of contents to check
+	 */
+	private void reconcile(int maxContents) {
+		List<Number640> contents = accounting.getContents(reconcileCursor, maxContents);
+		for (Number640 content : contents) {
+			accounting.retain(content, getHistoryOnStorage(content).keySet());
 		}
+		// start from the beginning after the last content
+		reconcileCursor = contents.size() < maxContents ? null : contents.get(contents.size() - 1);
 	}
 
 	/**
@@ -161,6 +278,7 @@ public class H2HStorageMemory extends StorageLayer {
 			logger.trace("Removing an older version. Version key = '{}'.", key.getVersionKey());
 			history.remove(toRemove);
 			super.remove(toRemove, publicKey, false);
+			accounting.remove(toRemove);
 			// }
 		}
 	}
@@ -13,6 +13,7 @@ import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.network.data.DataManager;
 import org.hive2hive.core.network.messages.MessageManager;
+import org.hive2hive.core.processes.implementations.notify.NotificationAggregator;
 
 public class NetworkManager implements INetworkEventGenerator {
 
@@ -24,6 +25,8 @@ public class NetworkManager implements INetworkEventGenerator {
 	private final Connection connection;
 	private final DataManager dataManager;
 	private final MessageManager messageManager;
+	private NotificationAggregator notificationAggregator;
+	private final PeerLivenessCache livenessCache;
 	private H2HSession session;
 
 	private List<INetworkEventListener> eventListeners;
@@ -34,6 +37,8 @@ public class NetworkManager implements INetworkEventGenerator {
 		connection = new Connection(networkConfiguration.getNodeID(), this);
 		dataManager = new DataManager(this);
 		messageManager = new MessageManager(this);
+		notificationAggregator = new NotificationAggregator(this);
+		livenessCache = new PeerLivenessCache();
 
 		eventListeners = new ArrayList<INetworkEventListener>();
 	}
@@ -65,6 +70,10 @@ public class NetworkManager implements INetworkEventGenerator {
 	public boolean disconnect() {
 		if (session != null && session.getProfileManager() != null)
 			session.getProfileManager().stopQueueWorker();
+		// send the pending notifications while still connected
+		notificationAggregator.shutdown();
+		notificationAggregator = new NotificationAggregator(this);
+		livenessCache.clear();
 
 		boolean success = connection.disconnect();
 		notifyDisconnectionStatus(success);
@@ -92,7 +101,13 @@ public class NetworkManager implements INetworkEventGenerator {
 	 * Sets the session of the logged in user in order to receive messages.
 	 */
 	public void setSession(H2HSession session) {
+		// pending notifications belong to the current user
+		if (this.session != null)
+			notificationAggregator.flush();
+
 		this.session = session;
+		// session keys are bound to the key pair of the user
+		messageManager.getSessionKeyManager().clear();
 	}
 
 	/**
@@ -115,6 +130,20 @@ public class NetworkManager implements INetworkEventGenerator {
 		return session.getCredentials().getUserId();
 	}
 
+	/**
+	 * Returns the aggregator which coalesces the notifications of multiple file processes.
+	 */
+	public NotificationAggregator getNotificationAggregator() {
+		return notificationAggregator;
+	}
+
+	/**
+	 * Returns the recent results of liveness checks of other clients.
+	 */
+	public PeerLivenessCache getLivenessCache() {
+		return livenessCache;
+	}
+
 	public INetworkConfiguration getNetworkConfiguration() {
 		return networkConfiguration;
 	}
@@ -0,0 +1,79 @@
+package org.hive2hive.core.network;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.tomp2p.peers.PeerAddress;
+
+import org.hive2hive.core.H2HConstants;
+
+/**
+ * Remembers whether other clients have been alive when they were contacted recently. This allows skipping
+ * the liveness check when a client logs in again shortly after (see
+ * {@link H2HConstants#PEER_LIVENESS_CACHE_MS}).
+ *
+ * @author Nico
+ */
+public class PeerLivenessCache {
+
+	private final long lifetime;
+	private final ConcurrentMap<PeerAddress, Entry> entries;
+
+	public PeerLivenessCache() {
+		this(H2HConstants.PEER_LIVENESS_CACHE_MS);
+	}
+
+	/**
+	 * @param lifetime the time in milliseconds a probe result is valid
+	 */
+	public PeerLivenessCache(long lifetime) {
+		this.lifetime = lifetime;
+		this.entries = new ConcurrentHashMap<PeerAddress, Entry>();
+	}
+
+	/**
+	 * Stores the result of a liveness check
+	 *
+	 * @param address the address of the probed peer
+	 * @param alive whether the peer responded
+	 */
+	public void put(PeerAddress address, boolean alive) {
+		entries.put(address, new Entry(alive));
+	}
+
+	/**
+	 * Returns the recent result of a liveness check.
+	 *
+	 * @param address the address of the peer
+	 * @return <code>true</code> if the peer was alive, <code>false</code> if not, <code>null</code> if there is
+	 *         no recent result
+	 */
+	public Boolean get(PeerAddress address) {
+		Entry entry = entries.get(address);
+		if (entry == null) {
+			return null;
+		} else if (System.currentTimeMillis() - entry.timestamp > lifetime) {
+			entries.remove(address, entry);
+			return null;
+		}
+		return entry.alive;
+	}
+
+	/**
+	 * Removes all results
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	private static class Entry {
+
+		private final boolean alive;
+		private final long timestamp;
+
+		public Entry(boolean alive) {
+			this.alive = alive;
+			this.timestamp = System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,316 @@
+package org.hive2hive.core.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.tomp2p.peers.Number160;
+import net.tomp2p.peers.Number640;
+
+import org.hive2hive.core.api.configs.ContentType;
+
+/**
+ * Keeps track of the size of the entries stored on a node, per content type and per protection key. It
+ * decides whether a put fits into the configured capacity and which entries need to be evicted to make space.
+ * The entries are only evicted (see {@link #evict(List, long)}) once the put has succeeded.
+ * Expired entries are evicted first, then old versions (oldest first). The latest version of a content is
+ * never evicted, in that case the put is rejected.
+ *
+ * @author Nico
+ */
+public class StorageAccounting {
+
+	private final long maxSize;
+	private final long maxSizePerKey;
+
+	private final NavigableMap<Number640, Entry> entries;
+	private final Map<ContentType, Long> sizePerContentType;
+	private final Map<String, Long> sizePerProtectionKey;
+	private long totalSize = 0;
+	private long evictedExpired = 0;
+	private long evictedVersions = 0;
+	private long rejectedPuts = 0;
+
+	/**
+	 * @param maxSize the capacity of the node in bytes, 0 for unlimited
+	 * @param maxSizePerKey the capacity per protection key in bytes, 0 for unlimited
+	 */
+	public StorageAccounting(long maxSize, long maxSizePerKey) {
+		this.maxSize = maxSize;
+		this.maxSizePerKey = maxSizePerKey;
+		this.entries = new TreeMap<Number640, Entry>();
+		this.sizePerContentType = new EnumMap<ContentType, Long>(ContentType.class);
+		this.sizePerProtectionKey = new HashMap<String, Long>();
+	}
+
+	/**
+	 * Counts a stored entry. If an entry with the same key exists, it is replaced.
+	 *
+	 * @param protectionKey the protection key of the entry, can be <code>null</code>
+	 * @param expiration the time in milliseconds when the entry expires
+	 */
+	public synchronized void add(Number640 key, long size, ContentType contentType, String protectionKey,
+			long expiration) {
+		remove(key);
+		Entry entry = new Entry(size, contentType, protectionKey, expiration);
+		entries.put(key, entry);
+		count(entry, size);
+	}
+
+	/**
+	 * Stops counting an entry, e.g. because it has been removed.
+	 */
+	public synchronized void remove(Number640 key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			count(entry, -entry.size);
+		}
+	}
+
+	/**
+	 * Updates the expiration of a counted entry, e.g. because its time-to-live has been refreshed.
+	 */
+	public synchronized void updateExpiration(Number640 key, long expiration) {
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			entry.expiration = expiration;
+		}
+	}
+
+	/**
+	 * Selects the entries that need to be evicted such that the new entry fits into the capacity limits.
+	 * Nothing is evicted yet, see {@link #evict(List, long)}.
+	 *
+	 * @param key the key of the entry to put (it may replace an existing one)
+	 * @param size the size of the entry to put
+	 * @param protectionKey the protection key of the entry to put, can be <code>null</code>
+	 * @param now the current time in milliseconds
+	 * @return the keys of the entries to evict (empty if there is enough space) or <code>null</code> if the
+	 *         entry does not fit even after the eviction
+	 */
+	public synchronized List<Number640> selectEvictions(Number640 key, long size, String protectionKey, long now) {
+		Entry replaced = entries.get(key);
+		long replacedSize = replaced == null ? 0 : replaced.size;
+		long replacedKeySize = replaced != null && equal(replaced.protectionKey, protectionKey) ? replaced.size : 0;
+
+		long missingTotal = maxSize > 0 ? totalSize - replacedSize + size - maxSize : 0;
+		long missingKey = 0;
+		if (maxSizePerKey > 0 && protectionKey != null) {
+			missingKey = getSize(protectionKey) - replacedKeySize + size - maxSizePerKey;
+		}
+
+		List<Number640> evicted = new ArrayList<Number640>();
+		if (missingTotal <= 0 && missingKey <= 0) {
+			return evicted;
+		}
+
+		for (Number640 candidate : getEvictionCandidates(key, now)) {
+			if (missingTotal <= 0 && missingKey <= 0) {
+				break;
+			}
+
+			Entry entry = entries.get(candidate);
+			boolean sameKey = protectionKey != null && protectionKey.equals(entry.protectionKey);
+			if (missingTotal > 0 || (missingKey > 0 && sameKey)) {
+				evicted.add(candidate);
+				missingTotal -= entry.size;
+				if (sameKey) {
+					missingKey -= entry.size;
+				}
+			}
+		}
+
+		if (missingTotal > 0 || missingKey > 0) {
+			return null;
+		}
+		return evicted;
+	}
+
+	/**
+	 * Stops counting the given entries because they are evicted. The caller is responsible to remove them from
+	 * the storage.
+	 *
+	 * @param victims the entries selected by {@link #selectEvictions(Number640, long, String, long)}
+	 * @param now the current time in milliseconds
+	 */
+	public synchronized void evict(List<Number640> victims, long now) {
+		for (Number640 victim : victims) {
+			Entry entry = entries.get(victim);
+			if (entry == null) {
+				continue;
+			} else if (entry.expiration <= now) {
+				evictedExpired++;
+			} else {
+				evictedVersions++;
+			}
+			remove(victim);
+		}
+	}
+
+	/**
+	 * Counts a put which has been rejected because it does not fit into the capacity limits.
+	 */
+	public synchronized void countRejected() {
+		rejectedPuts++;
+	}
+
+	/**
+	 * Returns the expired entries (the earliest expiration first), followed by the old versions which are not
+	 * the latest version of their content (the oldest first).
+	 */
+	private List<Number640> getEvictionCandidates(Number640 exclude, long now) {
+		List<Number640> expired = new ArrayList<Number640>();
+		List<Number640> oldVersions = new ArrayList<Number640>();
+
+		for (Map.Entry<Number640, Entry> current : entries.entrySet()) {
+			Number640 key = current.getKey();
+			if (key.equals(exclude)) {
+				// the entry is replaced anyway
+				continue;
+			}
+
+			Number640 newer = entries.higherKey(key);
+			if (current.getValue().expiration <= now) {
+				expired.add(key);
+			} else if ((newer != null && isSameContent(key, newer))
+					|| (isSameContent(key, exclude) && key.compareTo(exclude) < 0)) {
+				// a newer version of the content exists or is being put
+				oldVersions.add(key);
+			}
+		}
+
+		Collections.sort(expired, new Comparator<Number640>() {
+			@Override
+			public int compare(Number640 o1, Number640 o2) {
+				return Long.compare(entries.get(o1).expiration, entries.get(o2).expiration);
+			}
+		});
+		Collections.sort(oldVersions, new Comparator<Number640>() {
+			@Override
+			public int compare(Number640 o1, Number640 o2) {
+				return Long.compare(o1.getVersionKey().timestamp(), o2.getVersionKey().timestamp());
+			}
+		});
+
+		List<Number640> candidates = new ArrayList<Number640>(expired);
+		candidates.addAll(oldVersions);
+		return candidates;
+	}
+
+	/**
+	 * @return one key of each content (same location, domain and content key) which is counted
+	 */
+	public synchronized List<Number640> getContents() {
+		return getContents(null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the contents in their order, starting after the given content. Only the returned contents are
+	 * visited, such that the contents can be processed in batches.
+	 *
+	 * @param after any key of the content to start after, <code>null</code> to start with the first content
+	 * @param maxContents the maximal number of contents to return
+	 * @return one key of each content (same location, domain and content key) which is counted
+	 */
+	public synchronized List<Number640> getContents(Number640 after, int maxContents) {
+		Map<Number640, Entry> tail = after == null ? entries : entries.tailMap(after, false);
+		List<Number640> contents = new ArrayList<Number640>();
+		Number640 previous = after;
+		for (Number640 key : tail.keySet()) {
+			if (contents.size() >= maxContents) {
+				break;
+			} else if (previous == null || !isSameContent(previous, key)) {
+				contents.add(key);
+			}
+			previous = key;
+		}
+		return contents;
+	}
+
+	/**
+	 * Stops counting the versions of a content which are not in the storage anymore (e.g. because they have
+	 * been removed or have expired).
+	 *
+	 * @param content any key of the content
+	 * @param stored the keys of all versions of the content which are in the storage
+	 */
+	public synchronized void retain(Number640 content, Set<Number640> stored) {
+		Number640 from = new Number640(content.getLocationKey(), content.getDomainKey(), content.getContentKey(),
+				Number160.ZERO);
+		Number640 to = new Number640(content.getLocationKey(), content.getDomainKey(), content.getContentKey(),
+				Number160.MAX_VALUE);
+		Iterator<Map.Entry<Number640, Entry>> iterator = entries.subMap(from, true, to, true).entrySet()
+				.iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Number640, Entry> current = iterator.next();
+			if (!stored.contains(current.getKey())) {
+				iterator.remove();
+				count(current.getValue(), -current.getValue().size);
+			}
+		}
+	}
+
+	public synchronized long getTotalSize() {
+		return totalSize;
+	}
+
+	public synchronized long getSize(String protectionKey) {
+		Long size = sizePerProtectionKey.get(protectionKey);
+		return size == null ? 0 : size;
+	}
+
+	public synchronized StorageMetrics getMetrics() {
+		return new StorageMetrics(totalSize, entries.size(), maxSize, sizePerContentType, sizePerProtectionKey,
+				evictedExpired, evictedVersions, rejectedPuts);
+	}
+
+	private void count(Entry entry, long delta) {
+		totalSize += delta;
+		add(sizePerContentType, entry.contentType, delta);
+		if (entry.protectionKey != null) {
+			add(sizePerProtectionKey, entry.protectionKey, delta);
+		}
+	}
+
+	private static <K> void add(Map<K, Long> counters, K key, long delta) {
+		Long current = counters.get(key);
+		long updated = (current == null ? 0 : current) + delta;
+		if (updated == 0) {
+			counters.remove(key);
+		} else {
+			counters.put(key, updated);
+		}
+	}
+
+	private static boolean isSameContent(Number640 key1, Number640 key2) {
+		return key1.getLocationKey().equals(key2.getLocationKey()) && key1.getDomainKey().equals(key2.getDomainKey())
+				&& key1.getContentKey().equals(key2.getContentKey());
+	}
+
+	private static boolean equal(String s1, String s2) {
+		return s1 == null ? s2 == null : s1.equals(s2);
+	}
+
+	private static class Entry {
+
+		private final long size;
+		private final ContentType contentType;
+		private final String protectionKey;
+		private long expiration;
+
+		public Entry(long size, ContentType contentType, String protectionKey, long expiration) {
+			this.size = size;
+			this.contentType = contentType;
+			this.protectionKey = protectionKey;
+			this.expiration = expiration;
+		}
+	}
+}
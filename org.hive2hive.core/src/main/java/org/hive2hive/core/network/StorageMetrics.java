@@ -0,0 +1,102 @@
+package org.hive2hive.core.network;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hive2hive.core.api.configs.ContentType;
+
+/**
+ * Snapshot of the storage counters of a node (see {@link H2HStorageMemory#getMetrics()}). The sizes are in
+ * bytes.
+ *
+ * @author Nico
+ */
+public class StorageMetrics {
+
+	private final long totalSize;
+	private final int numberOfEntries;
+	private final long maxSize;
+	private final Map<ContentType, Long> sizePerContentType;
+	private final Map<String, Long> sizePerProtectionKey;
+	private final long evictedExpired;
+	private final long evictedVersions;
+	private final long rejectedPuts;
+
+	public StorageMetrics(long totalSize, int numberOfEntries, long maxSize,
+			Map<ContentType, Long> sizePerContentType, Map<String, Long> sizePerProtectionKey,
+			long evictedExpired, long evictedVersions, long rejectedPuts) {
+		this.totalSize = totalSize;
+		this.numberOfEntries = numberOfEntries;
+		this.maxSize = maxSize;
+		this.sizePerContentType = Collections.unmodifiableMap(new EnumMap<ContentType, Long>(sizePerContentType));
+		this.sizePerProtectionKey = Collections.unmodifiableMap(new HashMap<String, Long>(sizePerProtectionKey));
+		this.evictedExpired = evictedExpired;
+		this.evictedVersions = evictedVersions;
+		this.rejectedPuts = rejectedPuts;
+	}
+
+	/**
+	 * @return the size of all stored entries
+	 */
+	public long getTotalSize() {
+		return totalSize;
+	}
+
+	public int getNumberOfEntries() {
+		return numberOfEntries;
+	}
+
+	/**
+	 * @return the capacity of the storage, 0 if it is unlimited
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the size of the stored entries of the given content type
+	 */
+	public long getSize(ContentType contentType) {
+		Long size = sizePerContentType.get(contentType);
+		return size == null ? 0 : size;
+	}
+
+	/**
+	 * @return the size of the stored entries per protection key (see
+	 *         {@link org.hive2hive.core.security.H2HEncryptionUtil#key2String(java.security.PublicKey)}).
+	 *         Entries without protection key are not listed.
+	 */
+	public Map<String, Long> getSizePerProtectionKey() {
+		return sizePerProtectionKey;
+	}
+
+	/**
+	 * @return the number of expired entries that have been evicted to make space
+	 */
+	public long getEvictedExpired() {
+		return evictedExpired;
+	}
+
+	/**
+	 * @return the number of old versions that have been evicted to make space
+	 */
+	public long getEvictedVersions() {
+		return evictedVersions;
+	}
+
+	/**
+	 * @return the number of puts that have been rejected because a capacity limit was reached
+	 */
+	public long getRejectedPuts() {
+		return rejectedPuts;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("StorageMetrics[size=%s, entries=%s, max=%s, perType=%s, evictedExpired=%s, "
+				+ "evictedVersions=%s, rejected=%s]", totalSize, numberOfEntries, maxSize, sizePerContentType,
+				evictedExpired, evictedVersions, rejectedPuts);
+	}
+}
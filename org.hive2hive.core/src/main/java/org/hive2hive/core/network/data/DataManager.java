@@ -9,11 +9,14 @@ import net.tomp2p.futures.FutureGet;
 import net.tomp2p.futures.FuturePut;
 import net.tomp2p.futures.FutureRemove;
 import net.tomp2p.p2p.Peer;
+import net.tomp2p.p2p.RequestP2PConfiguration;
 import net.tomp2p.peers.Number160;
 import net.tomp2p.peers.Number640;
 import net.tomp2p.storage.Data;
 
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.api.configs.ContentType;
+import org.hive2hive.core.api.configs.ReplicationPolicy;
 import org.hive2hive.core.model.NetworkContent;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.network.data.futures.FutureChangeProtectionListener;
@@ -34,12 +37,14 @@ public class DataManager implements IDataManager {
 	private static final Logger logger = LoggerFactory.getLogger(DataManager.class);
 
 	private final NetworkManager networkManager;
+	private final MetaFileCache metaFileCache;
 
 	// private final SignatureFactory signatureFactory;
 	// private final SignatureCodec signatureCodec;
 
 	public DataManager(NetworkManager networkManager) {
 		this.networkManager = networkManager;
+		this.metaFileCache = new MetaFileCache();
 		// this.signatureFactory = new H2HSignatureFactory();
 		// this.signatureCodec = new H2HSignatureCodec();
 	}
@@ -53,6 +58,31 @@ public class DataManager implements IDataManager {
 		return networkManager.getConnection().getPeer();
 	}
 
+	/**
+	 * Returns the number of nodes which can store a replica, these are the nodes known to this node and the
+	 * node itself.
+	 */
+	public int getAvailableNodes() {
+		return getPeer().getPeerBean().peerMap().size() + 1;
+	}
+
+	/**
+	 * Returns the replication policy of the content addressed by the parameters (see
+	 * {@link ContentType#fromKeys(String, String)}).
+	 */
+	public ReplicationPolicy getReplicationPolicy(IParameters parameters) {
+		ContentType contentType = ContentType.fromKeys(parameters.getDomainKey(), parameters.getContentKey());
+		return networkManager.getNetworkConfiguration().getReplicationPolicy(contentType);
+	}
+
+	/**
+	 * Helper to create the configuration for how many nodes are contacted at a put or get
+	 */
+	private RequestP2PConfiguration createRequestConfiguration(IParameters parameters) {
+		return new RequestP2PConfiguration(getReplicationPolicy(parameters).getReplicationFactor(),
+				H2HConstants.REPLICATION_MAX_FAILURES, H2HConstants.REPLICATION_PARALLEL_DIFF);
+	}
+
 	@Override
 	public boolean put(IParameters parameters) {
 		FuturePut putFuture = putUnblocked(parameters);
@@ -117,10 +147,12 @@ public class DataManager implements IDataManager {
 
 				return getPeer().put(parameters.getLKey()).setData(parameters.getCKey(), data)
 						.setDomainKey(parameters.getDKey()).setVersionKey(parameters.getVersionKey())
+						.setRequestP2PConfiguration(createRequestConfiguration(parameters))
 						.keyPair(parameters.getProtectionKeys()).start();
 			} else {
 				return getPeer().put(parameters.getLKey()).setData(parameters.getCKey(), data)
-						.setDomainKey(parameters.getDKey()).setVersionKey(parameters.getVersionKey()).start();
+						.setDomainKey(parameters.getDKey()).setVersionKey(parameters.getVersionKey())
+						.setRequestP2PConfiguration(createRequestConfiguration(parameters)).start();
 			}
 		} catch (IOException e) {
 			logger.error("Put failed. {}. Exception = '{}'", parameters.toString(), e.getMessage());
@@ -162,17 +194,42 @@ public class DataManager implements IDataManager {
 				.keyPair(parameters.getProtectionKeys()).start();
 	}
 
+	/**
+	 * Extends the time-to-live of stored content through a put meta, thus without transferring the content
+	 * again. The TTL is taken from the parameters, the content stays protected by the same keys.
+	 * 
+	 * @param parameters containing the keys for routing, the protection keys and the new TTL
+	 * @return the future of the put meta
+	 */
+	public FuturePut refreshTTLUnblocked(IParameters parameters) {
+		logger.debug("Refresh TTL. {}", parameters.toString());
+		Data data = new Data().ttlSeconds(parameters.getTTL());
+		if (parameters.getProtectionKeys() != null) {
+			// keep the content protected by the same keys
+			data.setProtectedEntry().publicKey(parameters.getProtectionKeys().getPublic());
+		}
+
+		// create meta data
+		data = data.duplicateMeta();
+
+		return getPeer().put(parameters.getLKey()).setDomainKey(parameters.getDKey()).putMeta()
+				.setData(parameters.getCKey(), data).setVersionKey(parameters.getVersionKey())
+				.keyPair(parameters.getProtectionKeys()).start();
+	}
+
 	@Override
 	public NetworkContent get(IParameters parameters) {
 		FutureGet futureGet = getUnblocked(parameters);
-		FutureGetListener listener = new FutureGetListener(parameters);
+		FutureGetListener listener = new FutureGetListener(parameters, getReplicationPolicy(parameters),
+				getAvailableNodes());
 		futureGet.addListener(listener);
 		return listener.awaitAndGet();
 	}
 
 	public NetworkContent getVersion(IParameters parameters) {
-		FutureGet futureGet = getUnblocked(parameters);
-		FutureGetListener listener = new FutureGetListener(parameters);
+		FutureGet futureGet = getVersionUnblocked(parameters);
+		FutureGetListener listener = new FutureGetListener(parameters, getReplicationPolicy(parameters),
+				getAvailableNodes());
 		futureGet.addListener(listener);
 		return listener.awaitAndGet();
 	}
@@ -200,13 +257,15 @@ public class DataManager implements IDataManager {
 				.from(new Number640(parameters.getLKey(), parameters.getDKey(), parameters.getCKey(),
 						Number160.ZERO))
 				.to(new Number640(parameters.getLKey(), parameters.getDKey(), parameters.getCKey(),
-						Number160.MAX_VALUE)).descending().returnNr(1).start();
+						Number160.MAX_VALUE)).descending().returnNr(1)
+				.setRequestP2PConfiguration(createRequestConfiguration(parameters)).start();
 	}
 
 	public FutureGet getVersionUnblocked(IParameters parameters) {
 		logger.debug("Get version. {}", parameters.toString());
 		return getPeer().get(parameters.getLKey()).setDomainKey(parameters.getDKey())
-				.setContentKey(parameters.getCKey()).setVersionKey(parameters.getVersionKey()).start();
+				.setContentKey(parameters.getCKey()).setVersionKey(parameters.getVersionKey())
+				.setRequestP2PConfiguration(createRequestConfiguration(parameters)).start();
 	}
 
 	@Override
@@ -253,6 +312,7 @@ public class DataManager implements IDataManager {
 				.keyPair(parameters.getProtectionKeys()).start();
 	}
 
+	@Override
 	public NavigableMap<Number640, Number160> getDigest(IParameters parameters) {
 		FutureDigest futureDigest = getDigestUnblocked(parameters);
 		FutureDigestListener listener = new FutureDigestListener(parameters);
@@ -270,4 +330,12 @@ public class DataManager implements IDataManager {
 						Number160.MAX_VALUE)).start();
 
 	}
+
+	/**
+	 * Returns the cache of the decrypted meta files of this node.
+	 */
+	@Override
+	public MetaFileCache getMetaFileCache() {
+		return metaFileCache;
+	}
 }
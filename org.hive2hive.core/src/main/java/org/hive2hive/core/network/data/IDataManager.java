@@ -1,8 +1,10 @@
 package org.hive2hive.core.network.data;
 
 import java.security.KeyPair;
+import java.util.NavigableMap;
 
 import net.tomp2p.peers.Number160;
+import net.tomp2p.peers.Number640;
 
 import org.hive2hive.core.model.NetworkContent;
 import org.hive2hive.core.network.data.parameters.IParameters;
@@ -101,4 +103,21 @@ public interface IDataManager {
 	 * @return the success of the removal
 	 */
 	boolean removeUserProfileTask(String userId, Number160 contentKey, KeyPair protectionKey);
+
+	/**
+	 * Gets the digest of some content in the DHT. The digest lists the keys of all stored versions without
+	 * transferring the content itself. The versions are in ascending order, thus the latest version is the
+	 * last entry.
+	 * 
+	 * @param parameters containing the keys for routing
+	 * @return the keys of the stored versions or null if the digest failed
+	 */
+	NavigableMap<Number640, Number160> getDigest(IParameters parameters);
+
+	/**
+	 * The cache holding the recently used decrypted meta files of this node.
+	 * 
+	 * @return the meta file cache
+	 */
+	MetaFileCache getMetaFileCache();
 }
@@ -0,0 +1,130 @@
+package org.hive2hive.core.network.data;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.tomp2p.peers.Number160;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.hive2hive.core.security.HybridEncryptedContent;
+
+/**
+ * Keeps the most recently used decrypted {@link MetaFile}s, such that a meta file does not need to be fetched
+ * and decrypted again as long as its version in the DHT did not change (see
+ * {@link H2HConstants#META_FILE_CACHE_SIZE}). The meta files are kept in serialized form, every read returns
+ * a fresh copy which can be modified by the caller without affecting the cache.
+ *
+ * @author Nico
+ */
+public class MetaFileCache {
+
+	private final Map<String, Entry> entries;
+
+	public MetaFileCache() {
+		this(H2HConstants.META_FILE_CACHE_SIZE);
+	}
+
+	/**
+	 * @param capacity the maximum number of cached meta files. The least recently used meta file is evicted
+	 *            when the capacity is exceeded. Use 0 to disable the cache.
+	 */
+	public MetaFileCache(final int capacity) {
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = -1785207416838364393L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Caches a meta file together with its encrypted form.
+	 *
+	 * @param metaFile the decrypted meta file
+	 * @param encrypted the encrypted meta file as it is stored in the DHT, carrying the version key
+	 * @throws IOException if the meta file cannot be serialized
+	 */
+	public void put(MetaFile metaFile, HybridEncryptedContent encrypted) throws IOException {
+		byte[] serialized = EncryptionUtil.serializeObject(metaFile);
+		synchronized (entries) {
+			entries.put(H2HEncryptionUtil.key2String(metaFile.getId()), new Entry(serialized, encrypted));
+		}
+	}
+
+	/**
+	 * Returns the cached meta file if it has the given version.
+	 *
+	 * @param fileKey the public key of the file
+	 * @param versionKey the current version key of the meta file in the DHT
+	 * @return the cached entry or <code>null</code> if there is none or if it is outdated
+	 */
+	public Entry get(PublicKey fileKey, Number160 versionKey) {
+		String key = H2HEncryptionUtil.key2String(fileKey);
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			} else if (!entry.encrypted.getVersionKey().equals(versionKey)) {
+				entries.remove(key);
+				return null;
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * @return whether any version of the meta file of the given file is cached
+	 */
+	public boolean contains(PublicKey fileKey) {
+		synchronized (entries) {
+			return entries.containsKey(H2HEncryptionUtil.key2String(fileKey));
+		}
+	}
+
+	/**
+	 * Removes the meta file of the given file, e.g. because it has been deleted.
+	 */
+	public void remove(PublicKey fileKey) {
+		synchronized (entries) {
+			entries.remove(H2HEncryptionUtil.key2String(fileKey));
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public static class Entry {
+
+		private final byte[] serialized;
+		private final HybridEncryptedContent encrypted;
+
+		private Entry(byte[] serialized, HybridEncryptedContent encrypted) {
+			this.serialized = serialized;
+			this.encrypted = encrypted;
+		}
+
+		/**
+		 * Returns a copy of the meta file having the version and based-on keys of the stored meta file.
+		 */
+		public MetaFile getMetaFile() throws IOException, ClassNotFoundException {
+			MetaFile metaFile = (MetaFile) EncryptionUtil.deserializeObject(serialized);
+			metaFile.setVersionKey(encrypted.getVersionKey());
+			metaFile.setBasedOnKey(encrypted.getBasedOnKey());
+			return metaFile;
+		}
+
+		public HybridEncryptedContent getEncryptedMetaFile() {
+			return encrypted;
+		}
+	}
+}
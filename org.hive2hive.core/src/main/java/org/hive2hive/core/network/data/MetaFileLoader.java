@@ -0,0 +1,105 @@
+package org.hive2hive.core.network.data;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.util.NavigableMap;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+
+import net.tomp2p.peers.Number160;
+import net.tomp2p.peers.Number640;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.model.FileIndex;
+import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
+import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.model.NetworkContent;
+import org.hive2hive.core.network.data.parameters.IParameters;
+import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.hive2hive.core.security.HybridEncryptedContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the meta file of a file for the background tasks which need to know all chunks of all versions.
+ *
+ * @author Nico
+ */
+class MetaFileLoader {
+
+	private static final Logger logger = LoggerFactory.getLogger(MetaFileLoader.class);
+
+	private MetaFileLoader() {
+		// only static methods
+	}
+
+	/**
+	 * Gets the latest meta file of the file including the pages of old versions. The meta file is taken from
+	 * the {@link MetaFileCache} if it did not change.
+	 *
+	 * @param requirePages whether the meta file is only returned if all pages could be loaded
+	 * @return the meta file or <code>null</code> if it could not be loaded
+	 */
+	static MetaFile load(DataManager dataManager, FileIndex file, boolean requirePages) {
+		KeyPair fileKeys = file.getFileKeys();
+		String locationKey = H2HEncryptionUtil.key2String(fileKeys.getPublic());
+		IParameters parameters = new Parameters().setLocationKey(locationKey).setContentKey(H2HConstants.META_FILE);
+
+		try {
+			MetaFile metaFile;
+			NavigableMap<Number640, Number160> digest = dataManager.getDigest(parameters);
+			MetaFileCache.Entry cached = null;
+			if (digest != null && !digest.isEmpty()) {
+				cached = dataManager.getMetaFileCache().get(fileKeys.getPublic(),
+						digest.lastEntry().getKey().getVersionKey());
+			}
+
+			if (cached != null) {
+				metaFile = cached.getMetaFile();
+			} else {
+				NetworkContent content = dataManager.get(parameters);
+				if (content == null) {
+					logger.warn("Meta file of '{}' not found.", file.getName());
+					return null;
+				}
+
+				HybridEncryptedContent encrypted = (HybridEncryptedContent) content;
+				metaFile = (MetaFile) H2HEncryptionUtil.decryptHybrid(encrypted, fileKeys.getPrivate());
+				metaFile.setVersionKey(content.getVersionKey());
+				metaFile.setBasedOnKey(content.getBasedOnKey());
+				dataManager.getMetaFileCache().put(metaFile, encrypted);
+			}
+
+			if (metaFile.isSmall()) {
+				// the chunks of the old versions are referenced from the pages
+				MetaFileSmall metaFileSmall = (MetaFileSmall) metaFile;
+				for (MetaFilePageInfo pageInfo : metaFileSmall.getPages()) {
+					IParameters pageParameters = new Parameters().setLocationKey(locationKey).setContentKey(
+							MetaFilePage.getContentKey(pageInfo.getNumber()));
+					NetworkContent page = dataManager.get(pageParameters);
+					if (page != null) {
+						metaFileSmall.setLoadedPage((MetaFilePage) H2HEncryptionUtil.decryptHybrid(
+								(HybridEncryptedContent) page, fileKeys.getPrivate()));
+					} else if (requirePages) {
+						logger.warn("Page {} of the meta file of '{}' not found.", pageInfo.getNumber(),
+								file.getName());
+						return null;
+					}
+				}
+			}
+
+			return metaFile;
+		} catch (InvalidKeyException | DataLengthException | IllegalBlockSizeException | BadPaddingException
+				| IllegalStateException | InvalidCipherTextException | ClassNotFoundException | IOException e) {
+			logger.warn("Meta file of '{}' could not be decrypted. reason = '{}'", file.getName(), e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,315 @@
+package org.hive2hive.core.network.data;
+
+import java.security.KeyPair;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.UUID;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HSession;
+import org.hive2hive.core.TimeToLiveStore;
+import org.hive2hive.core.exceptions.GetFailedException;
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.file.PutLog;
+import org.hive2hive.core.file.PutLogEntry;
+import org.hive2hive.core.file.UploadJournal;
+import org.hive2hive.core.file.UploadJournalEntry;
+import org.hive2hive.core.model.FileIndex;
+import org.hive2hive.core.model.FileVersion;
+import org.hive2hive.core.model.Index;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.model.MetaFileLarge;
+import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides methods to start and stop a periodical task that removes orphaned chunks and meta files from the
+ * network. Data is orphaned if a process failed and could not clean up (e.g. the removal in a rollback
+ * failed), it would otherwise stay in the network until its time-to-live expires.
+ *
+ * The task walks through the files of the user profile incrementally and collects the chunks referenced from
+ * all versions of their meta files. After the walk, every chunk in the {@link PutLog} which is not referenced
+ * and every meta file whose file is not in the user profile anymore is removed, a bounded number per task
+ * execution. Recently put data is kept because it may belong to a running process. If a meta file cannot be
+ * loaded, the walk is aborted, since the references are incomplete. The put log does not contain any keys,
+ * the protection keys to remove the orphans are looked up in the user profile.
+ *
+ * @author Nico
+ */
+public class OrphanCollector {
+
+	private static final Logger logger = LoggerFactory.getLogger(OrphanCollector.class);
+
+	private Timer timer;
+	private CollectTask task;
+
+	private final NetworkManager networkManager;
+	private final PutLog putLog;
+	private final int filesPerTask;
+	private final int maxRemovalsPerTask;
+	private final long passInterval;
+	private final long gracePeriod;
+
+	// state of the walk through the user profile, only accessed by the collection task
+	private List<FileIndex> files = null;
+	private int cursor = 0;
+	private long passStart = 0;
+	private Set<String> metaFiles;
+	private Set<String> chunks;
+	// the protection keys of the user profile and the shared folders by their id in the put log
+	private Map<String, KeyPair> protectionKeys = new HashMap<String, KeyPair>();
+	private final Deque<PutLogEntry> orphans = new ArrayDeque<PutLogEntry>();
+
+	public OrphanCollector(NetworkManager networkManager, PutLog putLog) {
+		this(networkManager, putLog, H2HConstants.ORPHAN_COLLECTION_FILES_PER_TASK,
+				H2HConstants.ORPHAN_COLLECTION_MAX_REMOVALS_PER_TASK,
+				H2HConstants.ORPHAN_COLLECTION_PASS_INTERVAL_MS, H2HConstants.ORPHAN_COLLECTION_GRACE_PERIOD_MS);
+	}
+
+	/**
+	 * @param putLog the log of the data put by this client, only this data is removed
+	 * @param filesPerTask the maximum number of meta files loaded per task execution
+	 * @param maxRemovalsPerTask the maximum number of orphans removed per task execution
+	 * @param passInterval the minimum time in milliseconds between two walks through the user profile
+	 * @param gracePeriod the minimum age in milliseconds of data before it is considered to be orphaned
+	 */
+	public OrphanCollector(NetworkManager networkManager, PutLog putLog, int filesPerTask,
+			int maxRemovalsPerTask, long passInterval, long gracePeriod) {
+		this.networkManager = networkManager;
+		this.putLog = putLog;
+		this.filesPerTask = filesPerTask;
+		this.maxRemovalsPerTask = maxRemovalsPerTask;
+		this.passInterval = passInterval;
+		this.gracePeriod = gracePeriod;
+	}
+
+	/**
+	 * @return the log where the processes record the put chunks and meta files
+	 */
+	public PutLog getPutLog() {
+		return putLog;
+	}
+
+	public void start() {
+		logger.debug("Starting orphan collector.");
+
+		timer = new Timer("OrphanCollection", true);
+		task = new CollectTask();
+		timer.schedule(task, H2HConstants.ORPHAN_COLLECTION_DELAY, H2HConstants.ORPHAN_COLLECTION_PERIOD);
+
+		logger.debug("Orphan collector started.");
+	}
+
+	public void stop() {
+		if (timer == null) {
+			return;
+		}
+
+		logger.debug("Stopping orphan collector.");
+
+		task.cancel();
+		timer.cancel();
+		timer.purge();
+		timer = null;
+
+		logger.debug("Orphan collector stopped.");
+	}
+
+	/**
+	 * Executes one step: Removes the next orphans if there are any left, else continues the walk through the
+	 * user profile. Starts a new walk if the pass interval has elapsed.
+	 */
+	void collect() throws NoSessionException, NoPeerConnectionException, GetFailedException {
+		long now = System.currentTimeMillis();
+		if (!orphans.isEmpty()) {
+			removeOrphans(now);
+			return;
+		}
+
+		H2HSession session = networkManager.getSession();
+		if (files == null) {
+			if (now - passStart < passInterval) {
+				return;
+			}
+			startPass(session, now);
+		}
+
+		DataManager dataManager = networkManager.getDataManager();
+		int checked = 0;
+		while (cursor < files.size() && checked < filesPerTask) {
+			FileIndex file = files.get(cursor);
+			MetaFile metaFile = MetaFileLoader.load(dataManager, file, true);
+			if (metaFile == null) {
+				logger.warn("Aborting the orphan collection because the meta file of '{}' could not be loaded.",
+						file.getName());
+				files = null;
+				return;
+			}
+
+			addReferences(metaFile);
+			cursor++;
+			checked++;
+		}
+
+		if (cursor >= files.size()) {
+			findOrphans(session.getUploadJournal());
+			files = null;
+		}
+	}
+
+	private void startPass(H2HSession session, long now) throws GetFailedException {
+		// also throttles the retries if the user profile cannot be loaded
+		passStart = now;
+		UserProfile userProfile = session.getProfileManager().getUserProfile(UUID.randomUUID().toString(), false);
+
+		files = new ArrayList<FileIndex>();
+		metaFiles = new HashSet<String>();
+		chunks = new HashSet<String>();
+		protectionKeys = new HashMap<String, KeyPair>();
+		addProtectionKeys(userProfile.getProtectionKeys());
+		for (Index index : Index.getIndexList(userProfile.getRoot())) {
+			addProtectionKeys(index.getProtectionKeys());
+			if (!index.isFolder()) {
+				files.add((FileIndex) index);
+				metaFiles.add(H2HEncryptionUtil.key2String(index.getFilePublicKey()));
+			}
+		}
+
+		cursor = 0;
+		logger.debug("Starting to walk through {} files for the orphan collection.", files.size());
+	}
+
+	private void addProtectionKeys(KeyPair keys) {
+		if (keys != null) {
+			protectionKeys.put(PutLog.getKeyId(keys), keys);
+		}
+	}
+
+	private void addReferences(MetaFile metaFile) {
+		if (metaFile.isSmall()) {
+			for (FileVersion version : ((MetaFileSmall) metaFile).getAllVersions()) {
+				for (MetaChunk metaChunk : version.getMetaChunks()) {
+					chunks.add(metaChunk.getChunkId());
+				}
+			}
+		} else {
+			for (MetaChunk metaChunk : ((MetaFileLarge) metaFile).getMetaChunks()) {
+				chunks.add(metaChunk.getChunkId());
+			}
+		}
+	}
+
+	/**
+	 * Compares the put log with the references collected during the walk
+	 */
+	private void findOrphans(UploadJournal journal) {
+		// the chunks of interrupted uploads are kept, the upload may be continued
+		if (journal != null) {
+			for (UploadJournalEntry entry : journal.getEntries()) {
+				for (MetaChunk metaChunk : entry.getCompletedChunks()) {
+					chunks.add(metaChunk.getChunkId());
+				}
+			}
+		}
+
+		for (PutLogEntry entry : putLog.getEntries()) {
+			if (entry.getPutTime() > passStart - gracePeriod) {
+				// may belong to a running process which did not update the user profile yet
+				continue;
+			}
+
+			if (H2HConstants.FILE_CHUNK.equals(entry.getContentKey())) {
+				if (!chunks.contains(entry.getLocationKey())) {
+					orphans.add(entry);
+				}
+			} else if (H2HConstants.META_FILE.equals(entry.getContentKey())) {
+				if (!metaFiles.contains(entry.getLocationKey())) {
+					orphans.add(entry);
+				}
+			}
+		}
+
+		metaFiles = null;
+		chunks = null;
+		logger.debug("Found {} orphaned chunks and meta files.", orphans.size());
+	}
+
+	/**
+	 * Removes the next orphans. If an orphan cannot be removed, it is tried again in the next pass.
+	 */
+	private void removeOrphans(long now) throws NoPeerConnectionException {
+		IDataManager dataManager = networkManager.getDataManager();
+
+		int removed = 0;
+		for (int i = 0; i < maxRemovalsPerTask && !orphans.isEmpty(); i++) {
+			PutLogEntry orphan = orphans.poll();
+			String keyId = orphan.getProtectionKeyId();
+			KeyPair keys = keyId == null ? null : protectionKeys.get(keyId);
+			if (keyId != null && keys == null) {
+				// the keys are not in the user profile anymore (e.g. the shared folder has been left)
+				logger.debug("Protection keys of orphaned {} {} are unknown.", orphan.getContentKey(),
+						orphan.getLocationKey());
+			} else {
+				Parameters parameters = new Parameters().setLocationKey(orphan.getLocationKey())
+						.setContentKey(orphan.getContentKey()).setProtectionKeys(keys);
+				if (dataManager.remove(parameters)) {
+					putLog.remove(orphan);
+					removed++;
+					continue;
+				}
+			}
+
+			if (now - orphan.getPutTime() > getTimeToLive(orphan) * 1000L) {
+				// it has expired or cannot be removed with the known protection keys, in any case it expires
+				// with its time-to-live
+				logger.debug("Giving up to remove orphaned {} {}.", orphan.getContentKey(),
+						orphan.getLocationKey());
+				putLog.remove(orphan);
+			} else {
+				logger.warn("Could not remove orphaned {} {}.", orphan.getContentKey(), orphan.getLocationKey());
+			}
+		}
+		logger.debug("Removed {} orphaned chunks and meta files, {} remaining.", removed, orphans.size());
+	}
+
+	private static int getTimeToLive(PutLogEntry entry) {
+		if (H2HConstants.FILE_CHUNK.equals(entry.getContentKey())) {
+			return TimeToLiveStore.getInstance().getChunk();
+		} else {
+			return TimeToLiveStore.getInstance().getMetaFile();
+		}
+	}
+
+	private class CollectTask extends TimerTask {
+
+		@Override
+		public void run() {
+			try {
+				collect();
+			} catch (GetFailedException e) {
+				logger.warn("Could not get the user profile for the orphan collection. reason = '{}'",
+						e.getMessage());
+			} catch (NoSessionException | NoPeerConnectionException e) {
+				logger.warn("Orphan collection is not possible. reason = '{}'", e.getMessage());
+			} catch (RuntimeException e) {
+				// an uncaught exception would terminate the timer
+				logger.error("Orphan collection failed. reason = '{}'", e.getMessage());
+			}
+		}
+	}
+}
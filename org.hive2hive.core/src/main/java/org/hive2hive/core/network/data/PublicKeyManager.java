@@ -37,6 +37,13 @@ public class PublicKeyManager {
 		this.publicKeyCache = new ConcurrentHashMap<String, PublicKey>();
 	}
 
+	/**
+	 * Returns the user id of the currently logged in user.
+	 */
+	public String getUserId() {
+		return userId;
+	}
+
 	/**
 	 * Helper method that returns the public key of the currently logged in user.
 	 */
@@ -1,17 +1,52 @@
 package org.hive2hive.core.network.data;
 
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.UUID;
+
+import net.tomp2p.futures.FuturePut;
+import net.tomp2p.peers.Number160;
 
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.TimeToLiveStore;
+import org.hive2hive.core.exceptions.GetFailedException;
+import org.hive2hive.core.model.FileIndex;
+import org.hive2hive.core.model.FileVersion;
+import org.hive2hive.core.model.Index;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.model.MetaFileLarge;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
+import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.model.UserProfileShardReference;
+import org.hive2hive.core.network.data.futures.FutureRefreshListener;
+import org.hive2hive.core.network.data.parameters.IParameters;
+import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Provides methods to start and stop a periodical task to refresh the time-to-live value of data which has
  * been stored in the network.
- * 
- * @author Seppi
+ *
+ * The task walks through the files of the user profile incrementally. Each execution checks a bounded number
+ * of files and sends a bounded number of TTL extensions, such that the load is spread. The time of the next
+ * refresh of every object is kept in a {@link TTLRefreshSchedule}, thus a file is only loaded when one of its
+ * objects is due. The TTL is extended through a put meta, the data itself is not uploaded again. The schedule
+ * is persisted when the client goes offline (see {@link org.hive2hive.core.file.PersistentMetaData}).
+ *
+ * If the batch of an execution is full, the remaining objects of the current file (or the user profile) are
+ * sent in the next execution before the walk continues, such that a file is never left partially refreshed.
+ *
+ * @author Seppi, Nico
  */
 public class TTLRefreshManager {
 
@@ -22,27 +57,57 @@ public class TTLRefreshManager {
 
 	private final UserProfileManager profileManager;
 	private final DataManager dataManager;
+	private final TTLRefreshSchedule schedule;
+	private final int filesPerTask;
+	private final int maxPutsPerTask;
+	private final long passInterval;
+
+	// state of the walk through the user profile, only accessed by the refresh task
+	private UserProfile userProfile = null;
+	private List<FileIndex> files = new ArrayList<FileIndex>();
+	private int cursor = 0;
+	private long lastPass = 0;
 
 	public TTLRefreshManager(UserProfileManager profileManager, DataManager dataManager) {
+		this(profileManager, dataManager, new TTLRefreshSchedule(), H2HConstants.TTL_REFRESHMENT_FILES_PER_TASK,
+				H2HConstants.TTL_REFRESHMENT_MAX_PUTS_PER_TASK, H2HConstants.TTL_REFRESHMENT_PASS_INTERVAL_MS);
+	}
+
+	/**
+	 * @param schedule keeps the times of the next refreshes, determines the refresh rate and jitter
+	 * @param filesPerTask the maximum number of files checked per task execution
+	 * @param maxPutsPerTask the maximum number of TTL extensions sent per task execution
+	 * @param passInterval the minimum time in milliseconds between two walks through the user profile
+	 */
+	public TTLRefreshManager(UserProfileManager profileManager, DataManager dataManager,
+			TTLRefreshSchedule schedule, int filesPerTask, int maxPutsPerTask, long passInterval) {
 		this.profileManager = profileManager;
 		this.dataManager = dataManager;
+		this.schedule = schedule;
+		this.filesPerTask = filesPerTask;
+		this.maxPutsPerTask = maxPutsPerTask;
+		this.passInterval = passInterval;
 	}
 
 	public void start() {
 		logger.debug("Starting TTL refresh manager.");
 
 		// create a new timer thread
-		timer = new Timer();
+		timer = new Timer("TTLRefresh", true);
 		// create a new timer task
 		task = new RefreshTask();
-		// start refreshment task periodically
-		timer.scheduleAtFixedRate(task, H2HConstants.TTL_REFRESHMENT_DELAY,
-				H2HConstants.TTL_REFRESHMENT_PERIOD);
+		// start refreshment task periodically. With a fixed delay, a slow execution does not cause a burst of
+		// executions to catch up
+		timer.schedule(task, H2HConstants.TTL_REFRESHMENT_DELAY, H2HConstants.TTL_REFRESHMENT_PERIOD);
 
 		logger.debug("TTL refresh manager started.");
 	}
 
 	public void stop() {
+		if (timer == null) {
+			return;
+		}
+
 		logger.debug("Stopping TTL refresh manager.");
 
 		// cancel the task
@@ -51,83 +116,225 @@ public class TTLRefreshManager {
 		timer.cancel();
 		// remove all cancelled tasks from this timer's task queu
 		timer.purge();
+		timer = null;
 
 		logger.debug("TTL refresh manager stopped.");
 	}
 
+	/**
+	 * @return the times of the next refreshes, e.g. to persist them
+	 */
+	public TTLRefreshSchedule getSchedule() {
+		return schedule;
+	}
+
+	/**
+	 * Executes one step of the walk through the user profile. Starts a new walk if the previous one is done
+	 * and the pass interval has elapsed.
+	 */
+	void refresh() throws GetFailedException {
+		long now = System.currentTimeMillis();
+		List<RefreshEntry> batch = new ArrayList<RefreshEntry>();
+
+		if (userProfile == null && cursor >= files.size()) {
+			if (now - lastPass < passInterval) {
+				return;
+			}
+			startPass(now);
+		}
+
+		if (userProfile != null && collectUserProfile(batch, now)) {
+			userProfile = null;
+		}
+
+		int checked = 0;
+		while (userProfile == null && cursor < files.size() && checked < filesPerTask
+				&& batch.size() < maxPutsPerTask) {
+			if (collectFile(files.get(cursor), batch, now)) {
+				cursor++;
+			}
+			checked++;
+		}
+
+		sendBatch(batch, now);
+	}
+
+	/**
+	 * Loads the user profile and determines the files to walk through. The user profile itself is refreshed
+	 * first.
+	 */
+	private void startPass(long now) throws GetFailedException {
+		// also throttles the retries if the user profile cannot be loaded
+		lastPass = now;
+		userProfile = profileManager.getUserProfile(UUID.randomUUID().toString(), false);
+
+		String profileGroup = profileManager.getUserCredentials().getProfileLocationKey();
+		Set<String> groups = new HashSet<String>();
+		groups.add(profileGroup);
+
+		files = new ArrayList<FileIndex>();
+		for (Index index : Index.getIndexList(userProfile.getRoot())) {
+			if (!index.isFolder()) {
+				files.add((FileIndex) index);
+				groups.add(H2HEncryptionUtil.key2String(index.getFilePublicKey()));
+			}
+		}
+
+		// forget the deleted files
+		schedule.retainGroups(groups);
+		cursor = 0;
+		logger.debug("Starting to walk through {} files for the TTL refreshment.", files.size());
+	}
+
+	/**
+	 * Adds the user profile and its shards to the batch if they are due.
+	 *
+	 * @return <code>true</code> if the user profile is done, <code>false</code> if the batch is full and the
+	 *         remaining objects must be added in the next execution
+	 */
+	private boolean collectUserProfile(List<RefreshEntry> batch, long now) {
+		String group = profileManager.getUserCredentials().getProfileLocationKey();
+		if (!schedule.isDue(group, now)) {
+			return true;
+		}
+
+		List<RefreshEntry> due = new ArrayList<RefreshEntry>();
+		Set<String> objects = new HashSet<String>();
+		addIfDue(due, objects, group, group, H2HConstants.USER_PROFILE, userProfile.getVersionKey(),
+				userProfile.getProtectionKeys(), userProfile.getTimeToLive(), now);
+		for (UserProfileShardReference shard : userProfile.getShardReferences()) {
+			addIfDue(due, objects, group, group, shard.getContentKey(), shard.getVersionKey(),
+					userProfile.getProtectionKeys(), userProfile.getTimeToLive(), now);
+		}
+
+		// forget the removed shards
+		schedule.retainObjects(group, objects);
+		return addToBatch(due, batch);
+	}
+
+	/**
+	 * Adds the meta file, its pages and the chunks of all versions of a file to the batch if they are due.
+	 *
+	 * @return <code>true</code> if the file is done, <code>false</code> if the batch is full and the
+	 *         remaining objects must be added in the next execution
+	 */
+	private boolean collectFile(FileIndex file, List<RefreshEntry> batch, long now) {
+		String group = H2HEncryptionUtil.key2String(file.getFilePublicKey());
+		if (!schedule.isDue(group, now)) {
+			return true;
+		}
+
+		MetaFile metaFile = MetaFileLoader.load(dataManager, file, false);
+		if (metaFile == null) {
+			// try again in the next walk
+			return true;
+		}
+
+		KeyPair protectionKeys = file.getProtectionKeys();
+		int chunkTTL = TimeToLiveStore.getInstance().getChunk();
+		List<RefreshEntry> due = new ArrayList<RefreshEntry>();
+		Set<String> objects = new HashSet<String>();
+
+		addIfDue(due, objects, group, group, H2HConstants.META_FILE, metaFile.getVersionKey(), protectionKeys,
+				metaFile.getTimeToLive(), now);
+		if (metaFile.isSmall()) {
+			MetaFileSmall metaFileSmall = (MetaFileSmall) metaFile;
+			for (MetaFilePageInfo page : metaFileSmall.getPages()) {
+				addIfDue(due, objects, group, group, MetaFilePage.getContentKey(page.getNumber()),
+						H2HConstants.TOMP2P_DEFAULT_KEY, protectionKeys, metaFile.getTimeToLive(), now);
+			}
+			for (FileVersion version : metaFileSmall.getAllVersions()) {
+				for (MetaChunk metaChunk : version.getMetaChunks()) {
+					addIfDue(due, objects, group, metaChunk.getChunkId(), H2HConstants.FILE_CHUNK,
+							H2HConstants.TOMP2P_DEFAULT_KEY, protectionKeys, chunkTTL, now);
+				}
+			}
+		} else {
+			for (MetaChunk metaChunk : ((MetaFileLarge) metaFile).getMetaChunks()) {
+				addIfDue(due, objects, group, metaChunk.getChunkId(), H2HConstants.FILE_CHUNK,
+						H2HConstants.TOMP2P_DEFAULT_KEY, protectionKeys, chunkTTL, now);
+			}
+		}
+
+		// forget the removed versions
+		schedule.retainObjects(group, objects);
+		return addToBatch(due, batch);
+	}
+
+	/**
+	 * Adds the due objects to the batch as long as it is not full.
+	 *
+	 * @return whether all due objects have been added
+	 */
+	private boolean addToBatch(List<RefreshEntry> due, List<RefreshEntry> batch) {
+		int free = Math.max(0, maxPutsPerTask - batch.size());
+		batch.addAll(due.subList(0, Math.min(free, due.size())));
+		return due.size() <= free;
+	}
+
+	private void addIfDue(List<RefreshEntry> due, Set<String> objects, String group, String locationKey,
+			String contentKey, Number160 versionKey, KeyPair protectionKeys, int ttl, long now) {
+		String object = locationKey + "/" + contentKey;
+		if (objects.add(object) && schedule.isDue(group, object, now)) {
+			IParameters parameters = new Parameters().setLocationKey(locationKey).setContentKey(contentKey)
+					.setVersionKey(versionKey).setProtectionKeys(protectionKeys).setTTL(ttl);
+			due.add(new RefreshEntry(group, object, parameters));
+		}
+	}
+
+	/**
+	 * Sends all TTL extensions of the batch at once and waits until they are done. The successfully refreshed
+	 * objects are scheduled again, the others remain due.
+	 */
+	private void sendBatch(List<RefreshEntry> batch, long now) {
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		List<FutureRefreshListener> listeners = new ArrayList<FutureRefreshListener>(batch.size());
+		for (RefreshEntry entry : batch) {
+			FuturePut futurePut = dataManager.refreshTTLUnblocked(entry.parameters);
+			FutureRefreshListener listener = new FutureRefreshListener(entry.parameters);
+			futurePut.addListener(listener);
+			listeners.add(listener);
+		}
+
+		int refreshed = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			RefreshEntry entry = batch.get(i);
+			if (listeners.get(i).await()) {
+				schedule.refreshed(entry.group, entry.object, entry.parameters.getTTL(), now);
+				refreshed++;
+			}
+		}
+		logger.debug("Refreshed the TTL of {} of {} objects.", refreshed, batch.size());
+	}
+
 	private class RefreshTask extends TimerTask {
 
 		@Override
 		public void run() {
-			// // load the user profile
-			// UserProfile profile = null;
-			// try {
-			// String randomPID = UUID.randomUUID().toString();
-			// profile = profileManager.getUserProfile(randomPID, false);
-			// } catch (GetFailedException e) {
-			// logger.error(String.format("Could not get user profile. reason = '%s'", e.getMessage()));
-			// return;
-			// }
-			//
-			// // get all file/folder indexes stored in the profile
-			// List<Index> indexes = Index.getIndexList(profile.getRoot());
-			//
-			// // remove all folder indexes
-			// Iterator<Index> iterator = indexes.iterator();
-			// while (iterator.hasNext()) {
-			// Index index = iterator.next();
-			//
-			// if (index.isFolder())
-			// iterator.remove();
-			// }
-			//
-			// // select a random file index
-			// Random random = new Random();
-			// Index randomIndex = indexes.get(random.nextInt(indexes.size()));
-			//
-			// // load meta file from network
-			// MetaFile metaFile = getMetaFile(randomIndex);
-			//
-			// for (FileVersion fileVersion : metaFile.getVersions()) {
-			// for (String chunkId : fileVersion.getChunkIds()) {
-			// NetworkContent content = dataManager.get(chunkId, H2HConstants.FILE_CHUNK);
-			// HybridEncryptedContent encrypted = (HybridEncryptedContent) content;
-			// try {
-			// NetworkContent decrypted = H2HEncryptionUtil.decryptHybrid(encrypted, metaFile
-			// .getChunkKey().getPrivate());
-			// Chunk chunk = (Chunk) decrypted;
-			// } catch (ClassNotFoundException | InvalidKeyException | DataLengthException
-			// | IllegalBlockSizeException | BadPaddingException | IllegalStateException
-			// | InvalidCipherTextException | IllegalArgumentException | IOException e) {
-			// logger.error(String.format("Could not decypt chunk. reason = '%s'", e.getMessage()));
-			// }
-			// }
-			// }
-		}
-
-		// private MetaFile getMetaFile(Index index) {
-		// // get the encrypted meta file
-		// KeyPair keyPair = index.getFileKeys();
-		// NetworkContent loadedContent = dataManager.get(H2HEncryptionUtil.key2String(keyPair.getPublic()),
-		// H2HConstants.META_FILE);
-		//
-		// // decrypt meta file
-		// HybridEncryptedContent encryptedContent = (HybridEncryptedContent) loadedContent;
-		// NetworkContent decryptedContent = null;
-		// try {
-		// decryptedContent = H2HEncryptionUtil.decryptHybrid(encryptedContent, keyPair.getPrivate());
-		// } catch (InvalidKeyException | DataLengthException | IllegalBlockSizeException
-		// | BadPaddingException | IllegalStateException | InvalidCipherTextException
-		// | ClassNotFoundException | IOException e) {
-		// logger.error(String.format("Could not decrypt meta document. reason = '%s'", e.getMessage()));
-		// }
-		// MetaFile metaFile = (MetaFile) decryptedContent;
-		// //metaFile.setVersionKey(loadedContent.getVersionKey());
-		// //metaFile.setBasedOnKey(loadedContent.getBasedOnKey());
-		//
-		// return metaFile;
-		// }
-
+			try {
+				refresh();
+			} catch (GetFailedException e) {
+				logger.warn("Could not get the user profile for the TTL refreshment. reason = '{}'", e.getMessage());
+			} catch (RuntimeException e) {
+				// an uncaught exception would terminate the timer
+				logger.error("TTL refreshment failed. reason = '{}'", e.getMessage());
+			}
+		}
 	}
 
+	private static class RefreshEntry {
+
+		private final String group;
+		private final String object;
+		private final IParameters parameters;
+
+		public RefreshEntry(String group, String object, IParameters parameters) {
+			this.group = group;
+			this.object = object;
+			this.parameters = parameters;
+		}
+	}
 }
@@ -0,0 +1,147 @@
+package org.hive2hive.core.network.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.hive2hive.core.H2HConstants;
+
+/**
+ * Remembers when the time-to-live of stored objects needs to be refreshed next. The objects are grouped (e.g.
+ * the meta file, the pages and the chunks of a file), such that a whole group can be skipped as long as none
+ * of its objects is due. Objects which have not been refreshed yet (since the start of this client) are
+ * always due, because it is unknown when they have been stored. The schedule can be persisted with
+ * {@link #getRefreshTimes()} and {@link #restore(Map)}, such that the objects are not refreshed again after
+ * each login.
+ *
+ * @author Nico
+ */
+public class TTLRefreshSchedule {
+
+	private final double rate;
+	private final double jitter;
+	private final Random random;
+
+	// group --> (object --> time in milliseconds of the next refresh)
+	private final Map<String, Map<String, Long>> groups;
+
+	public TTLRefreshSchedule() {
+		this(H2HConstants.TTL_REFRESHMENT_RATE, H2HConstants.TTL_REFRESHMENT_JITTER, new Random());
+	}
+
+	/**
+	 * @param rate the fraction of the TTL after which an object is refreshed
+	 * @param jitter the maximum fraction of the TTL by which a refresh is randomly brought forward
+	 * @param random the source of the jitter
+	 */
+	public TTLRefreshSchedule(double rate, double jitter, Random random) {
+		if (rate <= 0 || rate > 1) {
+			throw new IllegalArgumentException("Refresh rate must be in (0, 1].");
+		} else if (jitter < 0 || jitter >= rate) {
+			throw new IllegalArgumentException("Jitter must be in [0, rate).");
+		}
+
+		this.rate = rate;
+		this.jitter = jitter;
+		this.random = random;
+		this.groups = new HashMap<String, Map<String, Long>>();
+	}
+
+	/**
+	 * @return whether any object of the group needs to be refreshed. This is also the case if the group is
+	 *         unknown.
+	 */
+	public synchronized boolean isDue(String group, long now) {
+		Map<String, Long> objects = groups.get(group);
+		if (objects == null || objects.isEmpty()) {
+			return true;
+		}
+
+		for (Long nextRefresh : objects.values()) {
+			if (nextRefresh <= now) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the object needs to be refreshed. This is also the case if the object is unknown.
+	 */
+	public synchronized boolean isDue(String group, String object, long now) {
+		Map<String, Long> objects = groups.get(group);
+		if (objects == null || !objects.containsKey(object)) {
+			return true;
+		}
+		return objects.get(object) <= now;
+	}
+
+	/**
+	 * Records that the TTL of an object has been refreshed and calculates its next refresh.
+	 *
+	 * @param ttl the refreshed time-to-live in seconds
+	 * @param now the time of the refresh in milliseconds
+	 */
+	public synchronized void refreshed(String group, String object, int ttl, long now) {
+		Map<String, Long> objects = groups.get(group);
+		if (objects == null) {
+			objects = new HashMap<String, Long>();
+			groups.put(group, objects);
+		}
+
+		long ttlMillis = ttl * 1000L;
+		objects.put(object, now + (long) (ttlMillis * (rate - jitter * random.nextDouble())));
+	}
+
+	/**
+	 * @return the time in milliseconds of the next refresh of the object or -1 if it is unknown
+	 */
+	public synchronized long getNextRefresh(String group, String object) {
+		Map<String, Long> objects = groups.get(group);
+		if (objects == null || !objects.containsKey(object)) {
+			return -1;
+		}
+		return objects.get(object);
+	}
+
+	/**
+	 * Forgets all groups which are not in the given set (e.g. because the file has been deleted).
+	 */
+	public synchronized void retainGroups(Set<String> existing) {
+		groups.keySet().retainAll(existing);
+	}
+
+	/**
+	 * Forgets all objects of the group which are not in the given set (e.g. because the version has been
+	 * removed).
+	 */
+	public synchronized void retainObjects(String group, Set<String> existing) {
+		Map<String, Long> objects = groups.get(group);
+		if (objects != null) {
+			objects.keySet().retainAll(existing);
+		}
+	}
+
+	/**
+	 * @return a copy of the times in milliseconds of the next refreshes (group --> (object --> time))
+	 */
+	public synchronized Map<String, Map<String, Long>> getRefreshTimes() {
+		Map<String, Map<String, Long>> copy = new HashMap<String, Map<String, Long>>(groups.size());
+		for (Map.Entry<String, Map<String, Long>> group : groups.entrySet()) {
+			copy.put(group.getKey(), new HashMap<String, Long>(group.getValue()));
+		}
+		return copy;
+	}
+
+	/**
+	 * Replaces the schedule with the persisted times of the next refreshes. The times are absolute, thus the
+	 * objects which would have been refreshed while the client was offline are due immediately.
+	 */
+	public synchronized void restore(Map<String, Map<String, Long>> refreshTimes) {
+		groups.clear();
+		for (Map.Entry<String, Map<String, Long>> group : refreshTimes.entrySet()) {
+			groups.put(group.getKey(), new HashMap<String, Long>(group.getValue()));
+		}
+	}
+}
@@ -1,7 +1,15 @@
 package org.hive2hive.core.network.data;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
 
@@ -13,11 +21,15 @@ import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.exceptions.GetFailedException;
 import org.hive2hive.core.exceptions.PutFailedException;
+import org.hive2hive.core.model.FolderIndex;
 import org.hive2hive.core.model.NetworkContent;
 import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.model.UserProfileShard;
+import org.hive2hive.core.model.UserProfileShardReference;
 import org.hive2hive.core.network.data.parameters.IParameters;
 import org.hive2hive.core.network.data.parameters.Parameters;
 import org.hive2hive.core.security.EncryptedNetworkContent;
+import org.hive2hive.core.security.EncryptionUtil;
 import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.hive2hive.core.security.PasswordUtil;
 import org.hive2hive.core.security.UserCredentials;
@@ -34,6 +46,10 @@ public class UserProfileHolder {
 	private final SecretKey userProfileEncryptionKey;
 
 	private UserProfile cachedUserProfile = null;
+	// the last loaded or stored version of each shard, key is the content key of the shard
+	private final Map<String, ShardState> cachedShards = new HashMap<String, ShardState>();
+	// the content keys of the shards referenced by the last encrypted user profile
+	private final Set<String> referencedShards = new HashSet<String>();
 
 	public UserProfileHolder(UserCredentials credentials, DataManager dataManager) {
 		this.credentials = credentials;
@@ -76,6 +92,9 @@ public class UserProfileHolder {
 					userProfile.setVersionKey(content.getVersionKey());
 					userProfile.setBasedOnKey(content.getBasedOnKey());
 
+					// a user profile may be sharded even if sharding is disabled locally
+					resolveShards(userProfile);
+
 					// cache user profile
 					cachedUserProfile = userProfile;
 					// provide loaded user profile
@@ -100,8 +119,13 @@ public class UserProfileHolder {
 		logger.debug("Put user profile. user id = '{}'", credentials.getUserId());
 		try {
 			logger.trace("Encrypting user profile with 256bit AES key from password. user id ='{}'", credentials.getUserId());
-			EncryptedNetworkContent encryptedUserProfile = H2HEncryptionUtil.encryptAES(entry.getUserProfile(),
-					userProfileEncryptionKey);
+			EncryptedNetworkContent encryptedUserProfile;
+			if (H2HConstants.USER_PROFILE_SHARDING_ENABLED) {
+				encryptedUserProfile = encryptSharded(entry.getUserProfile());
+			} else {
+				encryptedUserProfile = H2HEncryptionUtil.encryptAES(entry.getUserProfile(), userProfileEncryptionKey);
+				entry.getUserProfile().setShardReferences(null);
+			}
 
 			encryptedUserProfile.setBasedOnKey(entry.getUserProfile().getVersionKey());
 			encryptedUserProfile.generateVersionKey();
@@ -119,14 +143,158 @@ public class UserProfileHolder {
 				cachedUserProfile = entry.getUserProfile();
 				cachedUserProfile.setBasedOnKey(encryptedUserProfile.getBasedOnKey());
 				cachedUserProfile.setVersionKey(encryptedUserProfile.getVersionKey());
+
+				if (H2HConstants.USER_PROFILE_SHARDING_ENABLED) {
+					removeUnreferencedShards(entry.getUserProfile());
+				}
 			}
 		} catch (DataLengthException | IllegalStateException | InvalidCipherTextException | IOException e) {
 			logger.error("Cannot encrypt the user profile. reason = '{}'", e.getMessage());
 			entry.setPutError(new PutFailedException(String.format("Cannot encrypt the user profile. reason = '%s'",
 					e.getMessage())));
+		} catch (PutFailedException e) {
+			logger.error("Cannot put a shard of the user profile. reason = '{}'", e.getMessage());
+			entry.setPutError(e);
 		} finally {
 			entry.notifyPut();
 		}
 	}
 
+	/**
+	 * Replaces the shard references in the root of the user profile with the folders of the shards. Shards
+	 * which have not changed since they have been loaded or stored are taken from the cache.
+	 */
+	private void resolveShards(UserProfile userProfile) throws GetFailedException, DataLengthException,
+			IllegalStateException, InvalidCipherTextException, ClassNotFoundException, IOException {
+		List<UserProfileShardReference> references = UserProfileSharding.detachReferences(userProfile);
+		userProfile.setShardReferences(references);
+		for (UserProfileShardReference reference : references) {
+			ShardState cached = cachedShards.get(reference.getContentKey());
+			if (cached != null && cached.reference.getVersionKey().equals(reference.getVersionKey())) {
+				logger.trace("Shard '{}' of the user profile did not change.", cached.shard.getFolder().getName());
+				UserProfileSharding.attach(userProfile, cached.shard.getFolder());
+				continue;
+			}
+
+			IParameters parameters = new Parameters().setLocationKey(credentials.getProfileLocationKey())
+					.setContentKey(reference.getContentKey()).setVersionKey(reference.getVersionKey());
+			NetworkContent content = dataManager.getVersion(parameters);
+			if (content == null) {
+				throw new GetFailedException("Shard of the user profile not found. Got null.");
+			}
+
+			UserProfileShard shard = (UserProfileShard) H2HEncryptionUtil.decryptAES((EncryptedNetworkContent) content,
+					userProfileEncryptionKey);
+			UserProfileSharding.attach(userProfile, shard.getFolder());
+			cachedShards.put(reference.getContentKey(), new ShardState(reference, shard));
+		}
+	}
+
+	/**
+	 * Puts the shards of the user profile which have changed and encrypts the root of the user profile which
+	 * references them. The shards are put before the root, such that the root never references a shard which
+	 * does not exist.
+	 */
+	private EncryptedNetworkContent encryptSharded(UserProfile userProfile) throws IOException, DataLengthException,
+			IllegalStateException, InvalidCipherTextException, PutFailedException {
+		Map<FolderIndex, UserProfileShardReference> references = new IdentityHashMap<FolderIndex, UserProfileShardReference>();
+		List<FolderIndex> folders = UserProfileSharding.selectShards(userProfile);
+		referencedShards.clear();
+		for (FolderIndex folder : folders) {
+			UserProfileShardReference reference = putShard(userProfile, folder);
+			references.put(folder, reference);
+			referencedShards.add(reference.getContentKey());
+		}
+
+		userProfile.setShardReferences(new ArrayList<UserProfileShardReference>(references.values()));
+		byte[] serialized = UserProfileSharding.serializeRoot(userProfile, references);
+		EncryptedNetworkContent encrypted = H2HEncryptionUtil.encryptAES(serialized, userProfileEncryptionKey);
+		encrypted.setTimeToLive(userProfile.getTimeToLive());
+		return encrypted;
+	}
+
+	private UserProfileShardReference putShard(UserProfile userProfile, FolderIndex folder) throws IOException,
+			DataLengthException, IllegalStateException, InvalidCipherTextException, PutFailedException {
+		UserProfileShard shard = new UserProfileShard(folder);
+		String contentKey = UserProfileShard.getContentKey(folder.getFilePublicKey());
+		byte[] serialized = UserProfileSharding.serializeShard(shard);
+		byte[] hash = EncryptionUtil.generateMD5Hash(serialized);
+
+		ShardState cached = cachedShards.get(contentKey);
+		if (cached != null && cached.shard.getFolder() == folder && H2HEncryptionUtil.compareMD5(cached.hash, hash)) {
+			logger.trace("Shard '{}' of the user profile did not change.", folder.getName());
+			return cached.reference;
+		}
+
+		EncryptedNetworkContent encrypted = H2HEncryptionUtil.encryptAES(serialized, userProfileEncryptionKey);
+		encrypted.setTimeToLive(shard.getTimeToLive());
+		IParameters parameters = new Parameters().setLocationKey(credentials.getProfileLocationKey()).setContentKey(
+				contentKey);
+		if (cached != null) {
+			encrypted.setBasedOnKey(cached.reference.getVersionKey());
+		} else {
+			// shard is new or has been stored by an other client, base on the latest version in the network
+			NavigableMap<Number640, Number160> digest = dataManager.getDigest(parameters);
+			if (digest != null && digest.lastEntry() != null) {
+				encrypted.setBasedOnKey(digest.lastEntry().getKey().getVersionKey());
+			}
+		}
+		encrypted.generateVersionKey();
+
+		logger.debug("Putting shard '{}' of the user profile.", folder.getName());
+		parameters.setVersionKey(encrypted.getVersionKey()).setData(encrypted)
+				.setProtectionKeys(userProfile.getProtectionKeys()).setTTL(shard.getTimeToLive());
+		if (!dataManager.put(parameters)) {
+			throw new PutFailedException("Put of a shard failed.");
+		}
+
+		UserProfileShardReference reference = new UserProfileShardReference(folder.getFilePublicKey(),
+				encrypted.getVersionKey());
+		cachedShards.put(contentKey, new ShardState(reference, shard, hash));
+		return reference;
+	}
+
+	/**
+	 * Removes the shards which are not referenced anymore by the stored user profile (e.g. because the folder
+	 * has been deleted or became too small). Failures are only logged, the shards expire anyway.
+	 */
+	private void removeUnreferencedShards(UserProfile userProfile) {
+		Iterator<String> iterator = cachedShards.keySet().iterator();
+		while (iterator.hasNext()) {
+			String contentKey = iterator.next();
+			if (referencedShards.contains(contentKey)) {
+				continue;
+			}
+
+			iterator.remove();
+			logger.debug("Removing the unreferenced shard '{}' of the user profile.", contentKey);
+			IParameters parameters = new Parameters().setLocationKey(credentials.getProfileLocationKey())
+					.setContentKey(contentKey).setProtectionKeys(userProfile.getProtectionKeys());
+			if (!dataManager.remove(parameters)) {
+				logger.warn("Could not remove the unreferenced shard '{}' of the user profile.", contentKey);
+			}
+		}
+	}
+
+	/**
+	 * A version of a shard of the user profile
+	 */
+	private static class ShardState {
+
+		private final UserProfileShardReference reference;
+		private final UserProfileShard shard;
+		private final byte[] hash; // over the serialized shard, used to detect modifications
+
+		public ShardState(UserProfileShardReference reference, UserProfileShard shard, byte[] hash) {
+			this.reference = reference;
+			this.shard = shard;
+			this.hash = hash;
+		}
+
+		public ShardState(UserProfileShardReference reference, UserProfileShard shard) throws IOException {
+			// hash the shard as it is serialized locally, the order of the children may differ from the stored one
+			this(reference, shard, EncryptionUtil.generateMD5Hash(UserProfileSharding.serializeShard(shard)));
+		}
+	}
+
 }
@@ -9,6 +9,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.hive2hive.core.exceptions.GetFailedException;
 import org.hive2hive.core.exceptions.PutFailedException;
 import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.processes.framework.metrics.ProcessMetrics;
 import org.hive2hive.core.security.UserCredentials;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,6 +71,8 @@ public class UserProfileManager {
 	 */
 	public UserProfile getUserProfile(String pid, boolean intendsToPut) throws GetFailedException {
 		QueueEntry entry;
+		ProcessMetrics metrics = ProcessMetrics.instance();
+		long enqueueTime = metrics.isEnabled() ? System.nanoTime() : 0;
 
 		if (intendsToPut) {
 			PutQueueEntry putEntry = new PutQueueEntry(pid);
@@ -91,6 +94,11 @@ public class UserProfileManager {
 			if (intendsToPut)
 				stopModification(pid);
 			throw e;
+		} finally {
+			if (enqueueTime != 0) {
+				metrics.recordQueueWait(intendsToPut ? "UserProfile (modify)" : "UserProfile (read)",
+						System.nanoTime() - enqueueTime);
+			}
 		}
 
 		UserProfile profile = entry.getUserProfile();
@@ -0,0 +1,136 @@
+package org.hive2hive.core.network.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.model.FolderIndex;
+import org.hive2hive.core.model.Index;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.model.UserProfileShard;
+import org.hive2hive.core.model.UserProfileShardReference;
+
+/**
+ * Splits the {@link UserProfile} into the root document and the {@link UserProfileShard}s of its large
+ * top-level folders and joins them again. The index tree itself is not changed when storing the shards, the
+ * folders are only replaced while serializing.
+ * 
+ * @author Nico
+ */
+public final class UserProfileSharding {
+
+	private UserProfileSharding() {
+		// only static methods
+	}
+
+	/**
+	 * Selects the top-level folders which are stored as separate shards.
+	 * 
+	 * @param userProfile the user profile
+	 * @param minEntries the minimum number of files and folders in a top-level folder to store it as a shard
+	 * @return the folders to store separately
+	 */
+	public static List<FolderIndex> selectShards(UserProfile userProfile, int minEntries) {
+		List<FolderIndex> shards = new ArrayList<FolderIndex>();
+		for (Index child : userProfile.getRoot().getChildren()) {
+			if (child.isFolder() && Index.getIndexList(child).size() >= minEntries) {
+				shards.add((FolderIndex) child);
+			}
+		}
+		return shards;
+	}
+
+	/**
+	 * Selects the top-level folders which are stored as separate shards, see
+	 * {@link H2HConstants#USER_PROFILE_SHARD_MIN_ENTRIES}.
+	 */
+	public static List<FolderIndex> selectShards(UserProfile userProfile) {
+		return selectShards(userProfile, H2HConstants.USER_PROFILE_SHARD_MIN_ENTRIES);
+	}
+
+	/**
+	 * Serializes the shard without the reference to its parent (the root of the user profile).
+	 */
+	public static byte[] serializeShard(UserProfileShard shard) throws IOException {
+		Map<Object, Object> replacements = new IdentityHashMap<Object, Object>();
+		replacements.put(shard.getFolder().getParent(), null);
+		return serialize(shard, replacements);
+	}
+
+	/**
+	 * Serializes the user profile, where the folders that are stored as shards are replaced by the given
+	 * references.
+	 */
+	public static byte[] serializeRoot(UserProfile userProfile, Map<FolderIndex, UserProfileShardReference> references)
+			throws IOException {
+		Map<Object, Object> replacements = new IdentityHashMap<Object, Object>();
+		replacements.putAll(references);
+		return serialize(userProfile, replacements);
+	}
+
+	/**
+	 * Removes the shard references from the root of a deserialized user profile.
+	 * 
+	 * @return the removed references which need to be resolved by {@link UserProfileSharding#attach}
+	 */
+	public static List<UserProfileShardReference> detachReferences(UserProfile userProfile) {
+		List<UserProfileShardReference> references = new ArrayList<UserProfileShardReference>();
+		FolderIndex root = userProfile.getRoot();
+		// the children of a sharded user profile may contain references after deserialization
+		for (Object child : new ArrayList<Object>(root.getChildren())) {
+			if (child instanceof UserProfileShardReference) {
+				root.getChildren().remove(child);
+				references.add((UserProfileShardReference) child);
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * Adds the folder of a loaded shard to the root of the user profile.
+	 */
+	public static void attach(UserProfile userProfile, FolderIndex folder) {
+		folder.setParent(userProfile.getRoot());
+		userProfile.getRoot().addChild(folder);
+	}
+
+	private static byte[] serialize(Object object, Map<Object, Object> replacements) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ReplacingObjectOutputStream oos = new ReplacingObjectOutputStream(baos, replacements);
+		try {
+			oos.writeObject(object);
+			oos.flush();
+			return baos.toByteArray();
+		} finally {
+			oos.close();
+		}
+	}
+
+	/**
+	 * Writes the replacement instead of an object when serializing. Objects are compared by their identity.
+	 */
+	private static class ReplacingObjectOutputStream extends ObjectOutputStream {
+
+		private final Map<Object, Object> replacements;
+
+		public ReplacingObjectOutputStream(OutputStream out, Map<Object, Object> replacements) throws IOException {
+			super(out);
+			this.replacements = replacements;
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (replacements.containsKey(obj)) {
+				return replacements.get(obj);
+			}
+			return obj;
+		}
+	}
+}
@@ -14,6 +14,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.FileUtils;
 import org.hive2hive.core.file.FileChunkUtil;
+import org.hive2hive.core.file.LocalChunkMatcher;
+import org.hive2hive.core.model.Chunk;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.slf4j.Logger;
@@ -136,23 +138,64 @@ public abstract class BaseDownloadTask implements Serializable {
 		if (openChunkNumber > 0) {
 			logger.debug("{} chunks of file {} are still downloading.", openChunkNumber, getDestinationName());
 		} else {
-			logger.debug("All parts of file {} are downloaded, reassembling them...", getDestinationName());
+			finishDownload();
+		}
+	}
+
+	/**
+	 * Takes the chunks that are already present in the local copy of the file (the destination) from there,
+	 * such that only the other chunks need to be downloaded. If no chunk is left, the download finishes
+	 * immediately.
+	 * 
+	 * @param chunkSize the size of the chunks of the version to download
+	 */
+	public synchronized void reuseLocalChunks(int chunkSize) {
+		if (isAborted() || finishedLatch.getCount() == 0 || !destination.isFile()) {
+			return;
+		}
+
+		LocalChunkMatcher matcher = new LocalChunkMatcher(destination, chunkSize);
+		int reused = 0;
+		for (MetaChunk metaChunk : getOpenChunks()) {
 			try {
-				// reassembly
-				List<File> fileParts = Arrays.asList(downloadedParts);
-				FileChunkUtil.reassembly(fileParts, destination, true);
-				logger.debug("File {} has successfully been reassembled", getDestinationName());
-
-				// notify listeners
-				for (IDownloadListener listener : listeners) {
-					listener.downloadFinished(this);
+				Chunk chunk = matcher.getMatchingChunk(metaChunk);
+				if (chunk != null) {
+					// copy it, the destination is overwritten when reassembling
+					File filePart = new File(tempFolder, getDestinationName() + "-" + metaChunk.getIndex());
+					FileUtils.writeByteArrayToFile(filePart, chunk.getData());
+					downloadedParts[metaChunk.getIndex()] = filePart;
+					reused++;
 				}
-
-				// release the lock
-				finishedLatch.countDown();
 			} catch (IOException e) {
-				abortDownload("Cannot reassembly the file parts");
+				logger.warn("Cannot compare chunk {} with the local file {}.", metaChunk.getIndex(),
+						getDestinationName(), e);
+			}
+		}
+
+		logger.debug("{} of {} chunks of file {} are taken from the local copy.", reused, metaChunks.size(),
+				getDestinationName());
+		if (reused > 0 && getOpenChunks().isEmpty()) {
+			finishDownload();
+		}
+	}
+
+	private void finishDownload() {
+		logger.debug("All parts of file {} are downloaded, reassembling them...", getDestinationName());
+		try {
+			// reassembly
+			List<File> fileParts = Arrays.asList(downloadedParts);
+			FileChunkUtil.reassembly(fileParts, destination, true);
+			logger.debug("File {} has successfully been reassembled", getDestinationName());
+
+			// notify listeners
+			for (IDownloadListener listener : listeners) {
+				listener.downloadFinished(this);
 			}
+
+			// release the lock
+			finishedLatch.countDown();
+		} catch (IOException e) {
+			abortDownload("Cannot reassembly the file parts");
 		}
 	}
 
@@ -1,6 +1,7 @@
 package org.hive2hive.core.network.data.download;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -9,6 +10,8 @@ import java.util.concurrent.Executors;
 
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
+import org.hive2hive.core.file.ChunkCache;
+import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.network.data.IDataManager;
 import org.hive2hive.core.network.data.PublicKeyManager;
@@ -25,7 +28,9 @@ import org.slf4j.LoggerFactory;
  * A download manager handling downloads. Downloading chunks happens concurrently. It is possible to download
  * multiple files at a time. The number of concurrent downloads is configurable over the
  * {@link H2HConstants#CONCURRENT_DOWNLOADS} field. <br>
- * Downloaded chunks are stored in a temporary folder and assembled when all chunks are downloaded.
+ * Downloaded chunks are stored in a temporary folder and assembled when all chunks are downloaded. Chunks
+ * that are already contained in the local copy of the file are not downloaded again. Chunks from the DHT are
+ * cached locally (see {@link ChunkCache}).
  * 
  * @author Nico
  * 
@@ -39,6 +44,7 @@ public class DownloadManager {
 	private final PublicKeyManager keyManager;
 	private final IFileConfiguration fileConfig;
 	private final Set<BaseDownloadTask> openTasks;
+	private final ChunkCache chunkCache;
 
 	private ExecutorService executor;
 
@@ -50,6 +56,24 @@ public class DownloadManager {
 		this.fileConfig = fileConfig;
 		this.executor = Executors.newFixedThreadPool(H2HConstants.CONCURRENT_DOWNLOADS);
 		this.openTasks = Collections.newSetFromMap(new ConcurrentHashMap<BaseDownloadTask, Boolean>());
+
+		this.chunkCache = createChunkCache(keyManager, fileConfig);
+	}
+
+	private static ChunkCache createChunkCache(PublicKeyManager keyManager, IFileConfiguration fileConfig) {
+		if (fileConfig == null || fileConfig.getMaxChunkCacheSize().signum() <= 0) {
+			return null;
+		}
+
+		try {
+			File directory = FileUtil.getChunkCacheDirectory(fileConfig.getStateDirectory(),
+					keyManager.getUserId());
+			return ChunkCache.getInstance(directory, fileConfig.getMaxChunkCacheSize().longValue());
+		} catch (IOException e) {
+			logger.warn("Chunks are not cached because the cache directory cannot be created. reason = '{}'",
+					e.getMessage());
+			return null;
+		}
 	}
 
 	/**
@@ -64,6 +88,9 @@ public class DownloadManager {
 		// add a listener
 		task.addListener(new DownloadListener());
 
+		// only download the chunks which differ from the local copy
+		task.reuseLocalChunks(fileConfig.getChunkSize());
+
 		// start the execution
 		schedule(task);
 	}
@@ -85,7 +112,8 @@ public class DownloadManager {
 		} else {
 			// submit each chunk as a separate thread
 			for (MetaChunk chunk : task.getOpenChunks()) {
-				DownloadChunkRunnableDHT runnable = new DownloadChunkRunnableDHT((DownloadTaskDHT) task, chunk, dataManager);
+				DownloadChunkRunnableDHT runnable = new DownloadChunkRunnableDHT((DownloadTaskDHT) task, chunk, dataManager,
+						chunkCache);
 				executor.submit(runnable);
 			}
 		}
@@ -111,6 +139,15 @@ public class DownloadManager {
 		}
 	}
 
+	/**
+	 * Returns the cache for the chunks in the DHT
+	 * 
+	 * @return the chunk cache or <code>null</code> if disabled
+	 */
+	public ChunkCache getChunkCache() {
+		return chunkCache;
+	}
+
 	/**
 	 * Return the task which are currently downloading or waiting for a download slot
 	 */
@@ -1,10 +1,14 @@
 package org.hive2hive.core.network.data.futures;
 
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 import net.tomp2p.futures.BaseFutureListener;
 import net.tomp2p.futures.FutureGet;
+import net.tomp2p.peers.Number640;
+import net.tomp2p.storage.Data;
 
+import org.hive2hive.core.api.configs.ReplicationPolicy;
 import org.hive2hive.core.model.NetworkContent;
 import org.hive2hive.core.network.data.parameters.IParameters;
 import org.slf4j.Logger;
@@ -21,13 +25,27 @@ public class FutureGetListener implements BaseFutureListener<FutureGet> {
 	private final static Logger logger = LoggerFactory.getLogger(FutureGetListener.class);
 
 	private final IParameters parameters;
+	private final ReplicationPolicy replicationPolicy;
+	private final int availableNodes;
 	private final CountDownLatch latch;
 
 	// the result when it came back
 	private NetworkContent result = null;
 
 	public FutureGetListener(IParameters parameters) {
+		this(parameters, null, 0);
+	}
+
+	/**
+	 * @param parameters the parameters of the get
+	 * @param replicationPolicy the policy defining how many nodes need to deliver the content. If
+	 *            <code>null</code>, one node is sufficient.
+	 * @param availableNodes the number of nodes in the network which can store a replica
+	 */
+	public FutureGetListener(IParameters parameters, ReplicationPolicy replicationPolicy, int availableNodes) {
 		this.parameters = parameters;
+		this.replicationPolicy = replicationPolicy;
+		this.availableNodes = availableNodes;
 		this.latch = new CountDownLatch(1);
 	}
 
@@ -51,6 +69,9 @@ public class FutureGetListener implements BaseFutureListener<FutureGet> {
 		if (future == null || future.isFailed() || future.getData() == null) {
 			result = null;
 			logger.warn("Got null. '{}'", parameters.toString());
+		} else if (!isReadQuorumReached(future)) {
+			result = null;
+			logger.warn("Not enough nodes delivered the content. '{}'", parameters.toString());
 		} else {
 			// set the result
 			result = (NetworkContent) future.getData().object();
@@ -60,6 +81,20 @@ public class FutureGetListener implements BaseFutureListener<FutureGet> {
 		latch.countDown();
 	}
 
+	private boolean isReadQuorumReached(FutureGet future) {
+		if (replicationPolicy == null || future.getRawData() == null) {
+			return true;
+		}
+
+		int delivered = 0;
+		for (Map<Number640, Data> data : future.getRawData().values()) {
+			if (data != null && !data.isEmpty()) {
+				delivered++;
+			}
+		}
+		return replicationPolicy.isReadQuorumReached(delivered, availableNodes);
+	}
+
 	@Override
 	public void exceptionCaught(Throwable t) throws Exception {
 		logger.error(String.format("Exception caught during get. %s reason = '{}'", parameters.toString()),
@@ -101,6 +101,7 @@ public class FuturePutListener extends BaseFutureAdapter<FuturePut> {
 						case FAILED:
 						case FAILED_NOT_ABSENT:
 						case FAILED_SECURITY:
+						case FAILED_STORAGE_FULL:
 							logger.warn("A node denied putting data. Reason = '{}'. '{}'",
 									PutStatusH2H.values()[status], parameters.toString());
 							fail.add(peeradress);
@@ -121,8 +122,8 @@ public class FuturePutListener extends BaseFutureAdapter<FuturePut> {
 		if (!versionConflict.isEmpty()) {
 			logger.warn("Put verification failed. Version conflict! '{}'", parameters.toString());
 			notifyFailure();
-		} else if ((double) fail.size() < ((double) future.getRawResult().size()) / 2.0) {
-			// majority of the contacted nodes responded with ok
+		} else if (isWriteQuorumReached(future.getRawResult().size() - fail.size())) {
+			// enough nodes responded with ok (see the replication policy of the content type)
 			verifyPut();
 		} else {
 			logger.warn("{} of {} contacted nodes failed.", fail.size(), future.getRawResult().size());
@@ -130,6 +131,17 @@ public class FuturePutListener extends BaseFutureAdapter<FuturePut> {
 		}
 	}
 
+	/**
+	 * Checks whether enough nodes accepted the put. The nodes which did not respond count as failed, unless
+	 * the network is smaller than the replication factor.
+	 * 
+	 * @param succeeded the number of nodes which responded with ok
+	 */
+	boolean isWriteQuorumReached(int succeeded) {
+		return dataManager.getReplicationPolicy(parameters).isWriteQuorumReached(succeeded,
+				dataManager.getAvailableNodes());
+	}
+
 	/**
 	 * Retries a put till a certain threshold is reached (see {@link H2HConstants.PUT_RETRIES}). Removes first
 	 * the possibly succeeded puts. A {@link RetryPutListener} tries to put again the given content.
@@ -0,0 +1,63 @@
+package org.hive2hive.core.network.data.futures;
+
+import java.util.concurrent.CountDownLatch;
+
+import net.tomp2p.futures.BaseFutureAdapter;
+import net.tomp2p.futures.FuturePut;
+
+import org.hive2hive.core.network.data.parameters.IParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Simple blocking listener to refresh the time-to-live of stored content. Like the
+ * {@link FutureChangeProtectionListener}, it does not re-try at failure. The refresh is simply repeated
+ * later.
+ * 
+ * @author Nico
+ */
+public class FutureRefreshListener extends BaseFutureAdapter<FuturePut> {
+
+	private final static Logger logger = LoggerFactory.getLogger(FutureRefreshListener.class);
+
+	private final IParameters parameters;
+	private final CountDownLatch latch;
+
+	private boolean success = false;
+
+	public FutureRefreshListener(IParameters parameters) {
+		this.parameters = parameters;
+		this.latch = new CountDownLatch(1);
+	}
+
+	/**
+	 * Wait (blocking) until the refresh is done
+	 * 
+	 * @return true if successful, false if not successful
+	 */
+	public boolean await() {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			logger.error("Could not wait until the TTL refresh has finished. Reason = '{}'. '{}'", e.getMessage(),
+					parameters.toString());
+		}
+
+		return success;
+	}
+
+	@Override
+	public void operationComplete(FuturePut future) throws Exception {
+		if (future.isFailed()) {
+			logger.warn("TTL refresh was not successful. Reason = '{}'. '{}'", future.getFailedReason(),
+					parameters.toString());
+			success = false;
+			latch.countDown();
+		} else {
+			logger.trace("TTL refresh successful. '{}'", parameters.toString());
+			success = true;
+			latch.countDown();
+		}
+	}
+
+}
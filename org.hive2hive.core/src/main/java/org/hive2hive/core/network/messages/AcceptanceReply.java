@@ -18,6 +18,13 @@ public enum AcceptanceReply {
 	FAILURE_DECRYPTION,
 	/** When signature is wrong */
 	FAILURE_SIGNATURE,
+	/** When the receiving node is saturated and cannot queue the message at the moment */
+	FAILURE_BUSY,
+	/**
+	 * When the session key used to encrypt the message is unknown or expired at the receiving node, or the
+	 * message does not belong to the session (other sender or replayed)
+	 */
+	FAILURE_SESSION,
 	/**
 	 * Basically used as replies for {@link AsynchronousReturnMessage}s. It indicates that there is no
 	 * {@link CallBackHandler} waiting for the return message on this 'sender' node.
@@ -11,6 +11,7 @@ import net.tomp2p.peers.PeerAddress;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.security.SessionKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +52,11 @@ public abstract class BaseMessage implements Runnable, Serializable {
 	protected PeerAddress senderAddress;
 
 	private int routedSendingCounter = 0;
+	private SessionKey sessionKeyOffer;
+
+	// rejections by a saturated receiver and the delay before the next sending attempt
+	private int busyCounter = 0;
+	private long resendDelay = 0;
 
 	/**
 	 * Constructor for an asynchronous message.
@@ -168,6 +174,26 @@ public abstract class BaseMessage implements Runnable, Serializable {
 		this.senderPublicKey = senderPublicKey;
 	}
 
+	/**
+	 * Getter
+	 * 
+	 * @return the session key the sender offers for further messages or <code>null</code>
+	 */
+	public SessionKey getSessionKeyOffer() {
+		return sessionKeyOffer;
+	}
+
+	/**
+	 * Setter
+	 * 
+	 * @param sessionKeyOffer
+	 *            the session key offered to the receiver. Only set this on hybrid encrypted and signed
+	 *            messages.
+	 */
+	public void setSessionKeyOffer(SessionKey sessionKeyOffer) {
+		this.sessionKeyOffer = sessionKeyOffer;
+	}
+
 	/**
 	 * Setter
 	 * 
@@ -230,10 +256,14 @@ public abstract class BaseMessage implements Runnable, Serializable {
 	public boolean handleSendingFailure(AcceptanceReply reply) throws IllegalArgumentException {
 		logger.debug("Have to handle a sending failure. Reply = '{}'.", reply);
 		switch (reply) {
+			case FAILURE_BUSY:
+				return handleBusyReply();
 			case FAILURE:
+			case FAILURE_SESSION:
 			case FUTURE_FAILURE:
 				if (SendingBehavior.SEND_MAX_ALLOWED_TIMES == sendingBehavior) {
-					if (routedSendingCounter < H2HConstants.MAX_MESSAGE_SENDING) {
+					// attempts rejected because of a saturated receiver are not counted
+					if (routedSendingCounter - busyCounter < H2HConstants.MAX_MESSAGE_SENDING) {
 						return true;
 					} else {
 						logger.error(
@@ -265,6 +295,55 @@ public abstract class BaseMessage implements Runnable, Serializable {
 		}
 	}
 
+	/**
+	 * Handles the rejection by a saturated receiver. Such rejections have their own budget of
+	 * {@link H2HConstants#MAX_MESSAGE_SENDING_BUSY} attempts and the message is resent with an exponentially
+	 * increasing delay (see {@link #awaitResendDelay()}), such that the receiver can drain its queues.
+	 * 
+	 * @return <code>true</code> if resending recommended, <code>false</code> if not
+	 */
+	protected boolean handleBusyReply() {
+		if (busyCounter >= H2HConstants.MAX_MESSAGE_SENDING_BUSY) {
+			logger.warn("Message rejected by a saturated receiver {} times. Target key = '{}'.", busyCounter,
+					targetKey);
+			return false;
+		}
+
+		resendDelay = H2HConstants.MESSAGE_BUSY_BACKOFF_MS << busyCounter;
+		busyCounter++;
+		return true;
+	}
+
+	/**
+	 * @return the number of sending attempts rejected by a saturated receiver
+	 */
+	public int getBusyCounter() {
+		return busyCounter;
+	}
+
+	/**
+	 * Waits (blocking) before the message is resent, if the last attempt has been rejected by a saturated
+	 * receiver. Must not be called on a network thread.
+	 * 
+	 * @return <code>false</code> if the waiting has been interrupted and the message should not be resent
+	 */
+	public boolean awaitResendDelay() {
+		long delay = resendDelay;
+		resendDelay = 0;
+		if (delay <= 0)
+			return true;
+
+		try {
+			logger.debug("Resending the message in {} ms. Target key = '{}'.", delay, targetKey);
+			Thread.sleep(delay);
+			return true;
+		} catch (InterruptedException e) {
+			logger.warn("Interrupted while waiting to resend the message. Target key = '{}'.", targetKey);
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
 	/**
 	 * Convenience method to create a random message ID
 	 * 
@@ -0,0 +1,232 @@
+package org.hive2hive.core.network.messages;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hive2hive.core.H2HConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded two-stage pipeline for received messages. The first stage decrypts, deserializes and verifies the
+ * messages in the thread that received them, since the sender waits for the acceptance reply. It never
+ * waits for other messages: if the maximum number of verifications is running, the message is rejected
+ * immediately. Accepted messages are then handed to the second stage, which runs them on a separate bounded
+ * pool per message type, such that a burst of one type (e.g. notifications) does not starve the others (e.g.
+ * chunk requests).</br>
+ * If a stage is saturated, the message is rejected with a {@link RejectedExecutionException} and the caller
+ * is expected to answer with {@link AcceptanceReply#FAILURE_BUSY}.
+ *
+ * @author Nico
+ */
+public class InboundMessageExecutor {
+
+	private static final Logger logger = LoggerFactory.getLogger(InboundMessageExecutor.class);
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final int maxVerifications;
+	private final int handlerThreads;
+	private final int handlerQueueSize;
+	private final Semaphore verifyPermits;
+	private final ConcurrentMap<Class<?>, ThreadPoolExecutor> handlerExecutors;
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong handledCount = new AtomicLong();
+	private final AtomicLong totalLatencyNanos = new AtomicLong();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	public InboundMessageExecutor() {
+		this(H2HConstants.MAX_CONCURRENT_MESSAGE_VERIFICATIONS, H2HConstants.NUM_OF_MESSAGE_HANDLER_THREADS,
+				H2HConstants.MESSAGE_HANDLER_QUEUE_SIZE);
+	}
+
+	/**
+	 * @param maxVerifications the maximum number of messages decrypted and verified at the same time
+	 * @param handlerThreads the number of threads handling messages of the same type
+	 * @param handlerQueueSize the maximum number of messages of the same type waiting to be handled
+	 */
+	public InboundMessageExecutor(int maxVerifications, int handlerThreads, int handlerQueueSize) {
+		this.maxVerifications = maxVerifications;
+		this.handlerThreads = handlerThreads;
+		this.handlerQueueSize = handlerQueueSize;
+		this.verifyPermits = new Semaphore(maxVerifications);
+		this.handlerExecutors = new ConcurrentHashMap<Class<?>, ThreadPoolExecutor>();
+	}
+
+	/**
+	 * Runs a decryption and verification task of the first stage in the calling thread. Does not wait if
+	 * the stage is saturated.
+	 *
+	 * @param task the task producing the acceptance reply for the sender
+	 * @return the acceptance reply
+	 * @throws RejectedExecutionException if the maximum number of verifications is running
+	 * @throws Exception if the task failed
+	 */
+	public AcceptanceReply verify(Callable<AcceptanceReply> task) throws Exception {
+		if (!verifyPermits.tryAcquire()) {
+			rejectedCount.incrementAndGet();
+			throw new RejectedExecutionException("Too many messages are being verified.");
+		}
+
+		try {
+			return task.call();
+		} finally {
+			verifyPermits.release();
+		}
+	}
+
+	/**
+	 * Submits an accepted message (or any task belonging to a message) to the second stage.
+	 *
+	 * @param messageType the type of the message, determining the queue to use
+	 * @param task the task to run
+	 * @throws RejectedExecutionException if the queue for this message type is full
+	 */
+	public void submitHandling(Class<?> messageType, final Runnable task) throws RejectedExecutionException {
+		final long enqueued = System.nanoTime();
+		try {
+			getHandlerExecutor(messageType).execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} finally {
+						recordLatency(System.nanoTime() - enqueued);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedCount.incrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Stops all stages. Messages that are still queued are dropped.
+	 */
+	public void shutdown() {
+		for (ThreadPoolExecutor executor : handlerExecutors.values()) {
+			executor.shutdownNow();
+		}
+		logger.debug("Inbound message executor stopped. Handled = {}, rejected = {}, avg. latency = {} ms.",
+				getHandledCount(), getRejectedCount(), getAverageHandlingLatency());
+	}
+
+	/**
+	 * @return the number of messages currently being decrypted and verified
+	 */
+	public int getRunningVerifications() {
+		return maxVerifications - verifyPermits.availablePermits();
+	}
+
+	/**
+	 * @return the number of messages currently waiting to be handled (over all message types)
+	 */
+	public int getHandlingQueueDepth() {
+		int depth = 0;
+		for (ThreadPoolExecutor executor : handlerExecutors.values()) {
+			depth += executor.getQueue().size();
+		}
+		return depth;
+	}
+
+	/**
+	 * @param messageType the type of the message
+	 * @return the number of messages of the given type waiting to be handled
+	 */
+	public int getHandlingQueueDepth(Class<?> messageType) {
+		ThreadPoolExecutor executor = handlerExecutors.get(messageType);
+		return executor == null ? 0 : executor.getQueue().size();
+	}
+
+	/**
+	 * @return the number of submissions rejected because a queue was full
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * @return the number of handled messages
+	 */
+	public long getHandledCount() {
+		return handledCount.get();
+	}
+
+	/**
+	 * @return the average time in milliseconds between submitting a message to the handler stage and its
+	 *         completion
+	 */
+	public long getAverageHandlingLatency() {
+		long handled = handledCount.get();
+		if (handled == 0)
+			return 0;
+		return TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / handled);
+	}
+
+	/**
+	 * @return the maximum time in milliseconds between submitting a message to the handler stage and its
+	 *         completion
+	 */
+	public long getMaxHandlingLatency() {
+		return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+	}
+
+	private ThreadPoolExecutor getHandlerExecutor(Class<?> messageType) {
+		ThreadPoolExecutor executor = handlerExecutors.get(messageType);
+		if (executor == null) {
+			ThreadPoolExecutor created = createExecutor("H2H-Message-" + messageType.getSimpleName(),
+					handlerThreads, handlerQueueSize);
+			executor = handlerExecutors.putIfAbsent(messageType, created);
+			if (executor == null) {
+				executor = created;
+			} else {
+				created.shutdown();
+			}
+		}
+		return executor;
+	}
+
+	private void recordLatency(long latency) {
+		handledCount.incrementAndGet();
+		totalLatencyNanos.addAndGet(latency);
+		long max = maxLatencyNanos.get();
+		while (latency > max && !maxLatencyNanos.compareAndSet(max, latency)) {
+			max = maxLatencyNanos.get();
+		}
+	}
+
+	private static ThreadPoolExecutor createExecutor(String name, int threads, int queueSize) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new NamedThreadFactory(name));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static class NamedThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+		private final AtomicInteger counter = new AtomicInteger();
+
+		public NamedThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
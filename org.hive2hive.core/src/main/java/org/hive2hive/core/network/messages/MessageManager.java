@@ -4,7 +4,7 @@ import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.PublicKey;
 import java.security.SignatureException;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -27,7 +27,9 @@ import org.hive2hive.core.network.messages.futures.FutureDirectListener;
 import org.hive2hive.core.network.messages.futures.FutureRoutedListener;
 import org.hive2hive.core.network.messages.request.IRequestMessage;
 import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.hive2hive.core.security.HybridEncryptedContent;
+import org.hive2hive.core.security.SessionKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,11 +43,13 @@ public final class MessageManager implements IMessageManager {
 	private static final Logger logger = LoggerFactory.getLogger(MessageManager.class);
 
 	private final NetworkManager networkManager;
-	private final HashMap<String, IResponseCallBackHandler> callBackHandlers;
+	private final ConcurrentHashMap<String, IResponseCallBackHandler> callBackHandlers;
+	private final SessionKeyManager sessionKeyManager;
 
 	public MessageManager(NetworkManager networkManager) {
 		this.networkManager = networkManager;
-		this.callBackHandlers = new HashMap<String, IResponseCallBackHandler>();
+		this.callBackHandlers = new ConcurrentHashMap<String, IResponseCallBackHandler>();
+		this.sessionKeyManager = new SessionKeyManager();
 	}
 
 	@Override
@@ -58,6 +62,8 @@ public final class MessageManager implements IMessageManager {
 		// prepare message
 		prepareMessage(message);
 		message.increaseRoutedSendingCounter();
+		// session keys are only offered to a known peer address
+		message.setSessionKeyOffer(null);
 
 		// encrypt the message with the given public key
 		HybridEncryptedContent encryptedMessage = signAndEncryptMessage(message, targetPublicKey);
@@ -95,8 +101,8 @@ public final class MessageManager implements IMessageManager {
 		prepareMessage(message);
 		message.increaseDirectSendingCounter();
 
-		// encrypt the message with the given public key
-		HybridEncryptedContent encryptedMessage = signAndEncryptMessage(message, targetPublicKey);
+		// encrypt the message with the session key or the given public key
+		Object encryptedMessage = encryptDirectMessage(message, targetPublicKey);
 		if (encryptedMessage == null)
 			return false;
 
@@ -140,6 +146,15 @@ public final class MessageManager implements IMessageManager {
 		return (callBackHandlers.get(messageId) != null);
 	}
 
+	/**
+	 * Getter
+	 * 
+	 * @return the cache of the session keys used for direct messages
+	 */
+	public SessionKeyManager getSessionKeyManager() {
+		return sessionKeyManager;
+	}
+
 	private void prepareMessage(BaseMessage message) {
 		message.setSenderAddress(networkManager.getConnection().getPeer().getPeerAddress());
 		configureCallbackHandlerIfNeeded(message);
@@ -176,6 +191,38 @@ public final class MessageManager implements IMessageManager {
 		}
 	}
 
+	/**
+	 * Encrypts a direct message with the session key shared with the target peer. If no session is
+	 * established, the message is hybrid encrypted and signed and offers a new session key to the target.
+	 * 
+	 * @param message the message to encrypt
+	 * @param targetPublicKey the public key of the receiver
+	 * @return the encrypted message or <code>null</code> if the encryption failed
+	 */
+	private Object encryptDirectMessage(BaseDirectMessage message, PublicKey targetPublicKey) {
+		if (H2HConstants.SESSION_KEYS_ENABLED) {
+			SessionKey sessionKey = sessionKeyManager.getEstablished(message.getTargetAddress(), targetPublicKey);
+			long sequenceNumber = sessionKeyManager.nextSequenceNumber(message.getTargetAddress(),
+					targetPublicKey);
+			String senderId = networkManager.getUserId();
+			if (sessionKey != null && sequenceNumber >= 0 && senderId != null) {
+				message.setSessionKeyOffer(null);
+				try {
+					byte[] messageBytes = EncryptionUtil.serializeObject(message);
+					return H2HEncryptionUtil.encryptSession(messageBytes, sessionKey, senderId, sequenceNumber);
+				} catch (DataLengthException | IllegalStateException | InvalidCipherTextException | IOException e) {
+					logger.warn("Encryption with the session key failed. Using hybrid encryption as fallback.", e);
+					sessionKeyManager.invalidate(message.getTargetAddress(), targetPublicKey);
+				}
+			}
+
+			// offer a session key within the hybrid encrypted and signed message
+			message.setSessionKeyOffer(sessionKeyManager.getOffer(message.getTargetAddress(), targetPublicKey));
+		}
+
+		return signAndEncryptMessage(message, targetPublicKey);
+	}
+
 	private HybridEncryptedContent signAndEncryptMessage(BaseMessage message, PublicKey targetPublicKey) {
 		H2HSession session;
 		try {
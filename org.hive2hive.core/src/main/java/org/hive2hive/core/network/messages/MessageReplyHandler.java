@@ -5,6 +5,8 @@ import java.security.InvalidKeyException;
 import java.security.KeyPair;
 import java.security.PublicKey;
 import java.security.SignatureException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 import net.tomp2p.peers.PeerAddress;
 import net.tomp2p.rpc.ObjectDataReply;
@@ -15,17 +17,24 @@ import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.hive2hive.core.security.HybridEncryptedContent;
+import org.hive2hive.core.security.SessionEncryptedContent;
+import org.hive2hive.core.security.SessionKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This is the general message handler of each node. It checks if received
- * message is ok (depends on message e.g. routed to correct node). If accepted
- * the message gets independently handled in a own thread. As soon as the
- * handler thread has started the reply handler gives immediately response to
- * the sender node. This design allows a quick and non-blocking message
- * handling.
+ * message is ok (depends on message e.g. routed to correct node). Decryption
+ * and verification happen on the bounded first stage of the
+ * {@link InboundMessageExecutor}, in the receiving thread. Steps that may block
+ * (fetching the public key of an unknown sender) are deferred to the second
+ * stage. If accepted, the message gets independently handled by the second
+ * stage, while the reply handler gives immediately response to the sender
+ * node. If one of the stages is saturated, the message is rejected with
+ * {@link AcceptanceReply#FAILURE_BUSY} without waiting and the sender retries
+ * later. This design allows a quick and non-blocking message handling.
  * 
  * @author Nendor, Seppi
  */
@@ -34,19 +43,25 @@ public class MessageReplyHandler implements ObjectDataReply {
 	private static final Logger logger = LoggerFactory.getLogger(MessageReplyHandler.class);
 
 	private final NetworkManager networkManager;
+	private final InboundMessageExecutor executor;
 
 	public MessageReplyHandler(NetworkManager networkManager) {
+		this(networkManager, new InboundMessageExecutor());
+	}
+
+	public MessageReplyHandler(NetworkManager networkManager, InboundMessageExecutor executor) {
 		this.networkManager = networkManager;
+		this.executor = executor;
 	}
 
 	@Override
-	public Object reply(PeerAddress sender, Object request) {
-		if (!(request instanceof HybridEncryptedContent)) {
+	public Object reply(final PeerAddress sender, final Object request) {
+		if (!(request instanceof HybridEncryptedContent) && !(request instanceof SessionEncryptedContent)) {
 			logger.error("Received unknown object.");
 			return null;
 		}
 
-		H2HSession session;
+		final H2HSession session;
 		try {
 			if (networkManager.getSession() == null) {
 				throw new NoSessionException();
@@ -59,8 +74,43 @@ public class MessageReplyHandler implements ObjectDataReply {
 			return AcceptanceReply.FAILURE;
 		}
 
-		HybridEncryptedContent encryptedMessage = (HybridEncryptedContent) request;
+		// decrypt, verify and dispatch the message on the bounded verification stage
+		try {
+			return executor.verify(new Callable<AcceptanceReply>() {
+				@Override
+				public AcceptanceReply call() {
+					if (request instanceof SessionEncryptedContent) {
+						return decryptSessionAndDispatch((SessionEncryptedContent) request, sender);
+					} else {
+						return decryptAndDispatch(session, (HybridEncryptedContent) request);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.warn("Inbound message verification is saturated. Running verifications = '{}', Node ID = '{}'.",
+					executor.getRunningVerifications(), networkManager.getNodeId());
+			return AcceptanceReply.FAILURE_BUSY;
+		} catch (Exception e) {
+			logger.error("Verifying a message failed.", e);
+			return AcceptanceReply.FAILURE;
+		}
+	}
 
+	/**
+	 * Stops handling messages. Messages which are not handled yet are dropped.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * @return the executor running the verification and handling of the received messages
+	 */
+	public InboundMessageExecutor getExecutor() {
+		return executor;
+	}
+
+	private AcceptanceReply decryptAndDispatch(H2HSession session, HybridEncryptedContent encryptedMessage) {
 		// get signature
 		String senderId = encryptedMessage.getUserId();
 		byte[] signature = encryptedMessage.getSignature();
@@ -95,37 +145,135 @@ public class MessageReplyHandler implements ObjectDataReply {
 				if (!verifySignature(senderId, decryptedMessage, signature))
 					return AcceptanceReply.FAILURE_SIGNATURE;
 
-				// give a network manager reference to work (verify, handle)
+				registerSessionKeyOffer(senderId, receivedMessage);
+				return dispatch(receivedMessage);
+			} else {
+				// fetching the public key may block, thus verify on the handler stage
 				try {
-					receivedMessage.setNetworkManager(networkManager);
-				} catch (NoPeerConnectionException e) {
-					logger.error("Cannot process the message because the peer is not connected.");
-					return AcceptanceReply.FAILURE;
+					executor.submitHandling(receivedMessage.getClass(), new VerifyMessage(senderId,
+							decryptedMessage, signature, receivedMessage));
+				} catch (RejectedExecutionException e) {
+					logger.warn("Inbound message queue for '{}' is full. Node ID = '{}'.", receivedMessage
+							.getClass().getSimpleName(), networkManager.getNodeId());
+					return AcceptanceReply.FAILURE_BUSY;
 				}
+				return AcceptanceReply.OK_PROVISIONAL;
+			}
+		} else {
+			logger.error("Received unknown object.");
+			return null;
+		}
+	}
 
-				// check if message gets accepted
-				AcceptanceReply reply = receivedMessage.accept();
-				if (AcceptanceReply.OK == reply) {
-					// handle message in own thread
-					logger.debug("Received and accepted the message. Node ID = '{}'.",
-							networkManager.getNodeId());
-					new Thread(receivedMessage).start();
-				} else {
-					logger.warn("Received but denied a message. Acceptance reply = '{}', Node ID = '{}'.",
-							reply, networkManager.getNodeId());
-				}
+	private AcceptanceReply decryptSessionAndDispatch(SessionEncryptedContent encryptedMessage,
+			PeerAddress sender) {
+		SessionKeyManager sessionKeyManager;
+		SessionKey sessionKey;
+		try {
+			sessionKeyManager = networkManager.getMessageManager().getSessionKeyManager();
+			sessionKey = sessionKeyManager.getInbound(encryptedMessage.getSessionId());
+		} catch (NoPeerConnectionException e) {
+			logger.error("Cannot process the message because the peer is not connected.");
+			return AcceptanceReply.FAILURE;
+		}
 
-				return reply;
-			} else {
-				new Thread(new VerifyMessage(senderId, decryptedMessage, signature, receivedMessage)).start();
-				return AcceptanceReply.OK_PROVISIONAL;
+		if (sessionKey == null) {
+			logger.debug("Received a message of an unknown or expired session. Node ID = '{}'.",
+					networkManager.getNodeId());
+			return AcceptanceReply.FAILURE_SESSION;
+		}
+
+		// symmetrically authenticate and decrypt message
+		byte[] decryptedMessage = null;
+		try {
+			decryptedMessage = H2HEncryptionUtil.decryptSession(encryptedMessage, sessionKey);
+		} catch (Exception e) {
+			logger.warn("Decryption of session message failed.", e);
+			return AcceptanceReply.FAILURE_DECRYPTION;
+		}
+
+		// deserialize decrypted message
+		Object message = null;
+		try {
+			message = EncryptionUtil.deserializeObject(decryptedMessage);
+		} catch (IOException | ClassNotFoundException e) {
+			logger.error("Message could not be deserialized. Reason = '{}'.", e.getMessage());
+		}
+
+		if (message != null && message instanceof BaseMessage) {
+			BaseMessage receivedMessage = (BaseMessage) message;
+
+			// only the user and peer that offered the session may use it
+			String sessionId = encryptedMessage.getSessionId();
+			String senderId = encryptedMessage.getSenderId();
+			if (!sessionKeyManager.isSessionOf(sessionId, senderId, sender)
+					|| !sessionKeyManager.isSessionOf(sessionId, senderId, receivedMessage.getSenderAddress())) {
+				logger.warn("Received a session message of user '{}' that does not belong to the session. Node ID = '{}'.",
+						senderId, networkManager.getNodeId());
+				return AcceptanceReply.FAILURE_SESSION;
+			}
+
+			// each authenticated message is accepted only once
+			if (!sessionKeyManager.acceptSequenceNumber(sessionId, encryptedMessage.getSequenceNumber())) {
+				return AcceptanceReply.FAILURE_SESSION;
 			}
+
+			return dispatch(receivedMessage);
 		} else {
 			logger.error("Received unknown object.");
 			return null;
 		}
 	}
 
+	/**
+	 * Checks whether the verified message gets accepted and hands it over to the handler stage.
+	 */
+	private AcceptanceReply dispatch(BaseMessage receivedMessage) {
+		// give a network manager reference to work (verify, handle)
+		try {
+			receivedMessage.setNetworkManager(networkManager);
+		} catch (NoPeerConnectionException e) {
+			logger.error("Cannot process the message because the peer is not connected.");
+			return AcceptanceReply.FAILURE;
+		}
+
+		// check if message gets accepted
+		AcceptanceReply reply = receivedMessage.accept();
+		if (AcceptanceReply.OK == reply) {
+			// handle message on the handler stage
+			try {
+				executor.submitHandling(receivedMessage.getClass(), receivedMessage);
+			} catch (RejectedExecutionException e) {
+				logger.warn("Inbound message queue for '{}' is full. Node ID = '{}'.", receivedMessage.getClass()
+						.getSimpleName(), networkManager.getNodeId());
+				return AcceptanceReply.FAILURE_BUSY;
+			}
+			logger.debug("Received and accepted the message. Node ID = '{}'.", networkManager.getNodeId());
+		} else {
+			logger.warn("Received but denied a message. Acceptance reply = '{}', Node ID = '{}'.", reply,
+					networkManager.getNodeId());
+		}
+
+		return reply;
+	}
+
+	/**
+	 * Stores the session key offered within a message whose signature has been verified.
+	 */
+	private void registerSessionKeyOffer(String senderId, BaseMessage message) {
+		if (message.getSessionKeyOffer() == null || message.getSenderAddress() == null)
+			return;
+
+		try {
+			networkManager.getMessageManager().getSessionKeyManager()
+					.registerInbound(senderId, message.getSenderAddress(), message.getSessionKeyOffer());
+			logger.debug("Stored session key offered by user '{}'. Node ID = '{}'.", senderId,
+					networkManager.getNodeId());
+		} catch (NoPeerConnectionException e) {
+			logger.warn("Cannot store the offered session key because the peer is not connected.");
+		}
+	}
+
 	private boolean verifySignature(String senderId, byte[] decryptedMessage, byte[] signature) {
 		try {
 			PublicKey publicKey = networkManager.getSession().getKeyManager().getPublicKey(senderId);
@@ -162,6 +310,7 @@ public class MessageReplyHandler implements ObjectDataReply {
 		public void run() {
 			if (!verifySignature(senderId, decryptedMessage, signature))
 				return;
+			registerSessionKeyOffer(senderId, message);
 
 			// give a network manager reference to work (verify, handle)
 			try {
@@ -174,9 +323,9 @@ public class MessageReplyHandler implements ObjectDataReply {
 			// check if message gets accepted
 			AcceptanceReply reply = message.accept();
 			if (AcceptanceReply.OK == reply) {
-				// handle message in own thread
+				// already running on the handler stage
 				logger.debug("Received and accepted the message. Node ID = '{}'.", networkManager.getNodeId());
-				new Thread(message).start();
+				message.run();
 			} else {
 				logger.warn("Received but denied a message. Acceptance reply = '{}', Node ID = '{}'.", reply,
 						networkManager.getNodeId());
@@ -0,0 +1,296 @@
+package org.hive2hive.core.network.messages;
+
+import java.security.PublicKey;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.tomp2p.peers.PeerAddress;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.security.SessionKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the symmetric {@link SessionKey}s used for direct messages between two peers.</br>
+ * <b>Outbound:</b> A session key for a target peer is first offered within a hybrid encrypted and signed
+ * message. As soon as the target accepted this message, the session is established and further messages to
+ * the same peer are encrypted with the session key only.</br>
+ * <b>Inbound:</b> Offered session keys are stored after the signature of the offering message has been
+ * verified. They are looked up by the session id of received messages. A session is bound to the user and
+ * the peer that offered it, messages of other senders are rejected. Each message carries a sequence number
+ * which is accepted only once, such that a recorded message cannot be replayed. Since messages may arrive
+ * out of order, sequence numbers within a window below the highest received one are accepted, too.</br>
+ * Both directions expire after {@link H2HConstants#SESSION_KEY_LIFETIME_MS} and are bounded in size (least
+ * recently used entries are evicted first).
+ *
+ * @author Nico
+ */
+public class SessionKeyManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(SessionKeyManager.class);
+
+	// the number of sequence numbers below the highest received one that are still accepted (bits of a long)
+	private static final int REPLAY_WINDOW = 64;
+
+	private final long lifetime;
+	private final Map<OutboundKey, OutboundSession> outbound;
+	private final Map<String, InboundSession> inbound;
+
+	public SessionKeyManager() {
+		this(H2HConstants.SESSION_KEY_LIFETIME_MS, H2HConstants.MAX_SESSION_KEYS);
+	}
+
+	public SessionKeyManager(long lifetime, final int maxEntries) {
+		this.lifetime = lifetime;
+		this.outbound = new LinkedHashMap<OutboundKey, OutboundSession>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<OutboundKey, OutboundSession> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.inbound = new LinkedHashMap<String, InboundSession>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, InboundSession> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the established session key for the given target.
+	 *
+	 * @param target the address of the receiving peer
+	 * @param targetPublicKey the public key of the receiving user
+	 * @return the session key or <code>null</code> if no session is established (yet) or it expired
+	 */
+	public synchronized SessionKey getEstablished(PeerAddress target, PublicKey targetPublicKey) {
+		OutboundKey key = new OutboundKey(target, targetPublicKey);
+		OutboundSession session = outbound.get(key);
+		if (session == null) {
+			return null;
+		} else if (isExpired(session.created)) {
+			outbound.remove(key);
+			return null;
+		}
+		return session.established ? session.sessionKey : null;
+	}
+
+	/**
+	 * Returns the sequence number for the next message within the established session with the given target.
+	 *
+	 * @param target the address of the receiving peer
+	 * @param targetPublicKey the public key of the receiving user
+	 * @return the sequence number or <code>-1</code> if no session is established
+	 */
+	public synchronized long nextSequenceNumber(PeerAddress target, PublicKey targetPublicKey) {
+		OutboundSession session = outbound.get(new OutboundKey(target, targetPublicKey));
+		if (session == null || !session.established) {
+			return -1;
+		}
+		return session.sequenceNumber++;
+	}
+
+	/**
+	 * Returns the session key to offer to the given target. If an offer is pending already, the same key is
+	 * offered again.
+	 *
+	 * @param target the address of the receiving peer
+	 * @param targetPublicKey the public key of the receiving user
+	 * @return the session key to offer
+	 */
+	public synchronized SessionKey getOffer(PeerAddress target, PublicKey targetPublicKey) {
+		OutboundKey key = new OutboundKey(target, targetPublicKey);
+		OutboundSession session = outbound.get(key);
+		if (session == null || isExpired(session.created)) {
+			session = new OutboundSession(SessionKey.generate());
+			outbound.put(key, session);
+		}
+		return session.sessionKey;
+	}
+
+	/**
+	 * Marks the offered session key as accepted by the target.
+	 *
+	 * @param target the address of the receiving peer
+	 * @param targetPublicKey the public key of the receiving user
+	 * @param sessionKey the offered session key
+	 */
+	public synchronized void confirm(PeerAddress target, PublicKey targetPublicKey, SessionKey sessionKey) {
+		OutboundSession session = outbound.get(new OutboundKey(target, targetPublicKey));
+		if (session != null && session.sessionKey.getId().equals(sessionKey.getId())) {
+			session.established = true;
+			logger.debug("Session with peer '{}' established.", target);
+		}
+	}
+
+	/**
+	 * Removes the session with the given target, such that the next message is sent hybrid encrypted and
+	 * offers a new session key.
+	 *
+	 * @param target the address of the receiving peer
+	 * @param targetPublicKey the public key of the receiving user
+	 */
+	public synchronized void invalidate(PeerAddress target, PublicKey targetPublicKey) {
+		if (outbound.remove(new OutboundKey(target, targetPublicKey)) != null) {
+			logger.debug("Session with peer '{}' invalidated.", target);
+		}
+	}
+
+	/**
+	 * Stores a session key offered by another peer. The offering message must have been verified already.
+	 *
+	 * @param senderId the user id of the verified sender
+	 * @param senderAddress the address of the peer that sent the offer
+	 * @param sessionKey the offered session key
+	 */
+	public synchronized void registerInbound(String senderId, PeerAddress senderAddress, SessionKey sessionKey) {
+		inbound.put(sessionKey.getId(), new InboundSession(senderId, senderAddress, sessionKey));
+	}
+
+	/**
+	 * @param sessionId the id of the session
+	 * @return the session key or <code>null</code> if unknown or expired
+	 */
+	public synchronized SessionKey getInbound(String sessionId) {
+		InboundSession session = inbound.get(sessionId);
+		if (session == null) {
+			return null;
+		} else if (isExpired(session.created)) {
+			inbound.remove(sessionId);
+			return null;
+		}
+		return session.sessionKey;
+	}
+
+	/**
+	 * Checks whether a message of the session has been sent by the user and the peer that offered the
+	 * session.
+	 *
+	 * @param sessionId the id of the session
+	 * @param senderId the user id of the sender of the message
+	 * @param senderAddress the address of the peer that sent the message
+	 * @return <code>true</code> if the session belongs to the sender
+	 */
+	public synchronized boolean isSessionOf(String sessionId, String senderId, PeerAddress senderAddress) {
+		InboundSession session = inbound.get(sessionId);
+		if (session == null || senderId == null || senderAddress == null) {
+			return false;
+		}
+		return session.senderId.equals(senderId)
+				&& session.senderAddress.getPeerId().equals(senderAddress.getPeerId());
+	}
+
+	/**
+	 * Records the sequence number of a received message. Must only be called after the message has been
+	 * authenticated with the session key.
+	 *
+	 * @param sessionId the id of the session
+	 * @param sequenceNumber the sequence number of the received message
+	 * @return <code>true</code> if the sequence number has not been received before, <code>false</code> if
+	 *         the message is a replay, too old or the session is unknown
+	 */
+	public synchronized boolean acceptSequenceNumber(String sessionId, long sequenceNumber) {
+		InboundSession session = inbound.get(sessionId);
+		if (session == null || sequenceNumber < 0) {
+			return false;
+		}
+
+		if (sequenceNumber > session.highestSequenceNumber) {
+			long shift = sequenceNumber - session.highestSequenceNumber;
+			session.receivedWindow = shift >= REPLAY_WINDOW ? 0 : session.receivedWindow << shift;
+			session.receivedWindow |= 1;
+			session.highestSequenceNumber = sequenceNumber;
+			return true;
+		}
+
+		long offset = session.highestSequenceNumber - sequenceNumber;
+		if (offset >= REPLAY_WINDOW) {
+			logger.warn("Received a message of session '{}' which is too old.", sessionId);
+			return false;
+		}
+
+		long bit = 1L << offset;
+		if ((session.receivedWindow & bit) != 0) {
+			logger.warn("Received a replayed message of session '{}'.", sessionId);
+			return false;
+		}
+		session.receivedWindow |= bit;
+		return true;
+	}
+
+	/**
+	 * Forgets all sessions (e.g. when the user logs out)
+	 */
+	public synchronized void clear() {
+		outbound.clear();
+		inbound.clear();
+	}
+
+	private boolean isExpired(long created) {
+		return System.currentTimeMillis() - created > lifetime;
+	}
+
+	private static final class OutboundKey {
+
+		private final PeerAddress target;
+		private final PublicKey publicKey;
+
+		public OutboundKey(PeerAddress target, PublicKey publicKey) {
+			this.target = target;
+			this.publicKey = publicKey;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof OutboundKey))
+				return false;
+			OutboundKey other = (OutboundKey) obj;
+			return target.equals(other.target) && publicKey.equals(other.publicKey);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * target.hashCode() + publicKey.hashCode();
+		}
+	}
+
+	private static final class OutboundSession {
+
+		private final SessionKey sessionKey;
+		private final long created;
+		private boolean established;
+		private long sequenceNumber;
+
+		public OutboundSession(SessionKey sessionKey) {
+			this.sessionKey = sessionKey;
+			this.created = System.currentTimeMillis();
+			this.established = false;
+			this.sequenceNumber = 0;
+		}
+	}
+
+	private static final class InboundSession {
+
+		private final String senderId;
+		private final PeerAddress senderAddress;
+		private final SessionKey sessionKey;
+		private final long created;
+		// the highest received sequence number and a bit per received number below it
+		private long highestSequenceNumber;
+		private long receivedWindow;
+
+		public InboundSession(String senderId, PeerAddress senderAddress, SessionKey sessionKey) {
+			this.senderId = senderId;
+			this.senderAddress = senderAddress;
+			this.sessionKey = sessionKey;
+			this.created = System.currentTimeMillis();
+			this.highestSequenceNumber = -1;
+			this.receivedWindow = 0;
+		}
+	}
+}
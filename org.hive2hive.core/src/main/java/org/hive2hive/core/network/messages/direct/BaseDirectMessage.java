@@ -130,12 +130,16 @@ public abstract class BaseDirectMessage extends BaseMessage {
 	public boolean handleSendingFailure(AcceptanceReply reply) throws IllegalArgumentException {
 		logger.debug("Have to handle a sending failure. Reply = '{}'.", reply);
 		switch (reply) {
+			case FAILURE_BUSY:
+				return handleBusyReply();
 			case WRONG_TARGET:
 				logger.error("Wrong node responded while sending this message directly using the peer address '{}'.",
 						getTargetAddress());
 			case FAILURE:
+			case FAILURE_SESSION:
 			case FUTURE_FAILURE:
-				if (directSendingCounter < H2HConstants.MAX_MESSAGE_SENDING_DIRECT) {
+				// attempts rejected because of a saturated receiver are not counted
+				if (directSendingCounter - getBusyCounter() < H2HConstants.MAX_MESSAGE_SENDING_DIRECT) {
 					return true;
 				} else {
 					logger.debug("Failure while sending this message directly using the peer address '{}'.",
@@ -86,10 +86,14 @@ public class FutureDirectListener extends BaseFutureAdapter<FutureDirect> {
 				// failed to deliver message. Resend not recommended
 				return false;
 			case RESEND_DIRECT:
-				// resend direct is recommended
+				// resend direct is recommended (after a delay if the receiver was saturated)
+				if (!message.awaitResendDelay())
+					return false;
 				return messageManager.sendDirect(message, receiverPublicKey);
 			case RESEND_ROUTED:
 				// resend (this time routed) is recommended
+				if (!message.awaitResendDelay())
+					return false;
 				return messageManager.send(message, receiverPublicKey);
 			default:
 				// invalid state
@@ -101,6 +105,15 @@ public class FutureDirectListener extends BaseFutureAdapter<FutureDirect> {
 	@Override
 	public void operationComplete(FutureDirect future) throws Exception {
 		AcceptanceReply reply = extractAcceptanceReply(future);
+		if (reply == AcceptanceReply.OK && message.getSessionKeyOffer() != null) {
+			// the receiver verified the message and stored the offered session key
+			messageManager.getSessionKeyManager().confirm(message.getTargetAddress(), receiverPublicKey,
+					message.getSessionKeyOffer());
+		} else if (reply == AcceptanceReply.FAILURE_SESSION) {
+			// receiver does not know the session (anymore), fall back to hybrid encryption
+			messageManager.getSessionKeyManager().invalidate(message.getTargetAddress(), receiverPublicKey);
+		}
+
 		if (reply == AcceptanceReply.OK || reply == AcceptanceReply.OK_PROVISIONAL) {
 			// notify the listener about the success of sending the message
 			state = DeliveryState.SUCCESS;
@@ -80,7 +80,9 @@ public class FutureRoutedListener extends BaseFutureAdapter<FutureSend> {
 				// failed to deliver message. Resend not recommended
 				return false;
 			case RESEND:
-				// resend is recommended
+				// resend is recommended (after a delay if the receiver was saturated)
+				if (!message.awaitResendDelay())
+					return false;
 				return messageManager.send(message, receiverPublicKey);
 			default:
 				// invalid state
@@ -0,0 +1,99 @@
+package org.hive2hive.core.network.userprofiletask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.hive2hive.core.exceptions.Hive2HiveException;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.network.data.UserProfileManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link UserProfileTask} containing multiple tasks of the same sender. It is put to the queue of a user
+ * instead of the single tasks when several notifications have been coalesced.</br>
+ * All {@link BatchableUserProfileTask}s are applied to the user profile within a
+ * single modification, such that the profile is fetched and put only once. The remaining tasks are started
+ * one after the other afterwards.
+ *
+ * @author Nico
+ */
+public class BatchUserProfileTask extends UserProfileTask {
+
+	private static final long serialVersionUID = -1905381215932617283L;
+
+	private final static Logger logger = LoggerFactory.getLogger(BatchUserProfileTask.class);
+
+	private final List<UserProfileTask> tasks;
+
+	public BatchUserProfileTask(String sender, List<UserProfileTask> tasks) {
+		super(sender);
+		this.tasks = tasks;
+	}
+
+	public List<UserProfileTask> getTasks() {
+		return tasks;
+	}
+
+	@Override
+	public void start() {
+		logger.debug("Executing a batch of {} user profile tasks.", tasks.size());
+
+		List<BatchableUserProfileTask> batchable = new ArrayList<BatchableUserProfileTask>();
+		List<UserProfileTask> others = new ArrayList<UserProfileTask>();
+		for (UserProfileTask task : tasks) {
+			task.setNetworkManager(networkManager);
+			if (task instanceof BatchableUserProfileTask) {
+				batchable.add((BatchableUserProfileTask) task);
+			} else {
+				others.add(task);
+			}
+		}
+
+		if (!batchable.isEmpty()) {
+			try {
+				applyAll(batchable);
+			} catch (Hive2HiveException e) {
+				logger.error("Could not process the batch of user profile tasks.", e);
+			}
+		}
+
+		for (UserProfileTask task : others) {
+			task.start();
+		}
+	}
+
+	/**
+	 * Applies all tasks to the user profile and puts it once if at least one task modified it.
+	 */
+	private void applyAll(List<BatchableUserProfileTask> batchable) throws Hive2HiveException {
+		String randomPID = UUID.randomUUID().toString();
+		UserProfileManager profileManager = networkManager.getSession().getProfileManager();
+		UserProfile userProfile = profileManager.getUserProfile(randomPID, true);
+
+		List<BatchableUserProfileTask> applied = new ArrayList<BatchableUserProfileTask>();
+		for (BatchableUserProfileTask task : batchable) {
+			try {
+				if (task.modify(userProfile)) {
+					applied.add(task);
+				}
+			} catch (Hive2HiveException e) {
+				logger.error("Could not apply the user profile task '{}'.", task.getClass().getSimpleName(), e);
+			}
+		}
+
+		if (applied.isEmpty()) {
+			logger.warn("None of the {} tasks in the batch modified the user profile.", batchable.size());
+			return;
+		}
+
+		profileManager.readyToPut(userProfile, randomPID);
+		logger.debug("Applied {} of {} tasks within a single user profile modification.", applied.size(),
+				batchable.size());
+
+		for (BatchableUserProfileTask task : applied) {
+			task.afterModification();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package org.hive2hive.core.network.userprofiletask;
+
+import java.util.UUID;
+
+import org.hive2hive.core.exceptions.Hive2HiveException;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.network.data.UserProfileManager;
+
+/**
+ * A {@link UserProfileTask} whose changes to the user profile are separated from fetching and putting the
+ * profile. Such tasks can be processed together with other tasks against a single user profile
+ * modification (see {@link BatchUserProfileTask}). When started alone, the task modifies the profile on its
+ * own.
+ * 
+ * @author Nico
+ */
+public abstract class BatchableUserProfileTask extends UserProfileTask {
+
+	private static final long serialVersionUID = 6015427651250419474L;
+
+	public BatchableUserProfileTask(String sender) {
+		super(sender);
+	}
+
+	/**
+	 * Applies the changes of this task to the given user profile. The profile is neither fetched nor put by
+	 * this method.
+	 * 
+	 * @param userProfile the user profile to modify
+	 * @return <code>true</code> if the profile has been modified, <code>false</code> if the task could not be
+	 *         applied
+	 * @throws Hive2HiveException if an error occurs while applying the changes
+	 */
+	protected abstract boolean modify(UserProfile userProfile) throws Hive2HiveException;
+
+	/**
+	 * Is called after the modifications of {@link #modify(UserProfile)} have been put (e.g. to update the
+	 * files on disk or to notify the other clients).
+	 */
+	protected abstract void afterModification();
+
+	/**
+	 * Gets the user profile, applies {@link #modify(UserProfile)}, puts the modified profile and finally
+	 * calls {@link #afterModification()}.
+	 * 
+	 * @throws Hive2HiveException if the profile cannot be fetched, modified or put
+	 */
+	protected void modifyUserProfile() throws Hive2HiveException {
+		String randomPID = UUID.randomUUID().toString();
+		UserProfileManager profileManager = networkManager.getSession().getProfileManager();
+		UserProfile userProfile = profileManager.getUserProfile(randomPID, true);
+		if (modify(userProfile)) {
+			profileManager.readyToPut(userProfile, randomPID);
+			afterModification();
+		}
+	}
+}
@@ -2,12 +2,16 @@ package org.hive2hive.core.processes;
 
 import java.io.File;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.H2HSession;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.UserPermission;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.network.data.DataManager;
@@ -17,12 +21,15 @@ import org.hive2hive.core.processes.framework.decorators.AsyncComponent;
 import org.hive2hive.core.processes.framework.decorators.AsyncResultComponent;
 import org.hive2hive.core.processes.framework.interfaces.IResultProcessComponent;
 import org.hive2hive.core.processes.implementations.common.File2MetaFileComponent;
+import org.hive2hive.core.processes.implementations.common.GetFileKeysStep;
+import org.hive2hive.core.processes.implementations.common.GetMetaFileStep;
 import org.hive2hive.core.processes.implementations.common.GetUserLocationsStep;
 import org.hive2hive.core.processes.implementations.common.GetUserProfileStep;
 import org.hive2hive.core.processes.implementations.common.PutMetaFileStep;
 import org.hive2hive.core.processes.implementations.common.PutUserLocationsStep;
 import org.hive2hive.core.processes.implementations.common.userprofiletask.GetUserProfileTaskStep;
 import org.hive2hive.core.processes.implementations.context.AddFileProcessContext;
+import org.hive2hive.core.processes.implementations.context.BulkFileProcessContext;
 import org.hive2hive.core.processes.implementations.context.DeleteFileProcessContext;
 import org.hive2hive.core.processes.implementations.context.DownloadFileContext;
 import org.hive2hive.core.processes.implementations.context.LoginProcessContext;
@@ -37,10 +44,18 @@ import org.hive2hive.core.processes.implementations.context.UserProfileTaskConte
 import org.hive2hive.core.processes.implementations.context.interfaces.IConsumeNotificationFactory;
 import org.hive2hive.core.processes.implementations.files.add.AddIndexToUserProfileStep;
 import org.hive2hive.core.processes.implementations.files.add.CheckWriteAccessStep;
+import org.hive2hive.core.processes.implementations.files.add.CleanupUploadJournalStep;
+import org.hive2hive.core.processes.implementations.files.add.CompleteUploadJournalStep;
 import org.hive2hive.core.processes.implementations.files.add.CreateMetaFileStep;
 import org.hive2hive.core.processes.implementations.files.add.InitializeChunksStep;
 import org.hive2hive.core.processes.implementations.files.add.PrepareNotificationStep;
 import org.hive2hive.core.processes.implementations.files.add.ValidateFileSizeStep;
+import org.hive2hive.core.processes.implementations.files.bulk.BulkFileEntry;
+import org.hive2hive.core.processes.implementations.files.bulk.BulkFileProcess;
+import org.hive2hive.core.processes.implementations.files.bulk.BulkNotificationStep;
+import org.hive2hive.core.processes.implementations.files.bulk.BulkUserProfileStep;
+import org.hive2hive.core.processes.implementations.files.bulk.RunFileProcessesStep;
+import org.hive2hive.core.processes.implementations.files.delete.DeleteFileContentStep;
 import org.hive2hive.core.processes.implementations.files.delete.DeleteFileOnDiskStep;
 import org.hive2hive.core.processes.implementations.files.delete.DeleteFromUserProfileStep;
 import org.hive2hive.core.processes.implementations.files.delete.PrepareDeleteNotificationStep;
@@ -53,6 +68,7 @@ import org.hive2hive.core.processes.implementations.files.recover.IVersionSelect
 import org.hive2hive.core.processes.implementations.files.recover.SelectVersionStep;
 import org.hive2hive.core.processes.implementations.files.update.CleanupChunksStep;
 import org.hive2hive.core.processes.implementations.files.update.CreateNewVersionStep;
+import org.hive2hive.core.processes.implementations.files.update.PutMetaFilePageStep;
 import org.hive2hive.core.processes.implementations.files.update.UpdateMD5inUserProfileStep;
 import org.hive2hive.core.processes.implementations.login.ContactOtherClientsStep;
 import org.hive2hive.core.processes.implementations.login.SessionCreationStep;
@@ -61,12 +77,16 @@ import org.hive2hive.core.processes.implementations.login.SynchronizeFilesStep;
 import org.hive2hive.core.processes.implementations.logout.DeleteSessionStep;
 import org.hive2hive.core.processes.implementations.logout.RemoveOwnLocationsStep;
 import org.hive2hive.core.processes.implementations.logout.StopDownloadsStep;
+import org.hive2hive.core.processes.implementations.logout.StopOrphanCollectionStep;
+import org.hive2hive.core.processes.implementations.logout.StopTTLRefreshStep;
 import org.hive2hive.core.processes.implementations.logout.WritePersistentStep;
 import org.hive2hive.core.processes.implementations.notify.BaseNotificationMessageFactory;
 import org.hive2hive.core.processes.implementations.notify.GetAllLocationsStep;
 import org.hive2hive.core.processes.implementations.notify.GetPublicKeysStep;
+import org.hive2hive.core.processes.implementations.notify.NotificationAggregator;
 import org.hive2hive.core.processes.implementations.notify.PutAllUserProfileTasksStep;
 import org.hive2hive.core.processes.implementations.notify.SendNotificationsMessageStep;
+import org.hive2hive.core.processes.implementations.notify.SubmitNotificationStep;
 import org.hive2hive.core.processes.implementations.notify.VerifyNotificationFactoryStep;
 import org.hive2hive.core.processes.implementations.register.CheckIsUserRegisteredStep;
 import org.hive2hive.core.processes.implementations.register.LocationsCreationStep;
@@ -150,6 +170,10 @@ public final class ProcessFactory {
 		process.add(new GetUserLocationsStep(credentials.getUserId(), context, networkManager.getDataManager()));
 		process.add(new ContactOtherClientsStep(context, networkManager));
 		process.add(new PutUserLocationsStep(context, context, dataManager));
+		if (H2HConstants.UPLOAD_JOURNAL_ENABLED) {
+			// remove the orphans of interrupted uploads that cannot be continued by the synchronization
+			process.add(new CleanupUploadJournalStep(networkManager));
+		}
 		process.add(new SynchronizeFilesStep(context, networkManager));
 
 		return process;
@@ -185,7 +209,10 @@ public final class ProcessFactory {
 		process.add(new GetUserLocationsStep(session.getCredentials().getUserId(), context, dataManager));
 		process.add(new RemoveOwnLocationsStep(context, networkManager));
 		process.add(new StopDownloadsStep(session.getDownloadManager()));
-		process.add(new WritePersistentStep(session.getRoot(), session.getKeyManager(), session.getDownloadManager()));
+		process.add(new StopTTLRefreshStep(session.getRefreshManager()));
+		process.add(new StopOrphanCollectionStep(session.getOrphanCollector()));
+		process.add(new WritePersistentStep(session.getRoot(), session.getKeyManager(), session.getDownloadManager(),
+				session.getRefreshManager()));
 		process.add(new DeleteSessionStep(networkManager));
 
 		// TODO to be implemented:
@@ -210,13 +237,17 @@ public final class ProcessFactory {
 		process.add(new CheckWriteAccessStep(context, session.getProfileManager(), session.getRoot()));
 		if (file.isFile()) {
 			// file needs to upload the chunks and a meta file
-			process.add(new InitializeChunksStep(context, dataManager, session.getFileConfiguration()));
+			process.add(new InitializeChunksStep(context, dataManager, session.getFileConfiguration(), session
+					.getUploadJournal(), session.getChunkCache(), session.getPutLog()));
 			process.add(new CreateMetaFileStep(context));
-			process.add(new PutMetaFileStep(context, dataManager));
+			process.add(new PutMetaFileStep(context, dataManager, session.getPutLog()));
 		}
 		process.add(new AddIndexToUserProfileStep(context, session.getProfileManager(), session.getRoot()));
+		if (file.isFile() && session.getUploadJournal() != null) {
+			process.add(new CompleteUploadJournalStep(context, session.getUploadJournal()));
+		}
 		process.add(new PrepareNotificationStep(context));
-		process.add(createNotificationProcess(context, networkManager));
+		process.add(createFileNotification(context, networkManager));
 
 		return process;
 	}
@@ -231,16 +262,22 @@ public final class ProcessFactory {
 		SequentialProcess process = new SequentialProcess();
 		process.add(new ValidateFileSizeStep(context, session.getFileConfiguration(), false));
 		process.add(new CheckWriteAccessStep(context, session.getProfileManager(), session.getRoot()));
-		process.add(new File2MetaFileComponent(file, context, context, networkManager));
-		process.add(new InitializeChunksStep(context, dataManager, session.getFileConfiguration()));
+		process.add(new GetFileKeysStep(file, context, context, session));
+		process.add(new GetMetaFileStep(context, context, dataManager));
+		process.add(new InitializeChunksStep(context, dataManager, session.getFileConfiguration(), session
+				.getUploadJournal(), session.getChunkCache(), session.getPutLog()));
 		process.add(new CreateNewVersionStep(context, session.getFileConfiguration()));
-		process.add(new PutMetaFileStep(context, dataManager));
+		process.add(new PutMetaFilePageStep(context, dataManager));
+		process.add(new PutMetaFileStep(context, dataManager, session.getPutLog()));
 		process.add(new UpdateMD5inUserProfileStep(context, session.getProfileManager()));
+		if (session.getUploadJournal() != null) {
+			process.add(new CompleteUploadJournalStep(context, session.getUploadJournal()));
+		}
 
 		// TODO: cleanup can be made async because user operation does not depend on it
 		process.add(new CleanupChunksStep(context, dataManager));
 		process.add(new PrepareNotificationStep(context));
-		process.add(createNotificationProcess(context, networkManager));
+		process.add(createFileNotification(context, networkManager));
 
 		return process;
 	}
@@ -280,12 +317,136 @@ public final class ProcessFactory {
 		// process composition
 		SequentialProcess process = new SequentialProcess();
 
+		process.add(new DeleteFromUserProfileStep(file, context, networkManager));
 		// hint: this step automatically adds additional process steps when the meta file and the chunks need
 		// to be deleted
-		process.add(new DeleteFromUserProfileStep(file, context, networkManager));
+		process.add(new DeleteFileContentStep(context, networkManager.getDataManager()));
 		process.add(new DeleteFileOnDiskStep(file)); // TODO make asynchronous
 		process.add(new PrepareDeleteNotificationStep(context));
-		process.add(createNotificationProcess(context, networkManager));
+		process.add(createFileNotification(context, networkManager));
+
+		return process;
+	}
+
+	/**
+	 * Adds multiple files and folders at once. The chunks and meta files are uploaded in parallel, the user
+	 * profile is modified once and every user receives a single notification. Parent folders that are not in
+	 * the user profile yet must be part of the given files.
+	 */
+	public BulkFileProcess createBulkAddProcess(List<File> files, NetworkManager networkManager)
+			throws NoSessionException, NoPeerConnectionException {
+		H2HSession session = networkManager.getSession();
+		DataManager dataManager = networkManager.getDataManager();
+
+		// parents must be added to the user profile before their children
+		List<File> preorderList = new ArrayList<File>(files);
+		FileUtil.sortPreorder(preorderList);
+
+		BulkFileProcessContext context = new BulkFileProcessContext();
+		for (File file : preorderList) {
+			AddFileProcessContext fileContext = new AddFileProcessContext(file);
+
+			SequentialProcess preparation = new SequentialProcess();
+			preparation.add(new ValidateFileSizeStep(fileContext, session.getFileConfiguration(), true));
+			preparation.add(new CheckWriteAccessStep(fileContext, session.getProfileManager(), session.getRoot()));
+			if (file.isFile()) {
+				preparation.add(new InitializeChunksStep(fileContext, dataManager, session.getFileConfiguration(),
+						session.getUploadJournal(), session.getChunkCache(), session.getPutLog()));
+				preparation.add(new CreateMetaFileStep(fileContext));
+				preparation.add(new PutMetaFileStep(fileContext, dataManager, session.getPutLog()));
+			}
+
+			SequentialProcess completion = new SequentialProcess();
+			if (file.isFile() && session.getUploadJournal() != null) {
+				completion.add(new CompleteUploadJournalStep(fileContext, session.getUploadJournal()));
+			}
+			completion.add(new PrepareNotificationStep(fileContext));
+
+			AddIndexToUserProfileStep modification = new AddIndexToUserProfileStep(fileContext,
+					session.getProfileManager(), session.getRoot());
+			context.addEntry(new BulkFileEntry(file, preparation, modification, completion, fileContext));
+		}
+
+		// preparing the notification detaches the index from its parent
+		return createBulkProcess(context, true, networkManager);
+	}
+
+	/**
+	 * Updates multiple files at once. The new versions are uploaded in parallel, the user profile is
+	 * modified once and every user receives a single notification.
+	 */
+	public BulkFileProcess createBulkUpdateProcess(List<File> files, NetworkManager networkManager)
+			throws NoSessionException, NoPeerConnectionException {
+		H2HSession session = networkManager.getSession();
+		DataManager dataManager = networkManager.getDataManager();
+
+		BulkFileProcessContext context = new BulkFileProcessContext();
+		for (File file : files) {
+			UpdateFileProcessContext fileContext = new UpdateFileProcessContext(file);
+
+			SequentialProcess preparation = new SequentialProcess();
+			preparation.add(new ValidateFileSizeStep(fileContext, session.getFileConfiguration(), false));
+			preparation.add(new CheckWriteAccessStep(fileContext, session.getProfileManager(), session.getRoot()));
+			preparation.add(new GetFileKeysStep(file, fileContext, fileContext, session));
+			preparation.add(new GetMetaFileStep(fileContext, fileContext, dataManager));
+			preparation.add(new InitializeChunksStep(fileContext, dataManager, session.getFileConfiguration(),
+					session.getUploadJournal(), session.getChunkCache(), session.getPutLog()));
+			preparation.add(new CreateNewVersionStep(fileContext, session.getFileConfiguration()));
+			preparation.add(new PutMetaFilePageStep(fileContext, dataManager));
+			preparation.add(new PutMetaFileStep(fileContext, dataManager, session.getPutLog()));
+
+			SequentialProcess completion = new SequentialProcess();
+			if (session.getUploadJournal() != null) {
+				completion.add(new CompleteUploadJournalStep(fileContext, session.getUploadJournal()));
+			}
+			completion.add(new CleanupChunksStep(fileContext, dataManager));
+			completion.add(new PrepareNotificationStep(fileContext));
+
+			UpdateMD5inUserProfileStep modification = new UpdateMD5inUserProfileStep(fileContext,
+					session.getProfileManager());
+			context.addEntry(new BulkFileEntry(file, preparation, modification, completion, fileContext));
+		}
+
+		return createBulkProcess(context, false, networkManager);
+	}
+
+	/**
+	 * Deletes multiple files and folders at once. The user profile is modified once, the meta files and
+	 * chunks are deleted in parallel and every user receives a single notification. A folder can only be
+	 * deleted if all its children are part of the given files.
+	 */
+	public BulkFileProcess createBulkDeleteProcess(List<File> files, NetworkManager networkManager)
+			throws NoSessionException, NoPeerConnectionException {
+		// children must be removed from the user profile before their parents
+		List<File> reversePreorder = new ArrayList<File>(files);
+		FileUtil.sortPreorder(reversePreorder);
+		Collections.reverse(reversePreorder);
+
+		BulkFileProcessContext context = new BulkFileProcessContext();
+		for (File file : reversePreorder) {
+			DeleteFileProcessContext fileContext = new DeleteFileProcessContext(file.isDirectory());
+
+			SequentialProcess completion = new SequentialProcess();
+			completion.add(new DeleteFileContentStep(fileContext, networkManager.getDataManager()));
+			completion.add(new DeleteFileOnDiskStep(file));
+			completion.add(new PrepareDeleteNotificationStep(fileContext));
+
+			DeleteFromUserProfileStep modification = new DeleteFromUserProfileStep(file, fileContext,
+					networkManager);
+			context.addEntry(new BulkFileEntry(file, null, modification, completion, fileContext));
+		}
+
+		// a folder is deleted on disk after its children
+		return createBulkProcess(context, true, networkManager);
+	}
+
+	private BulkFileProcess createBulkProcess(BulkFileProcessContext context, boolean childrenFirst,
+			NetworkManager networkManager) throws NoSessionException {
+		BulkFileProcess process = new BulkFileProcess(context);
+		process.add(new RunFileProcessesStep(context, true, false));
+		process.add(new BulkUserProfileStep(context, networkManager.getSession().getProfileManager()));
+		process.add(new RunFileProcessesStep(context, false, childrenFirst));
+		process.add(new BulkNotificationStep(context, networkManager));
 
 		return process;
 	}
@@ -297,9 +458,9 @@ public final class ProcessFactory {
 		SequentialProcess process = new SequentialProcess();
 		process.add(new MoveOnDiskStep(context, networkManager));
 		process.add(new RelinkUserProfileStep(context, networkManager));
-		process.add(createNotificationProcess(context.getMoveNotificationContext(), networkManager));
-		process.add(createNotificationProcess(context.getDeleteNotificationContext(), networkManager));
-		process.add(createNotificationProcess(context.getAddNotificationContext(), networkManager));
+		process.add(createFileNotification(context.getMoveNotificationContext(), networkManager));
+		process.add(createFileNotification(context.getDeleteNotificationContext(), networkManager));
+		process.add(createFileNotification(context.getAddNotificationContext(), networkManager));
 
 		return process;
 	}
@@ -308,7 +469,7 @@ public final class ProcessFactory {
 			throws NoSessionException, NoPeerConnectionException {
 		RecoverFileContext context = new RecoverFileContext(file);
 		SequentialProcess process = new SequentialProcess();
-		process.add(new File2MetaFileComponent(file, context, context, networkManager));
+		process.add(new File2MetaFileComponent(file, context, context, networkManager, true));
 		process.add(new SelectVersionStep(context, selector, networkManager));
 
 		return process;
@@ -361,6 +522,19 @@ public final class ProcessFactory {
 		return createNotificationProcess(context, networkManager);
 	}
 
+	/**
+	 * Notifies about a file change. If enabled, the notification is coalesced with the notifications of
+	 * other file processes (see {@link NotificationAggregator}), else a separate notification process is run.
+	 */
+	private ProcessComponent createFileNotification(IConsumeNotificationFactory providerContext,
+			NetworkManager networkManager) throws IllegalArgumentException, NoPeerConnectionException, NoSessionException {
+		if (H2HConstants.NOTIFICATION_COALESCE_WINDOW_MS > 0) {
+			return new SubmitNotificationStep(providerContext, networkManager);
+		} else {
+			return createNotificationProcess(providerContext, networkManager);
+		}
+	}
+
 	private ProcessComponent createNotificationProcess(IConsumeNotificationFactory providerContext,
 			NetworkManager networkManager) throws IllegalArgumentException, NoPeerConnectionException, NoSessionException {
 		NotifyProcessContext context = new NotifyProcessContext(providerContext);
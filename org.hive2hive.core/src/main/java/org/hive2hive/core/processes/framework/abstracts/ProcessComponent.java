@@ -3,18 +3,18 @@ package org.hive2hive.core.processes.framework.abstracts;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.hive2hive.core.processes.framework.ProcessState;
 import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.concretes.ProcessCompletion;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponentListener;
+import org.hive2hive.core.processes.framework.metrics.ProcessMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +38,9 @@ public abstract class ProcessComponent implements IProcessComponent {
 	private RollbackReason reason;
 
 	private final List<IProcessComponentListener> listener;
+	private final ProcessCompletion completion;
+	// start of the execution in nanoseconds, only taken when the process metrics are enabled
+	private long startTime = 0;
 
 	protected ProcessComponent() {
 		this.id = UUID.randomUUID().toString();
@@ -45,6 +48,7 @@ public abstract class ProcessComponent implements IProcessComponent {
 		this.state = ProcessState.READY;
 
 		listener = new ArrayList<IProcessComponentListener>();
+		completion = new ProcessCompletion();
 	}
 
 	@Override
@@ -56,6 +60,9 @@ public abstract class ProcessComponent implements IProcessComponent {
 		}
 		state = ProcessState.RUNNING;
 		isRollbacking = false;
+		if (ProcessMetrics.instance().isEnabled()) {
+			startTime = System.nanoTime();
+		}
 
 		try {
 			doExecute();
@@ -105,6 +112,7 @@ public abstract class ProcessComponent implements IProcessComponent {
 
 			// no parent, or called from parent
 			state = ProcessState.ROLLBACKING;
+			ProcessMetrics.instance().recordRollback(this);
 			logger.warn("Rolling back '{}'. Reason: '{}'.", this.getClass().getSimpleName(), reason.getHint());
 
 			doRollback(reason);
@@ -155,6 +163,10 @@ public abstract class ProcessComponent implements IProcessComponent {
 	protected void succeed() {
 		if (state == ProcessState.RUNNING) {
 			state = ProcessState.SUCCEEDED;
+			if (startTime != 0) {
+				ProcessMetrics.instance().recordExecution(this, System.nanoTime() - startTime);
+			}
+			completion.complete(state);
 			notifySucceeded();
 		}
 	}
@@ -167,6 +179,7 @@ public abstract class ProcessComponent implements IProcessComponent {
 		if (state == ProcessState.ROLLBACKING) {
 			state = ProcessState.FAILED;
 			this.reason = reason;
+			completion.complete(state);
 			notifyFailed(reason);
 		}
 	}
@@ -186,39 +199,26 @@ public abstract class ProcessComponent implements IProcessComponent {
 
 	@Override
 	public void await(long timeout) throws InterruptedException {
-
-		if (state == ProcessState.SUCCEEDED || state == ProcessState.FAILED)
-			return;
-
-		final CountDownLatch latch = new CountDownLatch(1);
-
-		ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
-		ScheduledFuture<?> handle = executor.scheduleAtFixedRate(new Runnable() {
-			@Override
-			public void run() {
-				if (state == ProcessState.SUCCEEDED || state == ProcessState.FAILED)
-					latch.countDown();
-			}
-		}, 0, 100, TimeUnit.MILLISECONDS);
-
 		// blocking wait for completion or interruption
 		try {
 			if (timeout < 0) {
-				latch.await();
+				completion.get();
 			} else {
-				boolean success = latch.await(timeout, TimeUnit.MILLISECONDS);
-				if (!success) {
-					throw new InterruptedException("Waiting for process timed out.");
-				}
+				completion.get(timeout, TimeUnit.MILLISECONDS);
 			}
+		} catch (TimeoutException e) {
+			throw new InterruptedException("Waiting for process timed out.");
 		} catch (InterruptedException e) {
 			logger.error("Interrupted while waiting for process.", e);
 			throw e;
-		} finally {
-			handle.cancel(true);
 		}
 	}
 
+	@Override
+	public Future<ProcessState> getCompletion() {
+		return completion;
+	}
+
 	@Override
 	public String getID() {
 		return id;
@@ -14,20 +14,17 @@ public abstract class ProcessStep extends ProcessComponent {
 
 	@Override
 	protected final void doPause() {
-		// TODO Auto-generated method stub
-
+		// a step executes atomically, it is paused between the steps of its process
 	}
 
 	@Override
 	protected final void doResumeExecution() throws InvalidProcessStateException {
-		// TODO Auto-generated method stub
-
+		// nothing to resume, see doPause()
 	}
 
 	@Override
 	protected final void doResumeRollback() {
-		// TODO Auto-generated method stub
-
+		// nothing to resume, see doPause()
 	}
 
 	@Override
@@ -0,0 +1,359 @@
+package org.hive2hive.core.processes.framework.concretes;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.abstracts.Process;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.hive2hive.core.processes.framework.decorators.AsyncComponent;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A process component container whose components declare dependencies on each other. A component is started
+ * as soon as all components it depends on succeeded. Independent components run in parallel, but at most
+ * <code>parallelism</code> at the same time. The container waits until all components completed.</br>
+ * If a component fails, no further components are started. After the running components completed, the
+ * started components are rolled back in the reverse order of their completion (which is a reverse topological
+ * order).</br>
+ * While the process is paused, the running components complete but no further components are started. The
+ * rollback can be paused between two components as well.</br>
+ * Unlike the nesting of {@link SequentialProcess}es and {@link AsyncComponent}s, siblings do not need to be
+ * serialized and only a bounded number of threads is used.
+ *
+ * @author Nico
+ *
+ */
+public class DagProcess extends Process {
+
+	private static final Logger logger = LoggerFactory.getLogger(DagProcess.class);
+
+	private final int parallelism;
+	private final List<ProcessComponent> components = new ArrayList<ProcessComponent>();
+	private final Map<ProcessComponent, Set<ProcessComponent>> dependencies = new HashMap<ProcessComponent, Set<ProcessComponent>>();
+
+	// the started components in the order of their completion
+	private final List<ProcessComponent> completed = Collections.synchronizedList(new ArrayList<ProcessComponent>());
+	private final AtomicReference<RollbackReason> failure = new AtomicReference<RollbackReason>();
+	private volatile boolean executing = false;
+	// the executing thread waits on it while the process is paused
+	private final Object pauseLock = new Object();
+
+	// the components that still need to be rolled back, the next first
+	private final Deque<ProcessComponent> toRollback = new ArrayDeque<ProcessComponent>();
+	private RollbackReason rollbackReason;
+
+	public DagProcess() {
+		this(H2HConstants.DAG_PROCESS_PARALLELISM);
+	}
+
+	/**
+	 * @param parallelism the maximum number of components that are executed concurrently
+	 */
+	public DagProcess(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1.");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Adds a component that is started after all given components succeeded.
+	 *
+	 * @param component the component to add
+	 * @param dependsOn the components (of this process) that need to be completed first
+	 */
+	public void add(ProcessComponent component, ProcessComponent... dependsOn) {
+		add(component);
+		for (ProcessComponent dependency : dependsOn) {
+			addDependency(component, dependency);
+		}
+	}
+
+	/**
+	 * Declares that a component must not be started before another component succeeded. Both components must
+	 * be part of this process.
+	 *
+	 * @param component the dependent component
+	 * @param dependsOn the component that needs to be completed first
+	 */
+	public void addDependency(ProcessComponent component, ProcessComponent dependsOn) {
+		if (!components.contains(component) || !components.contains(dependsOn)) {
+			throw new IllegalArgumentException("Both components must be part of this process.");
+		} else if (component.equals(dependsOn)) {
+			throw new IllegalArgumentException("A component cannot depend on itself.");
+		}
+		dependencies.get(component).add(dependsOn);
+	}
+
+	/**
+	 * @param component a component of this process
+	 * @return the components the given component depends on
+	 */
+	public Set<ProcessComponent> getDependencies(ProcessComponent component) {
+		Set<ProcessComponent> result = dependencies.get(component);
+		if (result == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(result);
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		if (components.isEmpty()) {
+			return;
+		}
+
+		// count the open dependencies and find the dependents of every component
+		Map<ProcessComponent, Integer> openDependencies = new HashMap<ProcessComponent, Integer>();
+		Map<ProcessComponent, List<ProcessComponent>> dependents = new HashMap<ProcessComponent, List<ProcessComponent>>();
+		for (ProcessComponent component : components) {
+			dependents.put(component, new ArrayList<ProcessComponent>());
+		}
+		Queue<ProcessComponent> ready = new LinkedList<ProcessComponent>();
+		for (ProcessComponent component : components) {
+			Set<ProcessComponent> dependsOn = dependencies.get(component);
+			openDependencies.put(component, dependsOn.size());
+			for (ProcessComponent dependency : dependsOn) {
+				dependents.get(dependency).add(component);
+			}
+			if (dependsOn.isEmpty()) {
+				ready.add(component);
+			}
+		}
+		verifyAcyclic(openDependencies, dependents, ready);
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, components.size()));
+		CompletionService<ProcessComponent> completionService = new ExecutorCompletionService<ProcessComponent>(
+				executor);
+		executing = true;
+		int running = 0;
+		try {
+			while (true) {
+				// while paused, the ready components are held back
+				if (failure.get() == null && getState() == ProcessState.RUNNING) {
+					while (!ready.isEmpty()) {
+						completionService.submit(new ComponentTask(ready.poll()));
+						running++;
+					}
+				}
+
+				if (running == 0) {
+					if (failure.get() != null) {
+						break;
+					} else if (getState() == ProcessState.PAUSED) {
+						awaitResume();
+						continue;
+					} else if (ready.isEmpty()) {
+						// all components succeeded
+						break;
+					}
+					failure.compareAndSet(null, new RollbackReason(
+							"Process stopped before all components were executed."));
+					break;
+				}
+
+				ProcessComponent done = completionService.take().get();
+				running--;
+
+				if (failure.get() != null) {
+					// do not start further components, just wait for the running ones
+					continue;
+				}
+
+				for (ProcessComponent dependent : dependents.get(done)) {
+					int open = openDependencies.get(dependent) - 1;
+					openDependencies.put(dependent, open);
+					if (open == 0) {
+						ready.add(dependent);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			logger.error("Interrupted while waiting for the components to complete.", e);
+			failure.compareAndSet(null, new RollbackReason("Interrupted while executing the components."));
+		} catch (ExecutionException e) {
+			failure.compareAndSet(null, new RollbackReason("A component threw an exception.", e.getCause()));
+		} finally {
+			executing = false;
+			executor.shutdownNow();
+		}
+
+		if (failure.get() != null) {
+			throw new ProcessExecutionException(failure.get());
+		}
+	}
+
+	@Override
+	public void cancel(RollbackReason reason) throws InvalidProcessStateException {
+		if (executing) {
+			// a component failed or the process is cancelled while components are running. Let the executing
+			// thread stop and roll back as soon as the running components completed.
+			failure.compareAndSet(null, reason);
+			synchronized (pauseLock) {
+				// a paused process is cancelled as well
+				pauseLock.notifyAll();
+			}
+			return;
+		}
+		super.cancel(reason);
+	}
+
+	@Override
+	protected void doPause() {
+		// the executing thread holds back the components that become ready
+	}
+
+	@Override
+	protected void doResumeExecution() throws InvalidProcessStateException {
+		synchronized (pauseLock) {
+			pauseLock.notifyAll();
+		}
+	}
+
+	@Override
+	protected void doResumeRollback() throws InvalidProcessStateException {
+		rollbackRemaining();
+	}
+
+	@Override
+	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		List<ProcessComponent> started;
+		synchronized (completed) {
+			started = new ArrayList<ProcessComponent>(completed);
+		}
+		Collections.reverse(started);
+
+		toRollback.clear();
+		toRollback.addAll(started);
+		rollbackReason = reason;
+		rollbackRemaining();
+	}
+
+	/**
+	 * Rolls back the remaining components until the process is paused.
+	 */
+	private void rollbackRemaining() throws InvalidProcessStateException {
+		while (!toRollback.isEmpty() && getState() == ProcessState.ROLLBACKING) {
+			ProcessComponent component = toRollback.poll();
+			ProcessState state = component.getState();
+			if (state == ProcessState.SUCCEEDED || state == ProcessState.RUNNING || state == ProcessState.PAUSED) {
+				component.cancel(rollbackReason);
+			}
+		}
+	}
+
+	private void awaitResume() throws InterruptedException {
+		synchronized (pauseLock) {
+			while (getState() == ProcessState.PAUSED && failure.get() == null) {
+				pauseLock.wait();
+			}
+		}
+	}
+
+	@Override
+	protected void doAdd(ProcessComponent component) {
+		components.add(component);
+		dependencies.put(component, new HashSet<ProcessComponent>());
+	}
+
+	@Override
+	protected void doInsert(int index, ProcessComponent component) {
+		components.add(index, component);
+		dependencies.put(component, new HashSet<ProcessComponent>());
+	}
+
+	@Override
+	protected void doRemove(ProcessComponent component) {
+		components.remove(component);
+		dependencies.remove(component);
+		for (Set<ProcessComponent> dependsOn : dependencies.values()) {
+			dependsOn.remove(component);
+		}
+	}
+
+	@Override
+	public List<ProcessComponent> getComponents() {
+		return Collections.unmodifiableList(components);
+	}
+
+	/**
+	 * Simulates the execution to detect cyclic dependencies, which would never become ready.
+	 */
+	private void verifyAcyclic(Map<ProcessComponent, Integer> openDependencies,
+			Map<ProcessComponent, List<ProcessComponent>> dependents, Queue<ProcessComponent> ready)
+			throws ProcessExecutionException {
+		Map<ProcessComponent, Integer> open = new HashMap<ProcessComponent, Integer>(openDependencies);
+		Queue<ProcessComponent> queue = new LinkedList<ProcessComponent>(ready);
+		int visited = 0;
+		while (!queue.isEmpty()) {
+			ProcessComponent component = queue.poll();
+			visited++;
+			for (ProcessComponent dependent : dependents.get(component)) {
+				int remaining = open.get(dependent) - 1;
+				open.put(dependent, remaining);
+				if (remaining == 0) {
+					queue.add(dependent);
+				}
+			}
+		}
+
+		if (visited != components.size()) {
+			throw new ProcessExecutionException("The dependencies of the components contain a cycle.");
+		}
+	}
+
+	/**
+	 * Executes a single component in a thread of the pool. Asynchronous components are awaited.
+	 */
+	private class ComponentTask implements Callable<ProcessComponent> {
+
+		private final ProcessComponent component;
+
+		public ComponentTask(ProcessComponent component) {
+			this.component = component;
+		}
+
+		@Override
+		public ProcessComponent call() throws Exception {
+			try {
+				component.start();
+				if (component instanceof AsyncComponent) {
+					RollbackReason reason = ((AsyncComponent) component).getHandle().get();
+					if (reason != null) {
+						failure.compareAndSet(null, reason);
+					}
+				}
+			} finally {
+				completed.add(component);
+			}
+
+			if (component.getState() != ProcessState.SUCCEEDED && failure.get() == null) {
+				failure.compareAndSet(null, new RollbackReason("Component '"
+						+ component.getClass().getSimpleName() + "' did not succeed."));
+			}
+			return component;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package org.hive2hive.core.processes.framework.concretes;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+
+/**
+ * A {@link Future} that is completed directly by a {@link ProcessComponent} as soon as it terminates, i.e.
+ * reaches {@link ProcessState#SUCCEEDED} or {@link ProcessState#FAILED} for the first time. The result is
+ * this terminal state.</br>
+ * The future cannot be cancelled; use {@link ProcessComponent#cancel(RollbackReason)} instead.
+ *
+ * @author Christian, Nico
+ *
+ */
+public class ProcessCompletion implements Future<ProcessState> {
+
+	private final CountDownLatch latch = new CountDownLatch(1);
+	private volatile ProcessState result;
+
+	/**
+	 * Completes the future with the given terminal state. Subsequent calls are ignored.
+	 *
+	 * @param state the terminal state
+	 */
+	public synchronized void complete(ProcessState state) {
+		if (result == null) {
+			result = state;
+			latch.countDown();
+		}
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return false;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return false;
+	}
+
+	@Override
+	public boolean isDone() {
+		return result != null;
+	}
+
+	@Override
+	public ProcessState get() throws InterruptedException {
+		latch.await();
+		return result;
+	}
+
+	@Override
+	public ProcessState get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		if (!latch.await(timeout, unit)) {
+			throw new TimeoutException("Process did not terminate within " + timeout + " " + unit + ".");
+		}
+		return result;
+	}
+}
@@ -1,6 +1,7 @@
 package org.hive2hive.core.processes.framework.interfaces;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.hive2hive.core.processes.framework.ProcessState;
 
@@ -26,6 +27,14 @@ public interface IProcessComponent extends IControllable {
 	 */
 	void await(long timeout) throws InterruptedException;
 
+	/**
+	 * Returns a future that completes as soon as the process component terminates. Its result is the terminal
+	 * state ({@link ProcessState#SUCCEEDED} or {@link ProcessState#FAILED}).
+	 * 
+	 * @return The completion future of the process component.
+	 */
+	Future<ProcessState> getCompletion();
+
 	/**
 	 * Attaches an {@link IProcessComponentListener} to the process component.
 	 * 
@@ -0,0 +1,223 @@
+package org.hive2hive.core.processes.framework.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the execution times and rollbacks of all process components (per class) and the waiting times
+ * of shared queues. The metrics can be read over JMX (see {@link ProcessMetricsMXBean}) and are periodically
+ * logged (see {@link H2HConstants#PROCESS_METRICS_REPORT_INTERVAL_MS}).</br>
+ * When disabled, the recording hooks only read a volatile flag.
+ *
+ * @author Nico
+ *
+ */
+public final class ProcessMetrics implements ProcessMetricsMXBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProcessMetrics.class);
+	private static final String OBJECT_NAME = "org.hive2hive.core:type=ProcessMetrics";
+
+	private static final ProcessMetrics instance = new ProcessMetrics();
+
+	private final ConcurrentMap<String, TimingHistogram> executionTimes = new ConcurrentHashMap<String, TimingHistogram>();
+	private final ConcurrentMap<String, AtomicLong> rollbacks = new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentMap<String, TimingHistogram> queueWaitTimes = new ConcurrentHashMap<String, TimingHistogram>();
+
+	private volatile boolean enabled = false;
+	private ScheduledExecutorService reporter;
+
+	public static ProcessMetrics instance() {
+		return instance;
+	}
+
+	private ProcessMetrics() {
+		// singleton
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			logger.warn("Cannot register the process metrics at the MBean server.", e);
+		}
+		setEnabled(H2HConstants.PROCESS_METRICS_ENABLED);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public synchronized void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+
+		if (enabled && reporter == null && H2HConstants.PROCESS_METRICS_REPORT_INTERVAL_MS > 0) {
+			reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "process metrics reporter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			long interval = H2HConstants.PROCESS_METRICS_REPORT_INTERVAL_MS;
+			reporter.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					logger.info("Process metrics:\n{}", getReport());
+				}
+			}, interval, interval, TimeUnit.MILLISECONDS);
+		} else if (!enabled && reporter != null) {
+			reporter.shutdownNow();
+			reporter = null;
+		}
+	}
+
+	/**
+	 * Records the wall time of a successfully executed process component.
+	 *
+	 * @param component the executed component
+	 * @param nanos the execution time in nanoseconds
+	 */
+	public void recordExecution(ProcessComponent component, long nanos) {
+		if (enabled) {
+			getHistogram(executionTimes, getName(component)).record(nanos);
+		}
+	}
+
+	/**
+	 * Counts the rollback of a process component.
+	 *
+	 * @param component the component that is rolled back
+	 */
+	public void recordRollback(ProcessComponent component) {
+		if (enabled) {
+			String name = getName(component);
+			AtomicLong counter = rollbacks.get(name);
+			if (counter == null) {
+				rollbacks.putIfAbsent(name, new AtomicLong());
+				counter = rollbacks.get(name);
+			}
+			counter.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records the time a process waited for a shared resource.
+	 *
+	 * @param queue the name of the queue
+	 * @param nanos the waiting time in nanoseconds
+	 */
+	public void recordQueueWait(String queue, long nanos) {
+		if (enabled) {
+			getHistogram(queueWaitTimes, queue).record(nanos);
+		}
+	}
+
+	/**
+	 * @param component the name of the component class
+	 * @return the execution times of the component or <code>null</code> if never recorded
+	 */
+	public TimingHistogram getExecutionTimes(String component) {
+		return executionTimes.get(component);
+	}
+
+	/**
+	 * @param queue the name of the queue
+	 * @return the waiting times for the queue or <code>null</code> if never recorded
+	 */
+	public TimingHistogram getQueueWaitTimes(String queue) {
+		return queueWaitTimes.get(queue);
+	}
+
+	@Override
+	public String[] getComponentNames() {
+		Set<String> names = new TreeSet<String>(executionTimes.keySet());
+		names.addAll(rollbacks.keySet());
+		return names.toArray(new String[names.size()]);
+	}
+
+	@Override
+	public String[] getQueueNames() {
+		Set<String> names = new TreeSet<String>(queueWaitTimes.keySet());
+		return names.toArray(new String[names.size()]);
+	}
+
+	@Override
+	public long getExecutionCount(String component) {
+		TimingHistogram histogram = executionTimes.get(component);
+		return histogram == null ? 0 : histogram.getCount();
+	}
+
+	@Override
+	public double getExecutionPercentile(String component, double percentile) {
+		TimingHistogram histogram = executionTimes.get(component);
+		return histogram == null ? 0 : histogram.getPercentileMs(percentile);
+	}
+
+	@Override
+	public long getRollbackCount(String component) {
+		AtomicLong counter = rollbacks.get(component);
+		return counter == null ? 0 : counter.get();
+	}
+
+	@Override
+	public double getQueueWaitPercentile(String queue, double percentile) {
+		TimingHistogram histogram = queueWaitTimes.get(queue);
+		return histogram == null ? 0 : histogram.getPercentileMs(percentile);
+	}
+
+	@Override
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		for (String name : getComponentNames()) {
+			TimingHistogram histogram = executionTimes.get(name);
+			report.append(name).append(": ");
+			report.append(histogram == null ? "count=0" : histogram.toString());
+			report.append(", rollbacks=").append(getRollbackCount(name)).append("\n");
+		}
+		for (String name : getQueueNames()) {
+			report.append("queue ").append(name).append(": ").append(queueWaitTimes.get(name)).append("\n");
+		}
+		return report.toString();
+	}
+
+	@Override
+	public void reset() {
+		executionTimes.clear();
+		rollbacks.clear();
+		queueWaitTimes.clear();
+	}
+
+	private static TimingHistogram getHistogram(ConcurrentMap<String, TimingHistogram> histograms, String name) {
+		TimingHistogram histogram = histograms.get(name);
+		if (histogram == null) {
+			histograms.putIfAbsent(name, new TimingHistogram());
+			histogram = histograms.get(name);
+		}
+		return histogram;
+	}
+
+	private static String getName(ProcessComponent component) {
+		String name = component.getClass().getSimpleName();
+		if (name.isEmpty()) {
+			// anonymous class
+			name = component.getClass().getName();
+		}
+		return name;
+	}
+}
@@ -0,0 +1,43 @@
+package org.hive2hive.core.processes.framework.metrics;
+
+/**
+ * Management interface of the {@link ProcessMetrics}, registered at the platform MBean server as
+ * <code>org.hive2hive.core:type=ProcessMetrics</code>. All durations are in milliseconds.
+ *
+ * @author Nico
+ *
+ */
+public interface ProcessMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return the names of the process components that have been executed at least once
+	 */
+	String[] getComponentNames();
+
+	/**
+	 * @return the names of the queues that have been waited for at least once
+	 */
+	String[] getQueueNames();
+
+	long getExecutionCount(String component);
+
+	double getExecutionPercentile(String component, double percentile);
+
+	long getRollbackCount(String component);
+
+	double getQueueWaitPercentile(String queue, double percentile);
+
+	/**
+	 * @return a human readable summary of all metrics
+	 */
+	String getReport();
+
+	/**
+	 * Removes all recorded metrics
+	 */
+	void reset();
+}
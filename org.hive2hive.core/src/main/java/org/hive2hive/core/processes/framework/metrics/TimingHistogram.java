@@ -0,0 +1,98 @@
+package org.hive2hive.core.processes.framework.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations. The durations are counted in buckets with exponentially growing bounds
+ * (powers of two in microseconds), thus the percentiles are approximations with a relative error of at most
+ * factor two. This is precise enough to find out where the time is spent, but cheap to record.
+ *
+ * @author Nico
+ *
+ */
+public class TimingHistogram {
+
+	// bucket i counts the durations in [2^(i-1), 2^i) microseconds; the last bucket has no upper bound
+	private static final int NUM_OF_BUCKETS = 40;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_OF_BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Records a duration
+	 *
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+
+		long micros = nanos / 1000;
+		int bucket = Math.min(NUM_OF_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		buckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return the mean duration in milliseconds
+	 */
+	public double getMeanMs() {
+		long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+		return totalNanos.get() / (n * 1000000.0);
+	}
+
+	/**
+	 * @return the maximum duration in milliseconds
+	 */
+	public double getMaxMs() {
+		return maxNanos.get() / 1000000.0;
+	}
+
+	/**
+	 * Approximates a percentile by the upper bound of the bucket it falls into (at most the maximum).
+	 *
+	 * @param percentile the percentile between 0 and 100
+	 * @return the approximated duration in milliseconds
+	 */
+	public double getPercentileMs(double percentile) {
+		long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(n * Math.max(0, Math.min(100, percentile)) / 100.0);
+		long seen = 0;
+		for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank && seen > 0) {
+				double upperBoundMs = (1L << i) / 1000.0;
+				return Math.min(upperBoundMs, getMaxMs());
+			}
+		}
+		return getMaxMs();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.2fms, p50=%.2fms, p95=%.2fms, p99=%.2fms, max=%.2fms",
+				getCount(), getMeanMs(), getPercentileMs(50), getPercentileMs(95), getPercentileMs(99),
+				getMaxMs());
+	}
+}
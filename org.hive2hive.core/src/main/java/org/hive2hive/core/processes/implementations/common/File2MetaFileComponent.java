@@ -25,20 +25,37 @@ public class File2MetaFileComponent extends SequentialProcess {
 	public File2MetaFileComponent(File file, IProvideMetaFile metaContext,
 			IProvideProtectionKeys protectionContext, NetworkManager networkManager)
 			throws NoSessionException, NoPeerConnectionException {
+		this(file, metaContext, protectionContext, networkManager, false);
+	}
+
+	/**
+	 * @param loadHistory whether the pages with the old versions of the meta file should be loaded as well
+	 */
+	public File2MetaFileComponent(File file, IProvideMetaFile metaContext,
+			IProvideProtectionKeys protectionContext, NetworkManager networkManager, boolean loadHistory)
+			throws NoSessionException, NoPeerConnectionException {
 		File2MetaContext file2MetaContext = new File2MetaContext();
 		// first get the file keys, then get the meta file and protection keys
 		add(new GetFileKeysStep(file, protectionContext, file2MetaContext, networkManager.getSession()));
-		add(new GetMetaFileStep(file2MetaContext, metaContext, networkManager.getDataManager()));
+		add(new GetMetaFileStep(file2MetaContext, metaContext, networkManager.getDataManager(), loadHistory));
 	}
 
 	public File2MetaFileComponent(Index fileNode, IProvideMetaFile metaContext,
 			IProvideProtectionKeys protectionContext, IDataManager dataManager) {
+		this(fileNode, metaContext, protectionContext, dataManager, false);
+	}
+
+	/**
+	 * @param loadHistory whether the pages with the old versions of the meta file should be loaded as well
+	 */
+	public File2MetaFileComponent(Index fileNode, IProvideMetaFile metaContext,
+			IProvideProtectionKeys protectionContext, IDataManager dataManager, boolean loadHistory) {
 		// already fill the context because the index is already present
 		File2MetaContext file2MetaContext = new File2MetaContext();
 		protectionContext.provideProtectionKeys(fileNode.getProtectionKeys());
 		file2MetaContext.provideKeyPair(fileNode.getFileKeys());
 
-		add(new GetMetaFileStep(file2MetaContext, metaContext, dataManager));
+		add(new GetMetaFileStep(file2MetaContext, metaContext, dataManager, loadHistory));
 	}
 
 	private class File2MetaContext implements IProvideKeyPair, IConsumeKeyPair {
@@ -3,16 +3,25 @@ package org.hive2hive.core.processes.implementations.common;
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.KeyPair;
+import java.util.NavigableMap;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 
+import net.tomp2p.peers.Number160;
+import net.tomp2p.peers.Number640;
+
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
+import org.hive2hive.core.model.MetaFileSmall;
 import org.hive2hive.core.model.NetworkContent;
 import org.hive2hive.core.network.data.IDataManager;
+import org.hive2hive.core.network.data.MetaFileCache;
+import org.hive2hive.core.network.data.parameters.Parameters;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.implementations.common.base.BaseGetProcessStep;
@@ -24,7 +33,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Gets a {@link MetaFile} from the DHT and decrypts it.
+ * Gets a {@link MetaFile} from the DHT and decrypts it. If the meta file is in the {@link MetaFileCache}, only
+ * the digest is fetched to verify that the cached meta file is still the latest version.
  * 
  * @author Nico
  * 
@@ -35,25 +45,51 @@ public class GetMetaFileStep extends BaseGetProcessStep {
 
 	private final IConsumeKeyPair keyContext;
 	private final IProvideMetaFile metaContext;
+	private final IDataManager dataManager;
+	private final boolean loadHistory;
 
 	public GetMetaFileStep(IConsumeKeyPair keyContext, IProvideMetaFile metaContext, IDataManager dataManager) {
+		this(keyContext, metaContext, dataManager, false);
+	}
+
+	/**
+	 * @param loadHistory whether the pages with the old versions should be loaded as well. This is only
+	 *            necessary if not only the newest versions are of interest. The step fails if a page cannot
+	 *            be loaded, since the history would be incomplete.
+	 */
+	public GetMetaFileStep(IConsumeKeyPair keyContext, IProvideMetaFile metaContext, IDataManager dataManager,
+			boolean loadHistory) {
 		super(dataManager);
 		this.keyContext = keyContext;
 		this.metaContext = metaContext;
+		this.dataManager = dataManager;
+		this.loadHistory = loadHistory;
 	}
 
 	@Override
 	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
 		KeyPair keyPair = keyContext.consumeKeyPair();
-		NetworkContent loadedContent = get(keyPair.getPublic(), H2HConstants.META_FILE);
 
-		if (loadedContent == null) {
-			logger.warn("Meta file not found.");
-			throw new ProcessExecutionException("Meta file not found.");
+		MetaFileCache.Entry cached = getFromCache(keyPair);
+		MetaFile metaFile;
+		HybridEncryptedContent encryptedContent;
+		if (cached != null) {
+			try {
+				metaFile = cached.getMetaFile();
+			} catch (ClassNotFoundException | IOException e) {
+				throw new ProcessExecutionException("Cached meta file could not be deserialized.", e);
+			}
+			encryptedContent = cached.getEncryptedMetaFile();
+			logger.debug("Meta file is unchanged, using the cached one.");
 		} else {
+			NetworkContent loadedContent = get(keyPair.getPublic(), H2HConstants.META_FILE);
+			if (loadedContent == null) {
+				logger.warn("Meta file not found.");
+				throw new ProcessExecutionException("Meta file not found.");
+			}
 
 			// decrypt meta document
-			HybridEncryptedContent encryptedContent = (HybridEncryptedContent) loadedContent;
+			encryptedContent = (HybridEncryptedContent) loadedContent;
 
 			NetworkContent decryptedContent = null;
 			try {
@@ -64,13 +100,70 @@ public class GetMetaFileStep extends BaseGetProcessStep {
 				throw new ProcessExecutionException("Meta file could not be decrypted.", e);
 			}
 
-			MetaFile metaFile = (MetaFile) decryptedContent;
+			metaFile = (MetaFile) decryptedContent;
 			metaFile.setVersionKey(loadedContent.getVersionKey());
 			metaFile.setBasedOnKey(loadedContent.getBasedOnKey());
 
-			metaContext.provideMetaFile(metaFile);
-			metaContext.provideEncryptedMetaFile(encryptedContent);
+			try {
+				dataManager.getMetaFileCache().put(metaFile, encryptedContent);
+			} catch (IOException e) {
+				logger.warn("Could not cache the meta file.", e);
+			}
 			logger.debug("Got and decrypted the meta file.");
 		}
+
+		if (loadHistory && metaFile.isSmall()) {
+			loadPages((MetaFileSmall) metaFile, keyPair);
+		}
+
+		metaContext.provideMetaFile(metaFile);
+		metaContext.provideEncryptedMetaFile(encryptedContent);
+	}
+
+	/**
+	 * Fetches the digest of the meta file and returns the cached meta file if it is still the latest version.
+	 * 
+	 * @return the cached meta file or <code>null</code> if it needs to be fetched
+	 */
+	private MetaFileCache.Entry getFromCache(KeyPair keyPair) {
+		MetaFileCache cache = dataManager.getMetaFileCache();
+		if (!cache.contains(keyPair.getPublic())) {
+			// no need for a digest
+			return null;
+		}
+
+		Parameters parameters = new Parameters().setLocationKey(H2HEncryptionUtil.key2String(keyPair.getPublic()))
+				.setContentKey(H2HConstants.META_FILE);
+		NavigableMap<Number640, Number160> digest = dataManager.getDigest(parameters);
+		if (digest == null || digest.isEmpty()) {
+			return null;
+		}
+
+		// the latest version is the last entry
+		return cache.get(keyPair.getPublic(), digest.lastEntry().getKey().getVersionKey());
+	}
+
+	private void loadPages(MetaFileSmall metaFile, KeyPair keyPair) throws InvalidProcessStateException,
+			ProcessExecutionException {
+		for (MetaFilePageInfo pageInfo : metaFile.getPages()) {
+			NetworkContent loadedPage = get(keyPair.getPublic(), MetaFilePage.getContentKey(pageInfo.getNumber()));
+			if (loadedPage == null) {
+				// the callers would miss the chunks of these versions (e.g. to delete or re-protect them)
+				throw new ProcessExecutionException(String.format("Page %s of the meta file not found.",
+						pageInfo.getNumber()));
+			}
+
+			try {
+				MetaFilePage page = (MetaFilePage) H2HEncryptionUtil.decryptHybrid(
+						(HybridEncryptedContent) loadedPage, keyPair.getPrivate());
+				metaFile.setLoadedPage(page);
+			} catch (InvalidKeyException | DataLengthException | IllegalBlockSizeException
+					| BadPaddingException | IllegalStateException | InvalidCipherTextException
+					| ClassNotFoundException | IOException e) {
+				throw new ProcessExecutionException("Page of the meta file could not be decrypted.", e);
+			}
+		}
+
+		logger.debug("Loaded {} pages of old versions.", metaFile.getPages().size());
 	}
 }
@@ -11,6 +11,7 @@ import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.exceptions.PutFailedException;
+import org.hive2hive.core.file.PutLog;
 import org.hive2hive.core.model.MetaFile;
 import org.hive2hive.core.model.MetaFileSmall;
 import org.hive2hive.core.network.data.IDataManager;
@@ -35,10 +36,21 @@ public class PutMetaFileStep extends BasePutProcessStep {
 	private static final Logger logger = LoggerFactory.getLogger(PutMetaFileStep.class);
 
 	private final AddFileProcessContext context;
+	private final IDataManager dataManager;
+	private final PutLog putLog;
 
 	public PutMetaFileStep(AddFileProcessContext context, IDataManager dataManager) {
+		this(context, dataManager, null);
+	}
+
+	/**
+	 * @param putLog the log to record the meta file for the orphan collection (can be <code>null</code>)
+	 */
+	public PutMetaFileStep(AddFileProcessContext context, IDataManager dataManager, PutLog putLog) {
 		super(dataManager);
 		this.context = context;
+		this.dataManager = dataManager;
+		this.putLog = putLog;
 	}
 
 	@Override
@@ -58,11 +70,20 @@ public class PutMetaFileStep extends BasePutProcessStep {
 					.setData(encrypted).setProtectionKeys(protectionKeys).setTTL(metaFile.getTimeToLive());
 			// data manager has to produce the hash, which gets used for signing
 			parameters.setHashFlag(true);
+
+			if (putLog != null) {
+				// record it before the put, such that it can be found if the process is interrupted
+				putLog.put(parameters.getLocationKey(), H2HConstants.META_FILE, protectionKeys);
+			}
+
 			// put the encrypted meta file into the network
 			put(parameters);
 			// store the hash
 			context.provideHash(parameters.getHash());
 
+			// the next get of this meta file can be served from the cache
+			dataManager.getMetaFileCache().put(metaFile, encrypted);
+
 		} catch (IOException | DataLengthException | InvalidKeyException | IllegalStateException
 				| InvalidCipherTextException | IllegalBlockSizeException | BadPaddingException e) {
 			throw new ProcessExecutionException("Meta file could not be encrypted.", e);
@@ -77,5 +98,11 @@ public class PutMetaFileStep extends BasePutProcessStep {
 
 		// remove provided hash
 		context.provideHash(null);
+
+		// the cached meta file is not stored anymore
+		MetaFile metaFile = context.consumeMetaFile();
+		if (metaFile != null) {
+			dataManager.getMetaFileCache().remove(metaFile.getId());
+		}
 	}
 }
@@ -6,7 +6,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import org.bouncycastle.crypto.digests.MD5Digest;
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.model.Chunk;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.model.MetaFile;
@@ -42,6 +44,15 @@ public class AddFileProcessContext implements IProvideHash, IConsumeNotification
 
 	private boolean largeFile;
 
+	// the MD5 hash of the file, calculated while reading the chunks
+	private MD5Digest contentDigest;
+	// the part of the current block which has not been digested yet
+	private byte[] block;
+	private int blockLength;
+	private int digestedChunks;
+	private int expectedChunks;
+	private byte[] md5;
+
 	public AddFileProcessContext(File file) {
 		this.file = file;
 	}
@@ -76,6 +87,79 @@ public class AddFileProcessContext implements IProvideHash, IConsumeNotification
 		return chunkEncryptionKeys;
 	}
 
+	/**
+	 * Starts calculating the MD5 hash of the file from its chunks. The hash is only available if all chunks
+	 * are digested in their order (see {@link #digestChunk(Chunk)}).
+	 * 
+	 * @param chunks the number of chunks of the file
+	 */
+	public synchronized void startDigest(int chunks) {
+		contentDigest = new MD5Digest();
+		block = new byte[H2HConstants.MD5_BLOCK_SIZE];
+		blockLength = 0;
+		digestedChunks = 0;
+		expectedChunks = chunks;
+		md5 = null;
+		finishDigest();
+	}
+
+	/**
+	 * Adds a chunk to the MD5 hash of the file. A chunk out of order stops the calculation.
+	 */
+	public synchronized void digestChunk(Chunk chunk) {
+		if (contentDigest == null) {
+			return;
+		} else if (chunk.getOrder() != digestedChunks) {
+			// cannot be hashed in the same pass, the file needs to be read again
+			contentDigest = null;
+			return;
+		}
+
+		// digest in the same blocks as when hashing the file on disk, the chunks do not need to be aligned
+		byte[] data = chunk.getData();
+		int offset = 0;
+		while (offset < data.length) {
+			int length = Math.min(block.length - blockLength, data.length - offset);
+			System.arraycopy(data, offset, block, blockLength, length);
+			blockLength += length;
+			offset += length;
+			if (blockLength == block.length) {
+				digestBlock();
+			}
+		}
+
+		digestedChunks++;
+		finishDigest();
+	}
+
+	/**
+	 * Digests the current block twice, like {@link EncryptionUtil#generateMD5Hash(File)}
+	 */
+	private void digestBlock() {
+		contentDigest.update(block, 0, blockLength);
+		contentDigest.update(block, 0, blockLength);
+		blockLength = 0;
+	}
+
+	private void finishDigest() {
+		if (digestedChunks == expectedChunks) {
+			if (blockLength > 0) {
+				digestBlock();
+			}
+			md5 = new byte[contentDigest.getDigestSize()];
+			contentDigest.doFinal(md5, 0);
+			contentDigest = null;
+		}
+	}
+
+	/**
+	 * @return the MD5 hash of the uploaded content or <code>null</code> if it has not been calculated while
+	 *         reading the chunks
+	 */
+	public synchronized byte[] consumeMD5() {
+		return md5;
+	}
+
 	public MetaFile consumeMetaFile() {
 		return metaFile;
 	}
@@ -0,0 +1,54 @@
+package org.hive2hive.core.processes.implementations.context;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.implementations.files.bulk.BulkFileEntry;
+
+/**
+ * The context of an operation on multiple files at once. The files are processed in the order they have been
+ * added.
+ *
+ * @author Nico
+ */
+public class BulkFileProcessContext {
+
+	private final List<BulkFileEntry> entries = new ArrayList<BulkFileEntry>();
+
+	public void addEntry(BulkFileEntry entry) {
+		entries.add(entry);
+	}
+
+	public List<BulkFileEntry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * @return the entries that did not fail (yet)
+	 */
+	public List<BulkFileEntry> getPendingEntries() {
+		List<BulkFileEntry> pending = new ArrayList<BulkFileEntry>();
+		for (BulkFileEntry entry : entries) {
+			if (!entry.isFailed()) {
+				pending.add(entry);
+			}
+		}
+		return pending;
+	}
+
+	/**
+	 * @return the result of every file: {@link ProcessState#SUCCEEDED} or {@link ProcessState#FAILED}
+	 */
+	public Map<File, ProcessState> getResults() {
+		Map<File, ProcessState> results = new LinkedHashMap<File, ProcessState>();
+		for (BulkFileEntry entry : entries) {
+			results.put(entry.getFile(), entry.isFailed() ? ProcessState.FAILED : ProcessState.SUCCEEDED);
+		}
+		return results;
+	}
+}
@@ -0,0 +1,56 @@
+package org.hive2hive.core.processes.implementations.context;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+
+import net.tomp2p.peers.Number160;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.TimeToLiveStore;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+
+/**
+ * Provides the required context to update a page of old versions of a meta file
+ * 
+ * @author Nico
+ */
+public class MetaFilePagePKUpdateContext extends BasePKUpdateContext {
+
+	private final PublicKey fileKey;
+	private final MetaFilePageInfo pageInfo;
+
+	public MetaFilePagePKUpdateContext(KeyPair oldProtectionKeys, KeyPair newProtectionKeys, PublicKey fileKey,
+			MetaFilePageInfo pageInfo) {
+		super(oldProtectionKeys, newProtectionKeys);
+		this.fileKey = fileKey;
+		this.pageInfo = pageInfo;
+	}
+
+	@Override
+	public String getLocationKey() {
+		return H2HEncryptionUtil.key2String(fileKey);
+	}
+
+	@Override
+	public String getContentKey() {
+		return MetaFilePage.getContentKey(pageInfo.getNumber());
+	}
+
+	@Override
+	public int getTTL() {
+		return TimeToLiveStore.getInstance().getMetaFile();
+	}
+
+	@Override
+	public byte[] getHash() {
+		return pageInfo.getHash();
+	}
+
+	@Override
+	public Number160 getVersionKey() {
+		return H2HConstants.TOMP2P_DEFAULT_KEY;
+	}
+
+}
@@ -5,12 +5,22 @@ import java.security.KeyPair;
 import java.util.List;
 
 import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
 import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.processes.implementations.context.interfaces.IConsumeKeyPair;
+import org.hive2hive.core.processes.implementations.context.interfaces.IProvideKeyPair;
 
-public class UpdateFileProcessContext extends AddFileProcessContext {
+public class UpdateFileProcessContext extends AddFileProcessContext implements IProvideKeyPair, IConsumeKeyPair {
 
 	// the chunk keys to delete (if the configuration does not allow as many or as big chunks as existent)
 	private List<MetaChunk> chunksToDelete;
+	// the pages of old versions to delete (including their chunks)
+	private List<MetaFilePageInfo> pagesToDelete;
+	// the page of old versions which has been split from the meta file
+	private MetaFilePage newMetaFilePage;
+	// the keys of the meta file
+	private KeyPair fileKeys;
 
 	public UpdateFileProcessContext(File file) {
 		super(file);
@@ -24,6 +34,32 @@ public class UpdateFileProcessContext extends AddFileProcessContext {
 		this.chunksToDelete = chunksToDelete;
 	}
 
+	public List<MetaFilePageInfo> getPagesToDelete() {
+		return pagesToDelete;
+	}
+
+	public void setPagesToDelete(List<MetaFilePageInfo> pagesToDelete) {
+		this.pagesToDelete = pagesToDelete;
+	}
+
+	public MetaFilePage getNewMetaFilePage() {
+		return newMetaFilePage;
+	}
+
+	public void setNewMetaFilePage(MetaFilePage newMetaFilePage) {
+		this.newMetaFilePage = newMetaFilePage;
+	}
+
+	@Override
+	public void provideKeyPair(KeyPair keyPair) {
+		this.fileKeys = keyPair;
+	}
+
+	@Override
+	public KeyPair consumeKeyPair() {
+		return fileKeys;
+	}
+
 	@Override
 	public KeyPair consumeChunkKeys() {
 		return ((MetaFileSmall) consumeMetaFile()).getChunkKey();
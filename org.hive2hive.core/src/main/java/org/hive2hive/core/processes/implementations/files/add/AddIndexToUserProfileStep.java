@@ -18,16 +18,18 @@ import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.implementations.context.AddFileProcessContext;
+import org.hive2hive.core.processes.implementations.files.bulk.IUserProfileModification;
 import org.hive2hive.core.security.EncryptionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A step adding the new file (node) into the user profile (tree)
+ * A step adding the new file (node) into the user profile (tree). The modification can also be applied
+ * together with others (see {@link IUserProfileModification}).
  * 
  * @author Nico, Seppi
  */
-public class AddIndexToUserProfileStep extends ProcessStep {
+public class AddIndexToUserProfileStep extends ProcessStep implements IUserProfileModification {
 
 	private static final Logger logger = LoggerFactory.getLogger(AddIndexToUserProfileStep.class);
 
@@ -35,6 +37,8 @@ public class AddIndexToUserProfileStep extends ProcessStep {
 	private final UserProfileManager profileManager;
 	private final Path root;
 
+	private KeyPair metaKeys;
+	private byte[] md5;
 	private PublicKey parentKey; // used for rollback
 	private boolean modified = false;
 
@@ -46,45 +50,61 @@ public class AddIndexToUserProfileStep extends ProcessStep {
 
 	@Override
 	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		prepareModification();
+
+		logger.trace("Start updating the user profile where adding the file '{}'.", context.getFile().getName());
+		try {
+			UserProfile userProfile = profileManager.getUserProfile(getID(), true);
+			modify(userProfile);
+
+			// put the updated user profile
+			profileManager.readyToPut(userProfile, getID());
+			modified = true;
+		} catch (PutFailedException | GetFailedException e) {
+			throw new ProcessExecutionException(e);
+		}
+	}
+
+	@Override
+	public void prepareModification() throws ProcessExecutionException {
 		File file = context.getFile();
 
 		// pre-calculate the meta keys because this may take a while
-		KeyPair metaKeys = context.generateOrGetMetaKeys();
+		metaKeys = context.generateOrGetMetaKeys();
 
-		// pre-calculate the md5 hash because this may take a while
-		byte[] md5 = null;
+		// pre-calculate the md5 hash because this may take a while (if not yet done while uploading)
 		if (file.isFile()) {
-			md5 = calculateHash(file);
+			md5 = context.consumeMD5();
+			if (md5 == null) {
+				md5 = calculateHash(file);
+			}
 		}
+	}
 
-		logger.trace("Start updating the user profile where adding the file '{}'.", file.getName());
-		try {
-			UserProfile userProfile = profileManager.getUserProfile(getID(), true);
-
-			// find the parent node using the relative path to navigate there
-			FolderIndex parentNode = (FolderIndex) userProfile.getFileByPath(file.getParentFile(), root);
+	@Override
+	public void modify(UserProfile userProfile) throws ProcessExecutionException {
+		File file = context.getFile();
 
-			// validate the write protection
-			if (!parentNode.canWrite()) {
-				throw new ProcessExecutionException("This directory is write protected (and we don't have the keys).");
-			}
+		// find the parent node using the relative path to navigate there
+		FolderIndex parentNode = (FolderIndex) userProfile.getFileByPath(file.getParentFile(), root);
 
-			// create a file tree node in the user profile
-			parentKey = parentNode.getFilePublicKey();
-			// use the file keys generated above is stored
-			if (file.isDirectory()) {
-				FolderIndex folderIndex = new FolderIndex(parentNode, metaKeys, file.getName());
-				context.provideIndex(folderIndex);
-			} else {
-				FileIndex fileIndex = new FileIndex(parentNode, metaKeys, file.getName(), md5);
-				context.provideIndex(fileIndex);
-			}
+		// validate the parent and the write protection
+		if (parentNode == null) {
+			throw new ProcessExecutionException(String.format("The parent of file '%s' is not in the user profile.",
+					file.getName()));
+		} else if (!parentNode.canWrite()) {
+			throw new ProcessExecutionException("This directory is write protected (and we don't have the keys).");
+		}
 
-			// put the updated user profile
-			profileManager.readyToPut(userProfile, getID());
-			modified = true;
-		} catch (PutFailedException | GetFailedException e) {
-			throw new ProcessExecutionException(e);
+		// create a file tree node in the user profile
+		parentKey = parentNode.getFilePublicKey();
+		// use the file keys generated above is stored
+		if (file.isDirectory()) {
+			FolderIndex folderIndex = new FolderIndex(parentNode, metaKeys, file.getName());
+			context.provideIndex(folderIndex);
+		} else {
+			FileIndex fileIndex = new FileIndex(parentNode, metaKeys, file.getName(), md5);
+			context.provideIndex(fileIndex);
 		}
 	}
 
@@ -108,9 +128,7 @@ public class AddIndexToUserProfileStep extends ProcessStep {
 			} catch (GetFailedException e) {
 				return;
 			}
-			FolderIndex parentNode = (FolderIndex) userProfile.getFileById(parentKey);
-			Index childNode = parentNode.getChildByName(context.getFile().getName());
-			parentNode.removeChild(childNode);
+			undoModification(userProfile);
 			try {
 				profileManager.readyToPut(userProfile, getID());
 				modified = false;
@@ -119,4 +137,13 @@ public class AddIndexToUserProfileStep extends ProcessStep {
 			}
 		}
 	}
+
+	@Override
+	public void undoModification(UserProfile userProfile) {
+		FolderIndex parentNode = (FolderIndex) userProfile.getFileById(parentKey);
+		if (parentNode != null) {
+			Index childNode = parentNode.getChildByName(context.getFile().getName());
+			parentNode.removeChild(childNode);
+		}
+	}
 }
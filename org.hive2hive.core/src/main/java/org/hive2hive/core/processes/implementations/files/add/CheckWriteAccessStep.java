@@ -50,8 +50,19 @@ public class CheckWriteAccessStep extends ProcessStep {
 			throw new ProcessExecutionException(e);
 		}
 
-		// find the parent node using the relative path to navigate there
-		FolderIndex parentNode = (FolderIndex) userProfile.getFileByPath(file.getParentFile(), root);
+		// find the parent node using the relative path to navigate there. If the parent is not added yet (it
+		// is added in the same bulk operation), the file gets the protection of the nearest existing ancestor
+		File parent = file.getParentFile();
+		FolderIndex parentNode = (FolderIndex) userProfile.getFileByPath(parent, root);
+		while (parentNode == null && parent != null && !parent.toPath().equals(root)) {
+			parent = parent.getParentFile();
+			parentNode = (FolderIndex) userProfile.getFileByPath(parent, root);
+		}
+
+		if (parentNode == null) {
+			throw new ProcessExecutionException(String.format("The parent of file '%s' is not in the user profile.",
+					file.getName()));
+		}
 
 		// validate the write protection
 		if (!parentNode.canWrite()) {
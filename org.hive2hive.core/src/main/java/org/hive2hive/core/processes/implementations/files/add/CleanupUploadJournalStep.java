@@ -0,0 +1,86 @@
+package org.hive2hive.core.processes.implementations.files.add;
+
+import java.io.File;
+import java.security.KeyPair;
+import java.util.List;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.file.UploadJournal;
+import org.hive2hive.core.file.UploadJournalEntry;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.data.IDataManager;
+import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removes the chunks of unfinished uploads that cannot be continued anymore because the file has been
+ * deleted or modified in the meantime. Uploads of unchanged files are kept in the {@link UploadJournal}, such
+ * that the synchronization continues them.
+ *
+ * @author Nico
+ */
+public class CleanupUploadJournalStep extends ProcessStep {
+
+	private static final Logger logger = LoggerFactory.getLogger(CleanupUploadJournalStep.class);
+
+	private final NetworkManager networkManager;
+
+	public CleanupUploadJournalStep(NetworkManager networkManager) {
+		this.networkManager = networkManager;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		UploadJournal journal;
+		int chunkSize;
+		IDataManager dataManager;
+		try {
+			journal = networkManager.getSession().getUploadJournal();
+			chunkSize = networkManager.getSession().getFileConfiguration().getChunkSize();
+			dataManager = networkManager.getDataManager();
+		} catch (NoSessionException | NoPeerConnectionException e) {
+			throw new ProcessExecutionException(e);
+		}
+
+		if (journal == null) {
+			return;
+		}
+
+		for (UploadJournalEntry entry : journal.getEntries()) {
+			File file = journal.getFile(entry);
+			if (entry.isResumable(file, chunkSize, null, null)) {
+				logger.debug("Upload of file '{}' will be continued with {} uploaded chunks.", file.getName(),
+						entry.getCompletedChunks().size());
+			} else {
+				logger.debug("File '{}' changed since its upload was interrupted. Removing {} orphaned chunks.",
+						file.getName(), entry.getCompletedChunks().size());
+				removeChunks(entry.getCompletedChunks(), entry.getProtectionKeys(), dataManager);
+				journal.remove(entry.getPath());
+			}
+		}
+	}
+
+	/**
+	 * Removes uploaded chunks from the network (best effort).
+	 *
+	 * @param metaChunks the chunks to remove
+	 * @param protectionKeys the keys the chunks are protected with
+	 * @param dataManager the data manager
+	 */
+	public static void removeChunks(List<MetaChunk> metaChunks, KeyPair protectionKeys, IDataManager dataManager) {
+		for (MetaChunk metaChunk : metaChunks) {
+			Parameters parameters = new Parameters().setLocationKey(metaChunk.getChunkId())
+					.setContentKey(H2HConstants.FILE_CHUNK).setProtectionKeys(protectionKeys);
+			if (!dataManager.remove(parameters)) {
+				logger.warn("Could not remove orphaned chunk {}.", metaChunk.getChunkId());
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package org.hive2hive.core.processes.implementations.files.add;
+
+import org.hive2hive.core.file.UploadJournal;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.context.AddFileProcessContext;
+
+/**
+ * Removes the upload from the {@link UploadJournal} as soon as the uploaded chunks are referenced by the meta
+ * file and the user profile.
+ *
+ * @author Nico
+ */
+public class CompleteUploadJournalStep extends ProcessStep {
+
+	private final AddFileProcessContext context;
+	private final UploadJournal journal;
+
+	public CompleteUploadJournalStep(AddFileProcessContext context, UploadJournal journal) {
+		this.context = context;
+		this.journal = journal;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		journal.remove(context.getFile());
+	}
+}
@@ -3,14 +3,22 @@ package org.hive2hive.core.processes.implementations.files.add;
 import java.io.File;
 import java.io.IOException;
 import java.security.KeyPair;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
 import org.hive2hive.core.file.FileChunkUtil;
+import org.hive2hive.core.file.ChunkCache;
+import org.hive2hive.core.file.PutLog;
+import org.hive2hive.core.file.UploadJournal;
+import org.hive2hive.core.file.UploadJournalEntry;
 import org.hive2hive.core.model.Chunk;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.network.data.IDataManager;
+import org.hive2hive.core.processes.framework.RollbackReason;
 import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
 import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
@@ -31,12 +39,32 @@ public class InitializeChunksStep extends ProcessStep {
 	private final AddFileProcessContext context;
 	private final IFileConfiguration config;
 	private final IDataManager dataManager;
+	private final UploadJournal journal;
+	private final ChunkCache chunkCache;
+	private final PutLog putLog;
+
+	// the chunks of an interrupted upload that are reused
+	private List<MetaChunk> resumedChunks;
 
 	public InitializeChunksStep(AddFileProcessContext context, IDataManager dataManager,
 			IFileConfiguration config) {
+		this(context, dataManager, config, null, null, null);
+	}
+
+	/**
+	 * @param journal the journal to continue interrupted uploads and to record the uploaded chunks (can be
+	 *            <code>null</code>)
+	 * @param chunkCache the cache to add the uploaded chunks to (can be <code>null</code>)
+	 * @param putLog the log to record the uploaded chunks for the orphan collection (can be <code>null</code>)
+	 */
+	public InitializeChunksStep(AddFileProcessContext context, IDataManager dataManager,
+			IFileConfiguration config, UploadJournal journal, ChunkCache chunkCache, PutLog putLog) {
 		this.context = context;
 		this.dataManager = dataManager;
 		this.config = config;
+		this.journal = journal;
+		this.chunkCache = chunkCache;
+		this.putLog = putLog;
 	}
 
 	@Override
@@ -54,7 +82,9 @@ public class InitializeChunksStep extends ProcessStep {
 		}
 	}
 
-	private void initSmallFile(File file) {
+	private void initSmallFile(File file) throws ProcessExecutionException {
+		Set<Integer> uploaded = resumeUpload(file);
+
 		if (context.consumeChunkKeys() == null) {
 			logger.trace("Create chunk keys for the file '{}'.", file.getName());
 			// create and provide chunk keys
@@ -62,13 +92,33 @@ public class InitializeChunksStep extends ProcessStep {
 			context.provideChunkKeys(chunkKeys);
 		}
 
+		if (journal != null && resumedChunks == null) {
+			try {
+				journal.begin(file, config.getChunkSize(), context.consumeChunkKeys(),
+						context.consumeProtectionKeys());
+			} catch (IOException e) {
+				throw new ProcessExecutionException("Cannot record the upload in the journal.", e);
+			}
+		}
+
 		// create put chunks steps
 		int chunks = FileChunkUtil.getNumberOfChunks(file, config.getChunkSize());
 		logger.trace("{} chunks to upload for file '{}'.", Integer.toString(chunks), file.getName());
+		if (uploaded.isEmpty()) {
+			// hash the file while reading its chunks for the upload
+			context.startDigest(chunks);
+		}
+
 		ProcessComponent prev = this;
 		for (int i = 0; i < chunks; i++) {
+			if (uploaded.contains(i)) {
+				// already uploaded before the interruption
+				continue;
+			}
+
 			String chunkId = UUID.randomUUID().toString();
-			PutSingleChunkStep putChunkStep = new PutSingleChunkStep(context, i, chunkId, dataManager, config);
+			PutSingleChunkStep putChunkStep = new PutSingleChunkStep(context, i, chunkId, dataManager, config,
+					journal, chunkCache, putLog);
 
 			// insert just after this step
 			getParent().insertNext(putChunkStep, prev);
@@ -76,12 +126,49 @@ public class InitializeChunksStep extends ProcessStep {
 		}
 	}
 
+	/**
+	 * Continues an interrupted upload of the same file, if recorded in the journal.
+	 * 
+	 * @return the indices of the chunks that do not need to be uploaded anymore
+	 */
+	private Set<Integer> resumeUpload(File file) {
+		Set<Integer> uploaded = new HashSet<Integer>();
+		if (journal == null) {
+			return uploaded;
+		}
+
+		UploadJournalEntry entry = journal.get(file);
+		if (entry == null) {
+			return uploaded;
+		} else if (entry.isResumable(file, config.getChunkSize(), context.consumeChunkKeys(),
+				context.consumeProtectionKeys())) {
+			resumedChunks = entry.getCompletedChunks();
+			logger.debug("Continue the upload of file '{}' after {} uploaded chunks.", file.getName(),
+					resumedChunks.size());
+			context.provideChunkKeys(entry.getChunkKeys());
+			for (MetaChunk metaChunk : resumedChunks) {
+				context.getMetaChunks().add(metaChunk);
+				uploaded.add(metaChunk.getIndex());
+			}
+		} else {
+			// the file changed since the interruption
+			logger.debug("Removing {} orphaned chunks of an outdated upload of file '{}'.", entry
+					.getCompletedChunks().size(), file.getName());
+			CleanupUploadJournalStep.removeChunks(entry.getCompletedChunks(), entry.getProtectionKeys(),
+					dataManager);
+			journal.remove(file);
+		}
+
+		return uploaded;
+	}
+
 	private void initLargeFile(File file) throws ProcessExecutionException {
 		// init the large file chunks
 		int chunks = FileChunkUtil.getNumberOfChunks(file, config.getChunkSize());
 		logger.trace(String.format("%s chunks for large file '%s'.", Integer.toString(chunks), file.getName()));
 
 		// process chunk for chunk, hash it and add the meta information to the context
+		context.startDigest(chunks);
 		for (int i = 0; i < chunks; i++) {
 			String chunkId = UUID.randomUUID().toString();
 			Chunk chunk;
@@ -93,7 +180,23 @@ public class InitializeChunksStep extends ProcessStep {
 			}
 
 			byte[] md5Hash = EncryptionUtil.generateMD5Hash(chunk.getData());
-			context.getMetaChunks().add(new MetaChunk(chunkId, md5Hash, i));
+			context.digestChunk(chunk);
+			context.getMetaChunks().add(new MetaChunk(chunkId, md5Hash, i, md5Hash));
+		}
+	}
+
+	@Override
+	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		if (journal == null || context.getFile().isDirectory()) {
+			return;
+		}
+
+		// the put steps removed their own chunks already, only the reused ones are left
+		if (resumedChunks != null) {
+			CleanupUploadJournalStep.removeChunks(resumedChunks, context.consumeProtectionKeys(), dataManager);
+			context.getMetaChunks().removeAll(resumedChunks);
+			resumedChunks = null;
 		}
+		journal.remove(context.getFile());
 	}
 }
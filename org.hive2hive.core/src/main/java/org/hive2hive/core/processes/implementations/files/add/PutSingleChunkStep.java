@@ -12,7 +12,10 @@ import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
 import org.hive2hive.core.exceptions.PutFailedException;
+import org.hive2hive.core.file.ChunkCache;
 import org.hive2hive.core.file.FileChunkUtil;
+import org.hive2hive.core.file.PutLog;
+import org.hive2hive.core.file.UploadJournal;
 import org.hive2hive.core.model.Chunk;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.network.data.IDataManager;
@@ -21,6 +24,7 @@ import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateExce
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.implementations.common.base.BasePutProcessStep;
 import org.hive2hive.core.processes.implementations.context.AddFileProcessContext;
+import org.hive2hive.core.security.EncryptionUtil;
 import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.hive2hive.core.security.HybridEncryptedContent;
 import org.slf4j.Logger;
@@ -39,14 +43,31 @@ public class PutSingleChunkStep extends BasePutProcessStep {
 	private final AddFileProcessContext context;
 	private final IFileConfiguration config;
 	private final String chunkId;
+	private final UploadJournal journal;
+	private final ChunkCache chunkCache;
+	private final PutLog putLog;
 
 	public PutSingleChunkStep(AddFileProcessContext context, int index, String chunkId,
 			IDataManager dataManager, IFileConfiguration config) {
+		this(context, index, chunkId, dataManager, config, null, null, null);
+	}
+
+	/**
+	 * @param journal the journal to record the uploaded chunk (can be <code>null</code>)
+	 * @param chunkCache the cache to add the uploaded chunk to (can be <code>null</code>)
+	 * @param putLog the log to record the uploaded chunk for the orphan collection (can be <code>null</code>)
+	 */
+	public PutSingleChunkStep(AddFileProcessContext context, int index, String chunkId,
+			IDataManager dataManager, IFileConfiguration config, UploadJournal journal, ChunkCache chunkCache,
+			PutLog putLog) {
 		super(dataManager);
 		this.index = index;
 		this.context = context;
 		this.chunkId = chunkId;
 		this.config = config;
+		this.journal = journal;
+		this.chunkCache = chunkCache;
+		this.putLog = putLog;
 	}
 
 	@Override
@@ -63,6 +84,7 @@ public class PutSingleChunkStep extends BasePutProcessStep {
 		}
 
 		if (chunk != null) {
+			context.digestChunk(chunk);
 			try {
 				// encrypt the chunk prior to put such that nobody can read it
 				HybridEncryptedContent encryptedContent = H2HEncryptionUtil.encryptHybrid(chunk, context
@@ -75,11 +97,29 @@ public class PutSingleChunkStep extends BasePutProcessStep {
 
 				// data manager has to produce the hash, which gets used for signing
 				parameters.setHashFlag(true);
+
+				if (putLog != null) {
+					// record it before the put, such that it can be found if the process is interrupted
+					putLog.put(chunk.getId(), H2HConstants.FILE_CHUNK, parameters.getProtectionKeys());
+				}
+
 				// put the encrypted chunk into the network
 				put(parameters);
 
 				// store the hash in the index of the meta file
-				context.getMetaChunks().add(new MetaChunk(chunkId, parameters.getHash(), index));
+				MetaChunk metaChunk = new MetaChunk(chunkId, parameters.getHash(), index,
+						EncryptionUtil.generateMD5Hash(chunk.getData()));
+				context.getMetaChunks().add(metaChunk);
+
+				if (journal != null) {
+					// the chunk does not need to be uploaded again if the upload is interrupted
+					journal.chunkCompleted(file, metaChunk);
+				}
+
+				if (chunkCache != null) {
+					// chunks are immutable, other clients of this user can take it from the cache
+					chunkCache.put(chunkId, EncryptionUtil.serializeObject(encryptedContent));
+				}
 			} catch (IOException | DataLengthException | InvalidKeyException | IllegalStateException
 					| InvalidCipherTextException | IllegalBlockSizeException | BadPaddingException
 					| PutFailedException e) {
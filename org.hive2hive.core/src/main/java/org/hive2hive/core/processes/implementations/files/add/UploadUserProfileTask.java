@@ -1,7 +1,6 @@
 package org.hive2hive.core.processes.implementations.files.add;
 
 import java.security.PublicKey;
-import java.util.UUID;
 
 import org.hive2hive.core.exceptions.Hive2HiveException;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
@@ -10,15 +9,14 @@ import org.hive2hive.core.model.FileIndex;
 import org.hive2hive.core.model.FolderIndex;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.UserProfile;
-import org.hive2hive.core.network.data.UserProfileManager;
-import org.hive2hive.core.network.userprofiletask.UserProfileTask;
+import org.hive2hive.core.network.userprofiletask.BatchableUserProfileTask;
 import org.hive2hive.core.processes.ProcessFactory;
 import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class UploadUserProfileTask extends UserProfileTask {
+public class UploadUserProfileTask extends BatchableUserProfileTask {
 
 	private static final long serialVersionUID = -4568985873058024202L;
 	
@@ -35,50 +33,52 @@ public class UploadUserProfileTask extends UserProfileTask {
 	@Override
 	public void start() {
 		try {
-			// get the user profile first
-			String randomPID = UUID.randomUUID().toString();
-			UserProfileManager profileManager = networkManager.getSession().getProfileManager();
-			UserProfile userProfile = profileManager.getUserProfile(randomPID, true);
-			FolderIndex parentNode = (FolderIndex) userProfile.getFileById(parentKey);
-			if (parentNode == null) {
-				logger.error("Could not process the task because the parent node has not been found.");
-				return;
-			}
+			modifyUserProfile();
+		} catch (Hive2HiveException e) {
+			logger.error("Could not add the filenode to the own user profile.", e);
+		}
+	}
 
-			// validate if the other sharer has the right to share
-			if (parentNode.canWrite(sender)) {
-				logger.debug("Rights of user '{}' checked. User is allowed to modify.", sender);
-			} else {
-				logger.error("Permission of user '{}' not found. Deny to apply this user's changes.", sender);
-				return;
-			}
+	@Override
+	protected boolean modify(UserProfile userProfile) {
+		FolderIndex parentNode = (FolderIndex) userProfile.getFileById(parentKey);
+		if (parentNode == null) {
+			logger.error("Could not process the task because the parent node has not been found.");
+			return false;
+		}
 
-			// this task is sent when the file has been added or updated, make the difference between them.
-			// When it's been added, add the index to the user profile, else, simply upldate it's md5 hash
-			// there.
-			if (parentNode.getChildByName(index.getName()) == null) {
-				logger.debug("Newly shared file '{}' received.", index.getName());
-				// file is new, link parent and new child
-				parentNode.addChild(index);
-				index.setParent(parentNode);
-			} else {
-				// copy the md5 parameter of the received file
-				Index existing = parentNode.getChildByName(index.getName());
-				if (existing.isFile() && index.isFile()) {
-					logger.debug("File update in a shared folder received: '{}'.", index.getName());
-					FileIndex existingFile = (FileIndex) existing;
-					FileIndex newFile = (FileIndex) index;
-					existingFile.setMD5(newFile.getMD5());
-				}
-			}
+		// validate if the other sharer has the right to share
+		if (parentNode.canWrite(sender)) {
+			logger.debug("Rights of user '{}' checked. User is allowed to modify.", sender);
+		} else {
+			logger.error("Permission of user '{}' not found. Deny to apply this user's changes.", sender);
+			return false;
+		}
 
-			// upload the changes
-			profileManager.readyToPut(userProfile, randomPID);
-			logger.debug("Successfully updated the index '{}' in the own user profile.", index.getName());
-		} catch (Hive2HiveException e) {
-			logger.error("Could not add the filenode to the own user profile.", e);
-			return;
+		// this task is sent when the file has been added or updated, make the difference between them.
+		// When it's been added, add the index to the user profile, else, simply upldate it's md5 hash
+		// there.
+		if (parentNode.getChildByName(index.getName()) == null) {
+			logger.debug("Newly shared file '{}' received.", index.getName());
+			// file is new, link parent and new child
+			parentNode.addChild(index);
+			index.setParent(parentNode);
+		} else {
+			// copy the md5 parameter of the received file
+			Index existing = parentNode.getChildByName(index.getName());
+			if (existing.isFile() && index.isFile()) {
+				logger.debug("File update in a shared folder received: '{}'.", index.getName());
+				FileIndex existingFile = (FileIndex) existing;
+				FileIndex newFile = (FileIndex) index;
+				existingFile.setMD5(newFile.getMD5());
+			}
 		}
+		return true;
+	}
+
+	@Override
+	protected void afterModification() {
+		logger.debug("Successfully updated the index '{}' in the own user profile.", index.getName());
 
 		// then we're ready to download the file
 		startDownload();
@@ -0,0 +1,81 @@
+package org.hive2hive.core.processes.implementations.files.bulk;
+
+import java.io.File;
+
+import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.hive2hive.core.processes.implementations.context.interfaces.IConsumeNotificationFactory;
+
+/**
+ * A single file of a bulk operation. The operation of a file is split into three parts: the preparation
+ * (e.g. uploading the chunks), the modification of the user profile (which is shared by all files) and the
+ * completion (e.g. preparing the notification).
+ *
+ * @author Nico
+ */
+public class BulkFileEntry {
+
+	private final File file;
+	private final ProcessComponent preparation;
+	private final IUserProfileModification modification;
+	private final ProcessComponent completion;
+	private final IConsumeNotificationFactory notificationContext;
+
+	private volatile RollbackReason failure;
+
+	/**
+	 * @param file the file to process
+	 * @param preparation the work to do before the user profile is modified, can be <code>null</code>
+	 * @param modification the modification of the user profile
+	 * @param completion the work to do after the user profile has been modified
+	 * @param notificationContext provides the notification after the completion
+	 */
+	public BulkFileEntry(File file, ProcessComponent preparation, IUserProfileModification modification,
+			ProcessComponent completion, IConsumeNotificationFactory notificationContext) {
+		this.file = file;
+		this.preparation = preparation;
+		this.modification = modification;
+		this.completion = completion;
+		this.notificationContext = notificationContext;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public ProcessComponent getPreparation() {
+		return preparation;
+	}
+
+	public IUserProfileModification getModification() {
+		return modification;
+	}
+
+	public ProcessComponent getCompletion() {
+		return completion;
+	}
+
+	public IConsumeNotificationFactory getNotificationContext() {
+		return notificationContext;
+	}
+
+	/**
+	 * Marks this file as failed. It is skipped in the further parts of the bulk operation.
+	 *
+	 * @param failure the reason of the failure
+	 */
+	public void setFailed(RollbackReason failure) {
+		this.failure = failure;
+	}
+
+	public boolean isFailed() {
+		return failure != null;
+	}
+
+	/**
+	 * @return the reason why this file failed or <code>null</code> if it did not fail
+	 */
+	public RollbackReason getFailure() {
+		return failure;
+	}
+}
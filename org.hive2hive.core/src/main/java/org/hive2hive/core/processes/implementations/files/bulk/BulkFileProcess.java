@@ -0,0 +1,62 @@
+package org.hive2hive.core.processes.implementations.files.bulk;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.framework.concretes.SequentialProcess;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.framework.interfaces.IProcessResultListener;
+import org.hive2hive.core.processes.framework.interfaces.IResultProcessComponent;
+import org.hive2hive.core.processes.implementations.context.BulkFileProcessContext;
+
+/**
+ * A process operating on multiple files at once. The result contains the outcome of every single file
+ * because a failing file does not stop the others.
+ *
+ * @author Nico
+ */
+public class BulkFileProcess extends SequentialProcess implements IResultProcessComponent<Map<File, ProcessState>> {
+
+	private final BulkFileProcessContext context;
+	private final List<IProcessResultListener<Map<File, ProcessState>>> listener;
+
+	public BulkFileProcess(BulkFileProcessContext context) {
+		this.context = context;
+		this.listener = new ArrayList<IProcessResultListener<Map<File, ProcessState>>>();
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		super.doExecute();
+
+		if (getState() == ProcessState.RUNNING) {
+			notifyResultComputed(getResult());
+		}
+	}
+
+	@Override
+	public Map<File, ProcessState> getResult() {
+		return context.getResults();
+	}
+
+	@Override
+	public void notifyResultComputed(Map<File, ProcessState> result) {
+		for (IProcessResultListener<Map<File, ProcessState>> listener : this.listener) {
+			listener.onResultReady(result);
+		}
+	}
+
+	@Override
+	public void attachListener(IProcessResultListener<Map<File, ProcessState>> listener) {
+		this.listener.add(listener);
+	}
+
+	@Override
+	public void detachListener(IProcessResultListener<Map<File, ProcessState>> listener) {
+		this.listener.remove(listener);
+	}
+}
@@ -0,0 +1,83 @@
+package org.hive2hive.core.processes.implementations.files.bulk;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.processes.ProcessFactory;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.context.BulkFileProcessContext;
+import org.hive2hive.core.processes.implementations.context.interfaces.IConsumeNotificationFactory;
+import org.hive2hive.core.processes.implementations.notify.BaseNotificationMessageFactory;
+import org.hive2hive.core.processes.implementations.notify.BatchNotificationMessageFactory;
+
+/**
+ * Combines the notifications of all succeeded files of a bulk operation, such that every user receives a
+ * single notification. Users that are affected by the same files share a notification process.
+ *
+ * @author Nico
+ */
+public class BulkNotificationStep extends ProcessStep {
+
+	private final BulkFileProcessContext context;
+	private final NetworkManager networkManager;
+
+	public BulkNotificationStep(BulkFileProcessContext context, NetworkManager networkManager) {
+		this.context = context;
+		this.networkManager = networkManager;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		// collect the notifications per user
+		Map<String, List<BaseNotificationMessageFactory>> userFactories =
+				new LinkedHashMap<String, List<BaseNotificationMessageFactory>>();
+		for (BulkFileEntry entry : context.getPendingEntries()) {
+			IConsumeNotificationFactory notificationContext = entry.getNotificationContext();
+			BaseNotificationMessageFactory factory = notificationContext.consumeMessageFactory();
+			Set<String> users = notificationContext.consumeUsersToNotify();
+			if (factory == null || users == null) {
+				continue;
+			}
+
+			for (String user : users) {
+				if (!userFactories.containsKey(user)) {
+					userFactories.put(user, new ArrayList<BaseNotificationMessageFactory>());
+				}
+				userFactories.get(user).add(factory);
+			}
+		}
+
+		// group the users with the same notifications
+		Map<List<BaseNotificationMessageFactory>, Set<String>> notifications =
+				new LinkedHashMap<List<BaseNotificationMessageFactory>, Set<String>>();
+		for (String user : userFactories.keySet()) {
+			List<BaseNotificationMessageFactory> factories = userFactories.get(user);
+			if (!notifications.containsKey(factories)) {
+				notifications.put(factories, new HashSet<String>());
+			}
+			notifications.get(factories).add(user);
+		}
+
+		ProcessComponent previous = this;
+		for (List<BaseNotificationMessageFactory> factories : notifications.keySet()) {
+			try {
+				ProcessComponent notificationProcess = ProcessFactory.instance().createNotificationProcess(
+						new BatchNotificationMessageFactory(factories), notifications.get(factories), networkManager);
+				getParent().insertNext(notificationProcess, previous);
+				previous = notificationProcess;
+			} catch (NoPeerConnectionException | NoSessionException e) {
+				throw new ProcessExecutionException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.hive2hive.core.processes.implementations.files.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hive2hive.core.exceptions.GetFailedException;
+import org.hive2hive.core.exceptions.PutFailedException;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.network.data.UserProfileManager;
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.context.BulkFileProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the user profile modifications of all pending files of a bulk operation with a single get and put
+ * of the user profile. Files whose modification is not valid are marked as failed and their preparation is
+ * rolled back.
+ *
+ * @author Nico
+ */
+public class BulkUserProfileStep extends ProcessStep {
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkUserProfileStep.class);
+
+	private final BulkFileProcessContext context;
+	private final UserProfileManager profileManager;
+
+	// used for rollback
+	private final List<BulkFileEntry> modified;
+	private boolean putDone = false;
+
+	public BulkUserProfileStep(BulkFileProcessContext context, UserProfileManager profileManager) {
+		this.context = context;
+		this.profileManager = profileManager;
+		this.modified = new ArrayList<BulkFileEntry>();
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		// prepare before getting the profile because the time for the modification is limited
+		for (BulkFileEntry entry : context.getPendingEntries()) {
+			try {
+				entry.getModification().prepareModification();
+			} catch (ProcessExecutionException e) {
+				markFailed(entry, e.getRollbackReason());
+			}
+		}
+
+		List<BulkFileEntry> pending = context.getPendingEntries();
+		if (pending.isEmpty()) {
+			throw new ProcessExecutionException("None of the files can be processed.");
+		}
+
+		try {
+			UserProfile userProfile = profileManager.getUserProfile(getID(), true);
+			for (BulkFileEntry entry : pending) {
+				try {
+					entry.getModification().modify(userProfile);
+					modified.add(entry);
+				} catch (ProcessExecutionException e) {
+					markFailed(entry, e.getRollbackReason());
+				}
+			}
+
+			if (modified.isEmpty()) {
+				throw new ProcessExecutionException("None of the files can be processed.");
+			}
+
+			logger.debug("Putting the user profile with {} modifications at once.", modified.size());
+			profileManager.readyToPut(userProfile, getID());
+			putDone = true;
+		} catch (GetFailedException | PutFailedException e) {
+			throw new ProcessExecutionException(e);
+		}
+	}
+
+	private void markFailed(BulkFileEntry entry, RollbackReason reason) throws InvalidProcessStateException {
+		logger.warn("Cannot modify the user profile for file '{}': {}", entry.getFile().getName(), reason.getHint());
+		entry.setFailed(reason);
+
+		// the prepared data of this file is not referenced anywhere
+		ProcessComponent preparation = entry.getPreparation();
+		if (preparation != null && preparation.getState() == ProcessState.SUCCEEDED) {
+			preparation.cancel(reason);
+		}
+	}
+
+	@Override
+	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		if (!putDone) {
+			return;
+		}
+
+		try {
+			UserProfile userProfile = profileManager.getUserProfile(getID(), true);
+			for (int i = modified.size() - 1; i >= 0; i--) {
+				modified.get(i).getModification().undoModification(userProfile);
+			}
+			profileManager.readyToPut(userProfile, getID());
+			putDone = false;
+		} catch (GetFailedException | PutFailedException e) {
+			logger.warn("Rollback failed: {}.", e.getMessage());
+		}
+	}
+}
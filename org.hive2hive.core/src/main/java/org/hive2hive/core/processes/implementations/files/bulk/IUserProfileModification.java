@@ -0,0 +1,38 @@
+package org.hive2hive.core.processes.implementations.files.bulk;
+
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+
+/**
+ * A modification of the user profile that can be applied together with other modifications, such that
+ * multiple file operations require a single get and put of the user profile only.
+ *
+ * @author Nico
+ */
+public interface IUserProfileModification {
+
+	/**
+	 * Performs the expensive preparations (e.g. hashing) before the user profile is fetched. The
+	 * {@link org.hive2hive.core.network.data.UserProfileManager} only gives a limited time for the
+	 * modification.
+	 *
+	 * @throws ProcessExecutionException if the modification cannot be prepared
+	 */
+	void prepareModification() throws ProcessExecutionException;
+
+	/**
+	 * Modifies the given user profile. The profile is validated before it is changed, such that a failing
+	 * modification leaves the profile untouched.
+	 *
+	 * @param userProfile the user profile to modify
+	 * @throws ProcessExecutionException if the modification is not valid
+	 */
+	void modify(UserProfile userProfile) throws ProcessExecutionException;
+
+	/**
+	 * Reverts a successful modification.
+	 *
+	 * @param userProfile the user profile where the modification should be reverted
+	 */
+	void undoModification(UserProfile userProfile);
+}
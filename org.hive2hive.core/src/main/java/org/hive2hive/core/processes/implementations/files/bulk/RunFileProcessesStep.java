@@ -0,0 +1,180 @@
+package org.hive2hive.core.processes.implementations.files.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.concretes.ProcessComponentListener;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.context.BulkFileProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the preparation or the completion of all pending files of a bulk operation in parallel. The files are
+ * independent of each other, a failing file is marked as failed and does not stop the others. Processes that
+ * depend on the completion of the children (e.g. deleting a folder on disk, detaching an index from its
+ * parent for the notification) can be run level by level instead, the deepest files first.
+ *
+ * @author Nico
+ */
+public class RunFileProcessesStep extends ProcessStep {
+
+	private static final Logger logger = LoggerFactory.getLogger(RunFileProcessesStep.class);
+
+	// all bulk file processes share the same threads
+	private static final ThreadPoolExecutor executor = createExecutor();
+
+	private final BulkFileProcessContext context;
+	private final boolean preparation;
+	private final boolean childrenFirst;
+	private final List<ProcessComponent> succeeded;
+
+	/**
+	 * @param context the bulk context
+	 * @param preparation <code>true</code> to run the preparations, <code>false</code> to run the
+	 *            completions
+	 * @param childrenFirst <code>true</code> to run the processes of the files at the same depth in parallel,
+	 *            but to complete all children before their parents. <code>false</code> to run all of them in
+	 *            parallel
+	 */
+	public RunFileProcessesStep(BulkFileProcessContext context, boolean preparation, boolean childrenFirst) {
+		this.context = context;
+		this.preparation = preparation;
+		this.childrenFirst = childrenFirst;
+		this.succeeded = new ArrayList<ProcessComponent>();
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		List<FileProcessTask> tasks = new ArrayList<FileProcessTask>();
+		for (BulkFileEntry entry : context.getPendingEntries()) {
+			ProcessComponent component = preparation ? entry.getPreparation() : entry.getCompletion();
+			if (component != null) {
+				tasks.add(new FileProcessTask(entry, component));
+			}
+		}
+
+		if (tasks.isEmpty()) {
+			return;
+		} else if (!childrenFirst) {
+			invokeAll(tasks);
+			return;
+		}
+
+		// the files at the same depth cannot contain each other
+		TreeMap<Integer, List<FileProcessTask>> levels = new TreeMap<Integer, List<FileProcessTask>>();
+		for (FileProcessTask task : tasks) {
+			int depth = task.entry.getFile().toPath().getNameCount();
+			List<FileProcessTask> level = levels.get(depth);
+			if (level == null) {
+				level = new ArrayList<FileProcessTask>();
+				levels.put(depth, level);
+			}
+			level.add(task);
+		}
+
+		for (List<FileProcessTask> level : levels.descendingMap().values()) {
+			invokeAll(level);
+		}
+	}
+
+	private void invokeAll(List<FileProcessTask> tasks) throws ProcessExecutionException {
+		if (tasks.size() == 1) {
+			// no need to hand over to another thread
+			tasks.get(0).call();
+			return;
+		}
+
+		try {
+			executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			throw new ProcessExecutionException("Interrupted while processing the files.", e);
+		}
+	}
+
+	@Override
+	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		List<ProcessComponent> toRollback;
+		synchronized (succeeded) {
+			toRollback = new ArrayList<ProcessComponent>(succeeded);
+		}
+
+		for (int i = toRollback.size() - 1; i >= 0; i--) {
+			ProcessComponent component = toRollback.get(i);
+			if (component.getState() == ProcessState.SUCCEEDED) {
+				component.cancel(reason);
+			}
+		}
+	}
+
+	private class FileProcessTask implements Callable<Void> {
+
+		private final BulkFileEntry entry;
+		private final ProcessComponent component;
+
+		public FileProcessTask(BulkFileEntry entry, ProcessComponent component) {
+			this.entry = entry;
+			this.component = component;
+		}
+
+		@Override
+		public Void call() {
+			ProcessComponentListener listener = new ProcessComponentListener();
+			component.attachListener(listener);
+
+			try {
+				component.start();
+			} catch (InvalidProcessStateException e) {
+				logger.error("Cannot process file '{}'.", entry.getFile().getName(), e);
+				entry.setFailed(new RollbackReason(e.getMessage(), e));
+				return null;
+			}
+
+			if (component.getState() == ProcessState.SUCCEEDED) {
+				synchronized (succeeded) {
+					succeeded.add(component);
+				}
+			} else {
+				RollbackReason failure = listener.getRollbackReason();
+				if (failure == null) {
+					failure = new RollbackReason(String.format("Processing file '%s' failed.", entry.getFile()
+							.getName()));
+				}
+				logger.warn("File '{}' failed: {}", entry.getFile().getName(), failure.getHint());
+				entry.setFailed(failure);
+			}
+			return null;
+		}
+	}
+
+	private static ThreadPoolExecutor createExecutor() {
+		int threads = H2HConstants.DAG_PROCESS_PARALLELISM;
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger counter = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "H2H-File-" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		// no thread is kept while there are no files to process
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -6,15 +6,20 @@ import java.util.List;
 import org.hive2hive.core.model.FileVersion;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.model.MetaFilePageInfo;
 import org.hive2hive.core.model.MetaFileSmall;
 import org.hive2hive.core.network.data.IDataManager;
 import org.hive2hive.core.processes.framework.concretes.SequentialProcess;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.implementations.context.DeleteFileProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class DeleteChunksProcess extends SequentialProcess {
 
+	private static final Logger logger = LoggerFactory.getLogger(DeleteChunksProcess.class);
+
 	private final DeleteFileProcessContext context;
 	private final IDataManager dataManager;
 
@@ -33,14 +38,25 @@ public class DeleteChunksProcess extends SequentialProcess {
 		}
 
 		List<MetaChunk> metaChunks = new ArrayList<MetaChunk>();
+		List<MetaFilePageInfo> pages = new ArrayList<MetaFilePageInfo>();
 		MetaFile metaFile = context.consumeMetaFile();
 
 		if (metaFile.isSmall()) {
 			MetaFileSmall metaSmall = (MetaFileSmall) metaFile;
 			// TODO rather delete file by file than all chunks mixed
-			for (FileVersion version : metaSmall.getVersions()) {
+			for (FileVersion version : metaSmall.getAllVersions()) {
 				metaChunks.addAll(version.getMetaChunks());
 			}
+
+			// a page that has not been loaded is kept, it is the only reference to the chunks of its versions
+			for (MetaFilePageInfo page : metaSmall.getPages()) {
+				if (metaSmall.getLoadedPage(page.getNumber()) != null) {
+					pages.add(page);
+				} else {
+					logger.warn("Page {} of old versions is not loaded. It and its chunks are not deleted.",
+							page.getNumber());
+				}
+			}
 		}
 
 		// process composition
@@ -49,6 +65,10 @@ public class DeleteChunksProcess extends SequentialProcess {
 			insertNext(new DeleteSingleChunkStep(metaChunk.getChunkId(), context.consumeProtectionKeys(),
 					dataManager), this);
 		}
+		for (MetaFilePageInfo page : pages) {
+			insertNext(new DeleteMetaFilePageStep(metaFile.getId(), page.getNumber(),
+					context.consumeProtectionKeys(), dataManager), this);
+		}
 
 		super.doExecute();
 	}
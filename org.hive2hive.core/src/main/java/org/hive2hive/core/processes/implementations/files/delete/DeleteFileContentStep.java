@@ -0,0 +1,45 @@
+package org.hive2hive.core.processes.implementations.files.delete;
+
+import org.hive2hive.core.model.Index;
+import org.hive2hive.core.network.data.IDataManager;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.common.File2MetaFileComponent;
+import org.hive2hive.core.processes.implementations.context.DeleteFileProcessContext;
+
+/**
+ * In case the deleted index is a file (and not a folder), this step initiates the deletion of the meta file
+ * and all according chunks.
+ *
+ * @author Nico
+ */
+public class DeleteFileContentStep extends ProcessStep {
+
+	private final DeleteFileProcessContext context;
+	private final IDataManager dataManager;
+
+	public DeleteFileContentStep(DeleteFileProcessContext context, IDataManager dataManager) {
+		this.context = context;
+		this.dataManager = dataManager;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		Index index = context.consumeIndex();
+		if (index.isFile()) {
+			/**
+			 * Delete the meta file, the pages of old versions and all chunks
+			 */
+			File2MetaFileComponent file2Meta = new File2MetaFileComponent(index, context, context, dataManager,
+					true);
+			DeleteChunksProcess deleteChunks = new DeleteChunksProcess(context, dataManager);
+			DeleteMetaFileStep deleteMeta = new DeleteMetaFileStep(context, dataManager);
+
+			// insert them in correct order
+			getParent().insertNext(file2Meta, this);
+			getParent().insertNext(deleteChunks, file2Meta);
+			getParent().insertNext(deleteMeta, deleteChunks);
+		}
+	}
+}
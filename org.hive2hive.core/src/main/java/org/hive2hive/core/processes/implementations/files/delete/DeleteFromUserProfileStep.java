@@ -12,33 +12,30 @@ import org.hive2hive.core.model.FolderIndex;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.UserProfile;
 import org.hive2hive.core.network.NetworkManager;
-import org.hive2hive.core.network.data.DataManager;
 import org.hive2hive.core.network.data.UserProfileManager;
 import org.hive2hive.core.processes.framework.RollbackReason;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
-import org.hive2hive.core.processes.implementations.common.File2MetaFileComponent;
 import org.hive2hive.core.processes.implementations.common.base.BaseGetProcessStep;
 import org.hive2hive.core.processes.implementations.context.DeleteFileProcessContext;
+import org.hive2hive.core.processes.implementations.files.bulk.IUserProfileModification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Step that deletes a file from the index in the user profile after doing some verification.
- * In case the deleted file is a file (and not a folder), this step initiates the deletion of the meta file
- * and all according chunks.
+ * Step that deletes a file from the index in the user profile after doing some verification. The meta file
+ * and the chunks are deleted afterwards by the {@link DeleteFileContentStep}.
  * 
  * @author Nico
  * 
  */
-public class DeleteFromUserProfileStep extends BaseGetProcessStep {
+public class DeleteFromUserProfileStep extends BaseGetProcessStep implements IUserProfileModification {
 
 	private static final Logger logger = LoggerFactory.getLogger(DeleteFromUserProfileStep.class);
 
 	private final DeleteFileProcessContext context;
 	private final File file;
 	private final UserProfileManager profileManager;
-	private DataManager dataManager;
 	private final Path root;
 
 	private Index index;
@@ -49,13 +46,14 @@ public class DeleteFromUserProfileStep extends BaseGetProcessStep {
 		super(networkManager.getDataManager());
 		this.file = file;
 		this.context = context;
-		this.dataManager = networkManager.getDataManager();
 		this.profileManager = networkManager.getSession().getProfileManager();
 		this.root = networkManager.getSession().getRoot();
 	}
 
 	@Override
 	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		prepareModification();
+
 		// get user profile
 		UserProfile profile = null;
 		try {
@@ -64,7 +62,23 @@ public class DeleteFromUserProfileStep extends BaseGetProcessStep {
 			throw new ProcessExecutionException("Could not get user profile.", e);
 		}
 
-		index = profile.getFileByPath(file, root);
+		modify(profile);
+
+		try {
+			profileManager.readyToPut(profile, getID());
+		} catch (PutFailedException e) {
+			throw new ProcessExecutionException("Could not put user profile.");
+		}
+	}
+
+	@Override
+	public void prepareModification() {
+		// nothing to prepare
+	}
+
+	@Override
+	public void modify(UserProfile profile) throws ProcessExecutionException {
+		Index index = profile.getFileByPath(file, root);
 
 		// validate
 		if (index == null) {
@@ -86,32 +100,12 @@ public class DeleteFromUserProfileStep extends BaseGetProcessStep {
 		parentIndex.removeChild(index);
 
 		// store for later
+		this.index = index;
 		context.provideIndex(index);
 		context.setParentNode(parentIndex);
 
 		// store for rollback
 		this.parentIndexKey = parentIndex.getFilePublicKey();
-
-		try {
-			profileManager.readyToPut(profile, getID());
-		} catch (PutFailedException e) {
-			throw new ProcessExecutionException("Could not put user profile.");
-		}
-
-		if (index.isFile()) {
-			/**
-			 * Delete the meta file and all chunks
-			 */
-			File2MetaFileComponent file2Meta = new File2MetaFileComponent(index, context, context,
-					dataManager);
-			DeleteChunksProcess deleteChunks = new DeleteChunksProcess(context, dataManager);
-			DeleteMetaFileStep deleteMeta = new DeleteMetaFileStep(context, dataManager);
-
-			// insert them in correct order
-			getParent().insertNext(file2Meta, this);
-			getParent().insertNext(deleteChunks, file2Meta);
-			getParent().insertNext(deleteMeta, deleteChunks);
-		}
 	}
 
 	@Override
@@ -127,11 +121,7 @@ public class DeleteFromUserProfileStep extends BaseGetProcessStep {
 				return;
 			}
 
-			// TODO this is buggy! rather use list to check for containment instead of above if-statement
-			// re-add file to user profile
-			FolderIndex parent = (FolderIndex) profile.getFileById(parentIndexKey);
-			parent.addChild(index);
-			index.setParent(parent);
+			undoModification(profile);
 
 			try {
 				profileManager.readyToPut(profile, getID());
@@ -141,4 +131,29 @@ public class DeleteFromUserProfileStep extends BaseGetProcessStep {
 		}
 	}
 
+	@Override
+	public void undoModification(UserProfile profile) {
+		// the profile is fetched again, the deletion may not have been put or has been reverted already
+		if (profile.getFileById(index.getFilePublicKey()) != null) {
+			logger.debug("File '{}' is still in the user profile.", index.getName());
+			return;
+		}
+
+		Index parent = profile.getFileById(parentIndexKey);
+		if (parent == null || !parent.isFolder()) {
+			logger.warn("Cannot re-add file '{}' because its parent is not in the user profile anymore.",
+					index.getName());
+			return;
+		} else if (((FolderIndex) parent).getChildByName(index.getName()) != null) {
+			logger.warn("Cannot re-add file '{}' because its parent has another child with the same name.",
+					index.getName());
+			return;
+		}
+
+		// re-add file to user profile
+		FolderIndex parentFolder = (FolderIndex) parent;
+		parentFolder.addChild(index);
+		index.setParent(parentFolder);
+	}
+
 }
@@ -0,0 +1,41 @@
+package org.hive2hive.core.processes.implementations.files.delete;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+
+import org.hive2hive.core.exceptions.RemoveFailedException;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.network.data.IDataManager;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.common.base.BaseRemoveProcessStep;
+
+/**
+ * Removes a page of old versions of a meta file.
+ *
+ * @author Nico
+ */
+public class DeleteMetaFilePageStep extends BaseRemoveProcessStep {
+
+	private final PublicKey metaFileId;
+	private final int pageNumber;
+	private final KeyPair protectionKeys;
+
+	public DeleteMetaFilePageStep(PublicKey metaFileId, int pageNumber, KeyPair protectionKeys,
+			IDataManager dataManager) {
+		super(dataManager);
+		this.metaFileId = metaFileId;
+		this.pageNumber = pageNumber;
+		this.protectionKeys = protectionKeys;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		try {
+			remove(metaFileId, MetaFilePage.getContentKey(pageNumber), protectionKeys);
+		} catch (RemoveFailedException e) {
+			throw new ProcessExecutionException("Removal of the meta file page failed.", e);
+		}
+	}
+
+}
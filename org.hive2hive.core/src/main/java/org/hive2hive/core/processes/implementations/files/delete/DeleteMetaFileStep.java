@@ -11,10 +11,12 @@ import org.hive2hive.core.processes.implementations.context.DeleteFileProcessCon
 public class DeleteMetaFileStep extends BaseRemoveProcessStep {
 
 	private final DeleteFileProcessContext context;
+	private final IDataManager dataManager;
 
 	public DeleteMetaFileStep(DeleteFileProcessContext context, IDataManager dataManager) {
 		super(dataManager);
 		this.context = context;
+		this.dataManager = dataManager;
 	}
 
 	@Override
@@ -31,6 +33,7 @@ public class DeleteMetaFileStep extends BaseRemoveProcessStep {
 
 		try {
 			remove(context.consumeMetaFile().getId(), H2HConstants.META_FILE, context.consumeProtectionKeys());
+			dataManager.getMetaFileCache().remove(context.consumeMetaFile().getId());
 		} catch (RemoveFailedException e) {
 			throw new ProcessExecutionException("Remove of meta document failed.", e);
 		}
@@ -5,19 +5,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.PublicKey;
-import java.util.UUID;
 
-import org.hive2hive.core.H2HSession;
-import org.hive2hive.core.exceptions.GetFailedException;
 import org.hive2hive.core.exceptions.Hive2HiveException;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
-import org.hive2hive.core.exceptions.PutFailedException;
 import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.FolderIndex;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.UserProfile;
-import org.hive2hive.core.network.data.UserProfileManager;
+import org.hive2hive.core.network.userprofiletask.BatchableUserProfileTask;
 import org.hive2hive.core.network.userprofiletask.UserProfileTask;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.slf4j.Logger;
@@ -30,13 +26,16 @@ import org.slf4j.LoggerFactory;
  * @author Nico
  * 
  */
-public class DeleteUserProfileTask extends UserProfileTask {
+public class DeleteUserProfileTask extends BatchableUserProfileTask {
 
 	private final static Logger logger = LoggerFactory.getLogger(DeleteUserProfileTask.class);
 
 	private static final long serialVersionUID = 4580106953301162049L;
 	private final PublicKey fileKey;
 
+	// the removed node, set when the task has been applied
+	private transient Index deleted;
+
 	public DeleteUserProfileTask(String sender, PublicKey fileKey) {
 		super(sender);
 		this.fileKey = fileKey;
@@ -45,19 +44,7 @@ public class DeleteUserProfileTask extends UserProfileTask {
 	@Override
 	public void start() {
 		try {
-			H2HSession session = networkManager.getSession();
-
-			// remove dead link from user profile
-			Index toDelete = updateUserProfile(session.getProfileManager());
-
-			if (toDelete == null)
-				return;
-
-			// remove the file on disk
-			removeFileOnDisk(session.getRoot(), toDelete);
-
-			// notify others
-			startNotification(toDelete);
+			modifyUserProfile();
 		} catch (Hive2HiveException e) {
 			logger.error("Could not execute the task.", e);
 		}
@@ -65,37 +52,44 @@ public class DeleteUserProfileTask extends UserProfileTask {
 
 	/**
 	 * Removes the {@link FolderIndex} in the user profile
-	 * 
-	 * @param profileManager
-	 * @return the removed node
 	 */
-	private Index updateUserProfile(UserProfileManager profileManager) throws GetFailedException,
-			PutFailedException {
-		String randomPID = UUID.randomUUID().toString();
-
-		UserProfile userProfile = profileManager.getUserProfile(randomPID, true);
+	@Override
+	protected boolean modify(UserProfile userProfile) {
 		Index toDelete = userProfile.getFileById(fileKey);
 		if (toDelete == null) {
 			logger.warn("Could not delete the file because it does not exist anymore.");
-			return null;
+			return false;
 		}
 
 		FolderIndex parent = toDelete.getParent();
 		if (parent == null) {
 			logger.error("Got task to delete the root, which is invalid.");
-			return null;
+			return false;
 		}
 
 		// check write permision
 		if (!parent.canWrite(sender)) {
 			logger.error("User without WRITE permissions tried to delete a file.");
-			return null;
+			return false;
 		}
 
 		parent.removeChild(toDelete);
-		profileManager.readyToPut(userProfile, randomPID);
+		deleted = toDelete;
+		return true;
+	}
+
+	@Override
+	protected void afterModification() {
 		logger.debug("Removed the dead link from the user profile.");
-		return toDelete;
+		try {
+			// remove the file on disk
+			removeFileOnDisk(networkManager.getSession().getRoot(), deleted);
+
+			// notify others
+			startNotification(deleted);
+		} catch (Hive2HiveException e) {
+			logger.error("Could not execute the task.", e);
+		}
 	}
 
 	/**
@@ -55,7 +55,8 @@ public class FindInUserProfileStep extends ProcessStep {
 			logger.info("Initalize the process for downloading file '{}'.", index.getFullPath());
 			try {
 				IDataManager dataManager = networkManager.getDataManager();
-				getParent().add(new GetMetaFileStep(context, context, dataManager));
+				// older versions may be in the pages of the meta file
+				getParent().add(new GetMetaFileStep(context, context, dataManager, !context.downloadNewestVersion()));
 				PeerAddress ownPeerAddress = networkManager.getConnection().getPeer().getPeerAddress();
 				getParent().add(
 						new InitDownloadChunksStep(context, networkManager.getSession(), ownPeerAddress));
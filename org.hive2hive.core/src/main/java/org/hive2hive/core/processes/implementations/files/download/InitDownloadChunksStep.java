@@ -10,6 +10,7 @@ import net.tomp2p.peers.PeerAddress;
 import org.hive2hive.core.H2HSession;
 import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.FileIndex;
+import org.hive2hive.core.model.FileVersion;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.model.MetaFile;
 import org.hive2hive.core.model.MetaFileLarge;
@@ -67,7 +68,12 @@ public class InitDownloadChunksStep extends ProcessStep {
 		if (context.downloadNewestVersion()) {
 			metaChunks = metaFile.getNewestVersion().getMetaChunks();
 		} else {
-			metaChunks = metaFile.getVersionByIndex(context.getVersionToDownload()).getMetaChunks();
+			FileVersion version = metaFile.getVersionByIndex(context.getVersionToDownload());
+			if (version == null) {
+				throw new ProcessExecutionException(String.format("Version %s of the file not found.",
+						context.getVersionToDownload()));
+			}
+			metaChunks = version.getMetaChunks();
 		}
 
 		if (!validateDestination()) {
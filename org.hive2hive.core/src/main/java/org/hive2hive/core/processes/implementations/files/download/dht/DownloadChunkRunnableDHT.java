@@ -11,19 +11,21 @@ import org.apache.commons.io.FileUtils;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.file.ChunkCache;
 import org.hive2hive.core.model.Chunk;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.model.NetworkContent;
 import org.hive2hive.core.network.data.IDataManager;
 import org.hive2hive.core.network.data.parameters.IParameters;
 import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.security.EncryptionUtil;
 import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.hive2hive.core.security.HybridEncryptedContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Downloads a chunk from the DHT and stores it into a temprary file
+ * Downloads a chunk from the DHT (or takes it from the {@link ChunkCache}) and stores it into a temprary file
  * 
  * @author Nico
  * 
@@ -36,11 +38,22 @@ public class DownloadChunkRunnableDHT implements Runnable {
 	private final MetaChunk metaChunk;
 	private final File tempDestination;
 	private final IDataManager dataManager;
+	private final ChunkCache chunkCache;
 
 	public DownloadChunkRunnableDHT(DownloadTaskDHT task, MetaChunk chunk, IDataManager dataManager) {
+		this(task, chunk, dataManager, null);
+	}
+
+	/**
+	 * @param chunkCache the cache to take the chunk from and to add the downloaded chunk to (can be
+	 *            <code>null</code>)
+	 */
+	public DownloadChunkRunnableDHT(DownloadTaskDHT task, MetaChunk chunk, IDataManager dataManager,
+			ChunkCache chunkCache) {
 		this.task = task;
 		this.metaChunk = chunk;
 		this.dataManager = dataManager;
+		this.chunkCache = chunkCache;
 
 		// create temporary file
 		this.tempDestination = new File(task.getTempDirectory(), task.getDestinationName() + "-"
@@ -58,39 +71,103 @@ public class DownloadChunkRunnableDHT implements Runnable {
 			return;
 		}
 
-		logger.debug("Downloading chunk {} of file {} from the DHT", metaChunk.getIndex(),
-				task.getDestinationName());
-		IParameters parameters = new Parameters().setLocationKey(metaChunk.getChunkId()).setContentKey(
-				H2HConstants.FILE_CHUNK);
-		NetworkContent content = dataManager.get(parameters);
-		if (content == null) {
-			task.abortDownload("Chunk not found in the DHT");
+		Chunk chunk = getFromCache();
+		if (chunk == null) {
+			logger.debug("Downloading chunk {} of file {} from the DHT", metaChunk.getIndex(),
+					task.getDestinationName());
+			IParameters parameters = new Parameters().setLocationKey(metaChunk.getChunkId()).setContentKey(
+					H2HConstants.FILE_CHUNK);
+			NetworkContent content = dataManager.get(parameters);
+			if (content == null) {
+				task.abortDownload("Chunk not found in the DHT");
+				return;
+			}
+
+			HybridEncryptedContent encrypted = (HybridEncryptedContent) content;
+			try {
+				NetworkContent decrypted = H2HEncryptionUtil.decryptHybrid(encrypted, task.getDecryptionKey());
+				chunk = (Chunk) decrypted;
+			} catch (ClassNotFoundException | InvalidKeyException | DataLengthException
+					| IllegalBlockSizeException | BadPaddingException | IllegalStateException
+					| InvalidCipherTextException | IllegalArgumentException | IOException e) {
+				task.abortDownload("Decryption of the chunk failed");
+				return;
+			}
+
+			if (!isValid(chunk)) {
+				task.abortDownload("The content of the chunk does not match its hash");
+				return;
+			}
+
+			addToCache(encrypted);
+		}
+
+		try {
+			FileUtils.writeByteArrayToFile(tempDestination, chunk.getData());
+		} catch (IOException e) {
+			task.abortDownload("Cannot write the chunk data to temporary file");
 			return;
 		}
 
-		HybridEncryptedContent encrypted = (HybridEncryptedContent) content;
-		Chunk chunk;
+		// notify the task that this file part has been downloaded successfully
+		task.setDownloaded(metaChunk.getIndex(), tempDestination);
+	}
+
+	/**
+	 * Returns the chunk from the cache if it is cached and valid
+	 */
+	private Chunk getFromCache() {
+		if (chunkCache == null || metaChunk.getContentHash() == null) {
+			// chunks of older clients have no hash to verify a cached copy
+			return null;
+		}
+
+		byte[] cached = chunkCache.get(metaChunk.getChunkId());
+		if (cached == null) {
+			return null;
+		}
 
 		try {
-			NetworkContent decrypted = H2HEncryptionUtil.decryptHybrid(encrypted, task.getDecryptionKey());
-			chunk = (Chunk) decrypted;
+			HybridEncryptedContent encrypted = (HybridEncryptedContent) EncryptionUtil.deserializeObject(cached);
+			Chunk chunk = (Chunk) H2HEncryptionUtil.decryptHybrid(encrypted, task.getDecryptionKey());
+			if (isValid(chunk)) {
+				logger.debug("Took chunk {} of file {} from the cache", metaChunk.getIndex(),
+						task.getDestinationName());
+				return chunk;
+			}
 		} catch (ClassNotFoundException | InvalidKeyException | DataLengthException
 				| IllegalBlockSizeException | BadPaddingException | IllegalStateException
-				| InvalidCipherTextException | IllegalArgumentException | IOException e) {
-			task.abortDownload("Decryption of the chunk failed");
+				| InvalidCipherTextException | IllegalArgumentException | ClassCastException | IOException e) {
+			logger.warn("Cached chunk {} of file {} cannot be read. reason = '{}'", metaChunk.getIndex(),
+					task.getDestinationName(), e.getMessage());
+		}
+
+		// the cached chunk is corrupt
+		chunkCache.remove(metaChunk.getChunkId());
+		return null;
+	}
+
+	private void addToCache(HybridEncryptedContent encrypted) {
+		if (chunkCache == null || metaChunk.getContentHash() == null) {
 			return;
 		}
 
 		try {
-			FileUtils.writeByteArrayToFile(tempDestination, chunk.getData());
+			chunkCache.put(metaChunk.getChunkId(), EncryptionUtil.serializeObject(encrypted));
 		} catch (IOException e) {
-			task.abortDownload("Cannot write the chunk data to temporary file");
-			return;
+			logger.warn("Cannot cache chunk {} of file {}. reason = '{}'", metaChunk.getIndex(),
+					task.getDestinationName(), e.getMessage());
 		}
+	}
 
-		// TODO verify MD5 hash here
-
-		// notify the task that this file part has been downloaded successfully
-		task.setDownloaded(metaChunk.getIndex(), tempDestination);
+	/**
+	 * Verifies the content of the chunk with the hash in the meta file (if available)
+	 */
+	private boolean isValid(Chunk chunk) {
+		if (metaChunk.getContentHash() == null) {
+			return true;
+		}
+		byte[] md5 = EncryptionUtil.generateMD5Hash(chunk.getData());
+		return H2HEncryptionUtil.compareMD5(md5, metaChunk.getContentHash());
 	}
 }
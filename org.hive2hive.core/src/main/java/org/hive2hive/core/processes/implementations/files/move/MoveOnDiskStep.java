@@ -7,6 +7,7 @@ import java.nio.file.StandardCopyOption;
 
 import org.hive2hive.core.exceptions.GetFailedException;
 import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.UserProfile;
 import org.hive2hive.core.network.NetworkManager;
@@ -30,6 +31,9 @@ public class MoveOnDiskStep extends ProcessStep {
 	private final MoveFileProcessContext context;
 	private final NetworkManager networkManager;
 
+	// whether the file has been moved by this step (and not before, e.g. by the user)
+	private boolean moved = false;
+
 	public MoveOnDiskStep(MoveFileProcessContext context, NetworkManager networkManager) {
 		this.context = context;
 		this.networkManager = networkManager;
@@ -44,17 +48,30 @@ public class MoveOnDiskStep extends ProcessStep {
 					e.getMessage()), e);
 		}
 
+		Index fileNode;
 		try {
-			getFileKeys();
+			fileNode = getFileKeys();
 		} catch (GetFailedException | NoSessionException | IllegalStateException e) {
 			throw new ProcessExecutionException(String.format(
 					"File keys could not be fetched. reason = '%s'", e.getMessage()), e);
 		}
 
+		if (!context.getSource().exists()) {
+			// has already been moved on disk, e.g. detected by the file observer
+			if (!FileUtil.matchesIndex(context.getDestination(), fileNode)) {
+				throw new ProcessExecutionException(
+						"Source file not found and the destination does not match the file to move.");
+			}
+			logger.debug("File '{}' has already been moved to '{}'.", context.getSource().getName(), context
+					.getDestination().getAbsolutePath());
+			return;
+		}
+
 		try {
 			// move the file
 			Files.move(context.getSource().toPath(), context.getDestination().toPath(),
 					StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
 			logger.debug("Moved the file from '{}' to '{}'.", context.getSource().getAbsolutePath(), context
 					.getDestination().getAbsolutePath());
 		} catch (IOException e) {
@@ -70,9 +87,9 @@ public class MoveOnDiskStep extends ProcessStep {
 			throw new IllegalArgumentException("Source and destination are the same");
 		}
 
-		if (!source.exists()) {
+		if (!source.exists() && !destination.exists()) {
 			throw new IllegalArgumentException("File to move does not exist");
-		} else if (destination.exists()) {
+		} else if (source.exists() && destination.exists()) {
 			throw new IllegalArgumentException("Destination file already exists");
 		}
 
@@ -84,7 +101,7 @@ public class MoveOnDiskStep extends ProcessStep {
 		}
 	}
 
-	private void getFileKeys() throws GetFailedException, InvalidProcessStateException, NoSessionException,
+	private Index getFileKeys() throws GetFailedException, InvalidProcessStateException, NoSessionException,
 			IllegalStateException {
 		UserProfileManager profileManager = networkManager.getSession().getProfileManager();
 		UserProfile userProfile = profileManager.getUserProfile(getID(), false);
@@ -98,13 +115,20 @@ public class MoveOnDiskStep extends ProcessStep {
 		context.setFileNodeKeys(fileNode.getFileKeys());
 
 		logger.debug("Successfully fetched file keys for the file to move, its old parent and its new parent.");
+		return fileNode;
 	}
 
 	@Override
 	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		if (!moved) {
+			// not moved by this step, leave it as it is
+			return;
+		}
+
 		try {
 			Files.move(context.getDestination().toPath(), context.getSource().toPath(),
 					StandardCopyOption.ATOMIC_MOVE);
+			moved = false;
 		} catch (IOException e) {
 			// ignore
 		}
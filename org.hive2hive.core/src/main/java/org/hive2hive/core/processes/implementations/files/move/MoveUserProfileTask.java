@@ -2,16 +2,13 @@ package org.hive2hive.core.processes.implementations.files.move;
 
 import java.io.IOException;
 import java.security.PublicKey;
-import java.util.UUID;
 
-import org.hive2hive.core.H2HSession;
 import org.hive2hive.core.exceptions.Hive2HiveException;
 import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.FolderIndex;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.UserProfile;
-import org.hive2hive.core.network.data.UserProfileManager;
-import org.hive2hive.core.network.userprofiletask.UserProfileTask;
+import org.hive2hive.core.network.userprofiletask.BatchableUserProfileTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,7 +20,7 @@ import org.slf4j.LoggerFactory;
  * @author Nico
  * 
  */
-public class MoveUserProfileTask extends UserProfileTask {
+public class MoveUserProfileTask extends BatchableUserProfileTask {
 
 	private static final long serialVersionUID = 2182278170922295626L;
 	
@@ -34,6 +31,10 @@ public class MoveUserProfileTask extends UserProfileTask {
 	private final PublicKey oldParentKey;
 	private final PublicKey newParentKey;
 
+	// the rearranged nodes, set when the task has been applied
+	private transient FolderIndex oldParent;
+	private transient FolderIndex newParent;
+
 	public MoveUserProfileTask(String sender, String sourceFileName, String destFileName,
 			PublicKey oldParentKey, PublicKey newParentKey) {
 		super(sender);
@@ -46,50 +47,60 @@ public class MoveUserProfileTask extends UserProfileTask {
 	@Override
 	public void start() {
 		try {
-			H2HSession session = networkManager.getSession();
-			String randomPID = UUID.randomUUID().toString();
-			UserProfileManager profileManager = session.getProfileManager();
-			UserProfile userProfile = profileManager.getUserProfile(randomPID, true);
+			modifyUserProfile();
+		} catch (Hive2HiveException e) {
+			logger.error("Could not process the user profile task.", e);
+		}
+	}
 
-			// get and check the file nodes to be rearranged
-			FolderIndex oldParent = (FolderIndex) userProfile.getFileById(oldParentKey);
-			if (oldParent == null) {
-				logger.error("Could not find the old parent.");
-				return;
-			} else if (!oldParent.canWrite(sender)) {
-				logger.error("User was not allowed to change the source directory.");
-				return;
-			}
+	@Override
+	protected boolean modify(UserProfile userProfile) {
+		// get and check the file nodes to be rearranged
+		FolderIndex oldParent = (FolderIndex) userProfile.getFileById(oldParentKey);
+		if (oldParent == null) {
+			logger.error("Could not find the old parent.");
+			return false;
+		} else if (!oldParent.canWrite(sender)) {
+			logger.error("User was not allowed to change the source directory.");
+			return false;
+		}
 
-			Index child = oldParent.getChildByName(sourceFileName);
-			if (child == null) {
-				logger.error("File node that should be moved not found.");
-				return;
-			}
+		Index child = oldParent.getChildByName(sourceFileName);
+		if (child == null) {
+			logger.error("File node that should be moved not found.");
+			return false;
+		}
 
-			FolderIndex newParent = (FolderIndex) userProfile.getFileById(newParentKey);
-			if (newParent == null) {
-				logger.error("Could not find the new parent.");
-				return;
-			} else if (!newParent.canWrite(sender)) {
-				logger.error("User was not allowed to change the destination directory.");
-				return;
-			}
+		FolderIndex newParent = (FolderIndex) userProfile.getFileById(newParentKey);
+		if (newParent == null) {
+			logger.error("Could not find the new parent.");
+			return false;
+		} else if (!newParent.canWrite(sender)) {
+			logger.error("User was not allowed to change the destination directory.");
+			return false;
+		}
 
-			// rearrange
-			oldParent.removeChild(child);
-			newParent.addChild(child);
-			child.setParent(newParent);
+		// rearrange
+		oldParent.removeChild(child);
+		newParent.addChild(child);
+		child.setParent(newParent);
 
-			// change the child's name
-			child.setName(destFileName);
+		// change the child's name
+		child.setName(destFileName);
 
-			profileManager.readyToPut(userProfile, randomPID);
+		this.oldParent = oldParent;
+		this.newParent = newParent;
+		return true;
+	}
 
+	@Override
+	protected void afterModification() {
+		try {
 			// move the file on disk
-			FileUtil.moveFile(session.getRoot(), sourceFileName, destFileName, oldParent, newParent);
+			FileUtil.moveFile(networkManager.getSession().getRoot(), sourceFileName, destFileName, oldParent,
+					newParent);
 		} catch (Hive2HiveException | IOException e) {
-			logger.error("Could not process the user profile task.", e);
+			logger.error("Could not move the file on disk.", e);
 		}
 	}
 }
@@ -55,10 +55,14 @@ public class SelectVersionStep extends ProcessStep {
 		}
 
 		MetaFileSmall metaFileSmall = (MetaFileSmall) metaFile;
+		// the old versions are in the pages which have been loaded together with the meta file
+		List<FileVersion> allVersions = metaFileSmall.getAllVersions();
+		FileVersion newestVersion = metaFileSmall.getNewestVersion();
+
 		// cast the versions to the public interface
 		List<IFileVersion> versions = new ArrayList<IFileVersion>();
-		for (FileVersion version : metaFileSmall.getVersions()) {
-			if (metaFileSmall.getNewestVersion().equals(version)) {
+		for (FileVersion version : allVersions) {
+			if (newestVersion.equals(version)) {
 				// skip newest version since it's not worth to restore it
 				continue;
 			}
@@ -76,7 +80,7 @@ public class SelectVersionStep extends ProcessStep {
 
 		// find the selected version
 		FileVersion selectedVersion = null;
-		for (FileVersion version : metaFileSmall.getVersions()) {
+		for (FileVersion version : allVersions) {
 			if (version.getIndex() == selected.getIndex()) {
 				selectedVersion = version;
 				break;
@@ -88,8 +92,7 @@ public class SelectVersionStep extends ProcessStep {
 			throw new ProcessExecutionException("Invalid version index selected.");
 		}
 
-		logger.debug("Selected version {} where {} is newest.", selected.getIndex(), metaFileSmall
-				.getNewestVersion().getIndex());
+		logger.debug("Selected version {} where {} is newest.", selected.getIndex(), newestVersion.getIndex());
 
 		// 1. download the file with new name <filename>_<date>
 		// 2. add the file with an AddFileProcess (which also notifies other clients)
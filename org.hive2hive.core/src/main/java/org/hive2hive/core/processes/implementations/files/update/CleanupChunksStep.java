@@ -1,28 +1,46 @@
 package org.hive2hive.core.processes.implementations.files.update;
 
+import java.io.IOException;
+import java.security.InvalidKeyException;
 import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.List;
 
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
 import org.hive2hive.core.api.configs.FileConfiguration;
+import org.hive2hive.core.model.FileVersion;
 import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
+import org.hive2hive.core.model.NetworkContent;
 import org.hive2hive.core.network.data.IDataManager;
 import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
-import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
 import org.hive2hive.core.processes.framework.decorators.AsyncComponent;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.common.base.BaseGetProcessStep;
 import org.hive2hive.core.processes.implementations.context.UpdateFileProcessContext;
+import org.hive2hive.core.processes.implementations.files.delete.DeleteMetaFilePageStep;
 import org.hive2hive.core.processes.implementations.files.delete.DeleteSingleChunkStep;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.hive2hive.core.security.HybridEncryptedContent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Initializes all {@link DeleteSingleChunkStep} to delete the chunks that are not used anymore. These are the
- * ones exceeding the limits at the {@link FileConfiguration}.
+ * ones exceeding the limits at the {@link FileConfiguration}. Removed pages of old versions are loaded to
+ * delete their chunks and are then deleted as well.
  * 
  * @author Nico, Seppi
  */
-public class CleanupChunksStep extends ProcessStep {
+public class CleanupChunksStep extends BaseGetProcessStep {
 
 	private static final Logger logger = LoggerFactory.getLogger(CleanupChunksStep.class);
 
@@ -30,18 +48,33 @@ public class CleanupChunksStep extends ProcessStep {
 	private final IDataManager dataManager;
 
 	public CleanupChunksStep(UpdateFileProcessContext context, IDataManager dataManager) {
+		super(dataManager);
 		this.context = context;
 		this.dataManager = dataManager;
 	}
 
 	@Override
 	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
-		List<MetaChunk> chunksToDelete = context.getChunksToDelete();
+		List<MetaChunk> chunksToDelete = new ArrayList<MetaChunk>(context.getChunksToDelete());
 		KeyPair protectionKeys = context.consumeProtectionKeys();
 
+		ProcessComponent prev = this;
+		if (context.getPagesToDelete() != null) {
+			PublicKey metaFileId = context.consumeMetaFile().getId();
+			for (MetaFilePageInfo pageInfo : context.getPagesToDelete()) {
+				// the chunks of the removed versions are only known by the page itself
+				chunksToDelete.addAll(getPageChunks(pageInfo));
+
+				DeleteMetaFilePageStep deleteStep = new DeleteMetaFilePageStep(metaFileId, pageInfo.getNumber(),
+						protectionKeys, dataManager);
+				AsyncComponent asyncDeletion = new AsyncComponent(deleteStep);
+				getParent().insertNext(asyncDeletion, prev);
+				prev = asyncDeletion;
+			}
+		}
+
 		logger.debug("Cleaning {} old file chunks.", chunksToDelete.size());
 		int counter = 0;
-		ProcessComponent prev = this;
 		for (MetaChunk metaChunk : chunksToDelete) {
 			logger.debug("Delete chunk {} of {}.", counter++, chunksToDelete.size());
 			DeleteSingleChunkStep deleteStep = new DeleteSingleChunkStep(metaChunk.getChunkId(),
@@ -53,4 +86,27 @@ public class CleanupChunksStep extends ProcessStep {
 			prev = asyncDeletion;
 		}
 	}
+
+	private List<MetaChunk> getPageChunks(MetaFilePageInfo pageInfo) throws InvalidProcessStateException {
+		List<MetaChunk> metaChunks = new ArrayList<MetaChunk>();
+		KeyPair fileKeys = context.consumeKeyPair();
+		NetworkContent loadedPage = get(fileKeys.getPublic(), MetaFilePage.getContentKey(pageInfo.getNumber()));
+		if (loadedPage == null) {
+			logger.warn("Page {} of the meta file not found. Cannot delete its chunks.", pageInfo.getNumber());
+			return metaChunks;
+		}
+
+		try {
+			MetaFilePage page = (MetaFilePage) H2HEncryptionUtil.decryptHybrid((HybridEncryptedContent) loadedPage,
+					fileKeys.getPrivate());
+			for (FileVersion version : page.getVersions()) {
+				metaChunks.addAll(version.getMetaChunks());
+			}
+		} catch (InvalidKeyException | DataLengthException | IllegalBlockSizeException | BadPaddingException
+				| IllegalStateException | InvalidCipherTextException | ClassNotFoundException | IOException e) {
+			logger.warn("Page {} of the meta file could not be decrypted. Cannot delete its chunks.",
+					pageInfo.getNumber(), e);
+		}
+		return metaChunks;
+	}
 }
@@ -1,12 +1,16 @@
 package org.hive2hive.core.processes.implementations.files.update;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
 import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.model.FileVersion;
 import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
 import org.hive2hive.core.model.MetaFileSmall;
 import org.hive2hive.core.processes.framework.RollbackReason;
 import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
@@ -17,7 +21,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Creates a new file version.
+ * Creates a new file version. Old versions exceeding the limits are removed and the oldest versions are
+ * moved into a separate page if the meta file gets too large. A page is removed as a whole, once all its
+ * versions exceed the limits. Until then, the limits can be exceeded by less than a page.
  * 
  * @author Seppi, Nico
  */
@@ -29,13 +35,12 @@ public class CreateNewVersionStep extends ProcessStep {
 	private final IFileConfiguration config;
 
 	// used for rollback
-	private FileVersion newVersion;
-	private final List<FileVersion> deletedFileVersions;
+	private List<FileVersion> previousVersions;
+	private List<MetaFilePageInfo> previousPages;
 
 	public CreateNewVersionStep(UpdateFileProcessContext context, IFileConfiguration config) {
 		this.context = context;
 		this.config = config;
-		this.deletedFileVersions = new ArrayList<FileVersion>();
 	}
 
 	@Override
@@ -48,47 +53,91 @@ public class CreateNewVersionStep extends ProcessStep {
 
 		// create a new version and add it to the meta file
 		MetaFileSmall metaFileSmall = (MetaFileSmall) context.consumeMetaFile();
-		newVersion = new FileVersion(metaFileSmall.getVersions().size(), FileUtil.getFileSize(context
-				.getFile()), System.currentTimeMillis(), context.getMetaChunks());
+		previousVersions = new ArrayList<FileVersion>(metaFileSmall.getVersions());
+		previousPages = new ArrayList<MetaFilePageInfo>(metaFileSmall.getPages());
+
+		FileVersion newestVersion = metaFileSmall.getNewestVersion();
+		int index = newestVersion == null ? 0 : newestVersion.getIndex() + 1;
+		FileVersion newVersion = new FileVersion(index, FileUtil.getFileSize(context.getFile()),
+				System.currentTimeMillis(), context.getMetaChunks());
 		metaFileSmall.getVersions().add(newVersion);
 
 		initiateCleanup();
+
+		// keep the meta file small, move the oldest versions into a separate page
+		MetaFilePage newPage = metaFileSmall.pageOut(H2HConstants.META_FILE_HEAD_VERSIONS,
+				H2HConstants.META_FILE_PAGE_SIZE);
+		if (newPage != null) {
+			logger.debug("Moving {} old versions into page {} of the meta file.", newPage.getVersions().size(),
+					newPage.getNumber());
+		}
+		context.setNewMetaFilePage(newPage);
 	}
 
 	private void initiateCleanup() {
 		MetaFileSmall metaFileSmall = (MetaFileSmall) context.consumeMetaFile();
+		List<FileVersion> deletedFileVersions = new ArrayList<FileVersion>();
+		List<MetaFilePageInfo> deletedPages = new ArrayList<MetaFilePageInfo>();
 
 		// remove files when the number of allowed versions is exceeded or when the total file size (sum
 		// of all versions) exceeds the allowed file size
-		while (metaFileSmall.getVersions().size() > config.getMaxNumOfVersions()
+		while (metaFileSmall.getNumberOfVersions() > config.getMaxNumOfVersions()
 				|| metaFileSmall.getTotalSize().compareTo(config.getMaxSizeAllVersions()) == 1) {
 			// more versions than allowed or size is larger
 
+			if (!metaFileSmall.getPages().isEmpty()) {
+				// the oldest versions are in the pages, which are not loaded. Only remove the page if the
+				// newer versions alone reach a limit, else it would remove versions within the limits
+				MetaFilePageInfo oldestPage = metaFileSmall.getPages().get(0);
+				int newerVersions = metaFileSmall.getNumberOfVersions() - oldestPage.getNumberOfVersions();
+				BigInteger newerSize = metaFileSmall.getTotalSize().subtract(oldestPage.getSize());
+				if (newerVersions >= config.getMaxNumOfVersions()
+						|| newerSize.compareTo(config.getMaxSizeAllVersions()) >= 0) {
+					deletedPages.add(metaFileSmall.getPages().remove(0));
+					continue;
+				}
+
+				// the newer versions must not be removed before the older ones in the page
+				break;
+			}
+
 			// keep at least one version
 			if (metaFileSmall.getVersions().size() == 1)
 				break;
 
-			// remove the version of the meta file
-			deletedFileVersions.add(metaFileSmall.getVersions().remove(0));
+			// remove the oldest version of the meta file
+			FileVersion oldest = metaFileSmall.getVersions().get(0);
+			for (FileVersion version : metaFileSmall.getVersions()) {
+				if (version.getIndex() < oldest.getIndex()) {
+					oldest = version;
+				}
+			}
+			metaFileSmall.getVersions().remove(oldest);
+			deletedFileVersions.add(oldest);
 		}
 
-		logger.debug("Need to remove {} old versions.", deletedFileVersions.size());
+		logger.debug("Need to remove {} old versions and {} pages of old versions.", deletedFileVersions.size(),
+				deletedPages.size());
 		List<MetaChunk> chunksToDelete = new ArrayList<MetaChunk>();
 		for (FileVersion fileVersion : deletedFileVersions) {
 			chunksToDelete.addAll(fileVersion.getMetaChunks());
 		}
 		context.setChunksToDelete(chunksToDelete);
+		context.setPagesToDelete(deletedPages);
 	}
 
 	@Override
 	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
-		if (context.consumeMetaFile() != null) {
+		if (context.consumeMetaFile() != null && previousVersions != null) {
 			MetaFileSmall metaFileSmall = (MetaFileSmall) context.consumeMetaFile();
-			// remove the new version
-			metaFileSmall.getVersions().remove(newVersion);
-
-			// add the cleaned up versions
-			metaFileSmall.getVersions().addAll(deletedFileVersions);
+			// restore the versions and the pages as they were before
+			metaFileSmall.getVersions().clear();
+			metaFileSmall.getVersions().addAll(previousVersions);
+			metaFileSmall.getPages().clear();
+			metaFileSmall.getPages().addAll(previousPages);
 		}
+
+		context.setNewMetaFilePage(null);
+		context.setPagesToDelete(null);
 	}
 }
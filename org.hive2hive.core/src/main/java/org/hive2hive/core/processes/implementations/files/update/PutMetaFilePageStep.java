@@ -0,0 +1,76 @@
+package org.hive2hive.core.processes.implementations.files.update;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.hive2hive.core.exceptions.PutFailedException;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFilePageInfo;
+import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.network.data.IDataManager;
+import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.common.base.BasePutProcessStep;
+import org.hive2hive.core.processes.implementations.context.UpdateFileProcessContext;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.hive2hive.core.security.HybridEncryptedContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Puts the page of old versions which has been split from the meta file (if any). It is encrypted and
+ * protected the same way as the meta file. The page must be stored before the meta file referencing it.
+ *
+ * @author Nico
+ */
+public class PutMetaFilePageStep extends BasePutProcessStep {
+
+	private static final Logger logger = LoggerFactory.getLogger(PutMetaFilePageStep.class);
+
+	private final UpdateFileProcessContext context;
+
+	public PutMetaFilePageStep(UpdateFileProcessContext context, IDataManager dataManager) {
+		super(dataManager);
+		this.context = context;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		MetaFilePage page = context.getNewMetaFilePage();
+		if (page == null) {
+			logger.trace("No page of old versions to put.");
+			return;
+		}
+
+		MetaFileSmall metaFile = (MetaFileSmall) context.consumeMetaFile();
+		try {
+			logger.debug("Putting page {} of the meta file of '{}'.", page.getNumber(), context.getFile().getName());
+			HybridEncryptedContent encrypted = H2HEncryptionUtil.encryptHybrid(page, metaFile.getId());
+
+			Parameters parameters = new Parameters().setLocationKey(H2HEncryptionUtil.key2String(metaFile.getId()))
+					.setContentKey(MetaFilePage.getContentKey(page.getNumber())).setData(encrypted)
+					.setProtectionKeys(context.consumeProtectionKeys()).setTTL(page.getTimeToLive());
+			// data manager has to produce the hash, which gets used for signing
+			parameters.setHashFlag(true);
+			put(parameters);
+
+			// store the hash in the summary of the page
+			for (MetaFilePageInfo pageInfo : metaFile.getPages()) {
+				if (pageInfo.getNumber() == page.getNumber()) {
+					pageInfo.setHash(parameters.getHash());
+				}
+			}
+		} catch (IOException | DataLengthException | InvalidKeyException | IllegalStateException
+				| InvalidCipherTextException | IllegalBlockSizeException | BadPaddingException e) {
+			throw new ProcessExecutionException("Page of the meta file could not be encrypted.", e);
+		} catch (PutFailedException e) {
+			throw new ProcessExecutionException(e);
+		}
+	}
+}
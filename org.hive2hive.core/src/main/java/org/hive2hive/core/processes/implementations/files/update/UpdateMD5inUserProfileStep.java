@@ -13,6 +13,7 @@ import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.implementations.context.UpdateFileProcessContext;
+import org.hive2hive.core.processes.implementations.files.bulk.IUserProfileModification;
 import org.hive2hive.core.security.EncryptionUtil;
 import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.slf4j.Logger;
@@ -23,13 +24,14 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Nico, Seppi
  */
-public class UpdateMD5inUserProfileStep extends ProcessStep {
+public class UpdateMD5inUserProfileStep extends ProcessStep implements IUserProfileModification {
 
 	private static final Logger logger = LoggerFactory.getLogger(UpdateMD5inUserProfileStep.class);
 
 	private final UpdateFileProcessContext context;
 	private final UserProfileManager profileManager;
 
+	private byte[] newMD5;
 	private byte[] originalMD5;
 
 	public UpdateMD5inUserProfileStep(UpdateFileProcessContext context, UserProfileManager profileManager) {
@@ -39,38 +41,55 @@ public class UpdateMD5inUserProfileStep extends ProcessStep {
 
 	@Override
 	protected void doExecute() throws ProcessExecutionException {
-		MetaFileSmall metaFileSmall = (MetaFileSmall) context.consumeMetaFile();
-		byte[] newMD5;
+		prepareModification();
+
+		try {
+			UserProfile userProfile = profileManager.getUserProfile(getID(), true);
+			modify(userProfile);
+
+			logger.debug("Updating the MD5 hash in the user profile.");
+			profileManager.readyToPut(userProfile, getID());
+		} catch (GetFailedException | PutFailedException e) {
+			throw new ProcessExecutionException(e);
+		}
+	}
+
+	@Override
+	public void prepareModification() throws ProcessExecutionException {
+		// the hash may have been calculated while uploading the chunks
+		newMD5 = context.consumeMD5();
+		if (newMD5 != null) {
+			return;
+		}
+
 		try {
 			newMD5 = EncryptionUtil.generateMD5Hash(context.getFile());
 		} catch (IOException e) {
 			throw new ProcessExecutionException(
 					"The new MD5 hash for the user profile could not be generated.", e);
 		}
+	}
 
-		try {
-			UserProfile userProfile = profileManager.getUserProfile(getID(), true);
-			FileIndex index = (FileIndex) userProfile.getFileById(metaFileSmall.getId());
-
-			// store hash of meta file
-			index.setMetaFileHash(context.consumeHash());
+	@Override
+	public void modify(UserProfile userProfile) throws ProcessExecutionException {
+		MetaFileSmall metaFileSmall = (MetaFileSmall) context.consumeMetaFile();
+		FileIndex index = (FileIndex) userProfile.getFileById(metaFileSmall.getId());
+		if (index == null) {
+			throw new ProcessExecutionException("File index not found in user profile");
+		}
 
-			// store for backup
-			originalMD5 = index.getMD5();
-			if (H2HEncryptionUtil.compareMD5(originalMD5, newMD5)) {
-				throw new ProcessExecutionException("Try to create new version with same content.");
-			}
+		// store for backup
+		originalMD5 = index.getMD5();
+		if (H2HEncryptionUtil.compareMD5(originalMD5, newMD5)) {
+			throw new ProcessExecutionException("Try to create new version with same content.");
+		}
 
-			// make and put modifications
-			index.setMD5(newMD5);
-			logger.debug("Updating the MD5 hash in the user profile.");
-			profileManager.readyToPut(userProfile, getID());
+		// store hash of meta file and make modifications
+		index.setMetaFileHash(context.consumeHash());
+		index.setMD5(newMD5);
 
-			// store for notification
-			context.provideIndex(index);
-		} catch (GetFailedException | PutFailedException e) {
-			throw new ProcessExecutionException(e);
-		}
+		// store for notification
+		context.provideIndex(index);
 	}
 
 	@Override
@@ -80,12 +99,20 @@ public class UpdateMD5inUserProfileStep extends ProcessStep {
 			try {
 				// return to original MD5 and put the userProfile
 				UserProfile userProfile = profileManager.getUserProfile(getID(), true);
-				FileIndex fileNode = (FileIndex) userProfile.getFileById(metaFileSmall.getId());
-				fileNode.setMD5(originalMD5);
+				undoModification(userProfile);
 				profileManager.readyToPut(userProfile, getID());
 			} catch (Exception e) {
 				// ignore
 			}
 		}
 	}
+
+	@Override
+	public void undoModification(UserProfile userProfile) {
+		MetaFileSmall metaFileSmall = (MetaFileSmall) context.consumeMetaFile();
+		FileIndex fileNode = (FileIndex) userProfile.getFileById(metaFileSmall.getId());
+		if (fileNode != null) {
+			fileNode.setMD5(originalMD5);
+		}
+	}
 }
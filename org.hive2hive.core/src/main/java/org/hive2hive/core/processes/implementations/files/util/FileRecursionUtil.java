@@ -4,7 +4,6 @@ import java.io.File;
 import java.nio.file.Path;
 import java.security.PublicKey;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,12 +11,12 @@ import java.util.Map;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.file.FileUtil;
-import org.hive2hive.core.model.FileIndex;
 import org.hive2hive.core.model.FolderIndex;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.processes.ProcessFactory;
 import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.hive2hive.core.processes.framework.concretes.DagProcess;
 import org.hive2hive.core.processes.framework.concretes.SequentialProcess;
 import org.hive2hive.core.processes.framework.decorators.AsyncComponent;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
@@ -39,19 +38,18 @@ public class FileRecursionUtil {
 	 * @param files a list of files to upload
 	 * @param action whether the files are for updating or as new files
 	 * @param networkManager the network manager with a session
-	 * @return the root process (containing multiple async components) that manages the upload correctly
+	 * @return the root process (a {@link DagProcess}) that manages the upload correctly
 	 * @throws NoSessionException
 	 * @throws NoPeerConnectionException
 	 */
 	public static ProcessComponent buildUploadProcess(List<Path> files, FileProcessAction action,
 			NetworkManager networkManager) throws NoSessionException, NoPeerConnectionException {
-		// the sequential root process
-		SequentialProcess rootProcess = new SequentialProcess();
+		DagProcess rootProcess = new DagProcess();
 
-		// key idea: Find the children with the same parents and add them to a sequential process. They need
-		// to be sequential because the parent meta file must be adapted. If they would run in parallel, they
-		// would modify the parent meta folder simultaneously.
-		Map<Path, SequentialProcess> sameParents = new HashMap<Path, SequentialProcess>();
+		// key idea: a file can only be added to the user profile when its parent folder is already there.
+		// Thus, every file depends on the process of its parent folder (if uploaded as well). Siblings can
+		// run in parallel because the modifications of the user profile are serialized anyway.
+		Map<Path, ProcessComponent> processes = new HashMap<Path, ProcessComponent>();
 		for (Path file : files) {
 			// create the process which uploads or updates the file
 			ProcessComponent uploadProcess;
@@ -61,30 +59,15 @@ public class FileRecursionUtil {
 				uploadProcess = ProcessFactory.instance().createUpdateFileProcess(file.toFile(),
 						networkManager);
 
-			Path parentFile = file.getParent();
-			if (sameParents.containsKey(parentFile)) {
-				// a sibling exists that already created a sequential process
-				SequentialProcess sequentialProcess = sameParents.get(parentFile);
-				sequentialProcess.add(uploadProcess);
-			} else {
-				// first file with this parent; create new sequential process
-				SequentialProcess sequentialProcess = new SequentialProcess();
-				sequentialProcess.add(uploadProcess);
-				sameParents.put(parentFile, sequentialProcess);
-			}
+			rootProcess.add(uploadProcess);
+			processes.put(file, uploadProcess);
 		}
 
-		// the children are now grouped together. Next, we need to link the parent files.
-		for (Path parent : sameParents.keySet()) {
-			AsyncComponent asyncChain = new AsyncComponent(sameParents.get(parent));
-			Path parentOfParent = parent.getParent();
-			if (sameParents.containsKey(parentOfParent)) {
-				// parent exists, we add this sub-process (sequential) to it. It can be async here
-				SequentialProcess sequentialProcess = sameParents.get(parentOfParent);
-				sequentialProcess.add(asyncChain);
-			} else {
-				// parent does not exist --> attach the sub-tree to the root
-				rootProcess.add(asyncChain);
+		// link the files with their parents
+		for (Path file : files) {
+			ProcessComponent parentProcess = processes.get(file.getParent());
+			if (parentProcess != null) {
+				rootProcess.addDependency(processes.get(file), parentProcess);
 			}
 		}
 
@@ -92,10 +75,10 @@ public class FileRecursionUtil {
 	}
 
 	/**
-	 * Creates a process chain to delete all files in the list. Note that the list must be in pre-order, else
-	 * there will occur errors.
+	 * Creates a process chain to delete all files in the list. A folder is deleted after all its children
+	 * (that are in the list as well) are deleted. Siblings are deleted in parallel.
 	 * 
-	 * @param files list of files to delete in preorder
+	 * @param files list of files to delete
 	 * @param networkManager the network manager with a session
 	 * @return the (async) root process component
 	 * @throws NoSessionException
@@ -103,16 +86,22 @@ public class FileRecursionUtil {
 	 */
 	public static ProcessComponent buildDeletionProcess(List<Path> files, NetworkManager networkManager)
 			throws NoSessionException, NoPeerConnectionException {
-		// the sequential root process
-		SequentialProcess rootProcess = new SequentialProcess();
+		DagProcess rootProcess = new DagProcess();
 
-		// deletion must happen in reverse tree order. Since this is very complicated when it contains
-		// asynchronous components, we simply delete them all in the same thread (reverse preorder of course)
-		Collections.reverse(files);
+		// deletion must happen in reverse tree order, thus every folder depends on its children
+		Map<Path, ProcessComponent> processes = new HashMap<Path, ProcessComponent>();
 		for (Path file : files) {
 			ProcessComponent deletionProcess = ProcessFactory.instance().createDeleteFileProcess(
 					file.toFile(), networkManager);
 			rootProcess.add(deletionProcess);
+			processes.put(file, deletionProcess);
+		}
+
+		for (Path file : files) {
+			ProcessComponent parentProcess = processes.get(file.getParent());
+			if (parentProcess != null) {
+				rootProcess.addDependency(parentProcess, processes.get(file));
+			}
 		}
 
 		return new AsyncComponent(rootProcess);
@@ -149,63 +138,25 @@ public class FileRecursionUtil {
 	 */
 	public static ProcessComponent buildDownloadProcess(List<Index> files, NetworkManager networkManager)
 			throws NoSessionException {
-		// the root process, where everything runs in parallel (only async children are added)
-		SequentialProcess rootProcess = new SequentialProcess();
-
-		// build a flat map of the folders to download (such that O(1) for each lookup)
-		Map<FolderIndex, SequentialProcess> folderMap = new HashMap<FolderIndex, SequentialProcess>();
-		Map<FileIndex, AsyncComponent> fileMap = new HashMap<FileIndex, AsyncComponent>();
+		// the root process, where everything runs in parallel as soon as the parent folder exists
+		DagProcess rootProcess = new DagProcess();
 
+		// build a flat map of the processes (such that O(1) for each lookup)
+		Map<Index, ProcessComponent> processes = new HashMap<Index, ProcessComponent>();
 		for (Index file : files) {
 			PublicKey fileKey = file.getFilePublicKey();
 			ProcessComponent downloadProcess = ProcessFactory.instance().createDownloadFileProcess(fileKey,
 					networkManager);
-			if (file.isFolder()) {
-				// when a directory, the process may have multiple children, thus we need a sequential process
-				SequentialProcess folderProcess = new SequentialProcess();
-				folderProcess.add(downloadProcess);
-				folderMap.put((FolderIndex) file, folderProcess);
-			} else {
-				// when a file, the process can run in parallel with all siblings (done in next step)
-				fileMap.put((FileIndex) file, new AsyncComponent(downloadProcess));
-			}
+			rootProcess.add(downloadProcess);
+			processes.put(file, downloadProcess);
 		}
 
-		// find children with same parents and make them run in parallel
-		// idea: iterate through all children and search for parent in other map. If not there, they can be
-		// added to the root process anyway
-		for (FileIndex file : fileMap.keySet()) {
-			AsyncComponent fileProcess = fileMap.get(file);
+		// files and folders depend on the parent folder, if it is downloaded as well. Else (file is in root
+		// or parent is not synchronized here), they can start immediately.
+		for (Index file : files) {
 			Index parent = file.getParent();
-			if (parent == null) {
-				// file is in root, thus we can add it to the root process
-				rootProcess.add(fileProcess);
-			} else if (folderMap.containsKey(parent)) {
-				// the parent exists here
-				SequentialProcess parentProcess = folderMap.get(parent);
-				parentProcess.add(fileProcess);
-			} else {
-				// file is not in root and parent is not here, thus we simply add it to the root process
-				rootProcess.add(fileProcess);
-			}
-		}
-
-		// files and folder are linked. We now link the folders with other folders
-		for (FolderIndex folder : folderMap.keySet()) {
-			SequentialProcess folderProcess = folderMap.get(folder);
-			// In addition, we can make this process run asynchronous because it does not affect the siblings
-			AsyncComponent asyncFolderProcess = new AsyncComponent(folderProcess);
-			Index parent = folder.getParent();
-			if (parent == null) {
-				// file is in root, thus we can add it to the root process.
-				rootProcess.add(asyncFolderProcess);
-			} else if (folderMap.containsKey(parent)) {
-				// this folder has a parent
-				SequentialProcess parentProcess = folderMap.get(parent);
-				parentProcess.add(asyncFolderProcess);
-			} else {
-				// folder is not in root and parent folder does not sync here, add it to the root process
-				rootProcess.add(asyncFolderProcess);
+			if (parent != null && processes.containsKey(parent)) {
+				rootProcess.addDependency(processes.get(file), processes.get(parent));
 			}
 		}
 
@@ -1,10 +1,13 @@
 package org.hive2hive.core.processes.implementations.login;
 
+import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import net.tomp2p.peers.PeerAddress;
@@ -15,6 +18,7 @@ import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.model.Locations;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.network.NetworkUtils;
+import org.hive2hive.core.network.PeerLivenessCache;
 import org.hive2hive.core.network.data.PublicKeyManager;
 import org.hive2hive.core.network.messages.MessageManager;
 import org.hive2hive.core.network.messages.direct.ContactPeerMessage;
@@ -27,6 +31,13 @@ import org.hive2hive.core.processes.implementations.context.LoginProcessContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Checks which of the other clients of the user are still alive and removes the others from the locations.
+ * All clients are probed concurrently with a {@link ContactPeerMessage}. The step continues as soon as every
+ * probed client responded or failed, but waits at most {@link H2HConstants#CONTACT_PEERS_AWAIT_MS}. Clients
+ * that have been probed recently are not contacted again, their cached result is used instead (see
+ * {@link PeerLivenessCache}).
+ */
 // TODO this class should be split up into multiple steps
 public class ContactOtherClientsStep extends ProcessStep implements IResponseCallBackHandler {
 
@@ -35,17 +46,19 @@ public class ContactOtherClientsStep extends ProcessStep implements IResponseCal
 	private final ConcurrentHashMap<PeerAddress, String> evidences = new ConcurrentHashMap<PeerAddress, String>();
 	private final ConcurrentHashMap<PeerAddress, Boolean> responses = new ConcurrentHashMap<PeerAddress, Boolean>();
 	private CountDownLatch waitForResponses;
-	private boolean isUpdated = false;
+	private volatile boolean isUpdated = false;
 
 	private final LoginProcessContext context;
 	private final MessageManager messageManager;
 	private final NetworkManager networkManager;
+	private final PeerLivenessCache livenessCache;
 
 	public ContactOtherClientsStep(LoginProcessContext context, NetworkManager networkManager)
 			throws NoPeerConnectionException {
 		this.context = context;
 		this.networkManager = networkManager;
 		this.messageManager = networkManager.getMessageManager();
+		this.livenessCache = networkManager.getLivenessCache();
 	}
 
 	@Override
@@ -57,34 +70,65 @@ public class ContactOtherClientsStep extends ProcessStep implements IResponseCal
 			throw new ProcessExecutionException("No session yet");
 		}
 
-		Locations locations = context.consumeLocations();
-		waitForResponses = new CountDownLatch(locations.getPeerAddresses().size());
-		if (!locations.getPeerAddresses().isEmpty()) {
-			for (PeerAddress address : locations.getPeerAddresses()) {
-				// contact all other clients (exclude self)
-				if (!address.equals(networkManager.getConnection().getPeer().getPeerAddress())) {
-					String evidence = UUID.randomUUID().toString();
-					evidences.put(address, evidence);
+		// contact all other clients (exclude self) which have not been checked recently
+		PeerAddress ownAddress = networkManager.getConnection().getPeer().getPeerAddress();
+		List<PeerAddress> toProbe = new ArrayList<PeerAddress>();
+		for (PeerAddress address : context.consumeLocations().getPeerAddresses()) {
+			if (address.equals(ownAddress)) {
+				continue;
+			}
 
-					ContactPeerMessage message = new ContactPeerMessage(address, evidence);
-					message.setCallBackHandler(this);
+			Boolean alive = livenessCache.get(address);
+			if (alive == null) {
+				toProbe.add(address);
+			} else {
+				logger.debug("Liveness of peer '{}' is known already (alive = {}).", address, alive);
+				responses.put(address, alive);
+			}
+		}
 
-					// TODO this is blocking, should be parallel (asynchronous)
-					boolean success = messageManager.sendDirect(message, keyManager.getOwnPublicKey());
-					if (!success) {
-						responses.put(address, false);
-					}
+		waitForResponses = new CountDownLatch(toProbe.size());
+		if (!toProbe.isEmpty()) {
+			probeConcurrently(toProbe, keyManager.getOwnPublicKey());
+
+			// wait (blocking) until all responses are here or the time's up
+			try {
+				if (!waitForResponses.await(H2HConstants.CONTACT_PEERS_AWAIT_MS, TimeUnit.MILLISECONDS)) {
+					logger.debug("{} of {} clients did not respond in time.", waitForResponses.getCount(),
+							toProbe.size());
 				}
+			} catch (InterruptedException e) {
+				logger.error("Could not wait the given time for the clients to respond.", e);
 			}
 		}
+		updateLocations(toProbe);
+	}
 
-		// wait (blocking) until all responses are here or the time's up
-		try {
-			waitForResponses.await(H2HConstants.CONTACT_PEERS_AWAIT_MS, TimeUnit.MILLISECONDS);
-		} catch (InterruptedException e) {
-			logger.error("Could not wait the given time for the clients to respond.", e);
+	/**
+	 * Sends the contact messages in parallel. The sending threads terminate as soon as all messages are
+	 * sent, the responses arrive asynchronously.
+	 */
+	private void probeConcurrently(List<PeerAddress> toProbe, final PublicKey ownPublicKey) {
+		int parallelism = Math.min(toProbe.size(), H2HConstants.MAX_CONCURRENT_CONTACT_PEERS);
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		for (final PeerAddress address : toProbe) {
+			final String evidence = UUID.randomUUID().toString();
+			evidences.put(address, evidence);
+
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					ContactPeerMessage message = new ContactPeerMessage(address, evidence);
+					message.setCallBackHandler(ContactOtherClientsStep.this);
+
+					boolean success = messageManager.sendDirect(message, ownPublicKey);
+					if (!success && responses.putIfAbsent(address, false) == null) {
+						waitForResponses.countDown();
+					}
+				}
+			});
 		}
-		updateLocations();
+		executor.shutdown();
 	}
 
 	@Override
@@ -98,19 +142,28 @@ public class ContactOtherClientsStep extends ProcessStep implements IResponseCal
 		}
 
 		// verify response
-		if (evidences.get(responseMessage.getSenderAddress()).equals((String) responseMessage.getContent())) {
-			responses.put(responseMessage.getSenderAddress(), true);
-			waitForResponses.countDown();
+		PeerAddress sender = responseMessage.getSenderAddress();
+		String evidence = evidences.get(sender);
+		if (evidence != null && evidence.equals((String) responseMessage.getContent())) {
+			if (responses.putIfAbsent(sender, true) == null) {
+				waitForResponses.countDown();
+			}
 		} else {
 			logger.error(
 					"Received during liveness check of other clients a wrong evidence content. Responding node = '{}'.",
-					responseMessage.getSenderAddress());
+					sender);
 		}
 	}
 
-	private void updateLocations() {
+	private void updateLocations(List<PeerAddress> probed) {
 		isUpdated = true;
 
+		// remember the probe results, clients that did not respond in time are considered dead
+		for (PeerAddress address : probed) {
+			Boolean alive = responses.get(address);
+			livenessCache.put(address, alive != null && alive);
+		}
+
 		Locations updatedLocations = new Locations(context.consumeLocations().getUserId());
 		updatedLocations.setBasedOnKey(context.consumeLocations().getBasedOnKey());
 		updatedLocations.setVersionKey(context.consumeLocations().getVersionKey());
@@ -1,16 +1,22 @@
 package org.hive2hive.core.processes.implementations.login;
 
+import java.io.File;
 import java.io.IOException;
 import java.security.PublicKey;
 import java.util.Map;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.H2HSession;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.file.FileUtil;
+import org.hive2hive.core.file.PutLog;
 import org.hive2hive.core.file.PersistentMetaData;
+import org.hive2hive.core.file.UploadJournal;
 import org.hive2hive.core.model.UserProfile;
 import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.data.OrphanCollector;
 import org.hive2hive.core.network.data.PublicKeyManager;
+import org.hive2hive.core.network.data.TTLRefreshManager;
 import org.hive2hive.core.network.data.download.BaseDownloadTask;
 import org.hive2hive.core.network.data.download.DownloadManager;
 import org.hive2hive.core.processes.framework.RollbackReason;
@@ -18,9 +24,13 @@ import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.implementations.context.LoginProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SessionCreationStep extends ProcessStep {
 
+	private static final Logger logger = LoggerFactory.getLogger(SessionCreationStep.class);
+
 	private final SessionParameters params;
 	private final LoginProcessContext context;
 	private final NetworkManager networkManager;
@@ -63,6 +73,38 @@ public class SessionCreationStep extends ProcessStep {
 			}
 			params.setDownloadManager(downloadManager);
 
+			// the files of the session which are not synchronized are stored outside of the root, the directory
+			// is only created if a feature needs it
+			File stateDirectory = null;
+			if (H2HConstants.UPLOAD_JOURNAL_ENABLED || H2HConstants.ORPHAN_COLLECTION_ENABLED) {
+				try {
+					stateDirectory = FileUtil.getStateDirectory(params.getFileConfig().getStateDirectory(),
+							params.getRoot(), userProfile.getUserId());
+				} catch (IOException e) {
+					logger.warn("The state directory cannot be created, uploads are not journaled and orphans are "
+							+ "not collected. reason = '{}'", e.getMessage());
+				}
+			}
+
+			// create the journal of the running uploads
+			if (H2HConstants.UPLOAD_JOURNAL_ENABLED && stateDirectory != null) {
+				params.setUploadJournal(new UploadJournal(params.getRoot(), stateDirectory, userProfile
+						.getEncryptionKeys()));
+			}
+
+			// create the manager refreshing the TTL of the stored data and continue its schedule
+			if (H2HConstants.TTL_REFRESHMENT_ENABLED) {
+				TTLRefreshManager refreshManager = new TTLRefreshManager(params.getProfileManager(),
+						networkManager.getDataManager());
+				refreshManager.getSchedule().restore(metaData.getTTLRefreshTimes());
+				params.setRefreshManager(refreshManager);
+			}
+
+			// create the collector removing the orphaned chunks and meta files
+			if (H2HConstants.ORPHAN_COLLECTION_ENABLED && stateDirectory != null) {
+				params.setOrphanCollector(new OrphanCollector(networkManager, new PutLog(stateDirectory)));
+			}
+
 			// create session
 			session = new H2HSession(params);
 		} catch (IOException | NoPeerConnectionException e) {
@@ -71,10 +113,24 @@ public class SessionCreationStep extends ProcessStep {
 
 		// set session
 		networkManager.setSession(session);
+
+		if (session.getRefreshManager() != null) {
+			session.getRefreshManager().start();
+		}
+		if (session.getOrphanCollector() != null) {
+			session.getOrphanCollector().start();
+		}
 	}
 
 	@Override
 	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		if (params.getRefreshManager() != null) {
+			params.getRefreshManager().stop();
+		}
+		if (params.getOrphanCollector() != null) {
+			params.getOrphanCollector().stop();
+		}
+
 		// invalidate the session
 		networkManager.setSession(null);
 	}
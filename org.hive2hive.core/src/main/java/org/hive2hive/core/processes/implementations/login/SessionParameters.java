@@ -3,7 +3,10 @@ package org.hive2hive.core.processes.implementations.login;
 import java.nio.file.Path;
 
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
+import org.hive2hive.core.file.UploadJournal;
+import org.hive2hive.core.network.data.OrphanCollector;
 import org.hive2hive.core.network.data.PublicKeyManager;
+import org.hive2hive.core.network.data.TTLRefreshManager;
 import org.hive2hive.core.network.data.UserProfileManager;
 import org.hive2hive.core.network.data.download.DownloadManager;
 
@@ -14,6 +17,9 @@ public class SessionParameters {
 	private IFileConfiguration fileConfig;
 	private Path root;
 	private DownloadManager downloadManager;
+	private UploadJournal uploadJournal;
+	private TTLRefreshManager refreshManager;
+	private OrphanCollector orphanCollector;
 
 	public UserProfileManager getProfileManager() {
 		return profileManager;
@@ -55,4 +61,28 @@ public class SessionParameters {
 		this.downloadManager = downloadManager;
 	}
 
+	public UploadJournal getUploadJournal() {
+		return uploadJournal;
+	}
+
+	public void setUploadJournal(UploadJournal uploadJournal) {
+		this.uploadJournal = uploadJournal;
+	}
+
+	public TTLRefreshManager getRefreshManager() {
+		return refreshManager;
+	}
+
+	public void setRefreshManager(TTLRefreshManager refreshManager) {
+		this.refreshManager = refreshManager;
+	}
+
+	public OrphanCollector getOrphanCollector() {
+		return orphanCollector;
+	}
+
+	public void setOrphanCollector(OrphanCollector orphanCollector) {
+		this.orphanCollector = orphanCollector;
+	}
+
 }
@@ -0,0 +1,35 @@
+package org.hive2hive.core.processes.implementations.logout;
+
+import org.hive2hive.core.network.data.OrphanCollector;
+import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+
+/**
+ * Stops the periodical removal of orphaned chunks and meta files.
+ * 
+ * @author Nico
+ */
+public class StopOrphanCollectionStep extends ProcessStep {
+
+	private final OrphanCollector orphanCollector;
+
+	public StopOrphanCollectionStep(OrphanCollector orphanCollector) {
+		this.orphanCollector = orphanCollector;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		if (orphanCollector != null) {
+			orphanCollector.stop();
+		}
+	}
+
+	@Override
+	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		if (orphanCollector != null) {
+			orphanCollector.start();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package org.hive2hive.core.processes.implementations.logout;
+
+import org.hive2hive.core.network.data.TTLRefreshManager;
+import org.hive2hive.core.processes.framework.RollbackReason;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+
+/**
+ * Stops the periodical refreshment of the time-to-live of the stored data.
+ * 
+ * @author Nico
+ */
+public class StopTTLRefreshStep extends ProcessStep {
+
+	private final TTLRefreshManager refreshManager;
+
+	public StopTTLRefreshStep(TTLRefreshManager refreshManager) {
+		this.refreshManager = refreshManager;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
+		if (refreshManager != null) {
+			refreshManager.stop();
+		}
+	}
+
+	@Override
+	protected void doRollback(RollbackReason reason) throws InvalidProcessStateException {
+		if (refreshManager != null) {
+			refreshManager.start();
+		}
+	}
+}
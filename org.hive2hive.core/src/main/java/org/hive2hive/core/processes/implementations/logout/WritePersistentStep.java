@@ -5,6 +5,7 @@ import java.nio.file.Path;
 
 import org.hive2hive.core.file.FileUtil;
 import org.hive2hive.core.network.data.PublicKeyManager;
+import org.hive2hive.core.network.data.TTLRefreshManager;
 import org.hive2hive.core.network.data.download.DownloadManager;
 import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
@@ -15,18 +16,21 @@ public class WritePersistentStep extends ProcessStep {
 	private final Path root;
 	private final PublicKeyManager keyManager;
 	private final DownloadManager downloadManager;
+	private final TTLRefreshManager refreshManager;
 
-	public WritePersistentStep(Path root, PublicKeyManager keyManager, DownloadManager downloadManager) {
+	public WritePersistentStep(Path root, PublicKeyManager keyManager, DownloadManager downloadManager,
+			TTLRefreshManager refreshManager) {
 		this.root = root;
 		this.keyManager = keyManager;
 		this.downloadManager = downloadManager;
+		this.refreshManager = refreshManager;
 	}
 
 	@Override
 	protected void doExecute() throws InvalidProcessStateException, ProcessExecutionException {
 		// write the current state to a meta file
 		try {
-			FileUtil.writePersistentMetaData(root, keyManager, downloadManager);
+			FileUtil.writePersistentMetaData(root, keyManager, downloadManager, refreshManager);
 		} catch (IOException e) {
 			throw new ProcessExecutionException("Meta data could not be persisted.", e);
 		}
@@ -0,0 +1,51 @@
+package org.hive2hive.core.processes.implementations.notify;
+
+import java.util.List;
+
+import net.tomp2p.peers.PeerAddress;
+
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.network.messages.direct.BaseDirectMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Carries multiple private notification messages to a client of the same user. The messages are executed
+ * at the receiver in the order they have been produced.
+ *
+ * @author Nico
+ */
+public class BatchNotificationMessage extends BaseDirectMessage {
+
+	private static final long serialVersionUID = 5829003721573937126L;
+
+	private final static Logger logger = LoggerFactory.getLogger(BatchNotificationMessage.class);
+
+	private final List<BaseDirectMessage> messages;
+
+	public BatchNotificationMessage(PeerAddress targetAddress, List<BaseDirectMessage> messages) {
+		super(targetAddress);
+		this.messages = messages;
+	}
+
+	public List<BaseDirectMessage> getMessages() {
+		return messages;
+	}
+
+	@Override
+	public void run() {
+		logger.debug("Received a batch of {} notification messages.", messages.size());
+		for (BaseDirectMessage message : messages) {
+			try {
+				message.setNetworkManager(networkManager);
+				message.run();
+			} catch (NoPeerConnectionException e) {
+				logger.error("Cannot handle the notification message. Not connected to the network.");
+				return;
+			} catch (RuntimeException e) {
+				logger.error("Could not handle the notification message '{}'.",
+						message.getClass().getSimpleName(), e);
+			}
+		}
+	}
+}
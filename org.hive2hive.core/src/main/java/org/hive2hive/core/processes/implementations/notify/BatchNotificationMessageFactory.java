@@ -0,0 +1,82 @@
+package org.hive2hive.core.processes.implementations.notify;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.tomp2p.peers.PeerAddress;
+
+import org.hive2hive.core.network.messages.direct.BaseDirectMessage;
+import org.hive2hive.core.network.userprofiletask.BatchUserProfileTask;
+import org.hive2hive.core.network.userprofiletask.UserProfileTask;
+
+/**
+ * Combines the notifications of multiple message factories. The own clients receive one
+ * {@link BatchNotificationMessage}, other users get one {@link BatchUserProfileTask} in their queue. If only
+ * a single factory produces a message or task, it is used as-is.
+ *
+ * @author Nico
+ */
+public class BatchNotificationMessageFactory extends BaseNotificationMessageFactory {
+
+	private final List<BaseNotificationMessageFactory> factories;
+
+	// the notification process asks for the task multiple times, but generating it is expensive
+	private final Map<String, UserProfileTask> tasks;
+
+	public BatchNotificationMessageFactory(List<BaseNotificationMessageFactory> factories) {
+		this.factories = factories;
+		this.tasks = new HashMap<String, UserProfileTask>();
+	}
+
+	public List<BaseNotificationMessageFactory> getFactories() {
+		return factories;
+	}
+
+	@Override
+	public BaseDirectMessage createPrivateNotificationMessage(PeerAddress receiver) {
+		List<BaseDirectMessage> messages = new ArrayList<BaseDirectMessage>(factories.size());
+		for (BaseNotificationMessageFactory factory : factories) {
+			BaseDirectMessage message = factory.createPrivateNotificationMessage(receiver);
+			if (message != null) {
+				messages.add(message);
+			}
+		}
+
+		if (messages.isEmpty()) {
+			return null;
+		} else if (messages.size() == 1) {
+			return messages.get(0);
+		} else {
+			return new BatchNotificationMessage(receiver, messages);
+		}
+	}
+
+	@Override
+	public synchronized UserProfileTask createUserProfileTask(String sender) {
+		if (tasks.containsKey(sender)) {
+			return tasks.get(sender);
+		}
+
+		List<UserProfileTask> userProfileTasks = new ArrayList<UserProfileTask>(factories.size());
+		for (BaseNotificationMessageFactory factory : factories) {
+			UserProfileTask task = factory.createUserProfileTask(sender);
+			if (task != null) {
+				userProfileTasks.add(task);
+			}
+		}
+
+		UserProfileTask task;
+		if (userProfileTasks.isEmpty()) {
+			task = null;
+		} else if (userProfileTasks.size() == 1) {
+			task = userProfileTasks.get(0);
+		} else {
+			task = new BatchUserProfileTask(sender, userProfileTasks);
+		}
+
+		tasks.put(sender, task);
+		return task;
+	}
+}
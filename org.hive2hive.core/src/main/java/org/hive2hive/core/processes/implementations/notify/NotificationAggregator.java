@@ -0,0 +1,206 @@
+package org.hive2hive.core.processes.implementations.notify;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.exceptions.Hive2HiveException;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.processes.ProcessFactory;
+import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the notifications of file processes within a short time window and sends them as a batch. Instead
+ * of running one notification process per file (which puts a user profile task and sends a message to every
+ * client), one process per set of users to notify is run, using a {@link BatchNotificationMessageFactory}.
+ * Adding many files to a shared folder thus results in a single user profile task per friend and a single
+ * message per own client.</br>
+ * A batch is sent when the window expires (see {@link H2HConstants#NOTIFICATION_COALESCE_WINDOW_MS}) or
+ * when it contains {@link H2HConstants#MAX_COALESCED_NOTIFICATIONS} notifications. Batches are sent one
+ * after the other, such that the order of the notifications is preserved.
+ *
+ * @author Nico
+ */
+public class NotificationAggregator {
+
+	private static final Logger logger = LoggerFactory.getLogger(NotificationAggregator.class);
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final NetworkManager networkManager;
+	private final long window;
+	private final int maxBatchSize;
+	private final Map<Set<String>, Batch> pending;
+	private final ScheduledThreadPoolExecutor executor;
+
+	public NotificationAggregator(NetworkManager networkManager) {
+		this(networkManager, H2HConstants.NOTIFICATION_COALESCE_WINDOW_MS,
+				H2HConstants.MAX_COALESCED_NOTIFICATIONS);
+	}
+
+	/**
+	 * @param networkManager the network manager used to run the notification processes
+	 * @param window the time in milliseconds to wait for further notifications
+	 * @param maxBatchSize the maximum number of notifications sent within one batch
+	 */
+	public NotificationAggregator(NetworkManager networkManager, long window, int maxBatchSize) {
+		this.networkManager = networkManager;
+		this.window = window;
+		this.maxBatchSize = maxBatchSize;
+		this.pending = new LinkedHashMap<Set<String>, Batch>();
+		this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "H2H-Notification-Aggregator");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		// no thread is kept while there is nothing to send
+		this.executor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+		this.executor.allowCoreThreadTimeOut(true);
+		// the pending batches are flushed by the shutdown itself
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	/**
+	 * Adds a notification to the batch of the given users. The notification is sent asynchronously.
+	 *
+	 * @param messageFactory the factory producing the messages and user profile tasks
+	 * @param usersToNotify the users to notify (including the own user if the other clients need to be
+	 *            notified)
+	 */
+	public void submit(BaseNotificationMessageFactory messageFactory, Set<String> usersToNotify) {
+		final Batch batch;
+		boolean full;
+		synchronized (pending) {
+			Set<String> key = new HashSet<String>(usersToNotify);
+			Batch existing = pending.get(key);
+			if (existing == null) {
+				batch = new Batch(key);
+				pending.put(key, batch);
+				if (!executor.isShutdown()) {
+					executor.schedule(new Runnable() {
+						@Override
+						public void run() {
+							flush(batch);
+						}
+					}, window, TimeUnit.MILLISECONDS);
+				}
+			} else {
+				batch = existing;
+			}
+
+			batch.factories.add(messageFactory);
+			full = batch.factories.size() >= maxBatchSize || executor.isShutdown();
+		}
+
+		if (full) {
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						flush(batch);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// submitted during or after the shutdown, send it in the calling thread
+				flush(batch);
+			}
+		}
+	}
+
+	/**
+	 * Immediately sends all pending batches in the calling thread (e.g. before the user logs out).
+	 */
+	public void flush() {
+		List<Batch> batches;
+		synchronized (pending) {
+			batches = new ArrayList<Batch>(pending.values());
+		}
+		for (Batch batch : batches) {
+			flush(batch);
+		}
+	}
+
+	/**
+	 * @return the number of notifications waiting to be sent
+	 */
+	public int getPendingCount() {
+		synchronized (pending) {
+			int count = 0;
+			for (Batch batch : pending.values()) {
+				count += batch.factories.size();
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Sends all pending batches in the calling thread and stops the thread of the aggregator (e.g. before
+	 * disconnecting from the network). Waits for a batch that is being sent by the aggregator thread.
+	 * Notifications submitted afterwards are sent in the calling thread.
+	 */
+	public void shutdown() {
+		// the delayed flushes are dropped, no further batch is sent by the aggregator thread
+		executor.shutdown();
+		flush();
+
+		try {
+			if (!executor.awaitTermination(H2HConstants.NOTIFICATION_SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				logger.warn("A batch of notifications is still being sent.");
+			}
+		} catch (InterruptedException e) {
+			logger.warn("Interrupted while waiting for the notifications to be sent.");
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void flush(Batch batch) {
+		synchronized (pending) {
+			if (pending.get(batch.usersToNotify) != batch) {
+				// already sent
+				return;
+			}
+			pending.remove(batch.usersToNotify);
+		}
+
+		BaseNotificationMessageFactory messageFactory;
+		if (batch.factories.size() == 1) {
+			messageFactory = batch.factories.get(0);
+		} else {
+			messageFactory = new BatchNotificationMessageFactory(batch.factories);
+		}
+
+		logger.debug("Sending a batch of {} notifications to {} users.", batch.factories.size(),
+				batch.usersToNotify.size());
+		try {
+			ProcessComponent process = ProcessFactory.instance().createNotificationProcess(messageFactory,
+					batch.usersToNotify, networkManager);
+			process.start();
+		} catch (Hive2HiveException | IllegalArgumentException e) {
+			logger.error("Could not send the batch of {} notifications.", batch.factories.size(), e);
+		}
+	}
+
+	private static class Batch {
+
+		private final Set<String> usersToNotify;
+		private final List<BaseNotificationMessageFactory> factories;
+
+		public Batch(Set<String> usersToNotify) {
+			this.usersToNotify = usersToNotify;
+			this.factories = new ArrayList<BaseNotificationMessageFactory>();
+		}
+	}
+}
@@ -1,13 +1,25 @@
 package org.hive2hive.core.processes.implementations.notify;
 
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.tomp2p.peers.PeerAddress;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.SendFailedException;
 import org.hive2hive.core.network.NetworkManager;
@@ -22,9 +34,22 @@ import org.hive2hive.core.processes.implementations.context.NotifyProcessContext
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Sends the notification messages to all own peers and to one peer of each other user. The messages are sent
+ * concurrently with a bounded number of messages in flight (see {@link H2HConstants#MAX_CONCURRENT_NOTIFICATIONS}).
+ * The step completes as soon as all messages are delivered or failed, but waits at most
+ * {@link H2HConstants#NOTIFICATION_SEND_TIMEOUT_MS} from its start. Own peers that could not be reached or did
+ * not respond until then are removed from the locations afterwards.
+ * 
+ * @author Nico
+ */
 public class SendNotificationsMessageStep extends BaseDirectMessageProcessStep {
 
 	private final static Logger logger = LoggerFactory.getLogger(SendNotificationsMessageStep.class);
+
+	// all notification processes share the same threads to send the messages
+	private static final ThreadPoolExecutor executor = createExecutor();
+
 	private final NotifyProcessContext context;
 	private final NetworkManager networkManager;
 	private final Set<PeerAddress> unreachablePeers;
@@ -34,7 +59,7 @@ public class SendNotificationsMessageStep extends BaseDirectMessageProcessStep {
 		super(networkManager.getMessageManager());
 		this.context = context;
 		this.networkManager = networkManager;
-		this.unreachablePeers = new HashSet<PeerAddress>();
+		this.unreachablePeers = Collections.newSetFromMap(new ConcurrentHashMap<PeerAddress, Boolean>());
 	}
 
 	@Override
@@ -42,27 +67,42 @@ public class SendNotificationsMessageStep extends BaseDirectMessageProcessStep {
 		BaseNotificationMessageFactory messageFactory = context.consumeMessageFactory();
 		Map<String, PublicKey> userPublicKeys = context.getUserPublicKeys();
 		Map<String, List<PeerAddress>> locations = context.getAllLocations();
+		// all sends share the same deadline, also the ones waiting for a free thread
+		long deadline = System.currentTimeMillis() + H2HConstants.NOTIFICATION_SEND_TIMEOUT_MS;
 
+		List<Runnable> sendTasks = new ArrayList<Runnable>();
 		for (String user : context.consumeUsersToNotify()) {
 			PublicKey publicKey = userPublicKeys.get(user);
 			List<PeerAddress> peerAddresses = locations.get(user);
 			if (user.equalsIgnoreCase(networkManager.getUserId())) {
 				// send own peers a 'normal' notification message
-				notifyMyPeers(peerAddresses, messageFactory, publicKey);
+				sendTasks.addAll(notifyMyPeers(peerAddresses, messageFactory, publicKey));
 			} else {
 				// send to the initial node of another client
-				notifyMasterPeer(peerAddresses, messageFactory, user, publicKey);
+				sendTasks.add(new NotifyMasterPeer(peerAddresses, messageFactory, user, publicKey, deadline));
+			}
+		}
+
+		List<Runnable> incomplete = sendConcurrently(sendTasks, deadline);
+
+		// the sends that did not complete may still add peers, only consider the ones known until now
+		Set<PeerAddress> toRemove = new HashSet<PeerAddress>(unreachablePeers);
+		for (Runnable task : incomplete) {
+			if (task instanceof NotifyOwnPeer && ((NotifyOwnPeer) task).isStarted()) {
+				// did not respond in time
+				toRemove.add(((NotifyOwnPeer) task).peerAddress);
 			}
 		}
 
-		if (!unreachablePeers.isEmpty()) {
-			logger.debug("Need to cleanup {} unreachable peers of own user", unreachablePeers.size());
-			initCleanupUnreachablePeers();
+		if (!toRemove.isEmpty()) {
+			logger.debug("Need to cleanup {} unreachable peers of own user", toRemove.size());
+			initCleanupUnreachablePeers(toRemove);
 		}
 	}
 
-	private void notifyMyPeers(List<PeerAddress> ownPeers, BaseNotificationMessageFactory messageFactory,
+	private List<Runnable> notifyMyPeers(List<PeerAddress> ownPeers, BaseNotificationMessageFactory messageFactory,
 			PublicKey ownPublicKey) {
+		List<Runnable> tasks = new ArrayList<Runnable>();
 		ownPeers.remove(networkManager.getConnection().getPeer().getPeerAddress());
 		logger.debug("Notifying {} other peers of me (without myself).", ownPeers.size());
 		for (PeerAddress peerAddress : ownPeers) {
@@ -72,50 +112,149 @@ public class SendNotificationsMessageStep extends BaseDirectMessageProcessStep {
 				continue;
 			}
 
+			BaseDirectMessage message = messageFactory.createPrivateNotificationMessage(peerAddress);
+			if (message == null) {
+				logger.info("Not notifying any of the own peers because the message to be sent is null.");
+			} else {
+				tasks.add(new NotifyOwnPeer(peerAddress, message, ownPublicKey));
+			}
+		}
+		return tasks;
+	}
+
+	/**
+	 * Runs the given send tasks on the shared threads and blocks until all of them completed or the deadline
+	 * passed.
+	 * 
+	 * @return the tasks that did not complete until the deadline
+	 */
+	private List<Runnable> sendConcurrently(List<Runnable> sendTasks, long deadline) {
+		List<Runnable> incomplete = new ArrayList<Runnable>();
+		if (sendTasks.isEmpty()) {
+			return incomplete;
+		}
+
+		List<Future<?>> handles = new ArrayList<Future<?>>(sendTasks.size());
+		for (Runnable task : sendTasks) {
+			handles.add(executor.submit(task));
+		}
+
+		for (int i = 0; i < handles.size(); i++) {
+			Future<?> handle = handles.get(i);
+			long remaining = deadline - System.currentTimeMillis();
 			try {
-				BaseDirectMessage message = messageFactory.createPrivateNotificationMessage(peerAddress);
-				if (message == null) {
-					logger.info("Not notifying any of the own peers because the message to be sent is null.");
-				} else {
-					sendDirect(message, ownPublicKey);
+				handle.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// sends that did not start yet are dropped, running ones continue in the background
+				handle.cancel(false);
+				incomplete.add(sendTasks.get(i));
+			} catch (InterruptedException e) {
+				logger.warn("Interrupted while waiting for the notifications to be sent.");
+				Thread.currentThread().interrupt();
+				for (int j = i; j < handles.size(); j++) {
+					handles.get(j).cancel(false);
 				}
+				return incomplete;
+			} catch (ExecutionException e) {
+				logger.error("Sending a notification failed.", e.getCause());
+			}
+		}
+
+		if (!incomplete.isEmpty()) {
+			logger.warn("{} of {} notifications did not complete within {} ms.", incomplete.size(),
+					handles.size(), H2HConstants.NOTIFICATION_SEND_TIMEOUT_MS);
+		}
+		return incomplete;
+	}
+
+	/**
+	 * Sends a notification to another peer of the own user.
+	 */
+	private class NotifyOwnPeer implements Runnable {
+
+		private final PeerAddress peerAddress;
+		private final BaseDirectMessage message;
+		private final PublicKey ownPublicKey;
+		private volatile boolean started = false;
+
+		public NotifyOwnPeer(PeerAddress peerAddress, BaseDirectMessage message, PublicKey ownPublicKey) {
+			this.peerAddress = peerAddress;
+			this.message = message;
+			this.ownPublicKey = ownPublicKey;
+		}
+
+		/**
+		 * @return whether the message has been sent, a send waiting for a free thread does not tell anything
+		 *         about the reachability of the peer
+		 */
+		public boolean isStarted() {
+			return started;
+		}
+
+		@Override
+		public void run() {
+			started = true;
+			try {
+				sendDirect(message, ownPublicKey);
 			} catch (SendFailedException e) {
 				// add to the unreachable list, such that the next step can cleanup those locations
 				unreachablePeers.add(peerAddress);
-				// continue anyhow
 			}
 		}
 	}
 
-	private void notifyMasterPeer(List<PeerAddress> peerList, BaseNotificationMessageFactory messageFactory, String userId,
-			PublicKey publicKey) {
-		boolean success = false;
-		while (!success && !peerList.isEmpty()) {
-			PeerAddress initial = NetworkUtils.choseFirstPeerAddress(peerList);
-			BaseDirectMessage msg = messageFactory.createHintNotificationMessage(initial, userId);
-			try {
-				sendDirect(msg, publicKey);
-				success = true;
-			} catch (SendFailedException e) {
-				if (!peerList.isEmpty()) {
-					logger.error("Initial peer of user '{}' was offline. Try next in line.", userId);
-					peerList.remove(0);
+	/**
+	 * Notifies the initial peer of another user. If it is offline, the next peer in line is tried until the
+	 * deadline of the step passed.
+	 */
+	private class NotifyMasterPeer implements Runnable {
+
+		private final List<PeerAddress> peerList;
+		private final BaseNotificationMessageFactory messageFactory;
+		private final String userId;
+		private final PublicKey publicKey;
+		private final long deadline;
+
+		public NotifyMasterPeer(List<PeerAddress> peerList, BaseNotificationMessageFactory messageFactory,
+				String userId, PublicKey publicKey, long deadline) {
+			this.peerList = peerList;
+			this.messageFactory = messageFactory;
+			this.userId = userId;
+			this.publicKey = publicKey;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public void run() {
+			boolean success = false;
+			while (!success && !peerList.isEmpty() && System.currentTimeMillis() < deadline) {
+				PeerAddress initial = NetworkUtils.choseFirstPeerAddress(peerList);
+				BaseDirectMessage msg = messageFactory.createHintNotificationMessage(initial, userId);
+				try {
+					sendDirect(msg, publicKey);
+					success = true;
+				} catch (SendFailedException e) {
+					if (!peerList.isEmpty()) {
+						logger.error("Initial peer of user '{}' was offline. Try next in line.", userId);
+						peerList.remove(0);
+					}
 				}
 			}
-		}
 
-		if (success) {
-			logger.debug("Successfully notified the initial peer of user '{}' that it should check its UP tasks.", userId);
-		} else {
-			logger.info("All clients of user '{}' are currently offline or unreachable.", userId);
+			if (success) {
+				logger.debug("Successfully notified the initial peer of user '{}' that it should check its UP tasks.",
+						userId);
+			} else {
+				logger.info("All clients of user '{}' are currently offline or unreachable.", userId);
+			}
 		}
 	}
 
-	private void initCleanupUnreachablePeers() {
+	private void initCleanupUnreachablePeers(Set<PeerAddress> toRemove) {
 		try {
 			DataManager dataManager = networkManager.getDataManager();
 			getParent().add(new GetUserLocationsStep(networkManager.getUserId(), context, dataManager));
-			getParent().add(new RemoveUnreachableStep(context, unreachablePeers, networkManager));
+			getParent().add(new RemoveUnreachableStep(context, toRemove, networkManager));
 		} catch (NoPeerConnectionException e) {
 			logger.error("No connection to the network. Failed to cleanup unreachable peers");
 		}
@@ -125,4 +264,22 @@ public class SendNotificationsMessageStep extends BaseDirectMessageProcessStep {
 	public void handleResponseMessage(ResponseMessage responseMessage) {
 		// no response expected
 	}
+
+	private static ThreadPoolExecutor createExecutor() {
+		int threads = H2HConstants.MAX_CONCURRENT_NOTIFICATIONS;
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger counter = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "H2H-Notification-" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		// no thread is kept while there is nothing to send
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
 }
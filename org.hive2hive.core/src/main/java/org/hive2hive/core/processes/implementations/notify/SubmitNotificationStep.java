@@ -0,0 +1,41 @@
+package org.hive2hive.core.processes.implementations.notify;
+
+import java.util.Set;
+
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.implementations.context.interfaces.IConsumeNotificationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands the notification of a process over to the {@link NotificationAggregator}, which sends it together
+ * with the notifications of other processes.
+ *
+ * @author Nico
+ */
+public class SubmitNotificationStep extends ProcessStep {
+
+	private final static Logger logger = LoggerFactory.getLogger(SubmitNotificationStep.class);
+
+	private final IConsumeNotificationFactory context;
+	private final NetworkManager networkManager;
+
+	public SubmitNotificationStep(IConsumeNotificationFactory context, NetworkManager networkManager) {
+		this.context = context;
+		this.networkManager = networkManager;
+	}
+
+	@Override
+	protected void doExecute() throws InvalidProcessStateException {
+		BaseNotificationMessageFactory messageFactory = context.consumeMessageFactory();
+		Set<String> usersToNotify = context.consumeUsersToNotify();
+		if (messageFactory == null || usersToNotify == null || usersToNotify.isEmpty()) {
+			logger.debug("Nothing to notify.");
+			return;
+		}
+
+		networkManager.getNotificationAggregator().submit(messageFactory, usersToNotify);
+	}
+}
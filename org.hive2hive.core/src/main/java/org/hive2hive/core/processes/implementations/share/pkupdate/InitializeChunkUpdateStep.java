@@ -3,6 +3,7 @@ package org.hive2hive.core.processes.implementations.share.pkupdate;
 import org.hive2hive.core.model.FileVersion;
 import org.hive2hive.core.model.MetaChunk;
 import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.model.MetaFilePageInfo;
 import org.hive2hive.core.model.MetaFileSmall;
 import org.hive2hive.core.network.data.IDataManager;
 import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
@@ -11,11 +12,13 @@ import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateExce
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.implementations.context.ChunkPKUpdateContext;
 import org.hive2hive.core.processes.implementations.context.MetaDocumentPKUpdateContext;
+import org.hive2hive.core.processes.implementations.context.MetaFilePagePKUpdateContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Takes the meta file and iteratively changes the protection keys of all chunks.
+ * Takes the meta file and iteratively changes the protection keys of all chunks and of the pages of old
+ * versions.
  * 
  * @author Nico, Seppi
  */
@@ -45,7 +48,7 @@ public class InitializeChunkUpdateStep extends ProcessStep {
 		logger.debug("Initialize updating all chunks for file '{}' in a shared folder.",
 				context.getFileName());
 		int counter = 0;
-		for (FileVersion version : metaFileSmall.getVersions()) {
+		for (FileVersion version : metaFileSmall.getAllVersions()) {
 			for (MetaChunk metaChunk : version.getMetaChunks()) {
 				// each chunk gets an own context
 				ChunkPKUpdateContext chunkContext = new ChunkPKUpdateContext(
@@ -58,7 +61,15 @@ public class InitializeChunkUpdateStep extends ProcessStep {
 			}
 		}
 
-		logger.debug("{} chunks of file '{}' need to update their protection keys.", counter,
-				context.getFileName());
+		// the pages of old versions are protected like the meta file
+		for (MetaFilePageInfo pageInfo : metaFileSmall.getPages()) {
+			MetaFilePagePKUpdateContext pageContext = new MetaFilePagePKUpdateContext(
+					context.consumeOldProtectionKeys(), context.consumeNewProtectionKeys(), metaFile.getId(),
+					pageInfo);
+			getParent().add(new AsyncComponent(new ChangeProtectionKeysStep(pageContext, dataManager)));
+		}
+
+		logger.debug("{} chunks and {} pages of file '{}' need to update their protection keys.", counter,
+				metaFileSmall.getPages().size(), context.getFileName());
 	}
 }
@@ -83,7 +83,7 @@ public class InitializeMetaUpdateStep extends ProcessStep {
 		MetaDocumentPKUpdateContext metaContext = new MetaDocumentPKUpdateContext(
 				context.consumeOldProtectionKeys(), context.consumeNewProtectionKeys(),
 				index.getFilePublicKey(), index);
-		sequential.add(new File2MetaFileComponent(index, metaContext, metaContext, dataManager));
+		sequential.add(new File2MetaFileComponent(index, metaContext, metaContext, dataManager, true));
 		sequential.add(new ChangeProtectionKeysStep(metaContext, dataManager));
 		sequential.add(new InitializeChunkUpdateStep(metaContext, dataManager));
 		return sequential;
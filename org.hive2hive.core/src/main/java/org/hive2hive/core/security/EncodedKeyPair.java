@@ -0,0 +1,117 @@
+package org.hive2hive.core.security;
+
+import java.io.Serializable;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+
+/**
+ * Compact serializable form of a {@link KeyPair}. The keys are stored in their encoded form (X.509 for the
+ * public key, PKCS#8 for the private key) and are only decoded when they are used the first time. Thus,
+ * deserializing a large index tree does not instantiate all the key objects. Two encoded key pairs are equal
+ * if their public keys are equal.
+ * 
+ * @author Nico
+ */
+public final class EncodedKeyPair implements Serializable {
+
+	private static final long serialVersionUID = 4213085532709853412L;
+
+	private final String algorithm;
+	private final byte[] publicKey;
+	private final byte[] privateKey; // can be null
+	private transient PublicKey decodedPublicKey;
+	private transient KeyPair decodedKeyPair;
+	private transient int hashCode;
+
+	public EncodedKeyPair(KeyPair keyPair) {
+		this.algorithm = keyPair.getPublic().getAlgorithm();
+		this.publicKey = keyPair.getPublic().getEncoded();
+		this.privateKey = keyPair.getPrivate() == null ? null : keyPair.getPrivate().getEncoded();
+		this.decodedPublicKey = keyPair.getPublic();
+		this.decodedKeyPair = keyPair;
+	}
+
+	/**
+	 * Null-safe creation of an encoded key pair
+	 * 
+	 * @return the encoded key pair or <code>null</code> if the key pair is <code>null</code>
+	 */
+	public static EncodedKeyPair encode(KeyPair keyPair) {
+		return keyPair == null ? null : new EncodedKeyPair(keyPair);
+	}
+
+	/**
+	 * Null-safe decoding of an encoded key pair
+	 * 
+	 * @return the key pair or <code>null</code> if the encoded key pair is <code>null</code>
+	 */
+	public static KeyPair decode(EncodedKeyPair encoded) {
+		return encoded == null ? null : encoded.getKeyPair();
+	}
+
+	/**
+	 * Decodes the public key only (if not done yet)
+	 */
+	public synchronized PublicKey getPublic() {
+		if (decodedPublicKey == null) {
+			try {
+				decodedPublicKey = KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(publicKey));
+			} catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+				throw new IllegalStateException("Cannot decode the public key.", e);
+			}
+		}
+		return decodedPublicKey;
+	}
+
+	/**
+	 * Decodes the key pair (if not done yet). The same instance is returned for subsequent calls.
+	 */
+	public synchronized KeyPair getKeyPair() {
+		if (decodedKeyPair == null) {
+			PrivateKey decodedPrivateKey = null;
+			if (privateKey != null) {
+				try {
+					decodedPrivateKey = KeyFactory.getInstance(algorithm).generatePrivate(
+							new PKCS8EncodedKeySpec(privateKey));
+				} catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+					throw new IllegalStateException("Cannot decode the private key.", e);
+				}
+			}
+			decodedKeyPair = new KeyPair(getPublic(), decodedPrivateKey);
+		}
+		return decodedKeyPair;
+	}
+
+	/**
+	 * Compares the public key with the one of the given key pair without decoding it.
+	 */
+	public boolean matches(KeyPair keyPair) {
+		return keyPair != null && keyPair.getPublic() != null
+				&& Arrays.equals(publicKey, keyPair.getPublic().getEncoded());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		} else if (obj instanceof EncodedKeyPair) {
+			return Arrays.equals(publicKey, ((EncodedKeyPair) obj).publicKey);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		if (hashCode == 0) {
+			hashCode = Arrays.hashCode(publicKey);
+		}
+		return hashCode;
+	}
+}
@@ -37,14 +37,17 @@ import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.digests.MD5Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.io.DigestInputStream;
+import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.modes.CBCBlockCipher;
 import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.jce.provider.JDKKeyPairGenerator;
+import org.hive2hive.core.H2HConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +65,7 @@ public final class EncryptionUtil {
 
 	private static final String SINGATURE_ALGORITHM = "SHA1withRSA";
 	private static final int IV_LENGTH = 16;
+	private static final int HMAC_KEY_LENGTH = 32;
 
 	public enum AES_KEYLENGTH {
 		BIT_128(128),
@@ -396,6 +400,34 @@ public final class EncryptionUtil {
 		// return setupSigner(false, data, publicKey).verifySignature(signature);
 	}
 
+	/**
+	 * Randomly generates a key which can be used to create message authentication codes (see
+	 * {@link EncryptionUtil#generateHMAC(byte[], byte[])}).
+	 * 
+	 * @return Returns a randomly generated HMAC key.
+	 */
+	public static byte[] generateHMACKey() {
+		byte[] key = new byte[HMAC_KEY_LENGTH];
+		new SecureRandom().nextBytes(key);
+		return key;
+	}
+
+	/**
+	 * Generates a message authentication code (HMAC with SHA-256) of the given data.
+	 * 
+	 * @param data The data to be authenticated.
+	 * @param key The secret key of the HMAC.
+	 * @return Returns the message authentication code.
+	 */
+	public static byte[] generateHMAC(byte[] data, byte[] key) {
+		HMac hmac = new HMac(new SHA256Digest());
+		hmac.init(new KeyParameter(key));
+		hmac.update(data, 0, data.length);
+		byte[] result = new byte[hmac.getMacSize()];
+		hmac.doFinal(result, 0);
+		return result;
+	}
+
 	/**
 	 * Generates a MD5 hash of a given data
 	 * 
@@ -426,7 +458,7 @@ public final class EncryptionUtil {
 			return null;
 		}
 
-		byte[] buffer = new byte[1024];
+		byte[] buffer = new byte[H2HConstants.MD5_BLOCK_SIZE];
 		int numRead;
 		FileInputStream fis;
 
@@ -2,11 +2,16 @@ package org.hive2hive.core.security;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.security.InvalidKeyException;
 import java.security.KeyPair;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.SortedMap;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -14,6 +19,7 @@ import javax.crypto.SecretKey;
 
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.digests.MD5Digest;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.model.NetworkContent;
 
@@ -47,6 +53,25 @@ public final class H2HEncryptionUtil {
 		return encryptedNetworkContent;
 	}
 
+	/**
+	 * Symmetrically encrypts content which has already been serialized by means of the AES algorithm. The
+	 * time to live of the returned content needs to be set by the caller.
+	 * 
+	 * @param serialized the serialized content to be encrypted
+	 * @param aesKey The symmetric key with which the content will be encrypted.
+	 * @return EncryptedContent which contains the encrypted byte[] content as well as the AES initialization
+	 *         vector (IV).
+	 * @throws InvalidCipherTextException
+	 * @throws IllegalStateException
+	 * @throws DataLengthException
+	 */
+	public static EncryptedNetworkContent encryptAES(byte[] serialized, SecretKey aesKey)
+			throws DataLengthException, IllegalStateException, InvalidCipherTextException {
+		byte[] initVector = EncryptionUtil.generateIV();
+		byte[] encryptedContent = EncryptionUtil.encryptAES(serialized, aesKey, initVector);
+		return new EncryptedNetworkContent(encryptedContent, initVector);
+	}
+
 	/**
 	 * Symmetrically decrypts a prior content inheriting from {@link NetworkContent} by means of the AES
 	 * algorithm. The content gets deserialized after the decryption.
@@ -117,6 +142,32 @@ public final class H2HEncryptionUtil {
 		return (NetworkContent) EncryptionUtil.deserializeObject(decrypted);
 	}
 
+	/**
+	 * Generates the digest of a folder over the names and hashes of its children (Merkle tree). A file
+	 * contributes its MD5 hash, a sub-folder its own folder digest. Thus, two folders have the same digest if
+	 * and only if their whole content is the same.
+	 * 
+	 * @param children the names of the children and their hash, sorted by name
+	 * @return the digest of the folder
+	 */
+	public static byte[] generateFolderDigest(SortedMap<String, byte[]> children) {
+		MD5Digest digest = new MD5Digest();
+		for (Entry<String, byte[]> child : children.entrySet()) {
+			byte[] name = child.getKey().getBytes(Charset.forName("UTF-8"));
+			digest.update(name, 0, name.length);
+			digest.update((byte) 0);
+
+			byte[] hash = child.getValue();
+			if (hash != null) {
+				digest.update(hash, 0, hash.length);
+			}
+		}
+
+		byte[] result = new byte[digest.getDigestSize()];
+		digest.doFinal(result, 0);
+		return result;
+	}
+
 	/**
 	 * Compares if the file md5 matches a given md5 hash
 	 * 
@@ -158,6 +209,68 @@ public final class H2HEncryptionUtil {
 		return Arrays.equals(md5, expectedMD5);
 	}
 
+	/**
+	 * Symmetrically encrypts and authenticates data with a {@link SessionKey} that has been exchanged between
+	 * two peers before. The message authentication code covers the session id, the sender, the sequence
+	 * number, the initialization vector and the encrypted data.
+	 * 
+	 * @param data the data to encrypt
+	 * @param sessionKey the session key shared with the receiver
+	 * @param senderId the user id of the sender
+	 * @param sequenceNumber the number of the message within the session, must not be used twice
+	 * @return the encrypted and authenticated content
+	 * @throws InvalidCipherTextException
+	 * @throws IllegalStateException
+	 * @throws DataLengthException
+	 */
+	public static SessionEncryptedContent encryptSession(byte[] data, SessionKey sessionKey, String senderId,
+			long sequenceNumber) throws DataLengthException, IllegalStateException, InvalidCipherTextException {
+		byte[] initVector = EncryptionUtil.generateIV();
+		byte[] encryptedData = EncryptionUtil.encryptAES(data, sessionKey.getEncryptionKey(), initVector);
+		byte[] mac = EncryptionUtil.generateHMAC(
+				authenticatedBytes(sessionKey.getId(), senderId, sequenceNumber, initVector, encryptedData),
+				sessionKey.getMacKey());
+		return new SessionEncryptedContent(sessionKey.getId(), senderId, sequenceNumber, initVector,
+				encryptedData, mac);
+	}
+
+	/**
+	 * Verifies the message authentication code and decrypts content that has been encrypted with
+	 * {@link H2HEncryptionUtil#encryptSession(byte[], SessionKey, String, long)}.
+	 * 
+	 * @param content the encrypted content
+	 * @param sessionKey the session key belonging to the session id of the content
+	 * @return the decrypted data
+	 * @throws InvalidCipherTextException if the authentication code does not match or decryption fails
+	 * @throws IllegalStateException
+	 * @throws DataLengthException
+	 */
+	public static byte[] decryptSession(SessionEncryptedContent content, SessionKey sessionKey)
+			throws DataLengthException, IllegalStateException, InvalidCipherTextException {
+		byte[] expectedMac = EncryptionUtil.generateHMAC(
+				authenticatedBytes(content.getSessionId(), content.getSenderId(), content.getSequenceNumber(),
+						content.getInitVector(), content.getEncryptedData()), sessionKey.getMacKey());
+		if (!MessageDigest.isEqual(expectedMac, content.getMac())) {
+			throw new InvalidCipherTextException("Message authentication code does not match.");
+		}
+		return EncryptionUtil.decryptAES(content.getEncryptedData(), sessionKey.getEncryptionKey(),
+				content.getInitVector());
+	}
+
+	private static byte[] authenticatedBytes(String sessionId, String senderId, long sequenceNumber,
+			byte[] initVector, byte[] encryptedData) {
+		byte[] id = sessionId.getBytes(Charset.forName("UTF-8"));
+		byte[] sender = senderId.getBytes(Charset.forName("UTF-8"));
+		// the variable length fields are prefixed with their length
+		ByteBuffer buffer = ByteBuffer.allocate(4 + id.length + 4 + sender.length + 8 + initVector.length
+				+ encryptedData.length);
+		buffer.putInt(id.length).put(id);
+		buffer.putInt(sender.length).put(sender);
+		buffer.putLong(sequenceNumber);
+		buffer.put(initVector).put(encryptedData);
+		return buffer.array();
+	}
+
 	public static String key2String(PublicKey key) {
 		return EncryptionUtil.byteToHex(key.getEncoded());
 	}
@@ -0,0 +1,57 @@
+package org.hive2hive.core.security;
+
+import java.io.Serializable;
+
+/**
+ * This class contains the result of an encryption with a {@link SessionKey}. It holds the id of the session,
+ * the user id of the sender, a sequence number, the AES encrypted data and a message authentication code over
+ * all of them. The receiver accepts each sequence number of a session only once.
+ * 
+ * @author Nico
+ * 
+ */
+public final class SessionEncryptedContent implements Serializable {
+
+	private static final long serialVersionUID = -4385721650316871409L;
+
+	private final String sessionId;
+	private final String senderId;
+	private final long sequenceNumber;
+	private final byte[] initVector;
+	private final byte[] encryptedData;
+	private final byte[] mac;
+
+	public SessionEncryptedContent(String sessionId, String senderId, long sequenceNumber, byte[] initVector,
+			byte[] encryptedData, byte[] mac) {
+		this.sessionId = sessionId;
+		this.senderId = senderId;
+		this.sequenceNumber = sequenceNumber;
+		this.initVector = initVector;
+		this.encryptedData = encryptedData;
+		this.mac = mac;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public String getSenderId() {
+		return senderId;
+	}
+
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	public byte[] getInitVector() {
+		return initVector;
+	}
+
+	public byte[] getEncryptedData() {
+		return encryptedData;
+	}
+
+	public byte[] getMac() {
+		return mac;
+	}
+}
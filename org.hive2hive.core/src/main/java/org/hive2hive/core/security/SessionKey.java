@@ -0,0 +1,51 @@
+package org.hive2hive.core.security;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import javax.crypto.SecretKey;
+
+import org.hive2hive.core.H2HConstants;
+
+/**
+ * Symmetric key material shared between two peers. The key is offered within a hybrid encrypted and signed
+ * message and can then be used to encrypt and authenticate (see {@link SessionEncryptedContent}) further
+ * messages without any RSA operation.
+ * 
+ * @author Nico
+ * 
+ */
+public final class SessionKey implements Serializable {
+
+	private static final long serialVersionUID = 6021391773622106385L;
+
+	private final String id;
+	private final SecretKey encryptionKey;
+	private final byte[] macKey;
+
+	public SessionKey(String id, SecretKey encryptionKey, byte[] macKey) {
+		this.id = id;
+		this.encryptionKey = encryptionKey;
+		this.macKey = macKey;
+	}
+
+	/**
+	 * Creates a new random session key
+	 */
+	public static SessionKey generate() {
+		return new SessionKey(UUID.randomUUID().toString(),
+				EncryptionUtil.generateAESKey(H2HConstants.KEYLENGTH_SESSION_AES), EncryptionUtil.generateHMACKey());
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public SecretKey getEncryptionKey() {
+		return encryptionKey;
+	}
+
+	public byte[] getMacKey() {
+		return macKey;
+	}
+}
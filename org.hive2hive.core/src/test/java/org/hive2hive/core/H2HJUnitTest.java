@@ -3,6 +3,8 @@ package org.hive2hive.core;
 import java.security.SecureRandom;
 import java.util.Random;
 
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.integration.TestFileConfiguration;
 import org.hive2hive.core.security.EncryptionUtil;
 import org.junit.After;
 import org.junit.Before;
@@ -79,6 +81,8 @@ public class H2HJUnitTest {
 	}
 
 	public static void afterClass() {
+		// the tests must not leave any state behind
+		FileUtils.deleteQuietly(TestFileConfiguration.STATE_DIRECTORY);
 		printTestIdentifier(testClass.getName(), false);
 	}
 
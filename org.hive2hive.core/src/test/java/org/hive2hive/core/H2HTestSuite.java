@@ -2,6 +2,7 @@ package org.hive2hive.core;
 
 import org.hive2hive.core.file.FileSynchronizerTest;
 import org.hive2hive.core.file.FileUtilTest;
+import org.hive2hive.core.file.UploadJournalTest;
 import org.hive2hive.core.model.IndexTest;
 import org.hive2hive.core.model.MetaFileTest;
 import org.hive2hive.core.model.UserCredentialsTest;
@@ -10,9 +11,12 @@ import org.hive2hive.core.network.H2HStorageMemoryTest;
 import org.hive2hive.core.network.data.DataManagerTest;
 import org.hive2hive.core.network.messages.BaseMessageTest;
 import org.hive2hive.core.network.messages.BaseRequestMessageTest;
+import org.hive2hive.core.network.messages.InboundMessageExecutorTest;
 import org.hive2hive.core.network.messages.direct.BaseDirectRequestMessageTest;
 import org.hive2hive.core.network.userprofiletask.TestUserProfileTask;
+import org.hive2hive.core.processes.framework.DagProcessTest;
 import org.hive2hive.core.processes.framework.ProcessListenerTest;
+import org.hive2hive.core.processes.framework.ProcessMetricsTest;
 import org.hive2hive.core.processes.framework.SequentialProcessTest;
 import org.hive2hive.core.processes.implementations.common.GetLocationStepTest;
 import org.hive2hive.core.processes.implementations.common.PutLocationStepTest;
@@ -22,6 +26,7 @@ import org.hive2hive.core.processes.implementations.common.base.BaseMessageProce
 import org.hive2hive.core.processes.implementations.common.base.BasePutProcessStepTest;
 import org.hive2hive.core.processes.implementations.common.base.BaseRemoveProcessStepTest;
 import org.hive2hive.core.processes.implementations.files.AddFileTest;
+import org.hive2hive.core.processes.implementations.files.BulkFileTest;
 import org.hive2hive.core.processes.implementations.files.DeleteFileTest;
 import org.hive2hive.core.processes.implementations.files.DownloadFileTest;
 import org.hive2hive.core.processes.implementations.files.GetFileListProcessTest;
@@ -60,12 +65,13 @@ import org.junit.runners.Suite.SuiteClasses;
 	// Network, Data
 	DataManagerTest.class,
 	// Network, Message
-	BaseMessageTest.class, BaseRequestMessageTest.class,
+	BaseMessageTest.class, BaseRequestMessageTest.class, InboundMessageExecutorTest.class,
 	// Network, Message, Direct
 	BaseDirectRequestMessageTest.class,
 
 	// Processes
-	ProcessListenerTest.class, SequentialProcessTest.class,
+	ProcessListenerTest.class, SequentialProcessTest.class, DagProcessTest.class,
+	ProcessMetricsTest.class,
 
 	// ProcessStep, Common, Get
 	BaseGetProcessStepTest.class, GetLocationStepTest.class, GetUserProfileStepTest.class,
@@ -88,6 +94,9 @@ import org.junit.runners.Suite.SuiteClasses;
 	// Process: Move
 	MoveFileTest.class,
 
+	// Process: Bulk file operations
+	BulkFileTest.class,
+
 	// Process: Recover
 	RecoverFileTest.class,
 
@@ -98,7 +107,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	NotificationTest.class, TestUserProfileTask.class,
 
 	// Files
-	FileUtilTest.class, FileSynchronizerTest.class,
+	FileUtilTest.class, FileSynchronizerTest.class, UploadJournalTest.class,
 
 	// Model
 	IndexTest.class, UserCredentialsTest.class, MetaFileTest.class,
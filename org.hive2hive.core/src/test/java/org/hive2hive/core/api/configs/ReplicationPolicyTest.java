@@ -0,0 +1,71 @@
+package org.hive2hive.core.api.configs;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.api.interfaces.INetworkConfiguration;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ReplicationPolicyTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = ReplicationPolicyTest.class;
+		beforeClass();
+	}
+
+	@Test
+	public void testContentType() {
+		Assert.assertEquals(ContentType.USER_PROFILE, ContentType.fromKeys(null, H2HConstants.USER_PROFILE));
+		Assert.assertEquals(ContentType.USER_PROFILE, ContentType.fromKeys(null, H2HConstants.USER_PROFILE_SHARD + "1"));
+		Assert.assertEquals(ContentType.META_FILE, ContentType.fromKeys(null, H2HConstants.META_FILE_PAGE + "1"));
+		Assert.assertEquals(ContentType.FILE_CHUNK, ContentType.fromKeys(null, H2HConstants.FILE_CHUNK));
+		Assert.assertEquals(ContentType.USER_LOCATIONS, ContentType.fromKeys(null, H2HConstants.USER_LOCATIONS));
+		Assert.assertEquals(ContentType.USER_PROFILE_TASK,
+				ContentType.fromKeys(H2HConstants.USER_PROFILE_TASK_DOMAIN, null));
+		Assert.assertEquals(ContentType.OTHER, ContentType.fromKeys(null, "something else"));
+		Assert.assertEquals(ContentType.OTHER, ContentType.fromKeys(null, null));
+	}
+
+	@Test
+	public void testQuorum() {
+		ReplicationPolicy policy = new ReplicationPolicy(5, 3, 2);
+		Assert.assertTrue(policy.isWriteQuorumReached(3, 5));
+		Assert.assertFalse(policy.isWriteQuorumReached(2, 5));
+		// nodes which did not respond do not lower the quorum in a large network
+		Assert.assertFalse(policy.isWriteQuorumReached(2, 100));
+		// the network is smaller than the replication factor
+		Assert.assertTrue(policy.isWriteQuorumReached(2, 2));
+		Assert.assertFalse(policy.isWriteQuorumReached(1, 2));
+		Assert.assertTrue(policy.isWriteQuorumReached(3, 4));
+		Assert.assertFalse(policy.isWriteQuorumReached(0, 0));
+
+		Assert.assertTrue(policy.isReadQuorumReached(2, 5));
+		Assert.assertFalse(policy.isReadQuorumReached(1, 100));
+		Assert.assertTrue(policy.isReadQuorumReached(1, 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidQuorum() {
+		new ReplicationPolicy(2, 3, 1);
+	}
+
+	@Test
+	public void testConfiguration() {
+		INetworkConfiguration config = NetworkConfiguration.create("node");
+		Assert.assertEquals(H2HConstants.DEFAULT_WRITE_QUORUM, config.getReplicationPolicy(ContentType.FILE_CHUNK)
+				.getWriteQuorum());
+
+		ReplicationPolicy policy = new ReplicationPolicy(3, 1, 1);
+		config.setReplicationPolicy(ContentType.FILE_CHUNK, policy);
+		Assert.assertEquals(policy, config.getReplicationPolicy(ContentType.FILE_CHUNK));
+		Assert.assertNotEquals(policy, config.getReplicationPolicy(ContentType.USER_PROFILE));
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
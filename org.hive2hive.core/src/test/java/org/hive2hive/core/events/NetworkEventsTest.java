@@ -4,10 +4,10 @@ import static org.junit.Assert.assertTrue;
 
 import org.hive2hive.core.H2HJUnitTest;
 import org.hive2hive.core.api.H2HNode;
-import org.hive2hive.core.api.configs.FileConfiguration;
 import org.hive2hive.core.api.configs.NetworkConfiguration;
 import org.hive2hive.core.api.interfaces.IH2HNode;
 import org.hive2hive.core.events.util.TestNetworkEventListener;
+import org.hive2hive.core.integration.TestFileConfiguration;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -28,7 +28,7 @@ public class NetworkEventsTest extends H2HJUnitTest {
 	@Test
 	public void eventListenerTest() {
 		
-		IH2HNode node = H2HNode.createNode(NetworkConfiguration.create(), FileConfiguration.createDefault());
+		IH2HNode node = H2HNode.createNode(NetworkConfiguration.create(), TestFileConfiguration.createDefault());
 		
 		TestNetworkEventListener listener = new TestNetworkEventListener();
 		node.addEventListener(listener);
@@ -11,7 +11,6 @@ import java.nio.file.Path;
 import org.hive2hive.core.H2HJUnitTest;
 import org.hive2hive.core.H2HWaiter;
 import org.hive2hive.core.api.H2HNode;
-import org.hive2hive.core.api.configs.FileConfiguration;
 import org.hive2hive.core.api.configs.NetworkConfiguration;
 import org.hive2hive.core.api.interfaces.IH2HNode;
 import org.hive2hive.core.api.interfaces.IUserManager;
@@ -22,6 +21,7 @@ import org.hive2hive.core.events.util.TestUserEventListener;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.integration.TestFileConfiguration;
 import org.hive2hive.core.network.NetworkTestUtil;
 import org.hive2hive.core.security.UserCredentials;
 import org.junit.After;
@@ -51,7 +51,7 @@ public class UserEventsTest extends H2HJUnitTest {
 	
 	@Before
 	public void before() {
-		node = H2HNode.createNode(NetworkConfiguration.create(), FileConfiguration.createDefault());
+		node = H2HNode.createNode(NetworkConfiguration.create(), TestFileConfiguration.createDefault());
 		node.connect();
 		userManager = node.getUserManager();
 		credentials = NetworkTestUtil.generateRandomCredentials();
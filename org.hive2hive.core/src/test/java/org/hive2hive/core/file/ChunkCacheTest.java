@@ -0,0 +1,148 @@
+package org.hive2hive.core.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the local cache of the chunks.
+ * 
+ * @author Nico
+ * 
+ */
+public class ChunkCacheTest extends H2HJUnitTest {
+
+	private File directory;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = ChunkCacheTest.class;
+		beforeClass();
+	}
+
+	@Before
+	public void createDirectory() {
+		directory = FileTestUtil.getTempDirectory();
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testPutGet() {
+		ChunkCache cache = new ChunkCache(directory, 1000);
+		byte[] data = NetworkTestUtil.randomString().getBytes();
+
+		assertNull(cache.get("chunk"));
+		cache.put("chunk", data);
+		assertArrayEquals(data, cache.get("chunk"));
+		assertEquals(data.length, cache.getSize());
+		assertNull(cache.get("other"));
+
+		// only the chunk id is part of the file name
+		assertEquals(Arrays.asList("chunk"), Arrays.asList(directory.list()));
+
+		cache.remove("chunk");
+		assertNull(cache.get("chunk"));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testInvalidChunkId() {
+		ChunkCache cache = new ChunkCache(new File(directory, "cache"), 1000);
+		File outside = new File(directory, "outside");
+
+		// chunk ids are read from meta files of other users, they must not address other files
+		cache.put("../outside", new byte[10]);
+		assertNull(cache.get("../outside"));
+		assertEquals(0, cache.getSize());
+		assertFalse(outside.exists());
+	}
+
+	@Test
+	public void testEviction() {
+		ChunkCache cache = new ChunkCache(directory, 250);
+
+		cache.put("chunk1", new byte[100]);
+		cache.put("chunk2", new byte[100]);
+		// access the first chunk such that the second one is the least recently used
+		assertNotNull(cache.get("chunk1"));
+		cache.put("chunk3", new byte[100]);
+
+		assertNotNull(cache.get("chunk1"));
+		assertNull(cache.get("chunk2"));
+		assertNotNull(cache.get("chunk3"));
+		assertEquals(200, cache.getSize());
+
+		// too large to be cached at all
+		cache.put("chunk4", new byte[300]);
+		assertNull(cache.get("chunk4"));
+	}
+
+	@Test
+	public void testReadExisting() {
+		ChunkCache cache = new ChunkCache(directory, 1000);
+		cache.put("chunk1", new byte[100]);
+		cache.put("chunk2", new byte[100]);
+
+		// a new instance (e.g. after a restart or of an other process) finds the cached chunks
+		ChunkCache other = new ChunkCache(directory, 1000);
+		assertEquals(200, other.getSize());
+		assertNotNull(other.get("chunk2"));
+
+		// chunks cached by an other instance are found as well
+		other.put("chunk3", new byte[100]);
+		assertNotNull(cache.get("chunk3"));
+	}
+
+	@Test
+	public void testSharedLimit() {
+		// the nodes of the same process share the instance and its size limit
+		ChunkCache cache = ChunkCache.getInstance(directory, 250);
+		ChunkCache other = ChunkCache.getInstance(directory, 250);
+		assertSame(cache, other);
+
+		cache.put("chunk1", new byte[100]);
+		other.put("chunk2", new byte[100]);
+		cache.put("chunk3", new byte[100]);
+		assertEquals(200, other.getSize());
+		assertEquals(2, directory.list().length);
+	}
+
+	@Test
+	public void testLimitWithOtherProcess() {
+		ChunkCache cache = new ChunkCache(directory, 250);
+		ChunkCache other = new ChunkCache(directory, 250);
+		cache.put("chunk1", new byte[100]);
+		cache.put("chunk2", new byte[100]);
+
+		// the chunk of the other process is counted when it is accessed, the limit is kept
+		other.put("chunk3", new byte[100]);
+		assertNotNull(cache.get("chunk3"));
+		assertEquals(200, cache.getSize());
+		assertEquals(2, directory.list().length);
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
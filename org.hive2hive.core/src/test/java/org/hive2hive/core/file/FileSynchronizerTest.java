@@ -16,6 +16,7 @@ import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.UserProfile;
 import org.hive2hive.core.network.NetworkTestUtil;
 import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -89,7 +90,7 @@ public class FileSynchronizerTest extends H2HJUnitTest {
 		node2d = new FolderIndex(node1d, keys, "2d");
 
 		// write the meta data now. Before creating the synchronizer, modify the file system as desired first.
-		FileUtil.writePersistentMetaData(rootPath, null, null);
+		FileUtil.writePersistentMetaData(rootPath, null, null, null);
 	}
 
 	@After
@@ -199,6 +200,54 @@ public class FileSynchronizerTest extends H2HJUnitTest {
 		Assert.assertEquals(0, fileSynchronizer.getDeletedLocally().size());
 	}
 
+	@Test
+	public void testFolderDigests() throws IOException {
+		// the digests on disk match the ones in the user profile
+		PersistentMetaData metaData = FileUtil.readPersistentMetaData(rootPath);
+		Assert.assertTrue(H2HEncryptionUtil.compareMD5(root.getDigest(), metaData.getFolderDigests().get("")));
+		Assert.assertTrue(H2HEncryptionUtil.compareMD5(node1d.getDigest(), metaData.getFolderDigests().get("1d")));
+
+		// modify a file in a sub-folder
+		byte[] rootDigest = root.getDigest();
+		byte[] node1dDigest = node1d.getDigest();
+		byte[] node2dDigest = ((FolderIndex) node2d).getDigest();
+		node2f.setMD5(EncryptionUtil.generateMD5Hash(NetworkTestUtil.randomString().getBytes()));
+
+		// all parents changed, the sibling folder not
+		Assert.assertFalse(H2HEncryptionUtil.compareMD5(rootDigest, root.getDigest()));
+		Assert.assertFalse(H2HEncryptionUtil.compareMD5(node1dDigest, node1d.getDigest()));
+		Assert.assertTrue(H2HEncryptionUtil.compareMD5(node2dDigest, ((FolderIndex) node2d).getDigest()));
+	}
+
+	@Test
+	public void testUnmodifiedFilesNotHashed() throws IOException {
+		// the file has not been modified for a while when the meta data is written
+		long modified = System.currentTimeMillis() - 60000;
+		file2f.setLastModified(modified);
+		FileUtil.writePersistentMetaData(rootPath, null, null, null);
+		PersistentMetaData metaData = FileUtil.readPersistentMetaData(rootPath);
+		String path = file1d.getName() + File.separator + file2f.getName();
+		byte[] md5 = metaData.getFileTree().get(path);
+
+		// change the content, but keep the size and the modification time
+		String content = FileUtils.readFileToString(file2f);
+		FileUtils.writeStringToFile(file2f, new StringBuilder(content).reverse().toString());
+		file2f.setLastModified(modified);
+
+		// the hash of the meta data is taken without reading the file
+		PersistenceFileVisitor visitor = new PersistenceFileVisitor(rootPath, metaData);
+		Files.walkFileTree(rootPath, visitor);
+		Assert.assertTrue(H2HEncryptionUtil.compareMD5(md5, visitor.getFileTree().get(path)));
+
+		// a new modification time causes the file to be hashed
+		file2f.setLastModified(modified + 1000);
+		visitor = new PersistenceFileVisitor(rootPath, metaData);
+		Files.walkFileTree(rootPath, visitor);
+		Assert.assertTrue(H2HEncryptionUtil.compareMD5(EncryptionUtil.generateMD5Hash(file2f), visitor
+				.getFileTree().get(path)));
+		Assert.assertFalse(H2HEncryptionUtil.compareMD5(md5, visitor.getFileTree().get(path)));
+	}
+
 	@Test
 	public void testConflictUpdateLocallyDeleteRemotely() throws IOException, ClassNotFoundException {
 		// change a file locally
@@ -8,6 +8,7 @@ import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.integration.TestFileConfiguration;
 import org.hive2hive.core.network.NetworkTestUtil;
 import org.hive2hive.core.network.data.PublicKeyManager;
 import org.hive2hive.core.network.data.download.DownloadManager;
@@ -60,12 +61,26 @@ public class FileUtilTest extends H2HJUnitTest {
 		PublicKeyManager publicKeyManager = new PublicKeyManager("user", EncryptionUtil.generateRSAKeyPair(),
 				null);
 		DownloadManager downloadManager = new DownloadManager(null, null, publicKeyManager, null);
-		FileUtil.writePersistentMetaData(root.toPath(), publicKeyManager, downloadManager);
+		FileUtil.writePersistentMetaData(root.toPath(), publicKeyManager, downloadManager, null);
 		PersistentMetaData persistentMetaData = FileUtil.readPersistentMetaData(root.toPath());
 		Map<String, byte[]> fileTree = persistentMetaData.getFileTree();
 		Assert.assertTrue(fileTree.containsKey(fileName));
 	}
 
+	@Test
+	public void testStateDirectory() throws IOException {
+		File stateDirectory = FileUtil.getStateDirectory(TestFileConfiguration.STATE_DIRECTORY, root.toPath(),
+				"user");
+		Assert.assertTrue(stateDirectory.isDirectory());
+		Assert.assertEquals(TestFileConfiguration.STATE_DIRECTORY, stateDirectory.getParentFile());
+
+		// the files in the configured state directory are never synchronized
+		Assert.assertTrue(FileUtil.isInternalFile(new File(stateDirectory, "file")));
+		Assert.assertTrue(FileUtil.isInternalFile(new File(FileUtil.getChunkCacheDirectory(
+				TestFileConfiguration.STATE_DIRECTORY, "user"), "chunk")));
+		Assert.assertFalse(FileUtil.isInternalFile(new File(root, "file")));
+	}
+
 	@Test
 	public void testSortPreorder() {
 		List<File> files = new ArrayList<File>();
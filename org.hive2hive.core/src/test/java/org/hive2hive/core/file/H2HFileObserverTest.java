@@ -56,7 +56,14 @@ public class H2HFileObserverTest extends H2HJUnitTest {
 		}
 		FileUtils.forceMkdir(getTestDirectoryRoot());
 
-		testObserver = new H2HFileObserver(getTestDirectoryRoot());
+		testObserver = createObserver(getTestDirectoryRoot());
+	}
+
+	/**
+	 * Creates the observer under test
+	 */
+	protected IFileObserver createObserver(File root) {
+		return new H2HFileObserver(root);
 	}
 
 	@After
@@ -0,0 +1,28 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+
+import org.hive2hive.core.api.H2HNativeFileObserver;
+import org.hive2hive.core.api.interfaces.IFileObserver;
+import org.junit.BeforeClass;
+
+/**
+ * Runs the file observer tests against the {@link H2HNativeFileObserver}, which must deliver the same events
+ * as the polling observer.
+ *
+ * @author Nico
+ *
+ */
+public class H2HNativeFileObserverTest extends H2HFileObserverTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = H2HNativeFileObserverTest.class;
+		beforeClass();
+	}
+
+	@Override
+	protected IFileObserver createObserver(File root) {
+		return new H2HNativeFileObserver(root);
+	}
+}
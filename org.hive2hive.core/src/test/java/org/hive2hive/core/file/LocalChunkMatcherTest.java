@@ -0,0 +1,116 @@
+package org.hive2hive.core.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.model.Chunk;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the comparison of the chunks of a local file with the chunks of a version.
+ *
+ * @author Nico
+ *
+ */
+public class LocalChunkMatcherTest extends H2HJUnitTest {
+
+	private final static int CHUNK_SIZE = 1024;
+	private static File parent;
+
+	private File file;
+	private List<MetaChunk> metaChunks;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		parent = FileTestUtil.getTempDirectory();
+		testClass = LocalChunkMatcherTest.class;
+		beforeClass();
+	}
+
+	@Before
+	public void createFile() throws IOException {
+		file = FileTestUtil.createFileRandomContent(3, parent, CHUNK_SIZE);
+		file.deleteOnExit();
+
+		metaChunks = new ArrayList<MetaChunk>();
+		for (int i = 0; i < 3; i++) {
+			String chunkId = UUID.randomUUID().toString();
+			Chunk chunk = FileChunkUtil.getChunk(file, CHUNK_SIZE, i, chunkId);
+			byte[] md5 = EncryptionUtil.generateMD5Hash(chunk.getData());
+			metaChunks.add(new MetaChunk(chunkId, md5, i, md5));
+		}
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Test
+	public void testUnchanged() throws IOException {
+		LocalChunkMatcher matcher = new LocalChunkMatcher(file, CHUNK_SIZE);
+		for (MetaChunk metaChunk : metaChunks) {
+			Chunk chunk = matcher.getMatchingChunk(metaChunk);
+			assertNotNull(chunk);
+			assertArrayEquals(metaChunk.getContentHash(), EncryptionUtil.generateMD5Hash(chunk.getData()));
+		}
+	}
+
+	@Test
+	public void testModifiedChunk() throws IOException {
+		// change a byte in the middle chunk
+		RandomAccessFile rndAccessFile = new RandomAccessFile(file, "rw");
+		rndAccessFile.seek(CHUNK_SIZE + 1);
+		byte current = rndAccessFile.readByte();
+		rndAccessFile.seek(CHUNK_SIZE + 1);
+		rndAccessFile.writeByte(current + 1);
+		rndAccessFile.close();
+
+		LocalChunkMatcher matcher = new LocalChunkMatcher(file, CHUNK_SIZE);
+		assertNotNull(matcher.getMatchingChunk(metaChunks.get(0)));
+		assertNull(matcher.getMatchingChunk(metaChunks.get(1)));
+		assertNotNull(matcher.getMatchingChunk(metaChunks.get(2)));
+	}
+
+	@Test
+	public void testShorterFile() throws IOException {
+		RandomAccessFile rndAccessFile = new RandomAccessFile(file, "rw");
+		rndAccessFile.setLength(CHUNK_SIZE);
+		rndAccessFile.close();
+
+		LocalChunkMatcher matcher = new LocalChunkMatcher(file, CHUNK_SIZE);
+		assertNotNull(matcher.getMatchingChunk(metaChunks.get(0)));
+		assertNull(matcher.getMatchingChunk(metaChunks.get(1)));
+		assertNull(matcher.getMatchingChunk(metaChunks.get(2)));
+	}
+
+	@Test
+	public void testWithoutContentHash() throws IOException {
+		MetaChunk first = metaChunks.get(0);
+		MetaChunk withoutHash = new MetaChunk(first.getChunkId(), first.getChunkHash(), first.getIndex());
+
+		LocalChunkMatcher matcher = new LocalChunkMatcher(file, CHUNK_SIZE);
+		assertNull(matcher.getMatchingChunk(withoutHash));
+	}
+
+	@Test
+	public void testNotExisting() throws IOException {
+		File notExisting = new File(parent, UUID.randomUUID().toString());
+		LocalChunkMatcher matcher = new LocalChunkMatcher(notExisting, CHUNK_SIZE);
+		assertNull(matcher.getMatchingChunk(metaChunks.get(0)));
+	}
+}
@@ -0,0 +1,119 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the persistence of the {@link PutLog}.
+ *
+ * @author Nico
+ *
+ */
+public class PutLogTest extends H2HJUnitTest {
+
+	private File directory;
+	private KeyPair protectionKeys;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = PutLogTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void createDirectory() {
+		directory = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
+		directory.mkdirs();
+		protectionKeys = EncryptionUtil.generateRSAKeyPair();
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void testPersistence() throws IOException {
+		PutLog putLog = new PutLog(directory);
+		putLog.put("chunk-0", H2HConstants.FILE_CHUNK, protectionKeys);
+		putLog.put("meta", H2HConstants.META_FILE, protectionKeys);
+		putLog.put("chunk-1", H2HConstants.FILE_CHUNK, null);
+		// the first put is kept
+		long putTime = putLog.getEntries().get(0).getPutTime();
+		putLog.put("chunk-0", H2HConstants.FILE_CHUNK, protectionKeys);
+
+		// simulate a restart
+		putLog = new PutLog(directory);
+		List<PutLogEntry> entries = putLog.getEntries();
+		Assert.assertEquals(3, entries.size());
+		Assert.assertEquals("chunk-0", entries.get(0).getLocationKey());
+		Assert.assertEquals(H2HConstants.FILE_CHUNK, entries.get(0).getContentKey());
+		Assert.assertEquals(putTime, entries.get(0).getPutTime());
+		Assert.assertEquals(PutLog.getKeyId(protectionKeys), entries.get(0).getProtectionKeyId());
+		Assert.assertEquals(PutLog.getKeyId(protectionKeys), entries.get(1).getProtectionKeyId());
+		Assert.assertNull(entries.get(2).getProtectionKeyId());
+
+		// the keys themselves are not stored
+		String content = FileUtils.readFileToString(new File(directory, H2HConstants.PUT_LOG_FILE_NAME));
+		Assert.assertFalse(content.contains(EncryptionUtil.toHex(protectionKeys.getPrivate().getEncoded())));
+	}
+
+	@Test
+	public void testRemove() throws IOException {
+		PutLog putLog = new PutLog(directory);
+		for (int i = 0; i < 10; i++) {
+			putLog.put("chunk-" + i, H2HConstants.FILE_CHUNK, protectionKeys);
+		}
+
+		List<PutLogEntry> entries = putLog.getEntries();
+		putLog.remove(entries.get(0));
+		putLog.remove(entries.get(1));
+		Assert.assertEquals(8, putLog.getEntries().size());
+
+		// simulate a restart
+		putLog = new PutLog(directory);
+		Assert.assertEquals(8, putLog.getEntries().size());
+		Assert.assertEquals("chunk-2", putLog.getEntries().get(0).getLocationKey());
+
+		// the removed entries have been compacted
+		File logFile = new File(directory, H2HConstants.PUT_LOG_FILE_NAME);
+		Assert.assertEquals(8, FileUtils.readLines(logFile).size());
+
+		for (PutLogEntry entry : putLog.getEntries()) {
+			putLog.remove(entry);
+		}
+		Assert.assertFalse(logFile.exists());
+	}
+
+	@Test
+	public void testCorruptLine() throws IOException {
+		PutLog putLog = new PutLog(directory);
+		putLog.put("chunk-0", H2HConstants.FILE_CHUNK, protectionKeys);
+
+		File logFile = new File(directory, H2HConstants.PUT_LOG_FILE_NAME);
+		FileUtils.writeStringToFile(logFile, "put FILE_CHUNK chunk-1 unknown", true);
+
+		putLog = new PutLog(directory);
+		Assert.assertEquals(1, putLog.getEntries().size());
+		Assert.assertEquals("chunk-0", putLog.getEntries().get(0).getLocationKey());
+	}
+}
@@ -0,0 +1,168 @@
+package org.hive2hive.core.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the persistence of the {@link UploadJournal} and when interrupted uploads can be continued.
+ *
+ * @author Nico
+ *
+ */
+public class UploadJournalTest extends H2HJUnitTest {
+
+	private static final int CHUNK_SIZE = 64;
+
+	private File root;
+	private File stateDirectory;
+	private KeyPair userKeys;
+	private KeyPair chunkKeys;
+	private KeyPair protectionKeys;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = UploadJournalTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void createRoot() {
+		root = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
+		root.mkdirs();
+		stateDirectory = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
+		stateDirectory.mkdirs();
+		userKeys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_USER_KEYS);
+		chunkKeys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_CHUNK);
+		protectionKeys = EncryptionUtil.generateRSAKeyPair();
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		FileUtils.deleteDirectory(root);
+		FileUtils.deleteDirectory(stateDirectory);
+	}
+
+	@Test
+	public void testResumeAfterRestart() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+
+		UploadJournal journal = new UploadJournal(root.toPath(), stateDirectory, userKeys);
+		journal.begin(file, CHUNK_SIZE, chunkKeys, protectionKeys);
+		journal.chunkCompleted(file, new MetaChunk("chunk-1", new byte[] { 1 }, 1));
+		journal.chunkCompleted(file, new MetaChunk("chunk-0", new byte[] { 0 }, 0));
+
+		// simulate a restart
+		journal = new UploadJournal(root.toPath(), stateDirectory, userKeys);
+		UploadJournalEntry entry = journal.get(file);
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(2, entry.getCompletedChunks().size());
+		Assert.assertEquals("chunk-0", entry.getCompletedChunks().get(0).getChunkId());
+		Assert.assertEquals(chunkKeys.getPublic(), entry.getChunkKeys().getPublic());
+		Assert.assertTrue(entry.isResumable(file, CHUNK_SIZE, null, protectionKeys));
+		Assert.assertTrue(entry.isResumable(file, CHUNK_SIZE, chunkKeys, null));
+
+		// other chunk size or keys cannot reuse the chunks
+		Assert.assertFalse(entry.isResumable(file, CHUNK_SIZE * 2, null, null));
+		Assert.assertFalse(entry.isResumable(file, CHUNK_SIZE, EncryptionUtil.generateRSAKeyPair(), null));
+
+		// completed upload is not recorded anymore
+		journal.remove(file);
+		Assert.assertNull(journal.get(file));
+		Assert.assertNull(new UploadJournal(root.toPath(), stateDirectory, userKeys).get(file));
+	}
+
+	@Test
+	public void testModifiedFileNotResumable() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+
+		UploadJournal journal = new UploadJournal(root.toPath(), stateDirectory, userKeys);
+		journal.begin(file, CHUNK_SIZE, chunkKeys, protectionKeys);
+
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		Assert.assertFalse(journal.get(file).isResumable(file, CHUNK_SIZE, null, null));
+
+		Files.delete(file.toPath());
+		Assert.assertFalse(journal.get(file).isResumable(file, CHUNK_SIZE, null, null));
+	}
+
+	@Test
+	public void testJournalNotSynchronized() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+
+		UploadJournal journal = new UploadJournal(root.toPath(), stateDirectory, userKeys);
+		journal.begin(file, CHUNK_SIZE, chunkKeys, protectionKeys);
+		File journalFile = new File(stateDirectory, H2HConstants.UPLOAD_JOURNAL_FILE_NAME);
+		Assert.assertTrue(journalFile.exists());
+		Assert.assertFalse(new File(root, H2HConstants.UPLOAD_JOURNAL_FILE_NAME).exists());
+
+		// the keys are not readable
+		byte[] content = FileUtils.readFileToByteArray(journalFile);
+		byte[] privateKey = chunkKeys.getPrivate().getEncoded();
+		for (int i = 0; i + privateKey.length <= content.length; i++) {
+			byte[] window = Arrays.copyOfRange(content, i, i + privateKey.length);
+			Assert.assertFalse(Arrays.equals(privateKey, window));
+		}
+
+		// cannot be read with other keys
+		KeyPair otherKeys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_USER_KEYS);
+		Assert.assertNull(new UploadJournal(root.toPath(), stateDirectory, otherKeys).get(file));
+
+		PersistenceFileVisitor visitor = new PersistenceFileVisitor(root.toPath());
+		Files.walkFileTree(root.toPath(), visitor);
+		Map<String, byte[]> fileTree = visitor.getFileTree();
+		Assert.assertEquals(1, fileTree.size());
+		Assert.assertTrue(fileTree.containsKey("file"));
+	}
+
+	@Test
+	public void testIncompleteRecordIgnored() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+
+		UploadJournal journal = new UploadJournal(root.toPath(), stateDirectory, userKeys);
+		journal.begin(file, CHUNK_SIZE, chunkKeys, protectionKeys);
+		journal.chunkCompleted(file, new MetaChunk("chunk-0", new byte[] { 0 }, 0));
+
+		// records are appended, the file is not rewritten
+		File journalFile = new File(stateDirectory, H2HConstants.UPLOAD_JOURNAL_FILE_NAME);
+		long length = journalFile.length();
+		journal.chunkCompleted(file, new MetaChunk("chunk-1", new byte[] { 1 }, 1));
+		Assert.assertTrue(journalFile.length() > length);
+
+		// simulate a crash while writing the last record
+		try (RandomAccessFile access = new RandomAccessFile(journalFile, "rw")) {
+			access.setLength(journalFile.length() - 3);
+		}
+
+		UploadJournalEntry entry = new UploadJournal(root.toPath(), stateDirectory, userKeys).get(file);
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(1, entry.getCompletedChunks().size());
+		Assert.assertEquals("chunk-0", entry.getCompletedChunks().get(0).getChunkId());
+	}
+}
@@ -0,0 +1,115 @@
+package org.hive2hive.core.file.buffer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.processes.implementations.files.list.FileTaste;
+import org.hive2hive.core.processes.implementations.files.list.FileTasteTestUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests which files of the buffer the {@link AddFileBuffer} adds.
+ *
+ * @author Nico
+ */
+public class AddFileBufferTest extends H2HJUnitTest {
+
+	private File root;
+	private RecordingFileManager fileManager;
+	private AddFileBuffer buffer;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = AddFileBufferTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void createBuffer() {
+		root = FileTestUtil.getTempDirectory();
+		root.mkdirs();
+		fileManager = new RecordingFileManager();
+		buffer = new AddFileBuffer(fileManager);
+	}
+
+	@After
+	public void deleteRoot() throws IOException {
+		FileUtils.deleteDirectory(root);
+	}
+
+	@Test
+	public void testOnlyAddTopParents() throws IOException {
+		File folder = new File(root, "foo");
+		File child = new File(folder, "child");
+		File grandChild = new File(child, "file");
+		FileUtils.writeStringToFile(grandChild, NetworkTestUtil.randomString());
+		// shares the prefix of the folder, but is not its child
+		File sibling = new File(root, "foobar");
+		FileUtils.writeStringToFile(sibling, NetworkTestUtil.randomString());
+
+		FileBufferHolder holder = new FileBufferHolder();
+		holder.addFile(folder);
+		holder.addFile(grandChild);
+		holder.addFile(sibling);
+		holder.addFile(child);
+		holder.setSyncFiles(Collections.<File, FileTaste> emptyMap());
+
+		buffer.processBuffer(holder);
+		assertEquals(Arrays.asList(folder, sibling), fileManager.getAdded());
+	}
+
+	@Test
+	public void testParentInSync() throws IOException {
+		File folder = new File(root, "folder");
+		File file = new File(folder, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+
+		// the folder has been downloaded, only the new file is added
+		FileBufferHolder holder = new FileBufferHolder();
+		holder.addFile(folder);
+		holder.addFile(file);
+		Map<File, FileTaste> syncFiles = new HashMap<File, FileTaste>();
+		syncFiles.put(folder, FileTasteTestUtil.createFileTaste(root, folder, null));
+		holder.setSyncFiles(syncFiles);
+
+		buffer.processBuffer(holder);
+		assertEquals(Collections.singletonList(file), fileManager.getAdded());
+	}
+
+	@Test
+	public void testDropDuplicateEvents() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+
+		// the file observer reports the same file multiple times
+		buffer.addFileToBuffer(file);
+		buffer.addFileToBuffer(file);
+		assertEquals(Collections.singleton(file), buffer.currentBuffer.getFileBuffer());
+
+		FileBufferHolder holder = new FileBufferHolder();
+		holder.addFile(file);
+		holder.addFile(file);
+		holder.setSyncFiles(Collections.<File, FileTaste> emptyMap());
+		buffer.processBuffer(holder);
+		assertEquals(Collections.singletonList(file), fileManager.getAdded());
+	}
+}
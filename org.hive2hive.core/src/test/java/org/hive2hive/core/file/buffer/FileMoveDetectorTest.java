@@ -0,0 +1,152 @@
+package org.hive2hive.core.file.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.processes.implementations.files.list.FileTasteTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests whether the {@link FileMoveDetector} correlates the files of the delete and the add buffer.
+ *
+ * @author Nico
+ */
+public class FileMoveDetectorTest extends H2HJUnitTest {
+
+	private File root;
+	private RecordingFileManager fileManager;
+	private FileMoveDetector moveDetector;
+	private DeleteFileBuffer deleteBuffer;
+	private AddFileBuffer addBuffer;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = FileMoveDetectorTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void createBuffers() {
+		root = FileTestUtil.getTempDirectory();
+		root.mkdirs();
+		fileManager = new RecordingFileManager();
+		moveDetector = new FileMoveDetector();
+		SyncFileSnapshot syncFileSnapshot = new SyncFileSnapshot(fileManager);
+		deleteBuffer = new DeleteFileBuffer(fileManager, syncFileSnapshot, moveDetector);
+		addBuffer = new AddFileBuffer(fileManager, syncFileSnapshot, moveDetector);
+	}
+
+	@After
+	public void deleteRoot() throws IOException {
+		FileUtils.deleteDirectory(root);
+	}
+
+	@Test
+	public void testDeleteAndAddIsMove() throws IOException {
+		File folder = new File(root, "folder");
+		File destination = new File(folder, "file");
+		FileUtils.writeStringToFile(destination, NetworkTestUtil.randomString());
+		File source = new File(root, "file");
+		byte[] md5 = EncryptionUtil.generateMD5Hash(destination);
+
+		// the deleted file is held back for the add buffer
+		deleteBuffer.processBuffer(createHolder(source, source, md5));
+		assertTrue(fileManager.getDeleted().isEmpty());
+		assertTrue(moveDetector.hasDeletedFiles());
+
+		// the created file has the same content
+		addBuffer.processBuffer(createHolder(destination, source, md5));
+		assertEquals(1, fileManager.getMoved().size());
+		assertEquals(source, fileManager.getMoved().get(0)[0]);
+		assertEquals(destination, fileManager.getMoved().get(0)[1]);
+		assertTrue(fileManager.getAdded().isEmpty());
+
+		// it is not deleted anymore after the buffering time
+		assertFalse(moveDetector.hasDeletedFiles());
+		assertTrue(moveDetector.removeDeletedFiles(Collections.singleton(source)).isEmpty());
+	}
+
+	@Test
+	public void testUnrelatedFilesNotMoved() throws IOException {
+		File created = new File(root, "created");
+		FileUtils.writeStringToFile(created, NetworkTestUtil.randomString());
+		File deleted = new File(root, "deleted");
+		byte[] md5 = EncryptionUtil.generateMD5Hash(NetworkTestUtil.randomString().getBytes());
+
+		deleteBuffer.processBuffer(createHolder(deleted, deleted, md5));
+		addBuffer.processBuffer(createHolder(created, deleted, md5));
+		assertTrue(fileManager.getMoved().isEmpty());
+		assertEquals(Collections.singletonList(created), fileManager.getAdded());
+
+		// the deleted file has not been claimed and is deleted after the buffering time
+		assertTrue(moveDetector.hasDeletedFiles());
+		assertEquals(Collections.singletonList(deleted),
+				moveDetector.removeDeletedFiles(Collections.singleton(deleted)));
+	}
+
+	@Test
+	public void testDeletedFolderNotMoved() throws IOException {
+		File created = new File(root, "created");
+		created.mkdir();
+		File deleted = new File(root, "deleted");
+
+		// folders have no content hash
+		deleteBuffer.processBuffer(createHolder(deleted, deleted, null));
+		assertEquals(Collections.singletonList(deleted), fileManager.getDeleted());
+		assertFalse(moveDetector.hasDeletedFiles());
+
+		addBuffer.processBuffer(createHolder(created, deleted, null));
+		assertTrue(fileManager.getMoved().isEmpty());
+		assertEquals(Collections.singletonList(created), fileManager.getAdded());
+	}
+
+	@Test
+	public void testPendingDeletionsReleasedOnFailure() throws InterruptedException {
+		moveDetector.startDeletions();
+
+		// the buffer fails without the files in sync
+		FileBufferHolder holder = new FileBufferHolder();
+		holder.addFile(new File(root, "file"));
+		try {
+			deleteBuffer.processBuffer(holder);
+		} catch (NullPointerException e) {
+			// expected
+		}
+
+		// the add buffer does not wait for the failed deletions
+		long start = System.currentTimeMillis();
+		moveDetector.awaitDeletions(10000);
+		assertTrue(System.currentTimeMillis() - start < 10000);
+	}
+
+	/**
+	 * @param buffered the file in the buffer
+	 * @param inSync the file in the user profile
+	 * @param md5 the hash of the file in the user profile (<code>null</code> for a folder)
+	 */
+	private FileBufferHolder createHolder(File buffered, File inSync, byte[] md5) {
+		FileBufferHolder holder = new FileBufferHolder();
+		holder.addFile(buffered);
+		holder.setSyncFiles(Collections.singletonMap(inSync, FileTasteTestUtil.createFileTaste(root, inSync, md5)));
+		return holder;
+	}
+}
@@ -0,0 +1,214 @@
+package org.hive2hive.core.file.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.file.FileChunkUtil;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.processes.implementations.context.AddFileProcessContext;
+import org.hive2hive.core.processes.implementations.files.list.FileTasteTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests when the {@link ModifyFileBuffer} compares and updates the modified files.
+ *
+ * @author Nico
+ */
+public class ModifyFileBufferTest extends H2HJUnitTest {
+
+	private static final int CHUNK_SIZE = 1024;
+
+	private File root;
+	private RecordingFileManager fileManager;
+	private ModifyFileBuffer buffer;
+	// a modification time before the quiescence time
+	private long past;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = ModifyFileBufferTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void createBuffer() {
+		root = FileTestUtil.getTempDirectory();
+		root.mkdirs();
+		fileManager = new RecordingFileManager();
+		buffer = new ModifyFileBuffer(fileManager);
+		// the file system might not store milliseconds
+		past = (System.currentTimeMillis() - 10 * H2HConstants.FILE_QUIESCENCE_TIME_MS) / 1000 * 1000;
+	}
+
+	@After
+	public void deleteRoot() throws IOException {
+		FileUtils.deleteDirectory(root);
+	}
+
+	@Test
+	public void testWaitUntilQuiescent() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		byte[] md5 = EncryptionUtil.generateMD5Hash(NetworkTestUtil.randomString().getBytes());
+
+		// has just been written, it is buffered again
+		buffer.processBuffer(createHolder(file, md5));
+		assertTrue(fileManager.getUpdated().isEmpty());
+		assertTrue(buffer.currentBuffer.getFileBuffer().contains(file));
+
+		// not modified during the quiescence time
+		setModifiedInThePast(file, 0);
+		buffer.processBuffer(createHolder(file, md5));
+		assertEquals(Collections.singletonList(file), fileManager.getUpdated());
+	}
+
+	@Test
+	public void testWaitWhileLengthChanges() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		byte[] md5 = EncryptionUtil.generateMD5Hash(NetworkTestUtil.randomString().getBytes());
+
+		buffer.processBuffer(createHolder(file, md5));
+		assertTrue(fileManager.getUpdated().isEmpty());
+
+		// the modification time is old, but the size changed since the file has been buffered again
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString(), true);
+		setModifiedInThePast(file, 0);
+		buffer.processBuffer(createHolder(file, md5));
+		assertTrue(fileManager.getUpdated().isEmpty());
+
+		// same size as before
+		buffer.processBuffer(createHolder(file, md5));
+		assertEquals(Collections.singletonList(file), fileManager.getUpdated());
+	}
+
+	@Test
+	public void testReuseHashOfUntouchedFile() throws IOException {
+		File file = new File(root, "file");
+		String content = NetworkTestUtil.randomString();
+		FileUtils.writeStringToFile(file, content);
+		setModifiedInThePast(file, 0);
+		byte[] md5 = EncryptionUtil.generateMD5Hash(file);
+
+		// same content as in the user profile, the hash is recorded
+		buffer.processBuffer(createHolder(file, md5));
+		assertTrue(fileManager.getUpdated().isEmpty());
+
+		// same size and modification time --> the recorded hash is taken without reading the file
+		FileUtils.writeStringToFile(file, new StringBuilder(content).reverse().toString());
+		setModifiedInThePast(file, 0);
+		buffer.processBuffer(createHolder(file, md5));
+		assertTrue(fileManager.getUpdated().isEmpty());
+
+		// the modification time changed --> hashed again
+		setModifiedInThePast(file, 1000);
+		buffer.processBuffer(createHolder(file, md5));
+		assertEquals(Collections.singletonList(file), fileManager.getUpdated());
+	}
+
+	@Test
+	public void testLengthChanged() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		setModifiedInThePast(file, 0);
+		byte[] md5 = EncryptionUtil.generateMD5Hash(file);
+
+		buffer.processBuffer(createHolder(file, md5));
+		assertTrue(fileManager.getUpdated().isEmpty());
+
+		// another size than when the hash has been recorded, even with the same modification time
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString(), true);
+		setModifiedInThePast(file, 0);
+		buffer.processBuffer(createHolder(file, md5));
+		assertEquals(Collections.singletonList(file), fileManager.getUpdated());
+	}
+
+	@Test
+	public void testNotInSync() throws IOException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		setModifiedInThePast(file, 0);
+
+		FileBufferHolder holder = new FileBufferHolder();
+		holder.addFile(file);
+		holder.setSyncFiles(Collections.singletonMap(new File(root, "other"),
+				FileTasteTestUtil.createFileTaste(root, new File(root, "other"), null)));
+		buffer.processBuffer(holder);
+		assertTrue(fileManager.getUpdated().isEmpty());
+	}
+
+	@Test
+	public void testChunkDigestEqualsFileHash() throws IOException {
+		// the buffer compares the hash of the file with the one calculated from the uploaded chunks
+		File file = FileTestUtil.createFileRandomContent(5, root, CHUNK_SIZE);
+		int chunks = FileChunkUtil.getNumberOfChunks(file, CHUNK_SIZE);
+
+		AddFileProcessContext context = new AddFileProcessContext(file);
+		context.startDigest(chunks);
+		for (int i = 0; i < chunks; i++) {
+			assertNull(context.consumeMD5());
+			context.digestChunk(FileChunkUtil.getChunk(file, CHUNK_SIZE, i, NetworkTestUtil.randomString()));
+		}
+		assertTrue(H2HEncryptionUtil.compareMD5(EncryptionUtil.generateMD5Hash(file), context.consumeMD5()));
+
+		// chunks that are not aligned with the blocks of the file hash
+		int unalignedSize = CHUNK_SIZE - 24;
+		int unalignedChunks = FileChunkUtil.getNumberOfChunks(file, unalignedSize);
+		context = new AddFileProcessContext(file);
+		context.startDigest(unalignedChunks);
+		for (int i = 0; i < unalignedChunks; i++) {
+			context.digestChunk(FileChunkUtil.getChunk(file, unalignedSize, i, NetworkTestUtil.randomString()));
+		}
+		assertTrue(H2HEncryptionUtil.compareMD5(EncryptionUtil.generateMD5Hash(file), context.consumeMD5()));
+
+		// an empty file has a single empty chunk
+		File empty = new File(root, "empty");
+		FileUtils.writeStringToFile(empty, "");
+		context = new AddFileProcessContext(empty);
+		context.startDigest(FileChunkUtil.getNumberOfChunks(empty, CHUNK_SIZE));
+		context.digestChunk(FileChunkUtil.getChunk(empty, CHUNK_SIZE, 0, NetworkTestUtil.randomString()));
+		assertTrue(H2HEncryptionUtil.compareMD5(EncryptionUtil.generateMD5Hash(empty), context.consumeMD5()));
+
+		// chunks out of order cannot be hashed in one pass
+		context = new AddFileProcessContext(file);
+		context.startDigest(chunks);
+		for (int i = chunks - 1; i >= 0; i--) {
+			context.digestChunk(FileChunkUtil.getChunk(file, CHUNK_SIZE, i, NetworkTestUtil.randomString()));
+		}
+		assertNull(context.consumeMD5());
+	}
+
+	private FileBufferHolder createHolder(File file, byte[] md5) {
+		FileBufferHolder holder = new FileBufferHolder();
+		holder.addFile(file);
+		holder.setSyncFiles(Collections.singletonMap(file, FileTasteTestUtil.createFileTaste(root, file, md5)));
+		return holder;
+	}
+
+	/**
+	 * Sets the modification time before the quiescence time (plus the given offset)
+	 */
+	private void setModifiedInThePast(File file, long offsetMs) {
+		file.setLastModified(past + offsetMs);
+	}
+}
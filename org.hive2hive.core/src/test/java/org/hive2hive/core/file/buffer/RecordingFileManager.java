@@ -0,0 +1,190 @@
+package org.hive2hive.core.file.buffer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hive2hive.core.api.interfaces.IFileManager;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.model.PermissionType;
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.framework.concretes.ResultProcessStep;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
+import org.hive2hive.core.processes.framework.interfaces.IProcessResultListener;
+import org.hive2hive.core.processes.framework.interfaces.IResultProcessComponent;
+import org.hive2hive.core.processes.implementations.files.list.FileTaste;
+import org.hive2hive.core.processes.implementations.files.recover.IVersionSelector;
+
+/**
+ * File manager that only records the files handed over by the file buffers. The returned processes do nothing
+ * and have already finished. The file list is only available if it has been set.
+ * 
+ * @author Nico
+ */
+public class RecordingFileManager implements IFileManager {
+
+	private final List<File> added = Collections.synchronizedList(new ArrayList<File>());
+	private final List<File> updated = Collections.synchronizedList(new ArrayList<File>());
+	private final List<File> deleted = Collections.synchronizedList(new ArrayList<File>());
+	// source and destination of every move
+	private final List<File[]> moved = Collections.synchronizedList(new ArrayList<File[]>());
+	private final AtomicInteger fileListRequests = new AtomicInteger();
+	private volatile List<FileTaste> fileList;
+
+	public List<File> getAdded() {
+		return added;
+	}
+
+	public List<File> getUpdated() {
+		return updated;
+	}
+
+	public List<File> getDeleted() {
+		return deleted;
+	}
+
+	public List<File[]> getMoved() {
+		return moved;
+	}
+
+	/**
+	 * @param fileList the files in sync returned by {@link #getFileList()}
+	 */
+	public void setFileList(List<FileTaste> fileList) {
+		this.fileList = fileList;
+	}
+
+	/**
+	 * @return how many times the file list has been requested
+	 */
+	public int getFileListRequests() {
+		return fileListRequests.get();
+	}
+
+	@Override
+	public void configureAutostart(boolean autostart) {
+		// always autostart, the returned processes have already finished
+	}
+
+	@Override
+	public boolean isAutostart() {
+		return true;
+	}
+
+	@Override
+	public IProcessComponent add(File file) {
+		added.add(file);
+		return finished();
+	}
+
+	@Override
+	public IProcessComponent update(File file) {
+		updated.add(file);
+		return finished();
+	}
+
+	@Override
+	public IProcessComponent move(File source, File destination) {
+		moved.add(new File[] { source, destination });
+		return finished();
+	}
+
+	@Override
+	public IProcessComponent delete(File file) {
+		deleted.add(file);
+		return finished();
+	}
+
+	@Override
+	public IResultProcessComponent<Map<File, ProcessState>> addAll(List<File> files) {
+		added.addAll(files);
+		return finished();
+	}
+
+	@Override
+	public IResultProcessComponent<Map<File, ProcessState>> updateAll(List<File> files) {
+		updated.addAll(files);
+		return finished();
+	}
+
+	@Override
+	public IResultProcessComponent<Map<File, ProcessState>> deleteAll(List<File> files) {
+		deleted.addAll(files);
+		return finished();
+	}
+
+	@Override
+	public IProcessComponent recover(File file, IVersionSelector versionSelector) {
+		return null;
+	}
+
+	@Override
+	public IProcessComponent share(File folder, String userId, PermissionType permission) {
+		return null;
+	}
+
+	@Override
+	public IResultProcessComponent<List<FileTaste>> getFileList() throws NoSessionException {
+		fileListRequests.incrementAndGet();
+		if (fileList == null) {
+			// the files in sync are handed to the buffers directly
+			throw new NoSessionException();
+		}
+		return new FileListProcess(fileList);
+	}
+
+	private static RecordedProcess finished() {
+		RecordedProcess process = new RecordedProcess();
+		try {
+			process.start();
+		} catch (InvalidProcessStateException e) {
+			// a new process is ready
+		}
+		return process;
+	}
+
+	/**
+	 * Delivers the file list as soon as a listener is attached, as if the process had already finished
+	 */
+	private static class FileListProcess extends ResultProcessStep<List<FileTaste>> {
+
+		private final List<FileTaste> fileList;
+
+		public FileListProcess(List<FileTaste> fileList) {
+			this.fileList = fileList;
+		}
+
+		@Override
+		protected void doExecute() {
+			notifyResultComputed(getResult());
+		}
+
+		@Override
+		public List<FileTaste> getResult() {
+			return fileList;
+		}
+
+		@Override
+		public void attachListener(IProcessResultListener<List<FileTaste>> listener) {
+			super.attachListener(listener);
+			listener.onResultReady(fileList);
+		}
+	}
+
+	private static class RecordedProcess extends ResultProcessStep<Map<File, ProcessState>> {
+
+		@Override
+		protected void doExecute() {
+			notifyResultComputed(getResult());
+		}
+
+		@Override
+		public Map<File, ProcessState> getResult() {
+			return Collections.emptyMap();
+		}
+	}
+}
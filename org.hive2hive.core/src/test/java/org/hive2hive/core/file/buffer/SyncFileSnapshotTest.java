@@ -0,0 +1,86 @@
+package org.hive2hive.core.file.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.processes.implementations.files.list.FileTaste;
+import org.hive2hive.core.processes.implementations.files.list.FileTasteTestUtil;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests when the {@link SyncFileSnapshot} fetches the file list again.
+ *
+ * @author Nico
+ */
+public class SyncFileSnapshotTest extends H2HJUnitTest {
+
+	private File root;
+	private RecordingFileManager fileManager;
+	private SyncFileSnapshot snapshot;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = SyncFileSnapshotTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void createSnapshot() {
+		root = FileTestUtil.getTempDirectory();
+		fileManager = new RecordingFileManager();
+		snapshot = new SyncFileSnapshot(fileManager);
+	}
+
+	@Test
+	public void testReuseAndRefetch() {
+		File file = new File(root, "file");
+		List<FileTaste> fileList = new ArrayList<FileTaste>();
+		fileList.add(FileTasteTestUtil.createFileTaste(root, file, null));
+		fileManager.setFileList(fileList);
+
+		long firstEvent = System.currentTimeMillis();
+		Map<File, FileTaste> syncFiles = snapshot.getSyncFiles(firstEvent);
+		assertEquals(1, fileManager.getFileListRequests());
+		assertEquals(Collections.singleton(file), syncFiles.keySet());
+
+		// a buffer that started before the file list has been fetched reuses it
+		assertSame(syncFiles, snapshot.getSyncFiles(firstEvent));
+		assertSame(syncFiles, snapshot.getSyncFiles(firstEvent - 1000));
+		assertEquals(1, fileManager.getFileListRequests());
+
+		// a buffer that started after the file list has been fetched needs the changes since then
+		fileList.add(FileTasteTestUtil.createFileTaste(root, new File(root, "other"), null));
+		syncFiles = snapshot.getSyncFiles(System.currentTimeMillis() + 1000);
+		assertEquals(2, fileManager.getFileListRequests());
+		assertEquals(2, syncFiles.size());
+	}
+
+	@Test
+	public void testFailureNotCached() {
+		// no session, the file list cannot be fetched
+		assertTrue(snapshot.getSyncFiles(System.currentTimeMillis()).isEmpty());
+		assertEquals(1, fileManager.getFileListRequests());
+
+		fileManager.setFileList(Collections.singletonList(FileTasteTestUtil.createFileTaste(root, new File(root,
+				"file"), null)));
+		assertEquals(1, snapshot.getSyncFiles(Long.MIN_VALUE).size());
+		assertEquals(2, fileManager.getFileListRequests());
+	}
+}
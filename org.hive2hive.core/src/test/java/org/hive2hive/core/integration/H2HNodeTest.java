@@ -8,7 +8,6 @@ import java.util.Random;
 import org.apache.commons.io.FileUtils;
 import org.hive2hive.core.H2HJUnitTest;
 import org.hive2hive.core.api.H2HNode;
-import org.hive2hive.core.api.configs.FileConfiguration;
 import org.hive2hive.core.api.configs.NetworkConfiguration;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
 import org.hive2hive.core.api.interfaces.IH2HNode;
@@ -145,7 +144,7 @@ public class H2HNodeTest extends H2HJUnitTest {
 	public void getPeer() {
 		// a unconnected node does not provide a peer
 		INetworkConfiguration config = NetworkConfiguration.create();
-		IFileConfiguration fileConfig = FileConfiguration.createDefault();
+		IFileConfiguration fileConfig = TestFileConfiguration.createDefault();
 		IH2HNode node = H2HNode.createNode(config, fileConfig);
 		Assert.assertNull(node.getPeer());
 
@@ -1,12 +1,29 @@
 package org.hive2hive.core.integration;
 
+import java.io.File;
 import java.math.BigInteger;
+import java.util.UUID;
 
+import org.apache.commons.io.FileUtils;
 import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.api.configs.FileConfiguration;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
 
 public class TestFileConfiguration implements IFileConfiguration {
 
+	// the state directory of all tests, deleted after each test class (see H2HJUnitTest#afterClass())
+	public static final File STATE_DIRECTORY = new File(FileUtils.getTempDirectory(), "H2HState-"
+			+ UUID.randomUUID().toString());
+
+	/**
+	 * Creates the default file configuration, but with the state directory of the tests
+	 */
+	public static IFileConfiguration createDefault() {
+		return FileConfiguration.createCustom(H2HConstants.DEFAULT_MAX_FILE_SIZE,
+				H2HConstants.DEFAULT_MAX_NUM_OF_VERSIONS, H2HConstants.DEFAULT_MAX_SIZE_OF_ALL_VERSIONS,
+				H2HConstants.DEFAULT_CHUNK_SIZE, H2HConstants.DEFAULT_MAX_CHUNK_CACHE_SIZE, STATE_DIRECTORY);
+	}
+
 	@Override
 	public BigInteger getMaxFileSize() {
 		return H2HConstants.MEGABYTES;
@@ -27,4 +44,14 @@ public class TestFileConfiguration implements IFileConfiguration {
 		return 1024;
 	}
 
+	@Override
+	public BigInteger getMaxChunkCacheSize() {
+		return BigInteger.ZERO;
+	}
+
+	@Override
+	public File getStateDirectory() {
+		return STATE_DIRECTORY;
+	}
+
 }
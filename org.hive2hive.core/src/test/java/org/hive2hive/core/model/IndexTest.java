@@ -1,5 +1,6 @@
 package org.hive2hive.core.model;
 
+import java.io.IOException;
 import java.nio.file.Paths;
 import java.security.KeyPair;
 
@@ -200,4 +201,34 @@ public class IndexTest extends H2HJUnitTest {
 		Assert.assertTrue(dir3.canWrite("UserC"));
 		Assert.assertTrue(dir4.canWrite("UserC"));
 	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		// use distinct keys, the indices are identified by them
+		FolderIndex folder = new FolderIndex(null, generateKeys(), null);
+		folder.addUserPermissions(new UserPermission(userId, PermissionType.WRITE));
+		folder.setProtectionKeys(generateKeys());
+		FolderIndex subfolder = new FolderIndex(folder, generateKeys(), "1d");
+		new FileIndex(subfolder, generateKeys(), "2f", null);
+
+		FolderIndex copy = (FolderIndex) EncryptionUtil.deserializeObject(EncryptionUtil.serializeObject(folder));
+		Assert.assertEquals(folder.getFilePublicKey(), copy.getFilePublicKey());
+		Assert.assertEquals(folder.getProtectionKeys().getPublic(), copy.getProtectionKeys().getPublic());
+		Assert.assertEquals(folder.getProtectionKeys().getPrivate(), copy.getProtectionKeys().getPrivate());
+		Assert.assertTrue(copy.canWrite(userId));
+
+		FolderIndex subfolderCopy = (FolderIndex) copy.getChildByName("1d");
+		Assert.assertEquals(subfolder.getFileKeys().getPrivate(), subfolderCopy.getFileKeys().getPrivate());
+		Assert.assertEquals(copy, subfolderCopy.getParent());
+		Assert.assertEquals(folder.getProtectionKeys().getPublic(), subfolderCopy.getProtectionKeys().getPublic());
+
+		Index fileCopy = subfolderCopy.getChildByName("2f");
+		Assert.assertEquals(subfolder.getChildByName("2f").getFilePublicKey(), fileCopy.getFilePublicKey());
+		Assert.assertEquals(Paths.get("1d", "2f"), fileCopy.getFullPath());
+	}
+
+	private static KeyPair generateKeys() {
+		// use a shorter key to speed up
+		return EncryptionUtil.generateRSAKeyPair(EncryptionUtil.RSA_KEYLENGTH.BIT_512);
+	}
 }
@@ -1,5 +1,6 @@
 package org.hive2hive.core.model;
 
+import java.math.BigInteger;
 import java.security.KeyPair;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +37,67 @@ public class MetaFileTest extends H2HJUnitTest {
 
 	}
 
+	@Test
+	public void testPageOut() {
+		KeyPair keys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_META_FILE);
+		MetaFileSmall metaFileSmall = new MetaFileSmall(keys.getPublic(), new ArrayList<FileVersion>(), keys);
+
+		// not enough versions for a page
+		for (int i = 0; i < 7; i++) {
+			metaFileSmall.getVersions().add(new FileVersion(i, 100, System.currentTimeMillis(),
+					new ArrayList<MetaChunk>()));
+		}
+		Assert.assertNull(metaFileSmall.pageOut(3, 5));
+
+		metaFileSmall.getVersions().add(new FileVersion(7, 100, System.currentTimeMillis(),
+				new ArrayList<MetaChunk>()));
+		MetaFilePage page = metaFileSmall.pageOut(3, 5);
+		Assert.assertNotNull(page);
+		Assert.assertEquals(0, page.getNumber());
+		Assert.assertEquals(5, page.getVersions().size());
+
+		// the oldest versions are in the page, the newest stay in the meta file
+		Assert.assertEquals(3, metaFileSmall.getVersions().size());
+		Assert.assertEquals(7, metaFileSmall.getNewestVersion().getIndex());
+		Assert.assertEquals(1, metaFileSmall.getPages().size());
+		MetaFilePageInfo pageInfo = metaFileSmall.getPages().get(0);
+		Assert.assertEquals(0, pageInfo.getFirstIndex());
+		Assert.assertEquals(4, pageInfo.getLastIndex());
+		Assert.assertEquals(5, pageInfo.getNumberOfVersions());
+
+		// the limits consider the versions in the page
+		Assert.assertEquals(8, metaFileSmall.getNumberOfVersions());
+		Assert.assertEquals(BigInteger.valueOf(800), metaFileSmall.getTotalSize());
+	}
+
+	@Test
+	public void testLoadedPages() {
+		KeyPair keys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_META_FILE);
+		List<FileVersion> versions = new ArrayList<FileVersion>();
+		for (int i = 0; i < 4; i++) {
+			versions.add(new FileVersion(i, 100, System.currentTimeMillis(), new ArrayList<MetaChunk>()));
+		}
+		MetaFileSmall metaFileSmall = new MetaFileSmall(keys.getPublic(), versions, keys);
+		MetaFilePage page = metaFileSmall.pageOut(2, 2);
+
+		// simulate a meta file which has been loaded without its pages
+		MetaFileSmall loaded = new MetaFileSmall(keys.getPublic(), new ArrayList<FileVersion>(
+				metaFileSmall.getVersions()), keys);
+		loaded.getPages().addAll(metaFileSmall.getPages());
+		Assert.assertFalse(loaded.isHistoryLoaded());
+		Assert.assertEquals(2, loaded.getAllVersions().size());
+		Assert.assertNull(loaded.getVersionByIndex(0));
+
+		loaded.setLoadedPage(page);
+		Assert.assertTrue(loaded.isHistoryLoaded());
+		List<FileVersion> allVersions = loaded.getAllVersions();
+		Assert.assertEquals(4, allVersions.size());
+		for (int i = 0; i < allVersions.size(); i++) {
+			Assert.assertEquals(i, allVersions.get(i).getIndex());
+		}
+		Assert.assertNotNull(loaded.getVersionByIndex(0));
+	}
+
 	@AfterClass
 	public static void cleanAfterClass() {
 		afterClass();
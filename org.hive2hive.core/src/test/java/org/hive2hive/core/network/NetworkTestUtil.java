@@ -12,12 +12,12 @@ import java.util.UUID;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.H2HSession;
 import org.hive2hive.core.api.H2HNode;
-import org.hive2hive.core.api.configs.FileConfiguration;
 import org.hive2hive.core.api.configs.NetworkConfiguration;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
 import org.hive2hive.core.api.interfaces.IH2HNode;
 import org.hive2hive.core.api.interfaces.INetworkConfiguration;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.integration.TestFileConfiguration;
 import org.hive2hive.core.network.data.PublicKeyManager;
 import org.hive2hive.core.network.data.UserProfileManager;
 import org.hive2hive.core.network.data.download.DownloadManager;
@@ -96,7 +96,7 @@ public class NetworkTestUtil {
 			UserCredentials userCredentials = generateRandomCredentials();
 			UserProfileManager profileManager = new UserProfileManager(node.getDataManager(), userCredentials);
 			PublicKeyManager keyManager = new PublicKeyManager(userCredentials.getUserId(), keyPair, node.getDataManager());
-			IFileConfiguration config = FileConfiguration.createDefault();
+			IFileConfiguration config = TestFileConfiguration.createDefault();
 			DownloadManager downloadManager = new DownloadManager(node.getDataManager(), node.getMessageManager(),
 					keyManager, config);
 			File root = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
@@ -119,7 +119,7 @@ public class NetworkTestUtil {
 		for (NetworkManager node : network) {
 			UserProfileManager profileManager = new UserProfileManager(node.getDataManager(), userCredentials);
 			PublicKeyManager keyManager = new PublicKeyManager(userCredentials.getUserId(), keyPair, node.getDataManager());
-			IFileConfiguration config = FileConfiguration.createDefault();
+			IFileConfiguration config = TestFileConfiguration.createDefault();
 			DownloadManager downloadManager = new DownloadManager(node.getDataManager(), node.getMessageManager(),
 					keyManager, config);
 			File root = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
@@ -159,7 +159,8 @@ public class NetworkTestUtil {
 		// TODO the initial peer has an autostart, whereas the others dont
 
 		// create initial peer
-		IH2HNode initial = H2HNode.createNode(NetworkConfiguration.create("initial"), FileConfiguration.createDefault());
+		IH2HNode initial = H2HNode.createNode(NetworkConfiguration.create("initial"),
+				TestFileConfiguration.createDefault());
 		initial.connect();
 		initial.getFileManager().configureAutostart(false);
 		initial.getUserManager().configureAutostart(false);
@@ -170,7 +171,7 @@ public class NetworkTestUtil {
 			InetAddress bootstrapAddress = InetAddress.getLocalHost();
 			for (int i = 1; i < numberOfNodes; i++) {
 				IH2HNode node = H2HNode.createNode(NetworkConfiguration.create("node " + i, bootstrapAddress),
-						FileConfiguration.createDefault());
+						TestFileConfiguration.createDefault());
 				node.connect();
 				node.getFileManager().configureAutostart(false);
 				node.getUserManager().configureAutostart(false);
@@ -0,0 +1,59 @@
+package org.hive2hive.core.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import net.tomp2p.peers.Number160;
+import net.tomp2p.peers.PeerAddress;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the expiration of the {@link PeerLivenessCache}.
+ *
+ * @author Nico
+ */
+public class PeerLivenessCacheTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = PeerLivenessCacheTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+
+	@Test
+	public void testCachedResult() {
+		PeerLivenessCache cache = new PeerLivenessCache(10000);
+		PeerAddress alive = new PeerAddress(Number160.createHash(NetworkTestUtil.randomString()));
+		PeerAddress dead = new PeerAddress(Number160.createHash(NetworkTestUtil.randomString()));
+		PeerAddress unknown = new PeerAddress(Number160.createHash(NetworkTestUtil.randomString()));
+
+		cache.put(alive, true);
+		cache.put(dead, false);
+
+		assertEquals(Boolean.TRUE, cache.get(alive));
+		assertEquals(Boolean.FALSE, cache.get(dead));
+		assertNull(cache.get(unknown));
+
+		cache.clear();
+		assertNull(cache.get(alive));
+	}
+
+	@Test
+	public void testExpiredResult() throws InterruptedException {
+		PeerLivenessCache cache = new PeerLivenessCache(50);
+		PeerAddress address = new PeerAddress(Number160.createHash(NetworkTestUtil.randomString()));
+
+		cache.put(address, true);
+		Thread.sleep(100);
+		assertNull(cache.get(address));
+	}
+}
@@ -0,0 +1,172 @@
+package org.hive2hive.core.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.tomp2p.peers.Number160;
+import net.tomp2p.peers.Number640;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.api.configs.ContentType;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class StorageAccountingTest extends H2HJUnitTest {
+
+	private static final long NOW = 1000000;
+	private static final long NEVER = Long.MAX_VALUE;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = StorageAccountingTest.class;
+		beforeClass();
+	}
+
+	@Test
+	public void testCounters() {
+		StorageAccounting accounting = new StorageAccounting(0, 0);
+		accounting.add(createKey("a", 1), 100, ContentType.META_FILE, "key1", NEVER);
+		accounting.add(createKey("b", 1), 200, ContentType.FILE_CHUNK, "key1", NEVER);
+		accounting.add(createKey("c", 1), 50, ContentType.FILE_CHUNK, "key2", NEVER);
+		Assert.assertEquals(350, accounting.getTotalSize());
+		Assert.assertEquals(300, accounting.getSize("key1"));
+
+		// replacing an entry does not count it twice
+		accounting.add(createKey("c", 1), 70, ContentType.FILE_CHUNK, "key2", NEVER);
+		StorageMetrics metrics = accounting.getMetrics();
+		Assert.assertEquals(370, metrics.getTotalSize());
+		Assert.assertEquals(3, metrics.getNumberOfEntries());
+		Assert.assertEquals(100, metrics.getSize(ContentType.META_FILE));
+		Assert.assertEquals(270, metrics.getSize(ContentType.FILE_CHUNK));
+		Assert.assertEquals(0, metrics.getSize(ContentType.USER_PROFILE));
+		Assert.assertEquals(70, (long) metrics.getSizePerProtectionKey().get("key2"));
+
+		accounting.remove(createKey("a", 1));
+		Assert.assertEquals(270, accounting.getTotalSize());
+		Assert.assertEquals(200, accounting.getSize("key1"));
+	}
+
+	@Test
+	public void testEvictExpiredBeforeOldVersions() {
+		StorageAccounting accounting = new StorageAccounting(300, 0);
+		Number640 oldVersion = createKey("a", 1);
+		Number640 latestVersion = createKey("a", 2);
+		Number640 expired = createKey("b", 1);
+		accounting.add(oldVersion, 100, ContentType.META_FILE, null, NEVER);
+		accounting.add(latestVersion, 100, ContentType.META_FILE, null, NEVER);
+		accounting.add(expired, 100, ContentType.FILE_CHUNK, null, NOW - 1);
+
+		// enough space without eviction
+		Assert.assertTrue(accounting.selectEvictions(createKey("c", 1), 0, null, NOW).isEmpty());
+
+		List<Number640> evicted = accounting.selectEvictions(createKey("c", 1), 100, null, NOW);
+		Assert.assertEquals(Collections.singletonList(expired), evicted);
+		accounting.evict(evicted, NOW);
+		accounting.add(createKey("c", 1), 100, ContentType.FILE_CHUNK, null, NEVER);
+
+		evicted = accounting.selectEvictions(createKey("d", 1), 100, null, NOW);
+		Assert.assertEquals(Collections.singletonList(oldVersion), evicted);
+		accounting.evict(evicted, NOW);
+
+		StorageMetrics metrics = accounting.getMetrics();
+		Assert.assertEquals(200, metrics.getTotalSize());
+		Assert.assertEquals(1, metrics.getEvictedExpired());
+		Assert.assertEquals(1, metrics.getEvictedVersions());
+	}
+
+	@Test
+	public void testRejectLatestVersions() {
+		StorageAccounting accounting = new StorageAccounting(200, 0);
+		accounting.add(createKey("a", 1), 100, ContentType.META_FILE, null, NEVER);
+		accounting.add(createKey("b", 1), 100, ContentType.META_FILE, null, NEVER);
+
+		Assert.assertNull(accounting.selectEvictions(createKey("c", 1), 1, null, NOW));
+		accounting.countRejected();
+		Assert.assertEquals(200, accounting.getTotalSize());
+		Assert.assertEquals(1, accounting.getMetrics().getRejectedPuts());
+
+		// a new version of a content can replace its predecessor
+		List<Number640> evicted = accounting.selectEvictions(createKey("a", 2), 100, null, NOW);
+		Assert.assertEquals(Collections.singletonList(createKey("a", 1)), evicted);
+
+		// selecting does not evict yet (e.g. if the put fails)
+		Assert.assertEquals(200, accounting.getTotalSize());
+		Assert.assertEquals(0, accounting.getMetrics().getEvictedVersions());
+
+		// replacing an existing entry only needs the difference
+		Assert.assertTrue(accounting.selectEvictions(createKey("b", 1), 100, null, NOW).isEmpty());
+	}
+
+	@Test
+	public void testQuotaPerKey() {
+		StorageAccounting accounting = new StorageAccounting(0, 200);
+		accounting.add(createKey("a", 1), 100, ContentType.FILE_CHUNK, "key1", NEVER);
+		accounting.add(createKey("a", 2), 100, ContentType.FILE_CHUNK, "key1", NEVER);
+		accounting.add(createKey("b", 1), 100, ContentType.FILE_CHUNK, "key2", NEVER);
+		accounting.add(createKey("b", 2), 100, ContentType.FILE_CHUNK, "key2", NEVER);
+
+		// only the versions of the same protection key are evicted
+		List<Number640> evicted = accounting.selectEvictions(createKey("c", 1), 100, "key1", NOW);
+		Assert.assertEquals(Collections.singletonList(createKey("a", 1)), evicted);
+		accounting.evict(evicted, NOW);
+		Assert.assertEquals(100, accounting.getSize("key1"));
+		Assert.assertEquals(200, accounting.getSize("key2"));
+
+		// unprotected entries are not limited
+		Assert.assertTrue(accounting.selectEvictions(createKey("d", 1), 1000, null, NOW).isEmpty());
+	}
+
+	@Test
+	public void testRetain() {
+		StorageAccounting accounting = new StorageAccounting(0, 0);
+		accounting.add(createKey("a", 1), 100, ContentType.FILE_CHUNK, null, NEVER);
+		accounting.add(createKey("a", 2), 100, ContentType.FILE_CHUNK, null, NEVER);
+		accounting.add(createKey("b", 1), 100, ContentType.FILE_CHUNK, null, NEVER);
+		Assert.assertEquals(2, accounting.getContents().size());
+
+		Set<Number640> stored = new HashSet<Number640>();
+		stored.add(createKey("a", 2));
+		accounting.retain(createKey("a", 2), stored);
+		Assert.assertEquals(200, accounting.getTotalSize());
+
+		accounting.retain(createKey("b", 1), new HashSet<Number640>());
+		Assert.assertEquals(100, accounting.getTotalSize());
+		Assert.assertEquals(1, accounting.getContents().size());
+	}
+
+	@Test
+	public void testContentsInBatches() {
+		StorageAccounting accounting = new StorageAccounting(0, 0);
+		accounting.add(createKey("a", 1), 100, ContentType.FILE_CHUNK, null, NEVER);
+		accounting.add(createKey("a", 2), 100, ContentType.FILE_CHUNK, null, NEVER);
+		accounting.add(createKey("b", 1), 100, ContentType.FILE_CHUNK, null, NEVER);
+		accounting.add(createKey("c", 1), 100, ContentType.FILE_CHUNK, null, NEVER);
+
+		List<Number640> batch = accounting.getContents(null, 2);
+		Assert.assertEquals(2, batch.size());
+
+		// continues after the last content of the previous batch
+		List<Number640> contents = new ArrayList<Number640>(batch);
+		batch = accounting.getContents(batch.get(1), 2);
+		Assert.assertEquals(1, batch.size());
+		contents.addAll(batch);
+		Assert.assertEquals(accounting.getContents(), contents);
+
+		Assert.assertTrue(accounting.getContents(batch.get(0), 2).isEmpty());
+	}
+
+	private static Number640 createKey(String locationKey, long timestamp) {
+		return new Number640(Number160.createHash(locationKey), Number160.ZERO, Number160.ZERO, new Number160(
+				timestamp, Number160.ZERO));
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
@@ -0,0 +1,102 @@
+package org.hive2hive.core.network.data;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.tomp2p.peers.Number160;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.model.FileVersion;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFile;
+import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.EncryptionUtil.RSA_KEYLENGTH;
+import org.hive2hive.core.security.HybridEncryptedContent;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class MetaFileCacheTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = MetaFileCacheTest.class;
+		beforeClass();
+	}
+
+	@Test
+	public void testGetSameVersion() throws IOException, ClassNotFoundException {
+		MetaFileCache cache = new MetaFileCache(10);
+		MetaFileSmall metaFile = createMetaFile();
+		HybridEncryptedContent encrypted = createEncrypted(Number160.ONE);
+		cache.put(metaFile, encrypted);
+
+		MetaFileCache.Entry entry = cache.get(metaFile.getId(), Number160.ONE);
+		Assert.assertNotNull(entry);
+		Assert.assertEquals(encrypted, entry.getEncryptedMetaFile());
+
+		MetaFile cached = entry.getMetaFile();
+		Assert.assertEquals(Number160.ONE, cached.getVersionKey());
+		Assert.assertEquals(metaFile.getId(), cached.getId());
+
+		// modifying the copy does not affect the cache
+		((MetaFileSmall) cached).getVersions().clear();
+		MetaFileSmall again = (MetaFileSmall) cache.get(metaFile.getId(), Number160.ONE).getMetaFile();
+		Assert.assertEquals(1, again.getVersions().size());
+	}
+
+	@Test
+	public void testGetOutdatedVersion() throws IOException {
+		MetaFileCache cache = new MetaFileCache(10);
+		MetaFileSmall metaFile = createMetaFile();
+		cache.put(metaFile, createEncrypted(Number160.ONE));
+
+		Assert.assertNull(cache.get(metaFile.getId(), Number160.MAX_VALUE));
+		// the outdated meta file has been dropped
+		Assert.assertFalse(cache.contains(metaFile.getId()));
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+		MetaFileCache cache = new MetaFileCache(2);
+		MetaFileSmall first = createMetaFile();
+		MetaFileSmall second = createMetaFile();
+		MetaFileSmall third = createMetaFile();
+
+		cache.put(first, createEncrypted(Number160.ONE));
+		cache.put(second, createEncrypted(Number160.ONE));
+		// access the first one, such that the second one is the least recently used
+		Assert.assertNotNull(cache.get(first.getId(), Number160.ONE));
+		cache.put(third, createEncrypted(Number160.ONE));
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertTrue(cache.contains(first.getId()));
+		Assert.assertFalse(cache.contains(second.getId()));
+		Assert.assertTrue(cache.contains(third.getId()));
+
+		cache.remove(first.getId());
+		Assert.assertFalse(cache.contains(first.getId()));
+	}
+
+	private static MetaFileSmall createMetaFile() {
+		KeyPair fileKeys = EncryptionUtil.generateRSAKeyPair(RSA_KEYLENGTH.BIT_512);
+		List<FileVersion> versions = new ArrayList<FileVersion>();
+		versions.add(new FileVersion(0, 123, System.currentTimeMillis(), new ArrayList<MetaChunk>()));
+		return new MetaFileSmall(fileKeys.getPublic(), versions, fileKeys);
+	}
+
+	private static HybridEncryptedContent createEncrypted(Number160 versionKey) {
+		HybridEncryptedContent encrypted = new HybridEncryptedContent(new byte[] { 1 }, new byte[] { 2 });
+		encrypted.setVersionKey(versionKey);
+		return encrypted;
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
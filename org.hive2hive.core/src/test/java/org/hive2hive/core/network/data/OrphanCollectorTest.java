@@ -0,0 +1,159 @@
+package org.hive2hive.core.network.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.H2HSession;
+import org.hive2hive.core.H2HTestData;
+import org.hive2hive.core.exceptions.GetFailedException;
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.file.PutLog;
+import org.hive2hive.core.file.PutLogEntry;
+import org.hive2hive.core.file.UploadJournal;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.processes.implementations.login.SessionParameters;
+import org.hive2hive.core.processes.util.UseCaseTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests which chunks in the {@link PutLog} the {@link OrphanCollector} removes from the network.
+ *
+ * @author Nico
+ *
+ */
+public class OrphanCollectorTest extends H2HJUnitTest {
+
+	private static final int networkSize = 5;
+	private static final long GRACE_PERIOD_MS = 1000;
+
+	private List<NetworkManager> network;
+	private NetworkManager client;
+	private File root;
+	private File stateDirectory;
+	private PutLog putLog;
+	private KeyPair protectionKeys;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = OrphanCollectorTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void loginWithJournal() throws NoPeerConnectionException, NoSessionException, GetFailedException {
+		network = NetworkTestUtil.createNetwork(networkSize);
+		client = network.get(0);
+		root = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
+		stateDirectory = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
+		stateDirectory.mkdirs();
+		UseCaseTestUtil.registerAndLogin(NetworkTestUtil.generateRandomCredentials(), client, root);
+
+		// use a session with an upload journal (disabled by default)
+		H2HSession session = client.getSession();
+		if (session.getOrphanCollector() != null) {
+			session.getOrphanCollector().stop();
+		}
+		putLog = new PutLog(stateDirectory);
+		SessionParameters params = new SessionParameters();
+		params.setProfileManager(session.getProfileManager());
+		params.setKeyManager(session.getKeyManager());
+		params.setDownloadManager(session.getDownloadManager());
+		params.setFileConfig(session.getFileConfiguration());
+		params.setRoot(session.getRoot());
+		params.setUploadJournal(new UploadJournal(session.getRoot(), stateDirectory, session.getKeyPair()));
+		params.setOrphanCollector(new OrphanCollector(client, putLog));
+		client.setSession(new H2HSession(params));
+
+		protectionKeys = session.getProfileManager().getUserProfile(UUID.randomUUID().toString(), false)
+				.getProtectionKeys();
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		NetworkTestUtil.shutdownNetwork(network);
+		FileUtils.deleteDirectory(root);
+		FileUtils.deleteDirectory(stateDirectory);
+	}
+
+	@Test
+	public void testRemoveUnreferencedChunks() throws Exception {
+		H2HSession session = client.getSession();
+		int chunkSize = session.getFileConfiguration().getChunkSize();
+		File file = FileTestUtil.createFileRandomContent(2, root, chunkSize);
+		UseCaseTestUtil.uploadNewFile(client, file);
+
+		// the chunks of the uploaded file are referenced from its meta file
+		Set<String> referenced = new HashSet<String>();
+		for (PutLogEntry entry : putLog.getEntries()) {
+			referenced.add(entry.getLocationKey());
+		}
+		Assert.assertFalse(referenced.isEmpty());
+
+		String orphan = putChunk();
+		String journaled = putChunk();
+		session.getUploadJournal().begin(file, chunkSize, EncryptionUtil.generateRSAKeyPair(), protectionKeys);
+		session.getUploadJournal().chunkCompleted(file, new MetaChunk(journaled, new byte[] { 0 }, 0));
+
+		// wait until the grace period of these chunks is over
+		Thread.sleep(2 * GRACE_PERIOD_MS);
+		String recent = putChunk();
+
+		// walk through the user profile and remove the orphans
+		OrphanCollector collector = new OrphanCollector(client, putLog, 100, 100, 0, GRACE_PERIOD_MS);
+		collector.collect();
+		collector.collect();
+
+		Set<String> logged = new HashSet<String>();
+		for (PutLogEntry entry : putLog.getEntries()) {
+			logged.add(entry.getLocationKey());
+		}
+		Assert.assertFalse(logged.contains(orphan));
+		Assert.assertNull(getChunk(orphan));
+
+		for (String kept : referenced) {
+			Assert.assertTrue(logged.contains(kept));
+		}
+		Assert.assertTrue(logged.contains(journaled));
+		Assert.assertNotNull(getChunk(journaled));
+		Assert.assertTrue(logged.contains(recent));
+		Assert.assertNotNull(getChunk(recent));
+	}
+
+	private String putChunk() throws NoPeerConnectionException {
+		String chunkId = NetworkTestUtil.randomString();
+		putLog.put(chunkId, H2HConstants.FILE_CHUNK, protectionKeys);
+		Parameters parameters = new Parameters().setLocationKey(chunkId).setContentKey(H2HConstants.FILE_CHUNK)
+				.setData(new H2HTestData(NetworkTestUtil.randomString())).setProtectionKeys(protectionKeys);
+		Assert.assertTrue(client.getDataManager().put(parameters));
+		return chunkId;
+	}
+
+	private Object getChunk(String chunkId) throws NoPeerConnectionException {
+		return client.getDataManager().get(
+				new Parameters().setLocationKey(chunkId).setContentKey(H2HConstants.FILE_CHUNK));
+	}
+}
@@ -0,0 +1,187 @@
+package org.hive2hive.core.network.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.H2HSession;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.file.FileUtil;
+import org.hive2hive.core.file.PersistentMetaData;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.processes.util.UseCaseTestUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests how the {@link TTLRefreshManager} spreads the refreshment of the stored data over its executions.
+ *
+ * @author Nico
+ */
+public class TTLRefreshManagerTest extends H2HJUnitTest {
+
+	private static final int networkSize = 5;
+	private static final int FILES_PER_TASK = 1;
+	// smaller than the number of objects of a file (meta file and chunks)
+	private static final int MAX_PUTS_PER_TASK = 3;
+	private static final long PASS_INTERVAL_MS = 60 * 1000;
+
+	private List<NetworkManager> network;
+	private NetworkManager client;
+	private File root;
+	private List<String> fileGroups;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = TTLRefreshManagerTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void cleanAfterClass() {
+		afterClass();
+	}
+
+	@Before
+	public void uploadFiles() throws Exception {
+		network = NetworkTestUtil.createNetwork(networkSize);
+		client = network.get(0);
+		root = new File(System.getProperty("java.io.tmpdir"), NetworkTestUtil.randomString());
+		UseCaseTestUtil.registerAndLogin(NetworkTestUtil.generateRandomCredentials(), client, root);
+
+		// the refreshment is driven by the test
+		H2HSession session = client.getSession();
+		if (session.getRefreshManager() != null) {
+			session.getRefreshManager().stop();
+		}
+
+		int chunkSize = session.getFileConfiguration().getChunkSize();
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 2; i++) {
+			File file = FileTestUtil.createFileRandomContent(3, root, chunkSize);
+			UseCaseTestUtil.uploadNewFile(client, file);
+			files.add(file);
+		}
+
+		UserProfile userProfile = session.getProfileManager().getUserProfile(UUID.randomUUID().toString(), false);
+		fileGroups = new ArrayList<String>();
+		for (File file : files) {
+			fileGroups.add(H2HEncryptionUtil.key2String(userProfile.getFileByPath(file, root).getFilePublicKey()));
+		}
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		NetworkTestUtil.shutdownNetwork(network);
+		FileUtils.deleteDirectory(root);
+	}
+
+	@Test
+	public void testBatchAndFileLimits() throws Exception {
+		TTLRefreshSchedule schedule = new TTLRefreshSchedule(0.5, 0, new Random());
+		TTLRefreshManager refreshManager = createRefreshManager(schedule, PASS_INTERVAL_MS);
+
+		// record the number of refreshed objects per group after each execution
+		List<Map<String, Integer>> executions = new ArrayList<Map<String, Integer>>();
+		Map<String, Integer> before = countObjects(schedule);
+		for (int i = 0; i < 20; i++) {
+			refreshManager.refresh();
+			Map<String, Integer> after = countObjects(schedule);
+			executions.add(after);
+
+			int sent = 0;
+			int touchedFiles = 0;
+			for (String group : after.keySet()) {
+				int added = after.get(group) - getCount(before, group);
+				sent += added;
+				if (added > 0 && fileGroups.contains(group)) {
+					touchedFiles++;
+				}
+			}
+			Assert.assertTrue(sent <= MAX_PUTS_PER_TASK);
+			Assert.assertTrue(touchedFiles <= FILES_PER_TASK);
+
+			before = after;
+			if (sent == 0) {
+				break;
+			}
+		}
+
+		// all files have been refreshed in the end, the pass interval prevents a new walk
+		Map<String, Integer> done = executions.get(executions.size() - 1);
+		for (String group : fileGroups) {
+			Assert.assertTrue(getCount(done, group) > MAX_PUTS_PER_TASK);
+		}
+
+		// a partially refreshed file is completed in the next execution before the walk continues
+		boolean resumed = false;
+		for (int i = 0; i < executions.size() - 1; i++) {
+			for (String group : fileGroups) {
+				int refreshed = getCount(executions.get(i), group);
+				if (refreshed > 0 && refreshed < getCount(done, group)) {
+					Assert.assertEquals(getCount(done, group), getCount(executions.get(i + 1), group));
+					resumed = true;
+				}
+			}
+		}
+		Assert.assertTrue(resumed);
+	}
+
+	@Test
+	public void testPersistedSchedule() throws Exception {
+		TTLRefreshSchedule schedule = new TTLRefreshSchedule(0.5, 0, new Random());
+		TTLRefreshManager refreshManager = createRefreshManager(schedule, 0);
+		for (int i = 0; i < 20; i++) {
+			refreshManager.refresh();
+		}
+		Map<String, Map<String, Long>> refreshTimes = schedule.getRefreshTimes();
+
+		// write the schedule as at the logout and restore it as at the next login
+		FileUtil.writePersistentMetaData(root.toPath(), null, null, refreshManager);
+		PersistentMetaData metaData = FileUtil.readPersistentMetaData(root.toPath());
+		Assert.assertEquals(refreshTimes, metaData.getTTLRefreshTimes());
+
+		TTLRefreshSchedule restored = new TTLRefreshSchedule(0.5, 0, new Random());
+		restored.restore(metaData.getTTLRefreshTimes());
+		refreshManager = createRefreshManager(restored, 0);
+
+		// nothing is due, thus nothing is refreshed again
+		for (int i = 0; i < 5; i++) {
+			refreshManager.refresh();
+		}
+		Assert.assertEquals(refreshTimes, restored.getRefreshTimes());
+	}
+
+	private TTLRefreshManager createRefreshManager(TTLRefreshSchedule schedule, long passInterval)
+			throws Exception {
+		return new TTLRefreshManager(client.getSession().getProfileManager(), client.getDataManager(), schedule,
+				FILES_PER_TASK, MAX_PUTS_PER_TASK, passInterval);
+	}
+
+	private static Map<String, Integer> countObjects(TTLRefreshSchedule schedule) {
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (Map.Entry<String, Map<String, Long>> group : schedule.getRefreshTimes().entrySet()) {
+			counts.put(group.getKey(), group.getValue().size());
+		}
+		return counts;
+	}
+
+	private static int getCount(Map<String, Integer> counts, String group) {
+		Integer count = counts.get(group);
+		return count == null ? 0 : count;
+	}
+}
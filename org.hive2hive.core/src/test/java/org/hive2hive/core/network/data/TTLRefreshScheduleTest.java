@@ -0,0 +1,100 @@
+package org.hive2hive.core.network.data;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TTLRefreshScheduleTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = TTLRefreshScheduleTest.class;
+		beforeClass();
+	}
+
+	@Test
+	public void testUnknownIsDue() {
+		TTLRefreshSchedule schedule = new TTLRefreshSchedule(0.5, 0.1, new Random());
+		Assert.assertTrue(schedule.isDue("file", 0));
+		Assert.assertTrue(schedule.isDue("file", "chunk", 0));
+		Assert.assertEquals(-1, schedule.getNextRefresh("file", "chunk"));
+
+		// another object of a known group is still unknown
+		schedule.refreshed("file", "meta", 100, 0);
+		Assert.assertTrue(schedule.isDue("file", "chunk", 0));
+	}
+
+	@Test
+	public void testNextRefresh() {
+		TTLRefreshSchedule schedule = new TTLRefreshSchedule(0.5, 0.1, new Random());
+		long now = 1000000;
+		schedule.refreshed("file", "meta", 100, now);
+
+		// refreshed between 40% and 50% of the TTL of 100 seconds
+		long next = schedule.getNextRefresh("file", "meta");
+		Assert.assertTrue(next > now + 40 * 1000 - 1);
+		Assert.assertTrue(next <= now + 50 * 1000);
+
+		Assert.assertFalse(schedule.isDue("file", now));
+		Assert.assertFalse(schedule.isDue("file", "meta", next - 1));
+		Assert.assertTrue(schedule.isDue("file", "meta", next));
+
+		// the earliest object determines when the group is due
+		schedule.refreshed("file", "chunk", 10, now);
+		Assert.assertTrue(schedule.isDue("file", now + 5 * 1000));
+	}
+
+	@Test
+	public void testRetain() {
+		TTLRefreshSchedule schedule = new TTLRefreshSchedule(0.5, 0, new Random());
+		schedule.refreshed("file1", "meta", 100, 0);
+		schedule.refreshed("file1", "chunk", 100, 0);
+		schedule.refreshed("file2", "meta", 100, 0);
+
+		schedule.retainObjects("file1", Collections.singleton("meta"));
+		Assert.assertEquals(50 * 1000, schedule.getNextRefresh("file1", "meta"));
+		Assert.assertEquals(-1, schedule.getNextRefresh("file1", "chunk"));
+
+		schedule.retainGroups(Collections.singleton("file1"));
+		Assert.assertTrue(schedule.isDue("file2", 0));
+		Assert.assertFalse(schedule.isDue("file1", 0));
+	}
+
+	@Test
+	public void testRestore() {
+		TTLRefreshSchedule schedule = new TTLRefreshSchedule(0.5, 0, new Random());
+		schedule.refreshed("file1", "meta", 100, 0);
+		schedule.refreshed("file2", "meta", 10, 0);
+		Map<String, Map<String, Long>> refreshTimes = schedule.getRefreshTimes();
+
+		// the persisted times are a copy
+		schedule.refreshed("file1", "chunk", 100, 0);
+		Assert.assertFalse(refreshTimes.get("file1").containsKey("chunk"));
+
+		TTLRefreshSchedule restored = new TTLRefreshSchedule(0.5, 0, new Random());
+		restored.refreshed("file3", "meta", 100, 0);
+		restored.restore(refreshTimes);
+		Assert.assertEquals(50 * 1000, restored.getNextRefresh("file1", "meta"));
+		Assert.assertEquals(-1, restored.getNextRefresh("file3", "meta"));
+
+		// refreshed while the client was offline
+		Assert.assertFalse(restored.isDue("file1", 10 * 1000));
+		Assert.assertTrue(restored.isDue("file2", 10 * 1000));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidJitter() {
+		new TTLRefreshSchedule(0.5, 0.5, new Random());
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
@@ -0,0 +1,100 @@
+package org.hive2hive.core.network.data;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.model.FileIndex;
+import org.hive2hive.core.model.FolderIndex;
+import org.hive2hive.core.model.Index;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.model.UserProfileShard;
+import org.hive2hive.core.model.UserProfileShardReference;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.EncryptionUtil.RSA_KEYLENGTH;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.tomp2p.peers.Number160;
+
+public class UserProfileShardingTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = UserProfileShardingTest.class;
+		beforeClass();
+	}
+
+	@Test
+	public void testSelectShards() {
+		UserProfile userProfile = new UserProfile("user");
+		FolderIndex large = createFolder(userProfile.getRoot(), "large", 5);
+		createFolder(userProfile.getRoot(), "small", 2);
+		new FileIndex(userProfile.getRoot(), createKeys(), "file", new byte[0]);
+
+		List<FolderIndex> shards = UserProfileSharding.selectShards(userProfile, 5);
+		Assert.assertEquals(1, shards.size());
+		Assert.assertEquals(large, shards.get(0));
+	}
+
+	@Test
+	public void testSerializeAndResolve() throws IOException, ClassNotFoundException {
+		UserProfile userProfile = new UserProfile("user");
+		FolderIndex large = createFolder(userProfile.getRoot(), "large", 5);
+		createFolder(userProfile.getRoot(), "small", 2);
+
+		// the shard does not contain the rest of the user profile
+		byte[] serializedShard = UserProfileSharding.serializeShard(new UserProfileShard(large));
+		UserProfileShard shard = (UserProfileShard) EncryptionUtil.deserializeObject(serializedShard);
+		Assert.assertNull(shard.getFolder().getParent());
+		Assert.assertEquals(4, shard.getFolder().getChildren().size());
+
+		// the root only references the shard
+		Map<FolderIndex, UserProfileShardReference> references = new HashMap<FolderIndex, UserProfileShardReference>();
+		references.put(large, new UserProfileShardReference(large.getFilePublicKey(), Number160.ONE));
+		byte[] serializedRoot = UserProfileSharding.serializeRoot(userProfile, references);
+		Assert.assertTrue(serializedRoot.length < EncryptionUtil.serializeObject(userProfile).length);
+
+		// the index tree is not modified by the serialization
+		Assert.assertEquals(userProfile.getRoot(), large.getParent());
+		Assert.assertEquals(2, userProfile.getRoot().getChildren().size());
+
+		UserProfile deserialized = (UserProfile) EncryptionUtil.deserializeObject(serializedRoot);
+		List<UserProfileShardReference> detached = UserProfileSharding.detachReferences(deserialized);
+		Assert.assertEquals(1, detached.size());
+		Assert.assertEquals(Number160.ONE, detached.get(0).getVersionKey());
+		Assert.assertEquals(UserProfileShard.getContentKey(large.getFilePublicKey()), detached.get(0).getContentKey());
+		Assert.assertEquals(1, deserialized.getRoot().getChildren().size());
+
+		// join the shard again
+		UserProfileSharding.attach(deserialized, shard.getFolder());
+		Assert.assertEquals(2, deserialized.getRoot().getChildren().size());
+		Index resolved = deserialized.getRoot().getChildByName("large");
+		Assert.assertNotNull(resolved);
+		Assert.assertEquals(deserialized.getRoot(), resolved.getParent());
+		Assert.assertEquals(7, Index.getIndexList(deserialized.getRoot()).size() - 1);
+	}
+
+	private static FolderIndex createFolder(FolderIndex parent, String name, int numberOfFiles) {
+		FolderIndex folder = new FolderIndex(parent, createKeys(), name);
+		for (int i = 0; i < numberOfFiles - 1; i++) {
+			new FileIndex(folder, createKeys(), "file" + i, new byte[0]);
+		}
+		return folder;
+	}
+
+	private static KeyPair createKeys() {
+		// indices are distinguished by their keys
+		return EncryptionUtil.generateRSAKeyPair(RSA_KEYLENGTH.BIT_512);
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
@@ -151,6 +151,21 @@ public class FuturePutTest extends H2HJUnitTest {
 		assertEquals(data.getTestString(), ((H2HTestData) futureGet.getData().object()).getTestString());
 	}
 
+	@Test
+	public void testPartialResponse() throws NoPeerConnectionException {
+		NetworkManager nodeA = network.get(0);
+		Parameters parameters = new Parameters().setLocationKey(nodeA.getNodeId())
+				.setContentKey(NetworkTestUtil.randomString()).setData(new H2HTestData("data"));
+		DataManager dataManager = nodeA.getDataManager();
+		Assert.assertEquals(networkSize, dataManager.getAvailableNodes());
+
+		// only one of the contacted nodes responded and accepted the put, the others did not respond at all
+		FuturePutListener listener = new FuturePutListener(parameters, dataManager);
+		int writeQuorum = dataManager.getReplicationPolicy(parameters).getWriteQuorum();
+		Assert.assertFalse(listener.isWriteQuorumReached(writeQuorum - 1));
+		Assert.assertTrue(listener.isWriteQuorumReached(writeQuorum));
+	}
+
 	@Test
 	public void testPutVersionConflictWin() throws ClassNotFoundException, IOException,
 			NoPeerConnectionException {
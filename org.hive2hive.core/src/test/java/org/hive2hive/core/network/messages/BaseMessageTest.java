@@ -1,6 +1,7 @@
 package org.hive2hive.core.network.messages;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -11,6 +12,7 @@ import java.util.Random;
 
 import net.tomp2p.futures.FutureGet;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.H2HJUnitTest;
 import org.hive2hive.core.H2HTestData;
 import org.hive2hive.core.H2HWaiter;
@@ -133,6 +135,29 @@ public class BaseMessageTest extends H2HJUnitTest {
 		}
 	}
 
+	/**
+	 * Rejections of a saturated receiver have their own budget and are resent with an increasing delay.
+	 */
+	@Test
+	public void testBackOffWhenBusy() {
+		TestMessage message = new TestMessage(NetworkTestUtil.randomString(), NetworkTestUtil.randomString(),
+				new H2HTestData(NetworkTestUtil.randomString()));
+
+		for (int i = 0; i < H2HConstants.MAX_MESSAGE_SENDING_BUSY; i++) {
+			message.increaseRoutedSendingCounter();
+			assertTrue(message.handleSendingFailure(AcceptanceReply.FAILURE_BUSY));
+			long start = System.currentTimeMillis();
+			assertTrue(message.awaitResendDelay());
+			assertTrue(System.currentTimeMillis() - start >= H2HConstants.MESSAGE_BUSY_BACKOFF_MS << i);
+		}
+		message.increaseRoutedSendingCounter();
+		assertFalse(message.handleSendingFailure(AcceptanceReply.FAILURE_BUSY));
+
+		// the busy rejections did not consume the budget of the other failures
+		assertTrue(message.handleSendingFailure(AcceptanceReply.FAILURE));
+		assertTrue(message.awaitResendDelay());
+	}
+
 	@AfterClass
 	public static void endTest() {
 		NetworkTestUtil.shutdownNetwork(network);
@@ -0,0 +1,168 @@
+package org.hive2hive.core.network.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the bounds of the {@link InboundMessageExecutor}.
+ *
+ * @author Nico
+ */
+public class InboundMessageExecutorTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = InboundMessageExecutorTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+
+	@Test
+	public void testRejectWhenSaturated() throws InterruptedException {
+		InboundMessageExecutor executor = new InboundMessageExecutor(1, 1, 1);
+		CountDownLatch blocker = new CountDownLatch(1);
+
+		// one running, one queued
+		executor.submitHandling(String.class, new BlockingTask(blocker));
+		executor.submitHandling(String.class, new BlockingTask(blocker));
+
+		try {
+			executor.submitHandling(String.class, new BlockingTask(blocker));
+			fail("Queue should be full");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+
+		// other message types have their own queue
+		CountDownLatch otherDone = new CountDownLatch(1);
+		executor.submitHandling(Integer.class, new CountingTask(otherDone));
+		assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+
+		assertEquals(1, executor.getRejectedCount());
+		assertEquals(1, executor.getHandlingQueueDepth(String.class));
+
+		blocker.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	public void testRejectVerificationWhenSaturated() throws Exception {
+		final InboundMessageExecutor executor = new InboundMessageExecutor(1, 1, 1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch blocker = new CountDownLatch(1);
+
+		// a verification is running in another thread
+		Thread verifying = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					executor.verify(new Callable<AcceptanceReply>() {
+						@Override
+						public AcceptanceReply call() throws InterruptedException {
+							started.countDown();
+							blocker.await();
+							return AcceptanceReply.OK;
+						}
+					});
+				} catch (Exception e) {
+					// ignore
+				}
+			}
+		});
+		verifying.start();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(1, executor.getRunningVerifications());
+
+		// the next verification is rejected immediately instead of waiting
+		try {
+			executor.verify(new Callable<AcceptanceReply>() {
+				@Override
+				public AcceptanceReply call() {
+					return AcceptanceReply.OK;
+				}
+			});
+			fail("Verification should be saturated");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+		assertEquals(1, executor.getRejectedCount());
+
+		blocker.countDown();
+		verifying.join();
+		assertEquals(0, executor.getRunningVerifications());
+
+		// runs in the calling thread once a permit is available
+		assertEquals(AcceptanceReply.OK, executor.verify(new Callable<AcceptanceReply>() {
+			@Override
+			public AcceptanceReply call() {
+				return AcceptanceReply.OK;
+			}
+		}));
+		executor.shutdown();
+	}
+
+	@Test
+	public void testHandlingStatistics() throws InterruptedException {
+		InboundMessageExecutor executor = new InboundMessageExecutor(1, 2, 10);
+		CountDownLatch done = new CountDownLatch(5);
+		for (int i = 0; i < 5; i++) {
+			executor.submitHandling(String.class, new CountingTask(done));
+		}
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+
+		// statistics are recorded after the task completed
+		Thread.sleep(100);
+		assertEquals(5, executor.getHandledCount());
+		assertEquals(0, executor.getRejectedCount());
+		assertEquals(0, executor.getHandlingQueueDepth());
+		assertTrue(executor.getMaxHandlingLatency() >= executor.getAverageHandlingLatency());
+		executor.shutdown();
+	}
+
+	private static class BlockingTask implements Runnable {
+
+		private final CountDownLatch latch;
+
+		public BlockingTask(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void run() {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				// stop
+			}
+		}
+	}
+
+	private static class CountingTask implements Runnable {
+
+		private final CountDownLatch latch;
+
+		public CountingTask(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void run() {
+			latch.countDown();
+		}
+	}
+}
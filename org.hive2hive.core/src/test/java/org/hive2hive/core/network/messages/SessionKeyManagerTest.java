@@ -0,0 +1,164 @@
+package org.hive2hive.core.network.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.security.PublicKey;
+
+import net.tomp2p.peers.Number160;
+import net.tomp2p.peers.PeerAddress;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.SessionKey;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the handshake, the expiration, the eviction and the replay protection of the
+ * {@link SessionKeyManager}.
+ *
+ * @author Nico
+ */
+public class SessionKeyManagerTest extends H2HJUnitTest {
+
+	private static PublicKey publicKey;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = SessionKeyManagerTest.class;
+		beforeClass();
+		publicKey = EncryptionUtil.generateRSAKeyPair().getPublic();
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+
+	@Test
+	public void testHandshake() {
+		SessionKeyManager manager = new SessionKeyManager();
+		PeerAddress target = createAddress();
+
+		// the offer is not used before the target confirmed it
+		SessionKey offer = manager.getOffer(target, publicKey);
+		assertNull(manager.getEstablished(target, publicKey));
+		assertEquals(-1, manager.nextSequenceNumber(target, publicKey));
+		assertEquals(offer.getId(), manager.getOffer(target, publicKey).getId());
+
+		// confirming another key does not establish the session
+		manager.confirm(target, publicKey, SessionKey.generate());
+		assertNull(manager.getEstablished(target, publicKey));
+
+		manager.confirm(target, publicKey, offer);
+		assertEquals(offer.getId(), manager.getEstablished(target, publicKey).getId());
+		assertEquals(0, manager.nextSequenceNumber(target, publicKey));
+		assertEquals(1, manager.nextSequenceNumber(target, publicKey));
+
+		// the session of another user at the same peer is not established
+		PublicKey otherKey = EncryptionUtil.generateRSAKeyPair().getPublic();
+		assertNull(manager.getEstablished(target, otherKey));
+
+		// after an invalidation, a new key is offered
+		manager.invalidate(target, publicKey);
+		assertNull(manager.getEstablished(target, publicKey));
+		assertFalse(offer.getId().equals(manager.getOffer(target, publicKey).getId()));
+	}
+
+	@Test
+	public void testExpiration() throws InterruptedException {
+		SessionKeyManager manager = new SessionKeyManager(50, 10);
+		PeerAddress target = createAddress();
+		PeerAddress sender = createAddress();
+
+		SessionKey outbound = manager.getOffer(target, publicKey);
+		manager.confirm(target, publicKey, outbound);
+		SessionKey inbound = SessionKey.generate();
+		manager.registerInbound("user", sender, inbound);
+		assertNotNull(manager.getEstablished(target, publicKey));
+		assertNotNull(manager.getInbound(inbound.getId()));
+
+		Thread.sleep(100);
+		assertNull(manager.getEstablished(target, publicKey));
+		assertNull(manager.getInbound(inbound.getId()));
+	}
+
+	@Test
+	public void testEviction() {
+		SessionKeyManager manager = new SessionKeyManager(10000, 2);
+		PeerAddress sender = createAddress();
+
+		SessionKey first = SessionKey.generate();
+		SessionKey second = SessionKey.generate();
+		SessionKey third = SessionKey.generate();
+		manager.registerInbound("user", sender, first);
+		manager.registerInbound("user", sender, second);
+
+		// the least recently used session is evicted
+		assertNotNull(manager.getInbound(first.getId()));
+		manager.registerInbound("user", sender, third);
+		assertNotNull(manager.getInbound(first.getId()));
+		assertNull(manager.getInbound(second.getId()));
+		assertNotNull(manager.getInbound(third.getId()));
+
+		PeerAddress[] targets = { createAddress(), createAddress(), createAddress() };
+		for (PeerAddress target : targets) {
+			manager.confirm(target, publicKey, manager.getOffer(target, publicKey));
+		}
+		assertNull(manager.getEstablished(targets[0], publicKey));
+		assertNotNull(manager.getEstablished(targets[1], publicKey));
+		assertNotNull(manager.getEstablished(targets[2], publicKey));
+	}
+
+	@Test
+	public void testBoundToSender() {
+		SessionKeyManager manager = new SessionKeyManager();
+		PeerAddress sender = createAddress();
+		SessionKey sessionKey = SessionKey.generate();
+		manager.registerInbound("user", sender, sessionKey);
+
+		assertTrue(manager.isSessionOf(sessionKey.getId(), "user", sender));
+		assertFalse(manager.isSessionOf(sessionKey.getId(), "other user", sender));
+		assertFalse(manager.isSessionOf(sessionKey.getId(), "user", createAddress()));
+		assertFalse(manager.isSessionOf(sessionKey.getId(), null, sender));
+		assertFalse(manager.isSessionOf(SessionKey.generate().getId(), "user", sender));
+	}
+
+	@Test
+	public void testReplayWindow() {
+		SessionKeyManager manager = new SessionKeyManager();
+		SessionKey sessionKey = SessionKey.generate();
+		String id = sessionKey.getId();
+		manager.registerInbound("user", createAddress(), sessionKey);
+
+		assertTrue(manager.acceptSequenceNumber(id, 0));
+		assertFalse(manager.acceptSequenceNumber(id, 0));
+
+		// out of order within the window
+		assertTrue(manager.acceptSequenceNumber(id, 5));
+		assertTrue(manager.acceptSequenceNumber(id, 3));
+		assertFalse(manager.acceptSequenceNumber(id, 3));
+		assertFalse(manager.acceptSequenceNumber(id, 5));
+		assertTrue(manager.acceptSequenceNumber(id, 4));
+
+		// too old after the window moved
+		assertTrue(manager.acceptSequenceNumber(id, 100));
+		assertFalse(manager.acceptSequenceNumber(id, 30));
+		assertTrue(manager.acceptSequenceNumber(id, 40));
+		assertFalse(manager.acceptSequenceNumber(id, 40));
+
+		// unknown sessions and invalid numbers are rejected
+		assertFalse(manager.acceptSequenceNumber(SessionKey.generate().getId(), 0));
+		assertFalse(manager.acceptSequenceNumber(id, -1));
+	}
+
+	private static PeerAddress createAddress() {
+		return new PeerAddress(Number160.createHash(NetworkTestUtil.randomString()));
+	}
+}
@@ -0,0 +1,148 @@
+package org.hive2hive.core.network.messages.direct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.security.PublicKey;
+import java.util.List;
+
+import net.tomp2p.peers.PeerAddress;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.network.messages.AcceptanceReply;
+import org.hive2hive.core.network.messages.SessionKeyManager;
+import org.hive2hive.core.processes.util.CountingMessageReplyHandler;
+import org.hive2hive.core.security.SessionEncryptedContent;
+import org.hive2hive.core.security.SessionKey;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the establishment of session keys between two peers, the fallback to hybrid encryption and the
+ * rejection of replayed session messages.
+ * 
+ * @author Nico
+ */
+public class SessionEncryptedMessageTest extends H2HJUnitTest {
+
+	private static final int networkSize = 3;
+	private List<NetworkManager> network;
+	private NetworkManager nodeA;
+	private NetworkManager nodeB;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = SessionEncryptedMessageTest.class;
+		beforeClass();
+	}
+
+	@Before
+	public void createNetwork() throws NoPeerConnectionException, NoSessionException {
+		network = NetworkTestUtil.createNetwork(networkSize);
+		NetworkTestUtil.createSameKeyPair(network);
+		nodeA = network.get(0);
+		nodeB = network.get(1);
+		// the receiver verifies the offering message immediately if it knows the public key of the sender
+		nodeA.getSession().getKeyManager().putPublicKey(nodeB.getUserId(), getPublicKey(nodeB));
+		nodeB.getSession().getKeyManager().putPublicKey(nodeA.getUserId(), getPublicKey(nodeA));
+	}
+
+	@Test
+	public void testHandshake() throws NoPeerConnectionException {
+		SessionKeyManager senderSessions = nodeA.getMessageManager().getSessionKeyManager();
+		SessionKeyManager receiverSessions = nodeB.getMessageManager().getSessionKeyManager();
+		assertNull(senderSessions.getEstablished(getAddress(nodeB), getPublicKey(nodeB)));
+
+		// the first message offers the session key, the acceptance confirms it
+		assertTrue(sendMessage());
+		SessionKey sessionKey = senderSessions.getEstablished(getAddress(nodeB), getPublicKey(nodeB));
+		assertNotNull(sessionKey);
+		assertNotNull(receiverSessions.getInbound(sessionKey.getId()));
+		assertTrue(receiverSessions.isSessionOf(sessionKey.getId(), nodeA.getUserId(), getAddress(nodeA)));
+
+		// the second message is encrypted with the session key
+		CountingMessageReplyHandler recorder = recordMessages(nodeB);
+		assertTrue(sendMessage());
+		SessionEncryptedContent received = (SessionEncryptedContent) recorder.getLastRequest();
+		assertEquals(sessionKey.getId(), received.getSessionId());
+		assertEquals(nodeA.getUserId(), received.getSenderId());
+	}
+
+	@Test
+	public void testFallbackToHybridEncryption() throws NoPeerConnectionException {
+		SessionKeyManager senderSessions = nodeA.getMessageManager().getSessionKeyManager();
+		assertTrue(sendMessage());
+		SessionKey sessionKey = senderSessions.getEstablished(getAddress(nodeB), getPublicKey(nodeB));
+		assertNotNull(sessionKey);
+
+		// the receiver forgets the session (e.g. restart), it replies with FAILURE_SESSION
+		nodeB.getMessageManager().getSessionKeyManager().clear();
+		assertTrue(sendMessage());
+
+		// the message has been resent hybrid encrypted and offered a new session
+		SessionKey newSessionKey = senderSessions.getEstablished(getAddress(nodeB), getPublicKey(nodeB));
+		assertNotNull(newSessionKey);
+		assertFalse(sessionKey.getId().equals(newSessionKey.getId()));
+		assertNotNull(nodeB.getMessageManager().getSessionKeyManager().getInbound(newSessionKey.getId()));
+	}
+
+	@Test
+	public void testReplayRejected() throws Exception {
+		assertTrue(sendMessage());
+		CountingMessageReplyHandler recorder = recordMessages(nodeB);
+		assertTrue(sendMessage());
+		Object recorded = recorder.getLastRequest();
+		assertTrue(recorded instanceof SessionEncryptedContent);
+
+		// the same message is not accepted twice, neither from the sender nor from another peer
+		NetworkManager nodeC = network.get(2);
+		assertEquals(AcceptanceReply.FAILURE_SESSION, recorder.reply(getAddress(nodeA), recorded));
+		assertEquals(AcceptanceReply.FAILURE_SESSION, recorder.reply(getAddress(nodeC), recorded));
+	}
+
+	private boolean sendMessage() throws NoPeerConnectionException {
+		TestDirectMessageWithReply message = new TestDirectMessageWithReply(getAddress(nodeB),
+				NetworkTestUtil.randomString());
+		message.setCallBackHandler(message.new TestCallBackHandler(nodeA));
+		return nodeA.getMessageManager().sendDirect(message, getPublicKey(nodeB));
+	}
+
+	private static CountingMessageReplyHandler recordMessages(NetworkManager receiver) {
+		CountingMessageReplyHandler recorder = new CountingMessageReplyHandler(receiver.getConnection()
+				.getMessageReplyHandler());
+		receiver.getConnection().getPeer().setObjectDataReply(recorder);
+		return recorder;
+	}
+
+	private static PeerAddress getAddress(NetworkManager networkManager) {
+		return networkManager.getConnection().getPeer().getPeerAddress();
+	}
+
+	private static PublicKey getPublicKey(NetworkManager networkManager) {
+		try {
+			return networkManager.getSession().getKeyPair().getPublic();
+		} catch (NoSessionException e) {
+			return null;
+		}
+	}
+
+	@After
+	public void shutdown() {
+		NetworkTestUtil.shutdownNetwork(network);
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
@@ -22,10 +22,10 @@ import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.H2HJUnitTest;
 import org.hive2hive.core.H2HSession;
-import org.hive2hive.core.api.configs.FileConfiguration;
 import org.hive2hive.core.api.interfaces.IFileConfiguration;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.integration.TestFileConfiguration;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.network.NetworkTestUtil;
 import org.hive2hive.core.network.data.PublicKeyManager;
@@ -58,7 +58,7 @@ import org.junit.Test;
  */
 public class UserProfileTaskQueueTest extends H2HJUnitTest {
 
-	private static final IFileConfiguration config = FileConfiguration.createDefault();
+	private static final IFileConfiguration config = TestFileConfiguration.createDefault();
 	private static List<NetworkManager> network;
 	private static final int networkSize = 3;
 	private Random random = new Random();
@@ -0,0 +1,225 @@
+package org.hive2hive.core.processes.framework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
+import org.hive2hive.core.processes.framework.concretes.DagProcess;
+import org.hive2hive.core.processes.framework.decorators.AsyncComponent;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.util.BusySucceedingStep;
+import org.hive2hive.core.processes.util.FailingProcessStep;
+import org.hive2hive.core.processes.util.SucceedingProcessStep;
+import org.hive2hive.core.processes.util.TestUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the execution order, the parallelism and the rollback of a {@link DagProcess}.
+ *
+ * @author Nico
+ */
+public class DagProcessTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = DagProcessTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+
+	@Test
+	public void emptyTest() throws InvalidProcessStateException {
+		DagProcess process = new DagProcess();
+		process.start();
+		assertEquals(ProcessState.SUCCEEDED, process.getState());
+	}
+
+	@Test
+	public void dependencyOrderTest() throws InvalidProcessStateException {
+		List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		// diamond: a -> (b, c) -> d
+		DagProcess process = new DagProcess(2);
+		RecordingStep a = new RecordingStep("a", order);
+		RecordingStep b = new RecordingStep("b", order);
+		RecordingStep c = new RecordingStep("c", order);
+		RecordingStep d = new RecordingStep("d", order);
+		process.add(d);
+		process.add(c);
+		process.add(b);
+		process.add(a);
+		process.addDependency(b, a);
+		process.addDependency(c, a);
+		process.addDependency(d, b);
+		process.addDependency(d, c);
+
+		process.start();
+
+		assertEquals(ProcessState.SUCCEEDED, process.getState());
+		assertEquals(4, order.size());
+		assertEquals("a", order.get(0));
+		assertEquals("d", order.get(3));
+	}
+
+	@Test
+	public void parallelTest() throws InvalidProcessStateException {
+		DagProcess process = new DagProcess(3);
+		process.add(new BusySucceedingStep());
+		process.add(new BusySucceedingStep());
+		process.add(new AsyncComponent(new BusySucceedingStep()));
+
+		long start = System.currentTimeMillis();
+		process.start();
+		long duration = System.currentTimeMillis() - start;
+
+		assertEquals(ProcessState.SUCCEEDED, process.getState());
+		assertTrue(duration < 3 * TestUtil.DEFAULT_WAITING_TIME);
+	}
+
+	@Test
+	public void failTest() throws InvalidProcessStateException {
+		DagProcess process = new DagProcess();
+		SucceedingProcessStep first = new SucceedingProcessStep();
+		FailingProcessStep failing = new FailingProcessStep();
+		SucceedingProcessStep last = new SucceedingProcessStep();
+		process.add(first);
+		process.add(failing, first);
+		process.add(last, failing);
+
+		process.start();
+
+		assertEquals(ProcessState.FAILED, process.getState());
+		assertEquals(ProcessState.FAILED, first.getState());
+		assertEquals(ProcessState.FAILED, failing.getState());
+		// the dependent component is never started
+		assertEquals(ProcessState.READY, last.getState());
+	}
+
+	@Test
+	public void cycleTest() throws InvalidProcessStateException {
+		DagProcess process = new DagProcess();
+		SucceedingProcessStep a = new SucceedingProcessStep();
+		SucceedingProcessStep b = new SucceedingProcessStep();
+		process.add(a);
+		process.add(b, a);
+		process.addDependency(a, b);
+
+		process.start();
+
+		assertEquals(ProcessState.FAILED, process.getState());
+		assertEquals(ProcessState.READY, a.getState());
+		assertEquals(ProcessState.READY, b.getState());
+	}
+
+	@Test
+	public void pauseTest() throws Exception {
+		List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		DagProcess process = new DagProcess();
+		PausingStep a = new PausingStep(process);
+		RecordingStep b = new RecordingStep("b", order);
+		process.add(a);
+		process.add(b, a);
+
+		Thread executing = startInBackground(process);
+		waitUntil(process, ProcessState.PAUSED, a, ProcessState.SUCCEEDED);
+
+		// the dependent component is held back while paused
+		Thread.sleep(TestUtil.DEFAULT_WAITING_TIME);
+		assertEquals(ProcessState.PAUSED, process.getState());
+		assertEquals(ProcessState.READY, b.getState());
+
+		process.resume();
+		executing.join();
+		assertEquals(ProcessState.SUCCEEDED, process.getState());
+		assertEquals(Collections.singletonList("b"), order);
+	}
+
+	@Test
+	public void cancelPausedTest() throws Exception {
+		DagProcess process = new DagProcess();
+		PausingStep a = new PausingStep(process);
+		SucceedingProcessStep b = new SucceedingProcessStep();
+		process.add(a);
+		process.add(b, a);
+
+		Thread executing = startInBackground(process);
+		waitUntil(process, ProcessState.PAUSED, a, ProcessState.SUCCEEDED);
+
+		process.cancel(new RollbackReason("Cancelled while paused."));
+		executing.join();
+		assertEquals(ProcessState.FAILED, process.getState());
+		assertEquals(ProcessState.FAILED, a.getState());
+		assertEquals(ProcessState.READY, b.getState());
+	}
+
+	private static Thread startInBackground(final DagProcess process) {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					process.start();
+				} catch (InvalidProcessStateException e) {
+					// the test fails because of the state
+				}
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	private static void waitUntil(DagProcess process, ProcessState processState, ProcessStep step,
+			ProcessState stepState) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			if (process.getState() == processState && step.getState() == stepState) {
+				return;
+			}
+			Thread.sleep(50);
+		}
+		assertEquals(processState, process.getState());
+		assertEquals(stepState, step.getState());
+	}
+
+	/**
+	 * Pauses its process while it is executed
+	 */
+	private class PausingStep extends ProcessStep {
+
+		private final DagProcess process;
+
+		public PausingStep(DagProcess process) {
+			this.process = process;
+		}
+
+		@Override
+		protected void doExecute() throws InvalidProcessStateException {
+			process.pause();
+		}
+	}
+
+	private class RecordingStep extends ProcessStep {
+
+		private final String name;
+		private final List<String> order;
+
+		public RecordingStep(String name, List<String> order) {
+			this.name = name;
+			this.order = order;
+		}
+
+		@Override
+		protected void doExecute() throws InvalidProcessStateException {
+			order.add(name);
+		}
+	}
+}
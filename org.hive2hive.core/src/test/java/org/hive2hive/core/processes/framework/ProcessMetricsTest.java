@@ -0,0 +1,98 @@
+package org.hive2hive.core.processes.framework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.processes.framework.concretes.SequentialProcess;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.metrics.ProcessMetrics;
+import org.hive2hive.core.processes.framework.metrics.TimingHistogram;
+import org.hive2hive.core.processes.util.FailingProcessStep;
+import org.hive2hive.core.processes.util.SucceedingProcessStep;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the recording of the {@link ProcessMetrics} and the percentiles of the {@link TimingHistogram}.
+ *
+ * @author Nico
+ */
+public class ProcessMetricsTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = ProcessMetricsTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+
+	@After
+	public void resetMetrics() {
+		ProcessMetrics.instance().setEnabled(false);
+		ProcessMetrics.instance().reset();
+	}
+
+	@Test
+	public void testRecordExecutionAndRollback() throws InvalidProcessStateException {
+		ProcessMetrics metrics = ProcessMetrics.instance();
+		metrics.reset();
+		metrics.setEnabled(true);
+
+		SequentialProcess process = new SequentialProcess();
+		process.add(new SucceedingProcessStep());
+		process.add(new SucceedingProcessStep());
+		process.start();
+
+		assertEquals(2, metrics.getExecutionCount(SucceedingProcessStep.class.getSimpleName()));
+		assertEquals(1, metrics.getExecutionCount(SequentialProcess.class.getSimpleName()));
+
+		process = new SequentialProcess();
+		process.add(new SucceedingProcessStep());
+		process.add(new FailingProcessStep());
+		process.start();
+
+		assertEquals(3, metrics.getExecutionCount(SucceedingProcessStep.class.getSimpleName()));
+		assertEquals(1, metrics.getRollbackCount(SequentialProcess.class.getSimpleName()));
+		assertEquals(1, metrics.getRollbackCount(SucceedingProcessStep.class.getSimpleName()));
+		assertTrue(metrics.getReport().contains(SucceedingProcessStep.class.getSimpleName()));
+	}
+
+	@Test
+	public void testDisabled() throws InvalidProcessStateException {
+		ProcessMetrics metrics = ProcessMetrics.instance();
+		metrics.reset();
+		metrics.setEnabled(false);
+
+		SucceedingProcessStep step = new SucceedingProcessStep();
+		step.start();
+
+		assertEquals(0, metrics.getExecutionCount(SucceedingProcessStep.class.getSimpleName()));
+		assertEquals(0, metrics.getComponentNames().length);
+	}
+
+	@Test
+	public void testPercentiles() {
+		TimingHistogram histogram = new TimingHistogram();
+		for (int i = 1; i <= 100; i++) {
+			// 1ms to 100ms
+			histogram.record(i * 1000000L);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(50.5, histogram.getMeanMs(), 0.001);
+		assertEquals(100, histogram.getMaxMs(), 0.001);
+
+		// the approximation is at most factor two above the exact value
+		double p50 = histogram.getPercentileMs(50);
+		assertTrue(p50 >= 50 && p50 <= 100);
+		double p99 = histogram.getPercentileMs(99);
+		assertTrue(p99 >= 99 && p99 <= 100);
+	}
+}
@@ -1,9 +1,14 @@
 package org.hive2hive.core.processes.framework;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.hive2hive.core.H2HJUnitTest;
 import org.hive2hive.core.processes.framework.abstracts.ProcessComponent;
 import org.hive2hive.core.processes.framework.abstracts.ProcessStep;
@@ -864,4 +869,38 @@ public class SequentialProcessTest extends H2HJUnitTest {
 		TestUtil.wait(TestUtil.DEFAULT_WAITING_TIME);
 		assertTrue(asyncProcess2.getState() == ProcessState.FAILED);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void completionTest() throws InvalidProcessStateException, InterruptedException,
+			ExecutionException, TimeoutException {
+
+		// succeeding process
+		SequentialProcess process = new SequentialProcess();
+		process.add(new BusySucceedingStep());
+		AsyncComponent asyncProcess = new AsyncComponent(process);
+		assertFalse(asyncProcess.getCompletion().isDone());
+		asyncProcess.start();
+		assertEquals(ProcessState.SUCCEEDED,
+				asyncProcess.getCompletion().get(MAX_ASYNC_WAIT, TimeUnit.SECONDS));
+		assertTrue(asyncProcess.getCompletion().isDone());
+
+		// failing process
+		SequentialProcess process2 = new SequentialProcess();
+		process2.add(new BusyFailingStep());
+		AsyncComponent asyncProcess2 = new AsyncComponent(process2);
+		asyncProcess2.start();
+		assertEquals(ProcessState.FAILED,
+				asyncProcess2.getCompletion().get(MAX_ASYNC_WAIT, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = InterruptedException.class)
+	public void awaitTimeoutTest() throws InvalidProcessStateException, InterruptedException {
+		SequentialProcess process = new SequentialProcess();
+		process.add(new BusySucceedingStep());
+		AsyncComponent asyncProcess = new AsyncComponent(process);
+		asyncProcess.start();
+
+		// the busy step takes longer
+		asyncProcess.await(10);
+	}
+}
@@ -0,0 +1,162 @@
+package org.hive2hive.core.processes.implementations.common;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.model.Chunk;
+import org.hive2hive.core.model.FileVersion;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFilePage;
+import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.model.NetworkContent;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.network.data.IDataManager;
+import org.hive2hive.core.network.data.parameters.Parameters;
+import org.hive2hive.core.processes.implementations.context.DeleteFileProcessContext;
+import org.hive2hive.core.processes.implementations.files.delete.DeleteChunksProcess;
+import org.hive2hive.core.processes.util.GetMetaFileContext;
+import org.hive2hive.core.processes.util.TestProcessComponentListener;
+import org.hive2hive.core.processes.util.UseCaseTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the step that gets the meta file and the pages of its old versions.
+ *
+ * @author Nico
+ *
+ */
+public class GetMetaFileStepTest extends H2HJUnitTest {
+
+	private static List<NetworkManager> network;
+	private static final int networkSize = 2;
+	private static final int versions = 6;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = GetMetaFileStepTest.class;
+		beforeClass();
+		network = NetworkTestUtil.createNetwork(networkSize);
+	}
+
+	@Test
+	public void testLoadHistory() throws Exception {
+		KeyPair keys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_META_FILE);
+		MetaFileSmall metaFile = createMetaFile(keys);
+		putMetaFile(metaFile, keys, true);
+
+		GetMetaFileContext context = new GetMetaFileContext(keys);
+		GetMetaFileStep step = new GetMetaFileStep(context, context, network.get(0).getDataManager(), true);
+		UseCaseTestUtil.executeProcessTillSucceded(step);
+
+		MetaFileSmall loaded = (MetaFileSmall) context.metaFile;
+		Assert.assertTrue(loaded.isHistoryLoaded());
+		Assert.assertEquals(versions, loaded.getAllVersions().size());
+	}
+
+	@Test
+	public void testMissingPage() throws Exception {
+		KeyPair keys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_META_FILE);
+		MetaFileSmall metaFile = createMetaFile(keys);
+		// the get of the page fails since it has never been put
+		putMetaFile(metaFile, keys, false);
+
+		// without the history, the page is not needed
+		GetMetaFileContext context = new GetMetaFileContext(keys);
+		GetMetaFileStep step = new GetMetaFileStep(context, context, network.get(0).getDataManager(), false);
+		UseCaseTestUtil.executeProcessTillSucceded(step);
+		Assert.assertNotNull(context.metaFile);
+
+		// an incomplete history is not provided
+		context = new GetMetaFileContext(keys);
+		step = new GetMetaFileStep(context, context, network.get(0).getDataManager(), true);
+		TestProcessComponentListener listener = new TestProcessComponentListener();
+		step.attachListener(listener);
+		step.start();
+		UseCaseTestUtil.waitTillFailed(listener, 10);
+		Assert.assertNull(context.metaFile);
+	}
+
+	@Test
+	public void testKeepPageNotLoaded() throws Exception {
+		KeyPair keys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_META_FILE);
+		MetaFileSmall metaFile = createMetaFile(keys);
+		putMetaFile(metaFile, keys, true);
+		for (FileVersion version : metaFile.getAllVersions()) {
+			for (MetaChunk metaChunk : version.getMetaChunks()) {
+				put(metaChunk.getChunkId(), H2HConstants.FILE_CHUNK,
+						new Chunk(metaChunk.getChunkId(), new byte[] { 1 }, 0), keys);
+			}
+		}
+
+		// the history is not loaded, thus only the chunks of the versions in the meta file are deleted
+		GetMetaFileContext getContext = new GetMetaFileContext(keys);
+		UseCaseTestUtil.executeProcessTillSucceded(new GetMetaFileStep(getContext, getContext, network.get(0)
+				.getDataManager()));
+		DeleteFileProcessContext context = new DeleteFileProcessContext(false);
+		context.provideMetaFile(getContext.metaFile);
+		context.provideProtectionKeys(keys);
+		UseCaseTestUtil.executeProcessTillSucceded(new DeleteChunksProcess(context, network.get(0)
+				.getDataManager()));
+
+		MetaFileSmall loaded = (MetaFileSmall) getContext.metaFile;
+		for (FileVersion version : metaFile.getAllVersions()) {
+			String chunkId = version.getMetaChunks().get(0).getChunkId();
+			boolean inPage = loaded.getVersionByIndex(version.getIndex()) == null;
+			Assert.assertEquals(inPage, get(chunkId, H2HConstants.FILE_CHUNK) != null);
+		}
+		Assert.assertNotNull(get(H2HEncryptionUtil.key2String(keys.getPublic()), MetaFilePage.getContentKey(0)));
+	}
+
+	@AfterClass
+	public static void endTest() {
+		NetworkTestUtil.shutdownNetwork(network);
+		afterClass();
+	}
+
+	/**
+	 * Creates a meta file where the oldest half of the versions is in a page. Every version has a single
+	 * chunk.
+	 */
+	private static MetaFileSmall createMetaFile(KeyPair keys) {
+		MetaFileSmall metaFile = new MetaFileSmall(keys.getPublic(), new ArrayList<FileVersion>(), keys);
+		for (int i = 0; i < versions; i++) {
+			List<MetaChunk> metaChunks = new ArrayList<MetaChunk>();
+			metaChunks.add(new MetaChunk(NetworkTestUtil.randomString(), new byte[] { (byte) i }, 0));
+			metaFile.getVersions().add(new FileVersion(i, 1, System.currentTimeMillis(), metaChunks));
+		}
+		Assert.assertNotNull(metaFile.pageOut(versions / 2, versions / 2));
+		return metaFile;
+	}
+
+	private static void putMetaFile(MetaFileSmall metaFile, KeyPair keys, boolean withPage) throws Exception {
+		String locationKey = H2HEncryptionUtil.key2String(keys.getPublic());
+		if (withPage) {
+			MetaFilePage page = metaFile.getLoadedPage(0);
+			put(locationKey, MetaFilePage.getContentKey(0), H2HEncryptionUtil.encryptHybrid(page, keys.getPublic()),
+					keys);
+		}
+		put(locationKey, H2HConstants.META_FILE, H2HEncryptionUtil.encryptHybrid(metaFile, keys.getPublic()), keys);
+	}
+
+	private static void put(String locationKey, String contentKey, NetworkContent content, KeyPair keys)
+			throws NoPeerConnectionException {
+		IDataManager dataManager = network.get(1).getDataManager();
+		Assert.assertTrue(dataManager.put(new Parameters().setLocationKey(locationKey).setContentKey(contentKey)
+				.setData(content).setProtectionKeys(keys)));
+	}
+
+	private static NetworkContent get(String locationKey, String contentKey) throws NoPeerConnectionException {
+		return network.get(1).getDataManager()
+				.get(new Parameters().setLocationKey(locationKey).setContentKey(contentKey));
+	}
+}
@@ -21,7 +21,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({
 
 // ProcessStep, Common, Get
-		BaseGetProcessStepTest.class, GetLocationStepTest.class, GetUserProfileStepTest.class,
+		BaseGetProcessStepTest.class, GetLocationStepTest.class, GetUserProfileStepTest.class, GetMetaFileStepTest.class,
 
 		// ProcessStep, Common, Put
 		BasePutProcessStepTest.class, PutLocationStepTest.class, PutUserProfileStepTest.class,
@@ -0,0 +1,239 @@
+package org.hive2hive.core.processes.implementations.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.exceptions.GetFailedException;
+import org.hive2hive.core.exceptions.IllegalFileLocation;
+import org.hive2hive.core.exceptions.NoPeerConnectionException;
+import org.hive2hive.core.exceptions.NoSessionException;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.model.FileIndex;
+import org.hive2hive.core.model.UserProfile;
+import org.hive2hive.core.network.NetworkManager;
+import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.processes.ProcessFactory;
+import org.hive2hive.core.processes.framework.ProcessState;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
+import org.hive2hive.core.processes.implementations.context.DeleteFileProcessContext;
+import org.hive2hive.core.processes.implementations.files.bulk.BulkFileProcess;
+import org.hive2hive.core.processes.implementations.files.delete.DeleteFromUserProfileStep;
+import org.hive2hive.core.processes.util.TestResultProcessComponentListener;
+import org.hive2hive.core.processes.util.UseCaseTestUtil;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.hive2hive.core.security.H2HEncryptionUtil;
+import org.hive2hive.core.security.UserCredentials;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests adding, updating and deleting multiple files with a single bulk process.
+ *
+ * @author Nico
+ *
+ */
+public class BulkFileTest extends H2HJUnitTest {
+
+	private final int networkSize = 2;
+	private List<NetworkManager> network;
+	private UserCredentials userCredentials;
+	private File root;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = BulkFileTest.class;
+		beforeClass();
+	}
+
+	@Before
+	public void register() throws NoPeerConnectionException {
+		network = NetworkTestUtil.createNetwork(networkSize);
+		userCredentials = NetworkTestUtil.generateRandomCredentials();
+		root = FileTestUtil.getTempDirectory();
+		UseCaseTestUtil.registerAndLogin(userCredentials, network.get(0), root);
+	}
+
+	@Test
+	public void testAddAll() throws IOException, NoSessionException, NoPeerConnectionException,
+			GetFailedException {
+		File folder = new File(root, "folder");
+		File subFolder = new File(folder, "sub-folder");
+		subFolder.mkdirs();
+		File file1 = new File(folder, "file1");
+		FileUtils.writeStringToFile(file1, NetworkTestUtil.randomString());
+		File file2 = new File(subFolder, "file2");
+		FileUtils.writeStringToFile(file2, NetworkTestUtil.randomString());
+
+		// the order does not matter
+		List<File> files = Arrays.asList(file2, subFolder, file1, folder);
+		Map<File, ProcessState> results = execute(ProcessFactory.instance().createBulkAddProcess(files,
+				network.get(0)));
+
+		Assert.assertEquals(4, results.size());
+		UserProfile userProfile = UseCaseTestUtil.getUserProfile(network.get(1), userCredentials);
+		for (File file : files) {
+			Assert.assertEquals(ProcessState.SUCCEEDED, results.get(file));
+			Assert.assertNotNull(userProfile.getFileByPath(file, root));
+		}
+	}
+
+	@Test
+	public void testAddAllParentMissing() throws IOException, NoSessionException, NoPeerConnectionException,
+			GetFailedException {
+		File folder = new File(root, "folder");
+		folder.mkdirs();
+		File child = new File(folder, "child");
+		FileUtils.writeStringToFile(child, NetworkTestUtil.randomString());
+		File other = new File(root, "other");
+		FileUtils.writeStringToFile(other, NetworkTestUtil.randomString());
+
+		// the parent of the child is not in the user profile
+		Map<File, ProcessState> results = execute(ProcessFactory.instance().createBulkAddProcess(
+				Arrays.asList(child, other), network.get(0)));
+
+		Assert.assertEquals(ProcessState.FAILED, results.get(child));
+		Assert.assertEquals(ProcessState.SUCCEEDED, results.get(other));
+
+		UserProfile userProfile = UseCaseTestUtil.getUserProfile(network.get(1), userCredentials);
+		Assert.assertNull(userProfile.getFileByPath(child, root));
+		Assert.assertNotNull(userProfile.getFileByPath(other, root));
+	}
+
+	@Test
+	public void testUpdateAll() throws IOException, NoSessionException, NoPeerConnectionException,
+			GetFailedException, IllegalFileLocation, InvalidProcessStateException {
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 3; i++) {
+			File file = new File(root, "file" + i);
+			FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+			UseCaseTestUtil.uploadNewFile(network.get(0), file);
+			files.add(file);
+		}
+
+		// modify all files but the last one
+		for (File file : files.subList(0, 2)) {
+			FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		}
+
+		Map<File, ProcessState> results = execute(ProcessFactory.instance().createBulkUpdateProcess(files,
+				network.get(0)));
+
+		Assert.assertEquals(ProcessState.SUCCEEDED, results.get(files.get(0)));
+		Assert.assertEquals(ProcessState.SUCCEEDED, results.get(files.get(1)));
+		// cannot create a new version with the same content
+		Assert.assertEquals(ProcessState.FAILED, results.get(files.get(2)));
+
+		UserProfile userProfile = UseCaseTestUtil.getUserProfile(network.get(1), userCredentials);
+		for (File file : files) {
+			FileIndex index = (FileIndex) userProfile.getFileByPath(file, root);
+			Assert.assertTrue(H2HEncryptionUtil.compareMD5(EncryptionUtil.generateMD5Hash(file), index.getMD5()));
+		}
+	}
+
+	@Test
+	public void testDeleteAll() throws IOException, NoSessionException, NoPeerConnectionException,
+			GetFailedException, IllegalFileLocation, InvalidProcessStateException {
+		File folder = new File(root, "folder");
+		folder.mkdirs();
+		UseCaseTestUtil.uploadNewFile(network.get(0), folder);
+		File file1 = new File(folder, "file1");
+		FileUtils.writeStringToFile(file1, NetworkTestUtil.randomString());
+		UseCaseTestUtil.uploadNewFile(network.get(0), file1);
+		File file2 = new File(root, "file2");
+		FileUtils.writeStringToFile(file2, NetworkTestUtil.randomString());
+		UseCaseTestUtil.uploadNewFile(network.get(0), file2);
+
+		List<File> files = Arrays.asList(folder, file1, file2);
+		Map<File, ProcessState> results = execute(ProcessFactory.instance().createBulkDeleteProcess(files,
+				network.get(0)));
+
+		UserProfile userProfile = UseCaseTestUtil.getUserProfile(network.get(1), userCredentials);
+		for (File file : files) {
+			Assert.assertEquals(ProcessState.SUCCEEDED, results.get(file));
+			Assert.assertNull(userProfile.getFileByPath(file, root));
+			Assert.assertFalse(file.exists());
+		}
+	}
+
+	@Test
+	public void testDeleteAllChildrenFirst() throws IOException, NoSessionException, NoPeerConnectionException,
+			GetFailedException, IllegalFileLocation, InvalidProcessStateException {
+		File folder = new File(root, NetworkTestUtil.randomString());
+		folder.mkdirs();
+		UseCaseTestUtil.uploadNewFile(network.get(0), folder);
+		File subfolder = new File(folder, NetworkTestUtil.randomString());
+		subfolder.mkdirs();
+		UseCaseTestUtil.uploadNewFile(network.get(0), subfolder);
+		File file = new File(subfolder, NetworkTestUtil.randomString());
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		UseCaseTestUtil.uploadNewFile(network.get(0), file);
+
+		List<File> files = Arrays.asList(folder, file, subfolder);
+		Map<File, ProcessState> results = execute(ProcessFactory.instance().createBulkDeleteProcess(files,
+				network.get(0)));
+		for (File deleted : files) {
+			Assert.assertEquals(ProcessState.SUCCEEDED, results.get(deleted));
+			Assert.assertFalse(deleted.exists());
+		}
+
+		// every file has been moved to the trash on its own, the folders were empty
+		File trashedFolder = new File(H2HConstants.TRASH_DIRECTORY, folder.getName());
+		File trashedSubfolder = new File(H2HConstants.TRASH_DIRECTORY, subfolder.getName());
+		Assert.assertTrue(new File(H2HConstants.TRASH_DIRECTORY, file.getName()).exists());
+		Assert.assertEquals(0, trashedSubfolder.list().length);
+		Assert.assertEquals(0, trashedFolder.list().length);
+	}
+
+	@Test
+	public void testUndoDelete() throws IOException, NoSessionException, NoPeerConnectionException,
+			GetFailedException, IllegalFileLocation, InvalidProcessStateException, ProcessExecutionException {
+		File file = new File(root, "file");
+		FileUtils.writeStringToFile(file, NetworkTestUtil.randomString());
+		UseCaseTestUtil.uploadNewFile(network.get(0), file);
+
+		UserProfile userProfile = UseCaseTestUtil.getUserProfile(network.get(0), userCredentials);
+		DeleteFromUserProfileStep modification = new DeleteFromUserProfileStep(file,
+				new DeleteFileProcessContext(false), network.get(0));
+		modification.modify(userProfile);
+		Assert.assertNull(userProfile.getFileByPath(file, root));
+
+		// reverting twice (e.g. the deletion has not been put) does not add the file twice
+		modification.undoModification(userProfile);
+		modification.undoModification(userProfile);
+		Assert.assertNotNull(userProfile.getFileByPath(file, root));
+		Assert.assertEquals(1, userProfile.getRoot().getChildren().size());
+	}
+
+	private Map<File, ProcessState> execute(BulkFileProcess process) {
+		TestResultProcessComponentListener<Map<File, ProcessState>> listener =
+				new TestResultProcessComponentListener<Map<File, ProcessState>>();
+		process.attachListener(listener);
+		UseCaseTestUtil.executeProcess(process);
+
+		Assert.assertTrue(listener.hasResultArrived());
+		return listener.getResult();
+	}
+
+	@After
+	public void deleteAndShutdown() throws IOException {
+		NetworkTestUtil.shutdownNetwork(network);
+		FileUtils.deleteDirectory(root);
+	}
+
+	@AfterClass
+	public static void endTest() throws IOException {
+		afterClass();
+	}
+}
@@ -15,6 +15,8 @@ import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.UserProfile;
 import org.hive2hive.core.network.NetworkManager;
 import org.hive2hive.core.network.NetworkTestUtil;
+import org.hive2hive.core.processes.ProcessFactory;
+import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
 import org.hive2hive.core.processes.util.UseCaseTestUtil;
 import org.hive2hive.core.security.UserCredentials;
 import org.junit.AfterClass;
@@ -181,6 +183,59 @@ public class MoveFileTest extends H2HJUnitTest {
 		Assert.assertEquals(fileNode.getName(), destination.getName());
 	}
 
+	@Test
+	public void testAlreadyMovedOnDisk() throws IOException, IllegalFileLocation, GetFailedException,
+			InterruptedException, NoSessionException, NoPeerConnectionException {
+		NetworkManager client = network.get(1);
+		UseCaseTestUtil.login(userCredentials, client, root);
+
+		// add a file to the network
+		File file = new File(root, "test-file-on-disk");
+		FileUtils.write(file, NetworkTestUtil.randomString());
+		UseCaseTestUtil.uploadNewFile(client, file);
+
+		// the file has been moved by the user (e.g. detected by the file observer)
+		File destination = new File(root, "test-file-on-disk-moved");
+		FileUtils.moveFile(file, destination);
+
+		// only update the user profile
+		UseCaseTestUtil.moveFile(client, file, destination);
+
+		Assert.assertFalse(file.exists());
+		Assert.assertTrue(destination.exists());
+
+		UserProfile userProfile = UseCaseTestUtil.getUserProfile(client, userCredentials);
+		Assert.assertNull(userProfile.getFileByPath(file, root.toPath()));
+		Index fileNode = userProfile.getFileByPath(destination, root.toPath());
+		Assert.assertNotNull(fileNode);
+		Assert.assertEquals(destination.getName(), fileNode.getName());
+	}
+
+	@Test
+	public void testAlreadyMovedOnDiskOtherContent() throws IOException, IllegalFileLocation,
+			GetFailedException, NoSessionException, NoPeerConnectionException {
+		NetworkManager client = network.get(1);
+		UseCaseTestUtil.login(userCredentials, client, root);
+
+		// add a file to the network
+		File file = new File(root, "test-file-other-content");
+		FileUtils.write(file, NetworkTestUtil.randomString());
+		UseCaseTestUtil.uploadNewFile(client, file);
+
+		// the source is gone, but the destination does not have its content
+		File destination = new File(root, "test-file-other-content-moved");
+		FileUtils.moveFile(file, destination);
+		FileUtils.write(destination, NetworkTestUtil.randomString(), true);
+
+		IProcessComponent process = ProcessFactory.instance().createMoveFileProcess(file, destination, client);
+		UseCaseTestUtil.executeProcessTillFailed(process);
+
+		UserProfile userProfile = UseCaseTestUtil.getUserProfile(client, userCredentials);
+		Assert.assertNotNull(userProfile.getFileByPath(file, root.toPath()));
+		Assert.assertNull(userProfile.getFileByPath(destination, root.toPath()));
+		Assert.assertTrue(destination.exists());
+	}
+
 	@AfterClass
 	public static void endTest() throws IOException {
 		NetworkTestUtil.shutdownNetwork(network);
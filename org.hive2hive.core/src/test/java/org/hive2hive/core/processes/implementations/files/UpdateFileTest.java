@@ -17,6 +17,7 @@ import org.hive2hive.core.exceptions.IllegalFileLocation;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
 import org.hive2hive.core.exceptions.NoSessionException;
 import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.integration.TestFileConfiguration;
 import org.hive2hive.core.model.FileIndex;
 import org.hive2hive.core.model.Index;
 import org.hive2hive.core.model.MetaFileSmall;
@@ -167,6 +168,16 @@ public class UpdateFileTest extends H2HJUnitTest {
 			public int getChunkSize() {
 				return H2HConstants.DEFAULT_CHUNK_SIZE;
 			}
+
+			@Override
+			public BigInteger getMaxChunkCacheSize() {
+				return H2HConstants.DEFAULT_MAX_CHUNK_CACHE_SIZE;
+			}
+
+			@Override
+			public File getStateDirectory() {
+				return TestFileConfiguration.STATE_DIRECTORY;
+			}
 		};
 
 		H2HSession session = uploader.getSession();
@@ -212,6 +223,16 @@ public class UpdateFileTest extends H2HJUnitTest {
 			public int getChunkSize() {
 				return H2HConstants.DEFAULT_CHUNK_SIZE;
 			}
+
+			@Override
+			public BigInteger getMaxChunkCacheSize() {
+				return H2HConstants.DEFAULT_MAX_CHUNK_CACHE_SIZE;
+			}
+
+			@Override
+			public File getStateDirectory() {
+				return TestFileConfiguration.STATE_DIRECTORY;
+			}
 		};
 
 		H2HSession session = uploader.getSession();
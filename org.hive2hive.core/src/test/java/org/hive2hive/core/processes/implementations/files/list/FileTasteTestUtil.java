@@ -0,0 +1,24 @@
+package org.hive2hive.core.processes.implementations.files.list;
+
+import java.io.File;
+import java.util.HashSet;
+
+import org.hive2hive.core.model.UserPermission;
+
+/**
+ * Creates {@link FileTaste}s without fetching the file list from the network, e.g. to test the file
+ * buffers.
+ *
+ * @author Nico
+ */
+public class FileTasteTestUtil {
+
+	/**
+	 * @param root the root directory
+	 * @param file the file in the root directory
+	 * @param md5 the MD5 hash of the file in the user profile (<code>null</code> for a folder)
+	 */
+	public static FileTaste createFileTaste(File root, File file, byte[] md5) {
+		return new FileTaste(file, root.toPath().relativize(file.toPath()), md5, new HashSet<UserPermission>());
+	}
+}
@@ -0,0 +1,125 @@
+package org.hive2hive.core.processes.implementations.files.update;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.util.ArrayList;
+
+import org.apache.commons.io.FileUtils;
+import org.hive2hive.core.H2HConstants;
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.api.configs.FileConfiguration;
+import org.hive2hive.core.api.interfaces.IFileConfiguration;
+import org.hive2hive.core.file.FileTestUtil;
+import org.hive2hive.core.model.FileVersion;
+import org.hive2hive.core.model.MetaChunk;
+import org.hive2hive.core.model.MetaFileSmall;
+import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
+import org.hive2hive.core.processes.implementations.context.UpdateFileProcessContext;
+import org.hive2hive.core.security.EncryptionUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests which old versions and pages the {@link CreateNewVersionStep} removes.
+ *
+ * @author Nico
+ */
+public class CreateNewVersionStepTest extends H2HJUnitTest {
+
+	private static final int VERSION_SIZE = 100;
+
+	private File root;
+	private File file;
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = CreateNewVersionStepTest.class;
+		beforeClass();
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+
+	@Before
+	public void createFile() throws IOException {
+		root = FileTestUtil.getTempDirectory();
+		file = new File(root, "file");
+		FileUtils.writeByteArrayToFile(file, new byte[VERSION_SIZE]);
+	}
+
+	@After
+	public void deleteFile() throws IOException {
+		FileUtils.deleteDirectory(root);
+	}
+
+	@Test
+	public void testKeepPageWithVersionsWithinLimit() throws InvalidProcessStateException {
+		// a page with 10 versions and 4 newer versions in the meta file
+		MetaFileSmall metaFile = createMetaFile(14, 4, 10);
+
+		// the newest 10 versions include 5 versions of the page
+		UpdateFileProcessContext context = createNewVersion(metaFile, 10, BigInteger.valueOf(100000));
+		Assert.assertTrue(context.getPagesToDelete().isEmpty());
+		Assert.assertTrue(context.getChunksToDelete().isEmpty());
+		Assert.assertEquals(1, metaFile.getPages().size());
+		Assert.assertEquals(15, metaFile.getNumberOfVersions());
+
+		// the same for the size of all versions
+		metaFile = createMetaFile(14, 4, 10);
+		context = createNewVersion(metaFile, 100, BigInteger.valueOf(10 * VERSION_SIZE));
+		Assert.assertTrue(context.getPagesToDelete().isEmpty());
+		Assert.assertEquals(15, metaFile.getNumberOfVersions());
+	}
+
+	@Test
+	public void testRemovePageBeyondLimit() throws InvalidProcessStateException {
+		MetaFileSmall metaFile = createMetaFile(14, 4, 10);
+
+		// the 5 versions in the meta file are enough, all versions of the page are beyond the limit
+		UpdateFileProcessContext context = createNewVersion(metaFile, 5, BigInteger.valueOf(100000));
+		Assert.assertEquals(1, context.getPagesToDelete().size());
+		Assert.assertTrue(metaFile.getPages().isEmpty());
+		Assert.assertEquals(5, metaFile.getNumberOfVersions());
+
+		// the newer versions fill the size limit, then versions of the meta file are removed as well
+		metaFile = createMetaFile(14, 4, 10);
+		context = createNewVersion(metaFile, 100, BigInteger.valueOf(3 * VERSION_SIZE));
+		Assert.assertEquals(1, context.getPagesToDelete().size());
+		Assert.assertEquals(2, context.getChunksToDelete().size());
+		Assert.assertEquals(3, metaFile.getNumberOfVersions());
+		Assert.assertEquals(14, metaFile.getNewestVersion().getIndex());
+	}
+
+	/**
+	 * Creates a meta file where the oldest versions are in a page. Every version has a single chunk.
+	 */
+	private static MetaFileSmall createMetaFile(int versions, int headVersions, int pageSize) {
+		KeyPair keys = EncryptionUtil.generateRSAKeyPair(H2HConstants.KEYLENGTH_META_FILE);
+		MetaFileSmall metaFile = new MetaFileSmall(keys.getPublic(), new ArrayList<FileVersion>(), keys);
+		for (int i = 0; i < versions; i++) {
+			ArrayList<MetaChunk> metaChunks = new ArrayList<MetaChunk>();
+			metaChunks.add(new MetaChunk("chunk" + i, new byte[] { (byte) i }, 0));
+			metaFile.getVersions().add(new FileVersion(i, VERSION_SIZE, System.currentTimeMillis(), metaChunks));
+		}
+		Assert.assertNotNull(metaFile.pageOut(headVersions, pageSize));
+		return metaFile;
+	}
+
+	private UpdateFileProcessContext createNewVersion(MetaFileSmall metaFile, int maxNumOfVersions,
+			BigInteger maxSizeAllVersions) throws InvalidProcessStateException {
+		IFileConfiguration config = FileConfiguration.createCustom(BigInteger.valueOf(100000), maxNumOfVersions,
+				maxSizeAllVersions, VERSION_SIZE);
+		UpdateFileProcessContext context = new UpdateFileProcessContext(file);
+		context.provideMetaFile(metaFile);
+		new CreateNewVersionStep(context, config).start();
+		return context;
+	}
+}
@@ -1,10 +1,12 @@
 package org.hive2hive.core.processes.implementations.notify;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.hive2hive.core.H2HConstants;
 import org.hive2hive.core.H2HJUnitTest;
 import org.hive2hive.core.H2HWaiter;
 import org.hive2hive.core.exceptions.NoPeerConnectionException;
@@ -18,6 +20,8 @@ import org.hive2hive.core.processes.framework.ProcessState;
 import org.hive2hive.core.processes.framework.exceptions.InvalidProcessStateException;
 import org.hive2hive.core.processes.framework.exceptions.ProcessExecutionException;
 import org.hive2hive.core.processes.framework.interfaces.IProcessComponent;
+import org.hive2hive.core.processes.util.CountingMessageReplyHandler;
+import org.hive2hive.core.processes.util.DelayingMessageReplyHandler;
 import org.hive2hive.core.processes.util.DenyingMessageReplyHandler;
 import org.hive2hive.core.processes.util.TestProcessComponentListener;
 import org.hive2hive.core.processes.util.UseCaseTestUtil;
@@ -314,6 +318,112 @@ public class NotificationTest extends H2HJUnitTest {
 		Assert.assertEquals(2, locations.getPeerAddresses().size());
 	}
 
+	/**
+	 * Scenario: User A (peer 0) contacts his own clients (peer 1 and 2), but peer 1 does not respond within
+	 * the deadline. The process must not wait longer and the locations map should be cleaned up
+	 */
+	@Test
+	public void testNotifyOwnPeerTimeout() throws InvalidProcessStateException, IllegalArgumentException,
+			NoPeerConnectionException, NoSessionException {
+		NetworkManager notifier = network.get(0);
+
+		Set<String> users = new HashSet<String>(1);
+		users.add(userACredentials.getUserId());
+		CountingNotificationMessageFactory msgFactory = new CountingNotificationMessageFactory(notifier);
+		IProcessComponent process = ProcessFactory.instance().createNotificationProcess(msgFactory, users,
+				notifier);
+		TestProcessComponentListener listener = new TestProcessComponentListener();
+		process.attachListener(listener);
+
+		// peer 1 responds too late
+		long delay = 3 * H2HConstants.NOTIFICATION_SEND_TIMEOUT_MS;
+		network.get(1).getConnection().getPeer().setObjectDataReply(new DelayingMessageReplyHandler(delay));
+		long start = System.currentTimeMillis();
+		process.start();
+
+		UseCaseTestUtil.waitTillSucceded(listener, 30);
+		// the deadline and the time to cleanup the locations
+		Assert.assertTrue(System.currentTimeMillis() - start < 2 * H2HConstants.NOTIFICATION_SEND_TIMEOUT_MS);
+
+		Locations locations = UseCaseTestUtil.getLocations(network.get(0), userACredentials.getUserId());
+		Assert.assertEquals(2, locations.getPeerAddresses().size());
+	}
+
+	/**
+	 * Scenario: User A (peer 0) contacts user B (peer 3 or 4), but both peers of user B do not respond within
+	 * the deadline. The process completes after the deadline and does not touch the locations of user B.
+	 */
+	@Test
+	public void testNotifyOtherUserTimeout() throws InvalidProcessStateException, IllegalArgumentException,
+			NoPeerConnectionException, NoSessionException {
+		NetworkManager notifier = network.get(0);
+
+		Set<String> users = new HashSet<String>(1);
+		users.add(userBCredentials.getUserId());
+		CountingNotificationMessageFactory msgFactory = new CountingNotificationMessageFactory(notifier);
+		IProcessComponent process = ProcessFactory.instance().createNotificationProcess(msgFactory, users,
+				notifier);
+		TestProcessComponentListener listener = new TestProcessComponentListener();
+		process.attachListener(listener);
+
+		long delay = 3 * H2HConstants.NOTIFICATION_SEND_TIMEOUT_MS;
+		network.get(3).getConnection().getPeer().setObjectDataReply(new DelayingMessageReplyHandler(delay));
+		network.get(4).getConnection().getPeer().setObjectDataReply(new DelayingMessageReplyHandler(delay));
+		long start = System.currentTimeMillis();
+		process.start();
+
+		UseCaseTestUtil.waitTillSucceded(listener, 30);
+		Assert.assertTrue(System.currentTimeMillis() - start < 2 * H2HConstants.NOTIFICATION_SEND_TIMEOUT_MS);
+
+		Locations locations = UseCaseTestUtil.getLocations(network.get(0), userBCredentials.getUserId());
+		Assert.assertEquals(2, locations.getPeerAddresses().size());
+	}
+
+	/**
+	 * Scenario: User A (peer 0) submits multiple notifications to the aggregator, which sends them as a
+	 * single batch to his own clients (peer 1 and 2)
+	 */
+	@Test
+	public void testCoalesceNotifications() throws NoPeerConnectionException {
+		NetworkManager notifier = network.get(0);
+		Set<String> users = new HashSet<String>(1);
+		users.add(userACredentials.getUserId());
+
+		// count the messages arriving at the other clients of user A
+		List<CountingMessageReplyHandler> receivers = new ArrayList<CountingMessageReplyHandler>();
+		for (int i = 1; i <= 2; i++) {
+			NetworkManager receiver = network.get(i);
+			CountingMessageReplyHandler handler = new CountingMessageReplyHandler(receiver.getConnection()
+					.getMessageReplyHandler());
+			receiver.getConnection().getPeer().setObjectDataReply(handler);
+			receivers.add(handler);
+		}
+
+		NotificationAggregator aggregator = new NotificationAggregator(notifier, 1000, 100);
+		List<CountingNotificationMessageFactory> factories = new ArrayList<CountingNotificationMessageFactory>();
+		for (int i = 0; i < 5; i++) {
+			CountingNotificationMessageFactory msgFactory = new CountingNotificationMessageFactory(notifier);
+			factories.add(msgFactory);
+			aggregator.submit(msgFactory, users);
+		}
+		Assert.assertEquals(5, aggregator.getPendingCount());
+
+		H2HWaiter waiter = new H2HWaiter(20);
+		for (CountingNotificationMessageFactory msgFactory : factories) {
+			while (msgFactory.getSentMessageCount() == 0 || !msgFactory.allMsgsArrived()) {
+				waiter.tickASecond();
+			}
+			// one message per other client
+			Assert.assertEquals(2, msgFactory.getSentMessageCount());
+		}
+		Assert.assertEquals(0, aggregator.getPendingCount());
+
+		// all five notifications arrived within a single batch message per client
+		for (CountingMessageReplyHandler handler : receivers) {
+			Assert.assertEquals(1, handler.getReceivedCount());
+		}
+	}
+
 	@After
 	public void shutdown() {
 		NetworkTestUtil.shutdownNetwork(network);
@@ -0,0 +1,41 @@
+package org.hive2hive.core.processes.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.tomp2p.peers.PeerAddress;
+import net.tomp2p.rpc.ObjectDataReply;
+
+/**
+ * Counts the received messages and hands them over to the original handler; can be useful to test how many
+ * messages a process sends to a peer or to record a message
+ * 
+ * @author Nico
+ */
+public class CountingMessageReplyHandler implements ObjectDataReply {
+
+	private final ObjectDataReply handler;
+	private final AtomicInteger counter = new AtomicInteger();
+	private volatile Object lastRequest;
+
+	public CountingMessageReplyHandler(ObjectDataReply handler) {
+		this.handler = handler;
+	}
+
+	public int getReceivedCount() {
+		return counter.get();
+	}
+
+	/**
+	 * @return the last received (encrypted) message as it has been sent over the wire
+	 */
+	public Object getLastRequest() {
+		return lastRequest;
+	}
+
+	@Override
+	public Object reply(PeerAddress sender, Object request) throws Exception {
+		counter.incrementAndGet();
+		lastRequest = request;
+		return handler.reply(sender, request);
+	}
+}
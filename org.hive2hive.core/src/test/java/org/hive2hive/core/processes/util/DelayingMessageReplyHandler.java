@@ -0,0 +1,26 @@
+package org.hive2hive.core.processes.util;
+
+import net.tomp2p.peers.PeerAddress;
+import net.tomp2p.rpc.ObjectDataReply;
+
+import org.hive2hive.core.network.messages.AcceptanceReply;
+
+/**
+ * Accepts all messages, but not before the given delay; can be useful to test timeouts
+ * 
+ * @author Nico
+ */
+public class DelayingMessageReplyHandler implements ObjectDataReply {
+
+	private final long delayMs;
+
+	public DelayingMessageReplyHandler(long delayMs) {
+		this.delayMs = delayMs;
+	}
+
+	@Override
+	public Object reply(PeerAddress sender, Object request) throws Exception {
+		Thread.sleep(delayMs);
+		return AcceptanceReply.OK;
+	}
+}
@@ -0,0 +1,64 @@
+package org.hive2hive.core.security;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.SignatureException;
+
+import org.hive2hive.core.H2HJUnitTest;
+import org.hive2hive.core.security.EncryptionUtil.RSA_KEYLENGTH;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EncodedKeyPairTest extends H2HJUnitTest {
+
+	@BeforeClass
+	public static void initTest() throws Exception {
+		testClass = EncodedKeyPairTest.class;
+		beforeClass();
+	}
+
+	@Test
+	public void testDecodeAfterSerialization() throws IOException, ClassNotFoundException, InvalidKeyException,
+			SignatureException {
+		KeyPair keyPair = EncryptionUtil.generateRSAKeyPair(RSA_KEYLENGTH.BIT_512);
+		EncodedKeyPair encoded = new EncodedKeyPair(keyPair);
+		// the original key pair is kept before serialization
+		Assert.assertSame(keyPair, encoded.getKeyPair());
+
+		EncodedKeyPair deserialized = (EncodedKeyPair) EncryptionUtil.deserializeObject(EncryptionUtil
+				.serializeObject(encoded));
+		Assert.assertEquals(encoded, deserialized);
+		Assert.assertEquals(encoded.hashCode(), deserialized.hashCode());
+		Assert.assertTrue(deserialized.matches(keyPair));
+
+		// the decoded keys can be used
+		KeyPair decoded = deserialized.getKeyPair();
+		Assert.assertSame(decoded, deserialized.getKeyPair());
+		Assert.assertArrayEquals(keyPair.getPublic().getEncoded(), decoded.getPublic().getEncoded());
+		Assert.assertArrayEquals(keyPair.getPrivate().getEncoded(), decoded.getPrivate().getEncoded());
+		Assert.assertTrue(EncryptionUtil.verify("data".getBytes(),
+				EncryptionUtil.sign("data".getBytes(), decoded.getPrivate()), keyPair.getPublic()));
+	}
+
+	@Test
+	public void testNull() {
+		Assert.assertNull(EncodedKeyPair.encode(null));
+		Assert.assertNull(EncodedKeyPair.decode(null));
+	}
+
+	@Test
+	public void testDifferentKeys() {
+		EncodedKeyPair encoded1 = new EncodedKeyPair(EncryptionUtil.generateRSAKeyPair(RSA_KEYLENGTH.BIT_512));
+		EncodedKeyPair encoded2 = new EncodedKeyPair(EncryptionUtil.generateRSAKeyPair(RSA_KEYLENGTH.BIT_512));
+		Assert.assertFalse(encoded1.equals(encoded2));
+		Assert.assertFalse(encoded1.matches(encoded2.getKeyPair()));
+	}
+
+	@AfterClass
+	public static void endTest() {
+		afterClass();
+	}
+}
@@ -395,6 +395,57 @@ public class EncryptionUtilTest extends H2HJUnitTest {
 		logger.debug("elapsed time = {}", elapsedTime);
 	}
 
+	@Test
+	public void sessionEncryptionTest() throws DataLengthException, IllegalStateException,
+			InvalidCipherTextException {
+		byte[] data = NetworkTestUtil.randomString().getBytes();
+		SessionKey sessionKey = SessionKey.generate();
+
+		String senderId = NetworkTestUtil.randomString();
+		SessionEncryptedContent encrypted = H2HEncryptionUtil.encryptSession(data, sessionKey, senderId, 7);
+		assertEquals(sessionKey.getId(), encrypted.getSessionId());
+		assertEquals(senderId, encrypted.getSenderId());
+		assertEquals(7, encrypted.getSequenceNumber());
+		assertFalse(Arrays.equals(data, encrypted.getEncryptedData()));
+		assertTrue(Arrays.equals(data, H2HEncryptionUtil.decryptSession(encrypted, sessionKey)));
+
+		// tampered content must be rejected
+		byte[] tampered = encrypted.getEncryptedData().clone();
+		tampered[0] ^= 1;
+		try {
+			H2HEncryptionUtil.decryptSession(new SessionEncryptedContent(encrypted.getSessionId(), senderId, 7,
+					encrypted.getInitVector(), tampered, encrypted.getMac()), sessionKey);
+			Assert.fail("Tampered content has been decrypted");
+		} catch (InvalidCipherTextException e) {
+			// expected
+		}
+
+		// the sender and the sequence number are authenticated, too
+		try {
+			H2HEncryptionUtil.decryptSession(new SessionEncryptedContent(encrypted.getSessionId(),
+					NetworkTestUtil.randomString(), 7, encrypted.getInitVector(), encrypted.getEncryptedData(),
+					encrypted.getMac()), sessionKey);
+			Assert.fail("Content of another sender has been decrypted");
+		} catch (InvalidCipherTextException e) {
+			// expected
+		}
+		try {
+			H2HEncryptionUtil.decryptSession(new SessionEncryptedContent(encrypted.getSessionId(), senderId, 8,
+					encrypted.getInitVector(), encrypted.getEncryptedData(), encrypted.getMac()), sessionKey);
+			Assert.fail("Content with another sequence number has been decrypted");
+		} catch (InvalidCipherTextException e) {
+			// expected
+		}
+
+		// another session key must be rejected
+		try {
+			H2HEncryptionUtil.decryptSession(encrypted, SessionKey.generate());
+			Assert.fail("Content has been decrypted with the wrong session key");
+		} catch (InvalidCipherTextException e) {
+			// expected
+		}
+	}
+
 	public static AES_KEYLENGTH[] getAESKeySizes() {
 		AES_KEYLENGTH[] sizes = new AES_KEYLENGTH[AES_KEYLENGTH.values().length];
 		for (int i = 0; i < sizes.length; i++) {